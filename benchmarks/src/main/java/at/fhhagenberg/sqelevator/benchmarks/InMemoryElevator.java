@@ -0,0 +1,186 @@
+package at.fhhagenberg.sqelevator.benchmarks;
+
+import sqelevator.IElevator;
+
+/**
+ * Fast in-memory implementation of the elevator interface. Does nothing but return its fields and count the calls, so
+ * the benchmarks measure the cost of the control center itself. Not thread-safe, the benchmarks run single-threaded.
+ */
+public class InMemoryElevator implements IElevator {
+
+    final int numberOfElevators;
+    final int numberOfFloors;
+    long clockTick = 0;
+
+    final boolean[] buttonUp;
+    final boolean[] buttonDown;
+    final boolean[][] elevatorButtons;
+    final boolean[][] servicesFloors;
+    final int[] committedDirection;
+    final int[] target;
+    final int[] doorStatus;
+    final int[] floor;
+    final int[] position;
+    final int[] speed;
+    final int[] weight;
+
+    long calls = 0;
+
+    /**
+     * Creates a building with some pressed buttons and the cars spread over the floors.
+     * @param numberOfElevators The number of elevators.
+     * @param numberOfFloors The number of floors.
+     */
+    public InMemoryElevator(int numberOfElevators, int numberOfFloors) {
+        this.numberOfElevators = numberOfElevators;
+        this.numberOfFloors = numberOfFloors;
+        buttonUp = new boolean[numberOfFloors];
+        buttonDown = new boolean[numberOfFloors];
+        elevatorButtons = new boolean[numberOfElevators][numberOfFloors];
+        servicesFloors = new boolean[numberOfElevators][numberOfFloors];
+        committedDirection = new int[numberOfElevators];
+        target = new int[numberOfElevators];
+        doorStatus = new int[numberOfElevators];
+        floor = new int[numberOfElevators];
+        position = new int[numberOfElevators];
+        speed = new int[numberOfElevators];
+        weight = new int[numberOfElevators];
+
+        for (int f = 0; f < numberOfFloors; f += 7) {
+            buttonUp[f] = true;
+            buttonDown[numberOfFloors - 1 - f] = true;
+        }
+        for (int i = 0; i < numberOfElevators; i++) {
+            committedDirection[i] = i % 3;
+            doorStatus[i] = ELEVATOR_DOORS_OPEN;
+            floor[i] = (i * 13) % numberOfFloors;
+            target[i] = floor[i];
+            position[i] = floor[i] * 4;
+            weight[i] = 70 * (i % 5);
+            elevatorButtons[i][(i * 5) % numberOfFloors] = true;
+            for (int f = 0; f < numberOfFloors; f++) {
+                servicesFloors[i][f] = true;
+            }
+        }
+    }
+
+    @Override
+    public int getCommittedDirection(int elevatorNumber) {
+        calls++;
+        return committedDirection[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorAccel(int elevatorNumber) {
+        calls++;
+        return 0;
+    }
+
+    @Override
+    public boolean getElevatorButton(int elevatorNumber, int floor) {
+        calls++;
+        return elevatorButtons[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getElevatorDoorStatus(int elevatorNumber) {
+        calls++;
+        return doorStatus[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorFloor(int elevatorNumber) {
+        calls++;
+        return floor[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorNum() {
+        calls++;
+        return numberOfElevators;
+    }
+
+    @Override
+    public int getElevatorPosition(int elevatorNumber) {
+        calls++;
+        return position[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorSpeed(int elevatorNumber) {
+        calls++;
+        return speed[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorWeight(int elevatorNumber) {
+        calls++;
+        return weight[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorCapacity(int elevatorNumber) {
+        calls++;
+        return 10;
+    }
+
+    @Override
+    public boolean getFloorButtonDown(int floor) {
+        calls++;
+        return buttonDown[floor];
+    }
+
+    @Override
+    public boolean getFloorButtonUp(int floor) {
+        calls++;
+        return buttonUp[floor];
+    }
+
+    @Override
+    public int getFloorHeight() {
+        calls++;
+        return 4;
+    }
+
+    @Override
+    public int getFloorNum() {
+        calls++;
+        return numberOfFloors;
+    }
+
+    @Override
+    public boolean getServicesFloors(int elevatorNumber, int floor) {
+        calls++;
+        return servicesFloors[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getTarget(int elevatorNumber) {
+        calls++;
+        return target[elevatorNumber];
+    }
+
+    @Override
+    public void setCommittedDirection(int elevatorNumber, int direction) {
+        calls++;
+        committedDirection[elevatorNumber] = direction;
+    }
+
+    @Override
+    public void setServicesFloors(int elevatorNumber, int floor, boolean service) {
+        calls++;
+        servicesFloors[elevatorNumber][floor] = service;
+    }
+
+    @Override
+    public void setTarget(int elevatorNumber, int target) {
+        calls++;
+        this.target[elevatorNumber] = target;
+    }
+
+    @Override
+    public long getClockTick() {
+        calls++;
+        return clockTick;
+    }
+}
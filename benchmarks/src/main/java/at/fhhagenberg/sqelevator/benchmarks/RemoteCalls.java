@@ -0,0 +1,23 @@
+package at.fhhagenberg.sqelevator.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the calls to the elevator interface. JMH reports the counter as a secondary result in the same unit as the
+ * primary result, so dividing it by the primary score gives the number of remote calls per tick.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RemoteCalls {
+
+    public long remoteCalls;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        remoteCalls = 0;
+    }
+}
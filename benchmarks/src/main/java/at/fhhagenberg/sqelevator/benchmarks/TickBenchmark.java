@@ -0,0 +1,119 @@
+package at.fhhagenberg.sqelevator.benchmarks;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the polling and control hot path of the model against an in-memory building. One operation is one
+ * tick of the respective part. Run with the GC profiler (-prof gc) to see the allocation rate per tick, the remoteCalls
+ * counter divided by the score gives the remote calls per tick. The decisions of the control are only queued and sent
+ * at the end of a tick, so they are measured as part of {@link #update}, which includes the write path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    private static final int OBSERVERS = 4;
+
+    /**
+     * Size of the building, as elevators x floors.
+     */
+    @Param({"1x10", "4x20", "8x50", "16x100", "32x200"})
+    public String building;
+
+    private InMemoryElevator elevator;
+
+    private ApplicationModel model;
+
+    private int numberOfElevators;
+
+    private int numberOfFloors;
+
+    private ApplicationState[] snapshots;
+
+    private int snapshotIndex;
+
+    private Blackhole blackhole;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        String[] size = building.split("x");
+        numberOfElevators = Integer.parseInt(size[0]);
+        numberOfFloors = Integer.parseInt(size[1]);
+
+        elevator = new InMemoryElevator(numberOfElevators, numberOfFloors);
+        model = new ApplicationModel(elevator);
+        model.initApplication();
+
+        for (int i = 0; i < OBSERVERS; i++) {
+            model.addObserver(observer());
+        }
+        model.addDeltaObserver((delta, state) -> this.blackhole.consume(delta));
+
+        // Two different states, so the observers see a change with every notification
+        elevator.clockTick++;
+        model.update();
+        ApplicationState first = model.getSnapshot();
+        elevator.buttonUp[numberOfFloors - 1] = !elevator.buttonUp[numberOfFloors - 1];
+        elevator.position[0] += 1;
+        elevator.clockTick++;
+        model.update();
+        snapshots = new ApplicationState[] {first, model.getSnapshot()};
+    }
+
+    private IEccObserver observer() {
+        return state -> blackhole.consume(state);
+    }
+
+    @Benchmark
+    public void update(RemoteCalls calls) {
+        long before = elevator.calls;
+        elevator.clockTick++;
+        model.update();
+        calls.remoteCalls += elevator.calls - before;
+    }
+
+    @Benchmark
+    public void updateElevatorData(RemoteCalls calls) throws RemoteException {
+        long before = elevator.calls;
+        for (int i = 0; i < numberOfElevators; i++) {
+            model.updateElevatorData(i, numberOfFloors);
+        }
+        calls.remoteCalls += elevator.calls - before;
+    }
+
+    @Benchmark
+    public void updateUpDownRequestLists(RemoteCalls calls) throws RemoteException {
+        long before = elevator.calls;
+        model.updateUpDownRequestLists(numberOfFloors);
+        calls.remoteCalls += elevator.calls - before;
+    }
+
+    @Benchmark
+    public void notifyObservers() {
+        snapshotIndex ^= 1;
+        model.notifyObservers(snapshots[snapshotIndex]);
+    }
+}
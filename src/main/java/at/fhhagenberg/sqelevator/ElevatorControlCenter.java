@@ -1,30 +1,193 @@
 package at.fhhagenberg.sqelevator;
 
 import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.controller.AdaptivePollingRate;
+import at.fhhagenberg.sqelevator.controller.Building;
 import at.fhhagenberg.sqelevator.controller.EccController;
+import at.fhhagenberg.sqelevator.journal.StateJournal;
 import at.fhhagenberg.sqelevator.model.ApplicationModel;
-import at.fhhagenberg.sqelevator.view.EccView;
+import at.fhhagenberg.sqelevator.model.ConnectionManager;
+import at.fhhagenberg.sqelevator.model.ParallelStateFetcher;
+import at.fhhagenberg.sqelevator.model.ParkingPlanner;
+import at.fhhagenberg.sqelevator.model.ZoningPlanner;
+import at.fhhagenberg.sqelevator.monitoring.RemoteCallMonitor;
+import at.fhhagenberg.sqelevator.view.EventQueueObserver;
 import at.fhhagenberg.sqelevator.view.OperatorView;
+import at.fhhagenberg.sqelevator.view.SelectedBuildingObserver;
+import at.fhhagenberg.sqelevator.view.ShaftOverviewView;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Main class of the program, contains the launcher method
  */
 public class ElevatorControlCenter {
 
+    private static final String LOG_FORMAT_PROPERTY = "java.util.logging.SimpleFormatter.format";
+
     /**
-     * Main method of the program. Sets up the MVC structure and launches the application.
-     * @param args Possible command line arguments. Not in use.
+     * Main method of the program. Sets up the MVC structure and launches the application. With the argument
+     * {@value Constants#HEADLESS_ARGUMENT}, the buildings are controlled without a view, see
+     * {@link HeadlessControlCenter}. Each argument {@value Constants#BUILDING_ARGUMENT}{@code <name>=<rmi url>} adds a
+     * building, without any the building at {@value Constants#DEFAULT_RMI_URL} is controlled.
+     * @param args Possible command line arguments.
      */
     public static void main(String[] args) {
 
-        ApplicationModel model = new ApplicationModel();
+        Map<String, String> endpoints;
+        try {
+            endpoints = parseBuildings(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        if (Arrays.asList(args).contains(Constants.HEADLESS_ARGUMENT)) {
+            runHeadless(endpoints);
+        } else {
+            openOperatorView(endpoints);
+        }
+    }
 
-        EccController controller = new EccController(model);
-        EccView view = new OperatorView(controller, Constants.DEFAULT_WINDOW_WIDTH, Constants.DEFAULT_WINDOW_HEIGHT);
+    /**
+     * Reads the buildings to control from the command line arguments.
+     * @param args The command line arguments.
+     * @return The RMI URLs of the buildings by their names, in the order of the arguments.
+     * @throws IllegalArgumentException Thrown if a building argument is malformed or a name is used twice.
+     */
+    static Map<String, String> parseBuildings(String[] args) {
+        Map<String, String> endpoints = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith(Constants.BUILDING_ARGUMENT)) {
+                continue;
+            }
+            String endpoint = arg.substring(Constants.BUILDING_ARGUMENT.length());
+            int separator = endpoint.indexOf('=');
+            String name = separator > 0 ? endpoint.substring(0, separator) : "";
+            String url = endpoint.substring(separator + 1);
+            if (!name.matches(Constants.BUILDING_NAME_PATTERN) || url.isEmpty()) {
+                throw new IllegalArgumentException("Expected " + Constants.BUILDING_ARGUMENT
+                        + "<name>=<rmi url> with a name of letters, digits, '.', '_' or '-', got " + arg);
+            }
+            if (endpoints.put(name, url) != null) {
+                throw new IllegalArgumentException("Building " + name + " is configured twice");
+            }
+        }
+        if (endpoints.isEmpty()) {
+            endpoints.put(Constants.DEFAULT_MONITOR_NAME, Constants.DEFAULT_RMI_URL);
+        }
+        return endpoints;
+    }
 
-        model.addObserver(view);
+    /**
+     * Launches the operator application with its window and the overview of all shafts. The state of each building is
+     * fetched and its commands are sent concurrently, the tasks of all buildings share one executor.
+     * @param endpoints The RMI URLs of the buildings by their names.
+     */
+    private static void openOperatorView(Map<String, String> endpoints) {
+
+        ExecutorService fetchExecutor = ParallelStateFetcher.createExecutor(Constants.FETCH_MAX_PARALLELISM);
+        List<Building> buildings = createBuildings(endpoints);
+        for (Building building : buildings) {
+            building.getModel().setParallelFetcher(new ParallelStateFetcher(fetchExecutor,
+                    Constants.FETCH_MAX_PARALLELISM, Constants.FETCH_FLOORS_PER_TASK));
+            building.getModel().setCommandExecutor(fetchExecutor);
+            StateJournal journal = building.getModel().getJournal();
+            if (journal != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+            }
+        }
+
+        EccController controller = new EccController(buildings);
+        OperatorView view = new OperatorView(controller, Constants.DEFAULT_WINDOW_WIDTH,
+                Constants.DEFAULT_WINDOW_HEIGHT);
+        ShaftOverviewView overview = new ShaftOverviewView(controller, Constants.OVERVIEW_WINDOW_WIDTH,
+                Constants.OVERVIEW_WINDOW_HEIGHT);
+
+        for (int i = 0; i < buildings.size(); i++) {
+            buildings.get(i).getModel().addObserver(new EventQueueObserver(new SelectedBuildingObserver(controller,
+                    i, view), Constants.VIEW_MAX_FRAMES_PER_SECOND));
+            buildings.get(i).getModel().addObserver(new EventQueueObserver(new SelectedBuildingObserver(controller,
+                    i, overview), Constants.OVERVIEW_MAX_FRAMES_PER_SECOND));
+        }
+        // The operator view renders the newly selected building itself
+        controller.addSelectionObserver(overview);
         controller.initApplication();
-        view.open();
+        controller.openView(view);
+        controller.openView(overview);
     }
 
+    /**
+     * Controls the buildings without a view until the process is terminated, e.g. by SIGTERM or SIGINT. The state is
+     * fetched sequentially, a building is polled by a single thread to keep the footprint of an instance small.
+     * @param endpoints The RMI URLs of the buildings by their names.
+     */
+    private static void runHeadless(Map<String, String> endpoints) {
+
+        System.setProperty("java.awt.headless", "true");
+        if (System.getProperty(LOG_FORMAT_PROPERTY) == null) {
+            System.setProperty(LOG_FORMAT_PROPERTY, Constants.HEADLESS_LOG_FORMAT);
+        }
+
+        HeadlessControlCenter controlCenter = new HeadlessControlCenter(createBuildings(endpoints),
+                ManagementFactory.getPlatformMBeanServer());
+        Runtime.getRuntime().addShutdownHook(new Thread(controlCenter::stop));
+        controlCenter.start();
+        try {
+            controlCenter.awaitStop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets up a building with its own model, planners, remote call monitor, journal and adaptive polling per endpoint.
+     * With several buildings, each journal is kept in a subdirectory named after its building.
+     * @param endpoints The RMI URLs of the buildings by their names.
+     * @return The buildings, not started yet.
+     */
+    private static List<Building> createBuildings(Map<String, String> endpoints) {
+
+        List<Building> buildings = new ArrayList<>(endpoints.size());
+        for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+            String name = endpoint.getKey();
+            ApplicationModel model = new ApplicationModel(ConnectionManager.forUrl(endpoint.getValue()));
+            // Only buildings with enough floors are zoned
+            model.setZoning(new ZoningPlanner());
+            model.setParking(new ParkingPlanner());
+
+            RemoteCallMonitor callMonitor = new RemoteCallMonitor(name);
+            callMonitor.registerMBeans(ManagementFactory.getPlatformMBeanServer());
+            model.setCallMonitor(callMonitor);
+
+            Path journalDirectory = Paths.get(Constants.JOURNAL_DIRECTORY);
+            model.setJournal(openJournal(endpoints.size() > 1 ? journalDirectory.resolve(name) : journalDirectory));
+
+            buildings.add(new Building(name, model, new AdaptivePollingRate(Constants.ADAPTIVE_MIN_INTERVAL_MS,
+                    Constants.ADAPTIVE_MAX_INTERVAL_MS, Constants.HALL_CALL_REACTION_BOUND_MS)));
+        }
+        return buildings;
+    }
+
+    /**
+     * @param directory The directory of the journal.
+     * @return The journal in the given directory, or null if it cannot be created.
+     */
+    private static StateJournal openJournal(Path directory) {
+        try {
+            return new StateJournal(directory);
+        } catch (IOException e) {
+            System.err.println("Journal disabled: " + e.getMessage());
+            return null;
+        }
+    }
 }
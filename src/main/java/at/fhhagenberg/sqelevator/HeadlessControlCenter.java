@@ -0,0 +1,118 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.controller.Building;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.AsyncObserver;
+import at.fhhagenberg.sqelevator.monitoring.BuildingMetrics;
+import at.fhhagenberg.sqelevator.monitoring.StateLogObserver;
+
+import javax.management.MBeanServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+/**
+ * Runs the control of one or several buildings without a view, e.g. on a server without a display. The models are
+ * polled like in the operator application, but their states are observed by {@link BuildingMetrics}, published via
+ * JMX, and a {@link StateLogObserver} per building instead. Neither this class nor the classes it uses load AWT.
+ */
+public class HeadlessControlCenter {
+
+    private static final Logger LOGGER = StateLogObserver.getLogger();
+
+    private final List<Building> buildings;
+
+    private final List<BuildingMetrics> metrics;
+
+    private final List<AsyncObserver> logObservers;
+
+    private final MBeanServer server;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private boolean started = false;
+
+    /**
+     * Constructor.
+     * @param buildings The buildings to control, each set up with the planners to use.
+     * @param server The MBean server to publish the metrics with, or null to not publish them.
+     */
+    public HeadlessControlCenter(List<Building> buildings, MBeanServer server) {
+        this.buildings = List.copyOf(buildings);
+        this.server = server;
+        this.metrics = new ArrayList<>(buildings.size());
+        this.logObservers = new ArrayList<>(buildings.size());
+        for (Building building : buildings) {
+            BuildingMetrics buildingMetrics = new BuildingMetrics(building.getName());
+            ApplicationModel model = building.getModel();
+            model.addObserver(buildingMetrics);
+            // Writing the log may block, it must not hold up the control of the building
+            logObservers.add(model.addAsyncObserver(new StateLogObserver(building.getName(), buildingMetrics,
+                    Constants.HEADLESS_SUMMARY_INTERVAL_MS, System::currentTimeMillis)));
+            metrics.add(buildingMetrics);
+        }
+    }
+
+    /**
+     * Starts connecting to the buildings and polling them.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (int i = 0; i < buildings.size(); i++) {
+            if (server != null) {
+                metrics.get(i).registerMBean(server);
+            }
+            buildings.get(i).start();
+            LOGGER.info(buildings.get(i).getName() + ": started");
+        }
+    }
+
+    /**
+     * Stops polling, reconnecting and journaling, and removes the MBeans. Can be called from a shutdown hook, e.g. on
+     * a termination signal.
+     */
+    public synchronized void stop() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        for (int i = 0; i < buildings.size(); i++) {
+            Building building = buildings.get(i);
+            building.stop();
+            if (building.getModel().getJournal() != null) {
+                building.getModel().getJournal().close();
+            }
+            metrics.get(i).unregisterMBean();
+            building.getModel().removeObserver(logObservers.get(i).getDelegate());
+            LOGGER.info(building.getName() + ": stopped after " + building.getPollingEngine().getTickCount()
+                    + " polls");
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * Blocks until the control center has been stopped.
+     * @throws InterruptedException Thrown if the waiting thread is interrupted.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * @param buildingIndex The index of the building.
+     * @return The metrics of the building.
+     */
+    public BuildingMetrics getMetrics(int buildingIndex) {
+        return metrics.get(buildingIndex);
+    }
+
+    // Generated
+
+    public List<Building> getBuildings() {
+        return buildings;
+    }
+}
@@ -13,5 +13,97 @@ public class Constants {
 
     public static final int UPDATE_RATE_MS = 60;
 
-    public static final String ACTION_COMMAND_TIMER = "TimerTick";
+    public static final int ADAPTIVE_MIN_INTERVAL_MS = 30;
+
+    public static final int HALL_CALL_REACTION_BOUND_MS = 250;
+
+    public static final int ADAPTIVE_MAX_INTERVAL_MS = HALL_CALL_REACTION_BOUND_MS;
+
+    public static final String POLLING_THREAD_NAME = "ecc-polling";
+
+    public static final String OBSERVER_THREAD_NAME = "ecc-observer";
+
+    public static final String FRAME_THREAD_NAME = "ecc-frames";
+
+    public static final int VIEW_MAX_FRAMES_PER_SECOND = 30;
+
+    public static final int OVERVIEW_MAX_FRAMES_PER_SECOND = 60;
+
+    public static final String OVERVIEW_WINDOW_TITLE = "Elevator Control Center - Overview";
+
+    public static final int OVERVIEW_WINDOW_WIDTH = 1000;
+
+    public static final int OVERVIEW_WINDOW_HEIGHT = 800;
+
+    public static final int FETCH_MAX_PARALLELISM = 16;
+
+    public static final int FETCH_FLOORS_PER_TASK = 16;
+
+    public static final int MAX_TORN_SNAPSHOT_RETRIES = 2;
+
+    public static final int SERVICES_FLOORS_REFRESH_FETCHES = 500;
+
+    public static final String DEFAULT_RMI_URL = "rmi://localhost/ElevatorSim";
+
+    public static final String RECONNECT_THREAD_NAME = "ecc-reconnect";
+
+    public static final int RECONNECT_INITIAL_DELAY_MS = 100;
+
+    public static final int RECONNECT_MAX_DELAY_MS = 5000;
+
+    public static final double RECONNECT_JITTER = 0.5;
+
+    public static final String DEFAULT_MONITOR_NAME = "ecc";
+
+    public static final int PASSENGER_WEIGHT = 75;
+
+    public static final int DISPATCH_FLOOR_TRAVEL_MS = 1500;
+
+    public static final int DISPATCH_STOP_MS = 8000;
+
+    public static final int DISPATCH_REASSIGN_MARGIN_MS = 4000;
+
+    public static final double DISPATCH_FULL_LOAD_FACTOR = 0.8;
+
+    public static final int DISPATCH_FULL_CAR_PENALTY_MS = 60_000;
+
+    public static final int ZONING_MIN_FLOORS = 16;
+
+    public static final int ZONING_FLOORS_PER_ZONE = 8;
+
+    public static final long ZONING_INTERVAL_TICKS = 3000;
+
+    public static final double ZONING_DEMAND_DECAY = 0.5;
+
+    public static final long PARKING_SLOT_MILLIS = 15 * 60 * 1000L;
+
+    public static final float PARKING_SMOOTHING = 0.2f;
+
+    public static final float PARKING_MIN_EXPECTED_CALLS = 2f;
+
+    public static final int PARKING_MIN_DISTANCE_FLOORS = 3;
+
+    public static final String JOURNAL_DIRECTORY = "journal";
+
+    public static final int JOURNAL_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    public static final int JOURNAL_MAX_SEGMENTS = 6;
+
+    public static final int JOURNAL_FLUSH_INTERVAL_MS = 1000;
+
+    public static final String JOURNAL_THREAD_NAME = "ecc-journal";
+
+    public static final int REPLAY_MAX_REPORTED_DIFFERENCES = 1000;
+
+    public static final String HEADLESS_ARGUMENT = "--headless";
+
+    public static final String HEADLESS_LOG_FORMAT = "%1$tF %1$tT %4$s %5$s%6$s%n";
+
+    public static final long HEADLESS_SUMMARY_INTERVAL_MS = 60_000;
+
+    public static final String BUILDING_ARGUMENT = "--building=";
+
+    public static final String BUILDING_NAME_PATTERN = "[A-Za-z0-9._-]+";
+
+    public static final String STALE_TITLE_SUFFIX = " - connection lost, reconnecting...";
 }
@@ -0,0 +1,106 @@
+package at.fhhagenberg.sqelevator.controller;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccDeltaObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.StateDelta;
+import sqelevator.IElevator;
+
+/**
+ * Determines the polling interval from the activity in the building. Observes the state changes and polls at the
+ * minimum interval while cars are moving, doors are opening or closing or new calls appear. While the building is
+ * quiet, the interval is doubled with every poll up to the maximum interval. The maximum interval never exceeds the
+ * reaction bound, so a new hall call is always picked up within that time.
+ */
+public class AdaptivePollingRate implements IEccDeltaObserver {
+
+    private final long minIntervalMs;
+
+    private final long maxIntervalMs;
+
+    private long currentIntervalMs;
+
+    private boolean active = true;
+
+    /**
+     * Constructor.
+     * @param minIntervalMs The polling interval while the building is active.
+     * @param maxIntervalMs The longest polling interval while the building is idle.
+     * @param reactionBoundMs The longest time a new hall call may stay unnoticed. Caps the maximum interval.
+     */
+    public AdaptivePollingRate(long minIntervalMs, long maxIntervalMs, long reactionBoundMs) {
+        if (minIntervalMs <= 0 || maxIntervalMs < minIntervalMs || reactionBoundMs < minIntervalMs) {
+            throw new IllegalArgumentException("Invalid polling interval bounds");
+        }
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = Math.min(maxIntervalMs, reactionBoundMs);
+        this.currentIntervalMs = minIntervalMs;
+    }
+
+    /**
+     * Calculates the interval until the next poll. Resets to the minimum interval if activity has been observed since
+     * the last call, otherwise backs off exponentially.
+     * @return The interval until the next poll in milliseconds.
+     */
+    public synchronized long nextIntervalMs() {
+        if (active) {
+            currentIntervalMs = minIntervalMs;
+        } else {
+            currentIntervalMs = Math.min(maxIntervalMs, currentIntervalMs * 2);
+        }
+        active = false;
+        return currentIntervalMs;
+    }
+
+    /**
+     * Marks the building as active, e.g. after an interaction of the user, so the next poll is done quickly.
+     */
+    public synchronized void markActive() {
+        active = true;
+    }
+
+    /**
+     * Checks the changes for activity: moving cars, doors in transition or changing their status, and newly pressed
+     * buttons. A state that did not change at all is not notified and therefore counts as idle.
+     * @param delta The changes compared to the previously notified state.
+     * @param applicationState The updated application state.
+     */
+    @Override
+    public synchronized void applicationStateDelta(StateDelta delta, ApplicationState applicationState) {
+        if (delta.isTopologyChanged() || delta.hasNewCalls()) {
+            active = true;
+            return;
+        }
+
+        for (StateDelta.ElevatorDelta elevatorDelta : delta.getElevatorDeltas()) {
+            if (elevatorDelta.hasChanged(StateDelta.FIELD_DOOR_STATUS)) {
+                active = true;
+                return;
+            }
+        }
+
+        for (Elevator elevator : applicationState.getElevators()) {
+            int doorStatus = elevator.getDoorStatus();
+            if (elevator.getCurrentSpeed() != 0
+                    || doorStatus == IElevator.ELEVATOR_DOORS_OPENING
+                    || doorStatus == IElevator.ELEVATOR_DOORS_CLOSING) {
+                active = true;
+                return;
+            }
+        }
+    }
+
+    // Generated
+
+    public long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    public long getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    public synchronized long getCurrentIntervalMs() {
+        return currentIntervalMs;
+    }
+}
@@ -0,0 +1,90 @@
+package at.fhhagenberg.sqelevator.controller;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+
+/**
+ * One building controlled by the application, with its own model, connection, planners and polling thread. Buildings
+ * share no state, so a slow or failing building never delays the others, and the polling threads of several buildings
+ * run on different cores.
+ */
+public class Building {
+
+    private final String name;
+
+    private final ApplicationModel model;
+
+    private final PollingEngine pollingEngine;
+
+    private final AdaptivePollingRate pollingRate;
+
+    /**
+     * Constructor for a building that is polled at an adaptive rate. The polling rate is registered as a delta observer
+     * of the model to follow the activity in the building.
+     * @param name The name of the building, unique within the application.
+     * @param model The model of the building, set up with the planners to use.
+     * @param pollingRate The adaptive polling rate of the building.
+     */
+    public Building(String name, ApplicationModel model, AdaptivePollingRate pollingRate) {
+        this(name, model, new PollingEngine(model::update, pollingRate::nextIntervalMs,
+                Constants.POLLING_THREAD_NAME + "-" + name), pollingRate);
+        model.addDeltaObserver(pollingRate);
+    }
+
+    /**
+     * Constructor for a building that is polled by the given engine.
+     * @param name The name of the building, unique within the application.
+     * @param model The model of the building.
+     * @param pollingEngine The engine that updates the model.
+     * @param pollingRate The adaptive polling rate used by the engine, or null if it polls at a fixed rate.
+     */
+    public Building(String name, ApplicationModel model, PollingEngine pollingEngine, AdaptivePollingRate pollingRate) {
+        this.name = name;
+        this.model = model;
+        this.pollingEngine = pollingEngine;
+        this.pollingRate = pollingRate;
+    }
+
+    /**
+     * Starts connecting to the building and polling it.
+     */
+    public void start() {
+        model.getConnectionManager().start();
+        pollingEngine.start();
+    }
+
+    /**
+     * Stops polling the building and reconnecting to it.
+     */
+    public void stop() {
+        pollingEngine.stop();
+        model.shutdown();
+    }
+
+    /**
+     * Tells the adaptive polling rate, if in use, that the user interacts with the building.
+     */
+    public void markActive() {
+        if (pollingRate != null) {
+            pollingRate.markActive();
+        }
+    }
+
+    // Generated
+
+    public String getName() {
+        return name;
+    }
+
+    public ApplicationModel getModel() {
+        return model;
+    }
+
+    public PollingEngine getPollingEngine() {
+        return pollingEngine;
+    }
+
+    public AdaptivePollingRate getPollingRate() {
+        return pollingRate;
+    }
+}
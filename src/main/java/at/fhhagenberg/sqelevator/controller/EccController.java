@@ -1,68 +1,151 @@
 package at.fhhagenberg.sqelevator.controller;
 
 import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
 import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.view.EccView;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Controller class that handles the interactions between the view and the model
  */
-public class EccController extends WindowAdapter implements ActionListener {
+public class EccController extends WindowAdapter {
 
-    private ApplicationModel model;
+    private final List<Building> buildings;
 
-    private Timer timer;
+    private volatile int selectedBuilding = 0;
+
+    private final List<IEccObserver> selectionObservers = new CopyOnWriteArrayList<>();
+
+    private final List<EccView> views = new CopyOnWriteArrayList<>();
 
     /**
-     * Constructor. Sets up the refresh timer of the system and initializes the controller with a model reference.
+     * Constructor. Sets up the fixed rate polling engine of the system and initializes the controller with a model
+     * reference.
      * @param model The reference to the model class of the application.
      */
     public EccController(ApplicationModel model) {
-        this.model = model;
-        this.timer = new Timer(Constants.UPDATE_RATE_MS, this);
-        timer.setActionCommand(Constants.ACTION_COMMAND_TIMER);
+        this(model, PollingEngine.SchedulingPolicy.FIXED_RATE);
     }
 
     /**
-     * Initializes the application on startup and starts the refresh timer.
+     * Constructor. Sets up the polling engine of the system with the given scheduling policy and initializes the
+     * controller with a model reference.
+     * @param model The reference to the model class of the application.
+     * @param policy The scheduling policy of the polling engine.
      */
-    public void initApplication() {
-        model.initApplication();
-        timer.start();
+    public EccController(ApplicationModel model, PollingEngine.SchedulingPolicy policy) {
+        this(List.of(new Building(Constants.DEFAULT_MONITOR_NAME, model, new PollingEngine(model::update,
+                Constants.UPDATE_RATE_MS, policy, Constants.POLLING_THREAD_NAME), null)));
     }
 
     /**
-     * Gets called each time the refresh timer "ticks". Triggers the model to update itself.
-     * @param e The action event that holds the identifier string of the sender.
+     * Constructor. Sets up an adaptive polling engine, which polls the model at the rate determined by the given
+     * polling rate, and initializes the controller with a model reference. The polling rate is registered as a
+     * delta observer of the model to follow the activity in the building.
+     * @param model The reference to the model class of the application.
+     * @param pollingRate The adaptive polling rate.
      */
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        switch (e.getActionCommand()) {
-            case Constants.ACTION_COMMAND_TIMER: {
-                model.update();
-                break;
-            }
-            default: {
-                break;
-            }
+    public EccController(ApplicationModel model, AdaptivePollingRate pollingRate) {
+        this(List.of(new Building(Constants.DEFAULT_MONITOR_NAME, model, new PollingEngine(model::update,
+                pollingRate::nextIntervalMs, Constants.POLLING_THREAD_NAME), pollingRate)));
+        model.addDeltaObserver(pollingRate);
+    }
+
+    /**
+     * Constructor for an application that controls several buildings. The interactions of the view are passed to the
+     * selected building, which is the first one initially.
+     * @param buildings The buildings, at least one.
+     */
+    public EccController(List<Building> buildings) {
+        if (buildings.isEmpty()) {
+            throw new IllegalArgumentException("At least one building is required");
+        }
+        this.buildings = List.copyOf(buildings);
+    }
+
+    /**
+     * Initializes the application on startup, starts connecting to the elevator interfaces and starts polling all
+     * buildings. The models are updated on the polling threads from now on, so the event dispatch thread is never
+     * blocked by the RMI communication.
+     */
+    public void initApplication() {
+        for (Building building : buildings) {
+            building.start();
         }
     }
 
     /**
-     * Called when the close button of the window is pressed. Stops the timer and ends the application.
+     * Opens the window of a view. The views opened by the controller are closed together with the main window.
+     * @param view The view to open.
+     */
+    public void openView(EccView view) {
+        views.add(view);
+        view.open();
+    }
+
+    /**
+     * Called when the close button of the main window is pressed. Stops polling and reconnecting to all buildings and
+     * closes all views opened by the controller. With no window left and only daemon threads running, the application
+     * ends.
      * @param e The window event.
      */
     @Override
     public void windowClosing(WindowEvent e) {
         super.windowClosing(e);
-        timer.stop();
-        e.getWindow().dispose();
+        for (Building building : buildings) {
+            building.stop();
+        }
+        for (EccView view : views) {
+            view.close();
+        }
+        views.clear();
+    }
+
+    /**
+     * @return The polling engine of the selected building, e.g. to query its jitter and overrun statistics.
+     */
+    public PollingEngine getPollingEngine() {
+        return getSelected().getPollingEngine();
+    }
+
+    /**
+     * @return The model of the selected building.
+     */
+    public ApplicationModel getModel() {
+        return getSelected().getModel();
+    }
+
+    /**
+     * Interface method for the view when the user switches between the buildings. The view shows the states of the
+     * selected building only. The selection observers are passed the most recent state of the newly selected
+     * building right away, on the calling thread.
+     * @param buildingIndex The index of the building to select.
+     */
+    public void setSelectedBuilding(int buildingIndex) {
+        if (buildingIndex < 0 || buildingIndex >= buildings.size() || buildingIndex == selectedBuilding) {
+            return;
+        }
+        selectedBuilding = buildingIndex;
+        ApplicationState snapshot = getModel().getSnapshot();
+        for (IEccObserver observer : selectionObservers) {
+            observer.applicationStateChanged(snapshot);
+        }
+    }
+
+    /**
+     * Registers an observer that is told about a switch of the selected building. A building publishes its state only
+     * when it changes, a disconnected one not at all, so a view would otherwise go on showing the previous building.
+     * @param observer The observer, e.g. a view of the selected building.
+     */
+    public void addSelectionObserver(IEccObserver observer) {
+        selectionObservers.add(observer);
     }
 
     /**
@@ -71,8 +154,10 @@ public class EccController extends WindowAdapter implements ActionListener {
      * @param i The floor to which the elevator should be sent.
      */
     public void setSelectedFloor(int elevatorIndex ,int i){
+        Building building = getSelected();
+        building.markActive();
         try {
-            model.setManualElevatorTarget(elevatorIndex,i);
+            building.getModel().setManualElevatorTarget(elevatorIndex,i);
         } catch (RemoteException e) {
             e.printStackTrace();
         }
@@ -84,7 +169,9 @@ public class EccController extends WindowAdapter implements ActionListener {
      * @param bool True for automatic, false for manual control of the elevator.
      */
     public void setAutomaticMode(int elevatorIndex, Boolean bool){
-        model.setElevatorAutomaticMode(elevatorIndex, bool);
+        Building building = getSelected();
+        building.markActive();
+        building.getModel().setElevatorAutomaticMode(elevatorIndex, bool);
     }
 
     /**
@@ -92,7 +179,21 @@ public class EccController extends WindowAdapter implements ActionListener {
      * @param elevatorIndex The index of the currently selected elevator.
      */
     public void setSelectedElevator(int elevatorIndex){
-        model.setSelectedElevator(elevatorIndex);
+        getModel().setSelectedElevator(elevatorIndex);
+    }
+
+    private Building getSelected() {
+        return buildings.get(selectedBuilding);
+    }
+
+    // Generated
+
+    public List<Building> getBuildings() {
+        return buildings;
+    }
+
+    public int getSelectedBuilding() {
+        return selectedBuilding;
     }
 
     // Autogenerated methods that had to be implemented, but are not in use.
@@ -0,0 +1,248 @@
+package at.fhhagenberg.sqelevator.controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Drives the periodic update of the model on its own scheduler thread, so that the blocking RMI calls of a tick never
+ * run on the AWT event dispatch thread. Keeps track of the scheduling jitter and of ticks that took longer than the
+ * configured period, or the current interval for adaptive polling (overruns).
+ */
+public class PollingEngine {
+
+    /**
+     * Scheduling policies supported by the engine.
+     */
+    public enum SchedulingPolicy {
+        /**
+         * Ticks are started at a fixed rate. Slots that are missed by an overrunning tick are skipped instead of being
+         * executed back to back, so ticks never pile up or overlap.
+         */
+        FIXED_RATE,
+        /**
+         * The next tick is started a fixed delay after the previous one has finished.
+         */
+        FIXED_DELAY,
+        /**
+         * The next tick is started after a delay that is determined anew after every tick, e.g. from the activity in
+         * the building.
+         */
+        ADAPTIVE
+    }
+
+    private final Runnable tick;
+
+    private final LongSupplier intervalMs;
+
+    private volatile long periodNanos;
+
+    private final SchedulingPolicy policy;
+
+    private final String threadName;
+
+    private ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> future;
+
+    // The statistics are only written by the polling thread, volatile is enough to publish them to readers.
+
+    private volatile long tickCount;
+
+    private volatile long overrunCount;
+
+    private volatile long errorCount;
+
+    private volatile long lastJitterNanos;
+
+    private volatile long maxJitterNanos;
+
+    private volatile long totalJitterNanos;
+
+    private volatile long lastDurationNanos;
+
+    private volatile long maxDurationNanos;
+
+    private long expectedStartNanos;
+
+    /**
+     * Constructor.
+     * @param tick The work to execute with every tick, typically the update of the model.
+     * @param periodMs The tick period (fixed rate) or the delay between ticks (fixed delay) in milliseconds.
+     * @param policy The scheduling policy.
+     * @param threadName The name of the polling thread.
+     */
+    public PollingEngine(Runnable tick, long periodMs, SchedulingPolicy policy, String threadName) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("The polling period has to be positive");
+        }
+        if (policy == SchedulingPolicy.ADAPTIVE) {
+            throw new IllegalArgumentException("Adaptive polling requires an interval supplier");
+        }
+        this.tick = tick;
+        this.intervalMs = null;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+        this.policy = policy;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Constructor for adaptive polling. After every tick, the delay until the next tick is queried from the supplier.
+     * @param tick The work to execute with every tick, typically the update of the model.
+     * @param intervalMs Supplies the delay until the next tick in milliseconds, e.g. an {@link AdaptivePollingRate}.
+     * @param threadName The name of the polling thread.
+     */
+    public PollingEngine(Runnable tick, LongSupplier intervalMs, String threadName) {
+        this.tick = tick;
+        this.intervalMs = intervalMs;
+        // The first interval is known after the first tick, which is executed immediately
+        this.periodNanos = 0;
+        this.policy = SchedulingPolicy.ADAPTIVE;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Starts the polling thread. The first tick is executed immediately. Calling start on a running engine has no
+     * effect.
+     */
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        expectedStartNanos = System.nanoTime();
+        future = scheduler.schedule(this::runTick, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the polling thread. A tick that is currently executed is allowed to finish.
+     */
+    public synchronized void stop() {
+        if (!isRunning()) {
+            return;
+        }
+        future.cancel(false);
+        scheduler.shutdown();
+        future = null;
+        scheduler = null;
+    }
+
+    /**
+     * @return True if the engine has been started and not stopped yet.
+     */
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Executes one tick, updates the statistics and schedules the next tick according to the policy. Exceptions of the
+     * tick are counted and swallowed, otherwise polling would silently end.
+     */
+    private void runTick() {
+        long start = System.nanoTime();
+        long jitter = start - expectedStartNanos;
+
+        try {
+            tick.run();
+        } catch (RuntimeException e) {
+            errorCount++;
+        }
+
+        long end = System.nanoTime();
+        long duration = end - start;
+
+        recordTick(Math.max(0, jitter), duration);
+
+        if (policy == SchedulingPolicy.FIXED_RATE) {
+            // Skip the slots that have already passed because of an overrunning tick
+            long missedSlots = (end - expectedStartNanos) / periodNanos;
+            expectedStartNanos += periodNanos * Math.max(1, missedSlots + 1);
+        } else if (policy == SchedulingPolicy.FIXED_DELAY) {
+            expectedStartNanos = end + periodNanos;
+        } else {
+            periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMs.getAsLong()));
+            expectedStartNanos = end + periodNanos;
+        }
+
+        scheduleNext(expectedStartNanos - System.nanoTime());
+    }
+
+    private synchronized void scheduleNext(long delayNanos) {
+        if (scheduler != null) {
+            future = scheduler.schedule(this::runTick, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordTick(long jitterNanos, long durationNanos) {
+        tickCount++;
+        lastJitterNanos = jitterNanos;
+        totalJitterNanos += jitterNanos;
+        if (jitterNanos > maxJitterNanos) {
+            maxJitterNanos = jitterNanos;
+        }
+        lastDurationNanos = durationNanos;
+        if (durationNanos > maxDurationNanos) {
+            maxDurationNanos = durationNanos;
+        }
+        if (periodNanos > 0 && durationNanos > periodNanos) {
+            overrunCount++;
+        }
+    }
+
+    /**
+     * @return The average delay between the planned and the actual start of a tick in nanoseconds.
+     */
+    public long getAverageJitterNanos() {
+        long ticks = tickCount;
+        return ticks == 0 ? 0 : totalJitterNanos / ticks;
+    }
+
+    // Generated
+
+    public SchedulingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The tick period, or the current interval for adaptive polling, in milliseconds.
+     */
+    public long getPeriodMs() {
+        return TimeUnit.NANOSECONDS.toMillis(periodNanos);
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getLastJitterNanos() {
+        return lastJitterNanos;
+    }
+
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    public long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    public long getMaxDurationNanos() {
+        return maxDurationNanos;
+    }
+}
@@ -0,0 +1,18 @@
+package at.fhhagenberg.sqelevator.interfaces;
+
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.StateDelta;
+
+/**
+ * Implemented by classes that only want to be notified about what actually changed in the application state. Not
+ * called at all if nothing changed.
+ */
+public interface IEccDeltaObserver {
+
+    /**
+     * Method to be called by the observable when its application state changes.
+     * @param delta The changes compared to the previously notified state. Never empty.
+     * @param applicationState The updated application state.
+     */
+    void applicationStateDelta(StateDelta delta, ApplicationState applicationState);
+}
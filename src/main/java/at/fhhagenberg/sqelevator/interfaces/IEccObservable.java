@@ -1,6 +1,7 @@
 package at.fhhagenberg.sqelevator.interfaces;
 
 import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.AsyncObserver;
 
 /**
  * Observable interface. Allows a class to be observed by others and to notify them when the status changes.
@@ -14,13 +15,35 @@ public interface IEccObservable {
     void addObserver(IEccObserver observer);
 
     /**
-     * Removes the specified observer from the list of observers of a class.
+     * Adds an observer that is notified on a delivery thread of its own. The notifying thread only hands the state
+     * over, if the observer falls behind, it skips to the latest state.
+     * @param observer The observer to be added.
+     * @return The asynchronous registration, which provides the delivery lag of the observer.
+     */
+    AsyncObserver addAsyncObserver(IEccObserver observer);
+
+    /**
+     * Removes the specified observer from the list of observers of a class. An asynchronous registration of the
+     * observer is closed.
      * @param observer The observer to remove.
      */
     void removeObserver(IEccObserver observer);
 
     /**
-     * Notifies all registered observers of changes to the application state.
+     * Adds an observer that is notified about the differences between consecutive states only.
+     * @param observer The observer to be added.
+     */
+    void addDeltaObserver(IEccDeltaObserver observer);
+
+    /**
+     * Removes the specified delta observer from the list of observers of a class.
+     * @param observer The observer to remove.
+     */
+    void removeDeltaObserver(IEccDeltaObserver observer);
+
+    /**
+     * Notifies all registered observers of changes to the application state. Delta observers are only notified if the
+     * state differs from the previously notified one.
      * @param applicationState The new, updated state of the application.
      */
     void notifyObservers(ApplicationState applicationState);
@@ -0,0 +1,179 @@
+package at.fhhagenberg.sqelevator.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the journal segments. A segment starts with a header, followed by records of the form
+ * {@code [type: byte][payload length: unsigned short][payload]}, and ends with a record of type {@link #END}, which is
+ * simply the zeroed rest of the pre-allocated file. The type of a record is written last, so a record interrupted by a
+ * crash is not read. Records of unknown types can be skipped by their length.
+ * Every segment begins with a {@link #TOPOLOGY} record that resets the state, followed by the full state of the
+ * building. From then on, only the values that changed are recorded, integers as zigzag varints.
+ */
+public final class JournalFormat {
+
+    public static final int MAGIC = 0x45434A31;
+
+    public static final short VERSION = 1;
+
+    /**
+     * Magic, version, sequence number and creation time of the segment, padded.
+     */
+    public static final int HEADER_BYTES = 32;
+
+    public static final int RECORD_HEADER_BYTES = 3;
+
+    public static final int MAX_PAYLOAD_BYTES = 0xFFFF;
+
+    public static final String SEGMENT_PREFIX = "journal-";
+
+    public static final String SEGMENT_SUFFIX = ".ecj";
+
+    // Record types
+
+    public static final byte END = 0;
+
+    /**
+     * Number of elevators and floors, floor height. Resets the state.
+     */
+    public static final byte TOPOLOGY = 1;
+
+    /**
+     * Wall clock time and clock tick of the simulation, the following state records belong to this tick.
+     */
+    public static final byte TICK = 2;
+
+    /**
+     * Elevator index, mask of the changed fields, and their values in the order of the fields.
+     */
+    public static final byte ELEVATOR = 3;
+
+    /**
+     * Elevator index and the changed floor buttons inside the car.
+     */
+    public static final byte CAR_BUTTONS = 4;
+
+    /**
+     * Elevator index and the changed serviced floors.
+     */
+    public static final byte SERVICED_FLOORS = 5;
+
+    /**
+     * The changed hall buttons.
+     */
+    public static final byte HALL_BUTTONS = 6;
+
+    /**
+     * Wall clock time, elevator index, command and its value and argument.
+     */
+    public static final byte COMMAND = 7;
+
+    // Fields of the elevator record
+
+    public static final int FIELD_DIRECTION = 0;
+
+    public static final int FIELD_TARGET = 1;
+
+    public static final int FIELD_ACCELERATION = 2;
+
+    public static final int FIELD_DOOR_STATUS = 3;
+
+    public static final int FIELD_FLOOR = 4;
+
+    public static final int FIELD_POSITION = 5;
+
+    public static final int FIELD_SPEED = 6;
+
+    public static final int FIELD_WEIGHT = 7;
+
+    public static final int FIELD_CAPACITY = 8;
+
+    /**
+     * 1 if the elevator is in automatic mode, 0 otherwise.
+     */
+    public static final int FIELD_AUTOMATIC = 9;
+
+    public static final int FIELD_COUNT = 10;
+
+    // Commands
+
+    public static final int COMMAND_TARGET = 1;
+
+    public static final int COMMAND_DIRECTION = 2;
+
+    /**
+     * The value is the floor, the argument 1 if the floor is serviced and 0 otherwise.
+     */
+    public static final int COMMAND_SERVICES_FLOORS = 3;
+
+    /**
+     * The value is 1 for automatic mode and 0 for manual mode.
+     */
+    public static final int COMMAND_AUTOMATIC = 4;
+
+    // Entries of the button records: the floor with flags
+
+    public static final int FLAG_PRESSED = 0x8000;
+
+    /**
+     * Marks the entry of a hall button as the button to go down.
+     */
+    public static final int FLAG_DOWN = 0x4000;
+
+    public static final int FLOOR_MASK = 0x3FFF;
+
+    /**
+     * Maximum number of floors that can be journaled, limited by the flags of the button entries.
+     */
+    public static final int MAX_FLOORS = FLOOR_MASK + 1;
+
+    public static final int MAX_VARINT_BYTES = 5;
+
+    private JournalFormat() {
+    }
+
+    /**
+     * @param sequence The sequence number of the segment.
+     * @return The file name of the segment, which sorts in the order of the sequence numbers.
+     */
+    public static String segmentName(long sequence) {
+        return String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @param fileName The file name.
+     * @return The sequence number of the segment, or -1 if the name is not the name of a segment.
+     */
+    public static long sequenceOf(String fileName) {
+        if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(),
+                    fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int zigzag = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
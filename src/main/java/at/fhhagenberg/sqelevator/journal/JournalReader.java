@@ -0,0 +1,121 @@
+package at.fhhagenberg.sqelevator.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the segments of a journal and passes their records to a {@link JournalVisitor}. The segments are mapped read
+ * only, so a journal can also be read while it is written.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    /**
+     * Reads all segments of the journal in the order of their sequence numbers.
+     * @param directory The directory of the journal.
+     * @param visitor The visitor to pass the records to.
+     * @throws IOException Thrown if a segment cannot be read, or is not a segment of a journal.
+     */
+    public static void read(Path directory, JournalVisitor visitor) throws IOException {
+        for (Path segment : JournalSegment.list(directory)) {
+            readSegment(segment, visitor);
+        }
+    }
+
+    /**
+     * Reads the records of a single segment up to its end.
+     * @param segment The segment file.
+     * @param visitor The visitor to pass the records to.
+     * @throws IOException Thrown if the segment cannot be read, or is not a segment of a journal.
+     */
+    public static void readSegment(Path segment, JournalVisitor visitor) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < JournalFormat.HEADER_BYTES || buffer.getInt() != JournalFormat.MAGIC) {
+            throw new IOException("Not a journal segment: " + segment);
+        }
+        if (buffer.getShort() != JournalFormat.VERSION) {
+            throw new IOException("Unsupported journal version: " + segment);
+        }
+        long sequence = buffer.getLong();
+        buffer.position(JournalFormat.HEADER_BYTES);
+
+        while (buffer.remaining() >= JournalFormat.RECORD_HEADER_BYTES) {
+            byte type = buffer.get();
+            if (type == JournalFormat.END) {
+                break;
+            }
+            int length = buffer.getShort() & JournalFormat.MAX_PAYLOAD_BYTES;
+            if (length > buffer.remaining()) {
+                throw new IOException("Truncated journal record: " + segment);
+            }
+            int end = buffer.position() + length;
+            readRecord(buffer, type, end, sequence, visitor);
+            buffer.position(end);
+        }
+    }
+
+    private static void readRecord(ByteBuffer buffer, byte type, int end, long sequence, JournalVisitor visitor) {
+        switch (type) {
+            case JournalFormat.TOPOLOGY:
+                visitor.topology(sequence, buffer.getShort() & 0xFFFF, buffer.getShort() & 0xFFFF,
+                        JournalFormat.getVarint(buffer));
+                break;
+            case JournalFormat.TICK:
+                visitor.tick(buffer.getLong(), buffer.getLong());
+                break;
+            case JournalFormat.ELEVATOR:
+                readElevator(buffer, visitor);
+                break;
+            case JournalFormat.CAR_BUTTONS:
+            case JournalFormat.SERVICED_FLOORS:
+                int elevatorIndex = buffer.getShort() & 0xFFFF;
+                while (buffer.position() < end) {
+                    int entry = buffer.getShort() & 0xFFFF;
+                    int floor = entry & JournalFormat.FLOOR_MASK;
+                    boolean set = (entry & JournalFormat.FLAG_PRESSED) != 0;
+                    if (type == JournalFormat.CAR_BUTTONS) {
+                        visitor.carButton(elevatorIndex, floor, set);
+                    } else {
+                        visitor.servicedFloor(elevatorIndex, floor, set);
+                    }
+                }
+                break;
+            case JournalFormat.HALL_BUTTONS:
+                while (buffer.position() < end) {
+                    int entry = buffer.getShort() & 0xFFFF;
+                    visitor.hallButton(entry & JournalFormat.FLOOR_MASK, (entry & JournalFormat.FLAG_DOWN) == 0,
+                            (entry & JournalFormat.FLAG_PRESSED) != 0);
+                }
+                break;
+            case JournalFormat.COMMAND:
+                long wallMillis = buffer.getLong();
+                int commandElevator = buffer.getShort() & 0xFFFF;
+                int command = buffer.get();
+                int value = JournalFormat.getVarint(buffer);
+                visitor.command(wallMillis, commandElevator, command, value, JournalFormat.getVarint(buffer));
+                break;
+            default:
+                // Unknown record, skipped by its length
+                break;
+        }
+    }
+
+    private static void readElevator(ByteBuffer buffer, JournalVisitor visitor) {
+        int elevatorIndex = buffer.getShort() & 0xFFFF;
+        int mask = buffer.getShort() & 0xFFFF;
+        for (int field = 0; field < JournalFormat.FIELD_COUNT; field++) {
+            if ((mask & (1 << field)) != 0) {
+                visitor.elevatorField(elevatorIndex, field, JournalFormat.getVarint(buffer));
+            }
+        }
+    }
+}
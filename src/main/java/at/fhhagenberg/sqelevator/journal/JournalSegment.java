@@ -0,0 +1,95 @@
+package at.fhhagenberg.sqelevator.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A segment file of the journal, pre-allocated to its full size and mapped into memory.
+ */
+class JournalSegment {
+
+    private static final int PAGE_BYTES = 4096;
+
+    private final Path path;
+
+    private final long sequence;
+
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long sequence, MappedByteBuffer buffer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new segment and writes its header. All pages are touched, so appending to the segment later does not
+     * fault in new pages of the file.
+     * @param directory The directory of the journal.
+     * @param sequence The sequence number of the segment.
+     * @param bytes The size of the segment.
+     * @param createdMillis The creation time, stored in the header.
+     * @return The segment, positioned after the header.
+     * @throws IOException Thrown if the file cannot be created or mapped.
+     */
+    static JournalSegment create(Path directory, long sequence, int bytes, long createdMillis) throws IOException {
+        Path path = directory.resolve(JournalFormat.segmentName(sequence));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(bytes);
+            // The mapping stays valid after the file has been closed
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            for (int page = 0; page < bytes; page += PAGE_BYTES) {
+                buffer.put(page, (byte) 0);
+            }
+            buffer.putInt(JournalFormat.MAGIC);
+            buffer.putShort(JournalFormat.VERSION);
+            buffer.putLong(sequence);
+            buffer.putLong(createdMillis);
+            buffer.position(JournalFormat.HEADER_BYTES);
+            return new JournalSegment(path, sequence, buffer);
+        }
+    }
+
+    /**
+     * Writes the mapped pages back to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * @param directory The directory of the journal.
+     * @return The segment files of the directory in the order of their sequence numbers.
+     * @throws IOException Thrown if the directory cannot be listed.
+     */
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> JournalFormat.sequenceOf(file.getFileName().toString()) >= 0).forEach(segments::add);
+        }
+        segments.sort(Comparator.comparingLong(file -> JournalFormat.sequenceOf(file.getFileName().toString())));
+        return segments;
+    }
+
+    // Generated
+
+    Path getPath() {
+        return path;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+}
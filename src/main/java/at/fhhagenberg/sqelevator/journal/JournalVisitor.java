@@ -0,0 +1,69 @@
+package at.fhhagenberg.sqelevator.journal;
+
+/**
+ * Receives the records of a journal in the order they have been written. All methods do nothing by default, so a
+ * visitor only implements the records it is interested in.
+ */
+public interface JournalVisitor {
+
+    /**
+     * Called at the start of every segment, before the complete state of the building. Resets the state: all values
+     * are 0 and no buttons are pressed.
+     * @param sequence The sequence number of the segment.
+     * @param numberOfElevators The number of elevators.
+     * @param numberOfFloors The number of floors.
+     * @param floorHeight The height of a floor.
+     */
+    default void topology(long sequence, int numberOfElevators, int numberOfFloors, int floorHeight) {
+    }
+
+    /**
+     * Called before the changes of a tick. Ticks without changes are not journaled.
+     * @param wallMillis The wall clock time the state has been journaled at.
+     * @param clockTick The clock tick of the simulation.
+     */
+    default void tick(long wallMillis, long clockTick) {
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @param field The changed field, one of the {@code FIELD_} constants of {@link JournalFormat}.
+     * @param value The new value.
+     */
+    default void elevatorField(int elevatorIndex, int field, int value) {
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @param floor The floor of the button inside the car.
+     * @param pressed The new state of the button.
+     */
+    default void carButton(int elevatorIndex, int floor, boolean pressed) {
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @param floor The floor.
+     * @param serviced True if the elevator services the floor from now on.
+     */
+    default void servicedFloor(int elevatorIndex, int floor, boolean serviced) {
+    }
+
+    /**
+     * @param floor The floor of the button.
+     * @param up True for the button to go up, false for the button to go down.
+     * @param pressed The new state of the button.
+     */
+    default void hallButton(int floor, boolean up, boolean pressed) {
+    }
+
+    /**
+     * @param wallMillis The wall clock time the command has been issued at.
+     * @param elevatorIndex The index of the elevator.
+     * @param command The command, one of the {@code COMMAND_} constants of {@link JournalFormat}.
+     * @param value The value of the command.
+     * @param argument The argument of the command, 0 if it has none.
+     */
+    default void command(long wallMillis, int elevatorIndex, int command, int value, int argument) {
+    }
+}
@@ -0,0 +1,503 @@
+package at.fhhagenberg.sqelevator.journal;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only journal of the state changes of the building and the commands issued to the elevators, see
+ * {@link JournalFormat} for the layout. The journal consists of memory-mapped segment files of a fixed size. Appending
+ * only compares the state with the previously journaled one and writes the changes into the mapped segment, it neither
+ * allocates nor blocks. A background thread pre-allocates the next segment, writes the mapped pages back to the files
+ * and deletes the oldest segments beyond the retention. If a segment is full and the next one is not ready yet, the
+ * records are dropped and counted rather than waiting for the file system.
+ * <p>
+ * Every fetched tick is journaled, even without changes, so that a replay updates as often as the recording. The tick
+ * record alone takes 19 bytes, about 16 MB per day and building at a polling interval of 100 ms. A moving car adds
+ * roughly 15-30 bytes per tick. With the default retention of 6 segments of 64 MB, the journal of an idle building
+ * reaches back about three weeks, that of a building with three busy cars about five days.
+ */
+public class StateJournal implements AutoCloseable {
+
+    private static final int NOT_JOURNALED = Integer.MIN_VALUE;
+
+    /**
+     * Entries per button record, so that the payload fits into the length of a record.
+     */
+    private static final int MAX_ENTRIES_PER_RECORD = 4096;
+
+    private static final int TICK_RECORD_BYTES = JournalFormat.RECORD_HEADER_BYTES + 16;
+
+    private static final int TOPOLOGY_RECORD_BYTES = JournalFormat.RECORD_HEADER_BYTES + 4
+            + JournalFormat.MAX_VARINT_BYTES;
+
+    private static final int COMMAND_RECORD_BYTES = JournalFormat.RECORD_HEADER_BYTES + 11
+            + 2 * JournalFormat.MAX_VARINT_BYTES;
+
+    private static final int ELEVATOR_RECORD_BYTES = JournalFormat.RECORD_HEADER_BYTES + 4
+            + JournalFormat.FIELD_COUNT * JournalFormat.MAX_VARINT_BYTES;
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    private final int maxSegments;
+
+    private final LongSupplier wallClock;
+
+    private final Thread maintenanceThread;
+
+    private volatile boolean closed = false;
+
+    /**
+     * The segment appended to, only replaced by the appending thread.
+     */
+    private volatile JournalSegment current;
+
+    /**
+     * The segment prepared by the background thread, taken over by the appending thread on rollover.
+     */
+    private volatile JournalSegment next = null;
+
+    private final ConcurrentLinkedQueue<JournalSegment> retired = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Sequence number of the next segment, only used by the background thread after the start.
+     */
+    private long nextSequence;
+
+    private boolean keyframeDue = true;
+
+    private int recordStart = -1;
+
+    // The journaled state, compared with the new state to find the changes
+
+    private int numberOfElevators = -1;
+
+    private int numberOfFloors = -1;
+
+    private int floorHeight = -1;
+
+    private int[] fields = new int[0];
+
+    private BitSet[] carButtons = new BitSet[0];
+
+    private BitSet[] servicedFloors = new BitSet[0];
+
+    private final BitSet hallUp = new BitSet();
+
+    private final BitSet hallDown = new BitSet();
+
+    private int worstCaseTickBytes;
+
+    private volatile long recordCount;
+
+    private volatile long droppedRecordCount;
+
+    private volatile long rolloverCount;
+
+    private volatile long allocationFailureCount;
+
+    /**
+     * Constructor using the settings of the constants and the system clock.
+     * @param directory The directory of the journal, created if it does not exist.
+     * @throws IOException Thrown if the first segment cannot be created.
+     */
+    public StateJournal(Path directory) throws IOException {
+        this(directory, Constants.JOURNAL_SEGMENT_BYTES, Constants.JOURNAL_MAX_SEGMENTS, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor. Creates the first segment after the existing ones and starts the background thread.
+     * @param directory The directory of the journal, created if it does not exist.
+     * @param segmentBytes The size of a segment file.
+     * @param maxSegments The number of segment files that are kept, including the current and the prepared one.
+     * @param wallClock Provides the wall clock time of the records, in milliseconds.
+     * @throws IOException Thrown if the first segment cannot be created.
+     */
+    public StateJournal(Path directory, int segmentBytes, int maxSegments, LongSupplier wallClock)
+            throws IOException {
+        if (segmentBytes <= JournalFormat.HEADER_BYTES + COMMAND_RECORD_BYTES || maxSegments < 2) {
+            throw new IllegalArgumentException("Invalid journal settings");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.wallClock = wallClock;
+
+        Files.createDirectories(directory);
+        List<Path> existing = JournalSegment.list(directory);
+        long sequence = existing.isEmpty()
+                ? 0
+                : JournalFormat.sequenceOf(existing.get(existing.size() - 1).getFileName().toString()) + 1;
+        current = JournalSegment.create(directory, sequence, segmentBytes, wallClock.getAsLong());
+        nextSequence = sequence + 1;
+
+        maintenanceThread = new Thread(this::maintain, Constants.JOURNAL_THREAD_NAME);
+        maintenanceThread.setDaemon(true);
+        maintenanceThread.start();
+    }
+
+    /**
+     * Journals the changes of the state since the previously journaled state, preceded by the time and clock tick.
+     * The tick is journaled even if nothing changed, so a replay updates its model exactly as often as the recorded
+     * run did, and the commands issued on that tick are not attributed to the previous one. The first state of every
+     * segment is journaled completely.
+     * @param state The updated state of the building.
+     */
+    public synchronized void appendState(ApplicationState state) {
+        if (closed) {
+            return;
+        }
+        // Higher floors cannot be encoded in the button records and are not journaled
+        int floors = Math.min(state.getNumberOfFloors(), JournalFormat.MAX_FLOORS);
+        if (state.getNumberOfElevators() != numberOfElevators || floors != numberOfFloors
+                || state.getFloorHeight() != floorHeight) {
+            resetTopology(state.getNumberOfElevators(), floors, state.getFloorHeight());
+        }
+        if (!ensureCapacity(worstCaseTickBytes)) {
+            droppedRecordCount++;
+            return;
+        }
+
+        ByteBuffer buffer = current.getBuffer();
+        if (keyframeDue) {
+            writeKeyframeReset(buffer);
+        }
+
+        begin(buffer);
+        buffer.putLong(wallClock.getAsLong());
+        buffer.putLong(state.getClockTick());
+        end(buffer, JournalFormat.TICK);
+
+        List<Elevator> elevators = state.getElevators();
+        for (int i = 0; i < numberOfElevators; i++) {
+            Elevator elevator = elevators.get(i);
+            appendElevator(buffer, i, elevator);
+            appendButtons(buffer, JournalFormat.CAR_BUTTONS, i, carButtons[i], elevator, false);
+            appendButtons(buffer, JournalFormat.SERVICED_FLOORS, i, servicedFloors[i], elevator, true);
+        }
+        appendHallButtons(buffer, state);
+        recordCount++;
+    }
+
+    /**
+     * Journals a command issued to an elevator.
+     * @param elevatorIndex The index of the elevator.
+     * @param command The command, one of the {@code COMMAND_} constants of {@link JournalFormat}.
+     * @param value The value of the command.
+     * @param argument The argument of the command, 0 if it has none.
+     */
+    public synchronized void appendCommand(int elevatorIndex, int command, int value, int argument) {
+        if (closed) {
+            return;
+        }
+        if (!ensureCapacity(COMMAND_RECORD_BYTES)) {
+            droppedRecordCount++;
+            return;
+        }
+
+        ByteBuffer buffer = current.getBuffer();
+        begin(buffer);
+        buffer.putLong(wallClock.getAsLong());
+        buffer.putShort((short) elevatorIndex);
+        buffer.put((byte) command);
+        JournalFormat.putVarint(buffer, value);
+        JournalFormat.putVarint(buffer, argument);
+        end(buffer, JournalFormat.COMMAND);
+        recordCount++;
+    }
+
+    private void resetTopology(int elevators, int floors, int height) {
+        numberOfElevators = elevators;
+        numberOfFloors = floors;
+        floorHeight = height;
+        fields = new int[elevators * JournalFormat.FIELD_COUNT];
+        carButtons = new BitSet[elevators];
+        servicedFloors = new BitSet[elevators];
+        for (int i = 0; i < elevators; i++) {
+            carButtons[i] = new BitSet(floors);
+            servicedFloors[i] = new BitSet(floors);
+        }
+
+        int buttonRecords = floors / MAX_ENTRIES_PER_RECORD + 1;
+        int buttonBytes = 2 * floors + buttonRecords * (JournalFormat.RECORD_HEADER_BYTES + 2);
+        worstCaseTickBytes = TOPOLOGY_RECORD_BYTES + TICK_RECORD_BYTES
+                + elevators * (ELEVATOR_RECORD_BYTES + 2 * buttonBytes) + 2 * buttonBytes;
+        keyframeDue = true;
+    }
+
+    /**
+     * Starts a keyframe: writes the topology, which resets the state of the reader, and forgets the journaled state,
+     * so the complete state is written.
+     */
+    private void writeKeyframeReset(ByteBuffer buffer) {
+        begin(buffer);
+        buffer.putShort((short) numberOfElevators);
+        buffer.putShort((short) numberOfFloors);
+        JournalFormat.putVarint(buffer, floorHeight);
+        end(buffer, JournalFormat.TOPOLOGY);
+
+        Arrays.fill(fields, NOT_JOURNALED);
+        for (int i = 0; i < numberOfElevators; i++) {
+            carButtons[i].clear();
+            servicedFloors[i].clear();
+        }
+        hallUp.clear();
+        hallDown.clear();
+        keyframeDue = false;
+    }
+
+    private void appendElevator(ByteBuffer buffer, int elevatorIndex, Elevator elevator) {
+        int offset = elevatorIndex * JournalFormat.FIELD_COUNT;
+        int mask = 0;
+        for (int field = 0; field < JournalFormat.FIELD_COUNT; field++) {
+            if (fieldValue(elevator, field) != fields[offset + field]) {
+                mask |= 1 << field;
+            }
+        }
+        if (mask == 0) {
+            return;
+        }
+
+        begin(buffer);
+        buffer.putShort((short) elevatorIndex);
+        buffer.putShort((short) mask);
+        for (int field = 0; field < JournalFormat.FIELD_COUNT; field++) {
+            if ((mask & (1 << field)) != 0) {
+                int value = fieldValue(elevator, field);
+                JournalFormat.putVarint(buffer, value);
+                fields[offset + field] = value;
+            }
+        }
+        end(buffer, JournalFormat.ELEVATOR);
+    }
+
+    private static int fieldValue(Elevator elevator, int field) {
+        switch (field) {
+            case JournalFormat.FIELD_DIRECTION:
+                return elevator.getCommittedDirection();
+            case JournalFormat.FIELD_TARGET:
+                return elevator.getCurrentTarget();
+            case JournalFormat.FIELD_ACCELERATION:
+                return elevator.getCurrentAcceleration();
+            case JournalFormat.FIELD_DOOR_STATUS:
+                return elevator.getDoorStatus();
+            case JournalFormat.FIELD_FLOOR:
+                return elevator.getCurrentFloor();
+            case JournalFormat.FIELD_POSITION:
+                return elevator.getCurrentHeightOverGround();
+            case JournalFormat.FIELD_SPEED:
+                return elevator.getCurrentSpeed();
+            case JournalFormat.FIELD_WEIGHT:
+                return elevator.getCurrentPassengerWeight();
+            case JournalFormat.FIELD_CAPACITY:
+                return elevator.getMaxPassengerNumber();
+            default:
+                return elevator.isAutomatic() ? 1 : 0;
+        }
+    }
+
+    private void appendButtons(ByteBuffer buffer, byte type, int elevatorIndex, BitSet journaled, Elevator elevator,
+                               boolean serviced) {
+        int entries = 0;
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            boolean set = serviced ? elevator.isServicingFloor(floor) : elevator.isFloorButtonActive(floor);
+            if (set != journaled.get(floor)) {
+                entries = appendEntry(buffer, type, elevatorIndex, entries, floor, set);
+                journaled.set(floor, set);
+            }
+        }
+        if (entries > 0) {
+            end(buffer, type);
+        }
+    }
+
+    private void appendHallButtons(ByteBuffer buffer, ApplicationState state) {
+        int entries = 0;
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            boolean up = state.isButtonUpPressed(floor);
+            if (up != hallUp.get(floor)) {
+                entries = appendEntry(buffer, JournalFormat.HALL_BUTTONS, -1, entries, floor, up);
+                hallUp.set(floor, up);
+            }
+            boolean down = state.isButtonDownPressed(floor);
+            if (down != hallDown.get(floor)) {
+                entries = appendEntry(buffer, JournalFormat.HALL_BUTTONS, -1, entries,
+                        floor | JournalFormat.FLAG_DOWN, down);
+                hallDown.set(floor, down);
+            }
+        }
+        if (entries > 0) {
+            end(buffer, JournalFormat.HALL_BUTTONS);
+        }
+    }
+
+    /**
+     * Appends an entry to the open button record, or opens a new one.
+     * @param elevatorIndex The index of the elevator written at the start of the record, or -1 for none.
+     * @return The number of entries in the open record, 0 if it has been closed.
+     */
+    private int appendEntry(ByteBuffer buffer, byte type, int elevatorIndex, int entries, int entry, boolean set) {
+        if (entries == 0) {
+            begin(buffer);
+            if (elevatorIndex >= 0) {
+                buffer.putShort((short) elevatorIndex);
+            }
+        }
+        buffer.putShort((short) (entry | (set ? JournalFormat.FLAG_PRESSED : 0)));
+        if (entries + 1 == MAX_ENTRIES_PER_RECORD) {
+            end(buffer, type);
+            return 0;
+        }
+        return entries + 1;
+    }
+
+    private void begin(ByteBuffer buffer) {
+        recordStart = buffer.position();
+        buffer.position(recordStart + JournalFormat.RECORD_HEADER_BYTES);
+    }
+
+    private void end(ByteBuffer buffer, byte type) {
+        int length = buffer.position() - recordStart - JournalFormat.RECORD_HEADER_BYTES;
+        buffer.putShort(recordStart + 1, (short) length);
+        // The type last, it makes the record visible to readers
+        buffer.put(recordStart, type);
+    }
+
+    /**
+     * Makes sure the current segment has room for the given number of bytes, and rolls over to the prepared segment
+     * otherwise.
+     * @return False if there is no room and the next segment is not ready.
+     */
+    private boolean ensureCapacity(int bytes) {
+        // Keep the end marker
+        if (current.getBuffer().remaining() > bytes) {
+            return true;
+        }
+        JournalSegment prepared = next;
+        if (prepared == null || prepared.getBuffer().remaining() <= bytes) {
+            return false;
+        }
+        next = null;
+        retired.offer(current);
+        current = prepared;
+        keyframeDue = true;
+        rolloverCount++;
+        LockSupport.unpark(maintenanceThread);
+        return true;
+    }
+
+    /**
+     * Runs on the background thread until the journal is closed.
+     */
+    private void maintain() {
+        while (!closed) {
+            JournalSegment segment;
+            while ((segment = retired.poll()) != null) {
+                segment.force();
+            }
+            if (next == null) {
+                try {
+                    next = JournalSegment.create(directory, nextSequence++, segmentBytes, wallClock.getAsLong());
+                } catch (IOException e) {
+                    allocationFailureCount++;
+                }
+            }
+            deleteExpiredSegments();
+            current.force();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Constants.JOURNAL_FLUSH_INTERVAL_MS));
+        }
+    }
+
+    private void deleteExpiredSegments() {
+        try {
+            List<Path> segments = JournalSegment.list(directory);
+            JournalSegment active = current;
+            JournalSegment prepared = next;
+            for (int i = 0; i < segments.size() - maxSegments; i++) {
+                Path path = segments.get(i);
+                if (!path.equals(active.getPath()) && (prepared == null || !path.equals(prepared.getPath()))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            // Tried again with the next round
+        }
+    }
+
+    /**
+     * Stops the background thread and writes the current segment back to its file. The prepared segment, which holds
+     * no records yet, is deleted. Later appends are ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        LockSupport.unpark(maintenanceThread);
+        try {
+            maintenanceThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        JournalSegment segment;
+        while ((segment = retired.poll()) != null) {
+            segment.force();
+        }
+        current.force();
+        if (next != null) {
+            try {
+                Files.deleteIfExists(next.getPath());
+            } catch (IOException e) {
+                // Only an empty segment remains
+            }
+            next = null;
+        }
+    }
+
+    /**
+     * @return The path of the segment that is currently appended to.
+     */
+    public Path getCurrentSegment() {
+        return current.getPath();
+    }
+
+    // Generated
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getDroppedRecordCount() {
+        return droppedRecordCount;
+    }
+
+    public long getRolloverCount() {
+        return rolloverCount;
+    }
+
+    public long getAllocationFailureCount() {
+        return allocationFailureCount;
+    }
+}
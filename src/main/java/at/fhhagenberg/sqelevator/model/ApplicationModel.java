@@ -1,71 +1,327 @@
 package at.fhhagenberg.sqelevator.model;
 
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import at.fhhagenberg.sqelevator.journal.StateJournal;
+import at.fhhagenberg.sqelevator.monitoring.RemoteCallMonitor;
+import sqelevator.BuildingSnapshot;
 import sqelevator.IElevator;
+import sqelevator.IElevatorBulk;
 
-import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Concrete model class of the application. Holds the application state and data, the application logic, and is
  * responsible for the network communication via RMI with the elevator.
+ * The model is updated on the polling thread while user interactions arrive on the event dispatch thread, therefore
+ * all methods that access the application state are synchronized.
  */
 public class ApplicationModel extends EccModel {
 
     protected IElevator elevatorControl = null;
 
     /**
-     * Default constructor
+     * The connection as provided by the connection manager, elevatorControl may wrap it.
+     */
+    private IElevator connection = null;
+
+    private final ConnectionManager connectionManager;
+
+    private RemoteCallMonitor callMonitor = null;
+
+    /**
+     * Generation of the connection the topology of the application state has been built for.
+     */
+    private long topologyGeneration = 0;
+
+    private ParallelStateFetcher parallelFetcher = null;
+
+    private boolean skipUnchangedTicks = true;
+
+    private final UpdateStatistics updateStatistics = new UpdateStatistics();
+
+    private final CommandPipeline commands = new CommandPipeline(updateStatistics);
+
+    private final CollectiveControl collectiveControl = new CollectiveControl();
+
+    private GroupDispatcher dispatcher = new GroupDispatcher();
+
+    private ZoningPlanner zoning = null;
+
+    /**
+     * Floors of each elevator that the zoning has taken out of service, the only ones it puts back into service.
+     */
+    private BitSet[] zoneDisabledFloors = new BitSet[0];
+
+    private ParkingPlanner parking = null;
+
+    private StateJournal journal = null;
+
+    /**
+     * Number of fetches since the serviced floors have been read, or -1 if the cached matrix is invalid.
+     */
+    private int fetchesSinceServicesFloorsRead = -1;
+
+    /**
+     * Default constructor. The connection to the elevator is looked up via RMI.
      */
     public ApplicationModel() {
+        this(ConnectionManager.forUrl(Constants.DEFAULT_RMI_URL));
+    }
+
+    /**
+     * Constructor for a model that works with an already available elevator interface, e.g. an in-process
+     * implementation. If null is passed, the connection is looked up via RMI.
+     * @param elevatorControl The elevator interface to use.
+     */
+    public ApplicationModel(IElevator elevatorControl) {
+        this(elevatorControl != null
+                ? ConnectionManager.forElevator(elevatorControl)
+                : ConnectionManager.forUrl(Constants.DEFAULT_RMI_URL));
+    }
+
+    /**
+     * Constructor for a model that gets its connection to the elevator from the given connection manager.
+     * @param connectionManager The connection manager to use.
+     */
+    public ApplicationModel(ConnectionManager connectionManager) {
         super();
+        this.connectionManager = connectionManager;
     }
 
     /**
-     * Initializes the application. Builds a connection with the elevator RMI and fetches the static information about
-     * the building. Sets up the control data and values for use, and finally performs the first update of the dynamic
-     * elevator data.
+     * Enables or disables the concurrent fetch of the elevator data. If a fetcher is set, the elevators and ranges of
+     * floors are read in parallel, otherwise all values are read one after another.
+     * @param parallelFetcher The fetcher to use, or null for sequential fetching.
      */
-    public void initApplication() {
+    public synchronized void setParallelFetcher(ParallelStateFetcher parallelFetcher) {
+        this.parallelFetcher = parallelFetcher;
+    }
 
-        try {
-            elevatorControl = (IElevator) Naming.lookup("rmi://localhost/ElevatorSim");
+    /**
+     * Sets the dispatcher that assigns the hall calls to the elevators in automatic mode. Without a dispatcher, every
+     * elevator in automatic mode serves all hall calls.
+     * @param dispatcher The dispatcher to use, or null to let the elevators serve the hall calls independently.
+     */
+    public synchronized void setDispatcher(GroupDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
 
-            // Get the static building information (queried once)
-            applicationState.setNumberOfFloors(elevatorControl.getFloorNum());
-            applicationState.setNumberOfElevators(elevatorControl.getElevatorNum());
-            applicationState.setFloorHeight(elevatorControl.getFloorHeight());
+    /**
+     * @return The dispatcher that assigns the hall calls, or null.
+     */
+    public synchronized GroupDispatcher getDispatcher() {
+        return dispatcher;
+    }
 
-            // Init with empty elevator objects for each elevator
-            for (int i = 0; i < applicationState.getNumberOfElevators(); i++) {
-                applicationState.getElevators().add(new Elevator());
-            }
+    /**
+     * Enables or disables the zoning of the building. The zones are applied to the elevators in automatic mode via
+     * the services floors of the elevator interface. Disabling the zoning leaves the serviced floors as they are.
+     * @param zoning The planner of the zones, or null to disable the zoning.
+     */
+    public synchronized void setZoning(ZoningPlanner zoning) {
+        this.zoning = zoning;
+    }
+
+    /**
+     * @return The planner of the zones, or null.
+     */
+    public synchronized ZoningPlanner getZoning() {
+        return zoning;
+    }
+
+    /**
+     * Enables or disables the parking of idle elevators in automatic mode at the floors where the next hall calls are
+     * most likely.
+     * @param parking The planner of the parking floors, or null to leave idle elevators where they are.
+     */
+    public synchronized void setParking(ParkingPlanner parking) {
+        this.parking = parking;
+    }
+
+    /**
+     * @return The planner of the parking floors, or null.
+     */
+    public synchronized ParkingPlanner getParking() {
+        return parking;
+    }
+
+    /**
+     * Sets the executor that sends the targets and directions of different elevators in parallel. Without one, they are
+     * sent one after the other on the polling thread.
+     * @param executor The executor, may be shared with a {@link ParallelStateFetcher}, or null.
+     */
+    public synchronized void setCommandExecutor(ExecutorService executor) {
+        commands.setExecutor(executor);
+    }
+
+    /**
+     * Enables or disables the journal. Every fetched state and every command issued to the elevators is appended to
+     * it. The journal is not closed by the model.
+     * @param journal The journal to append to, or null to disable journaling.
+     */
+    public synchronized void setJournal(StateJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return The journal the states and commands are appended to, or null.
+     */
+    public synchronized StateJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Enables or disables skipping updates while the clock tick of the simulation has not advanced.
+     * @param skipUnchangedTicks True to skip unchanged ticks, false to fetch the state with every update.
+     */
+    public synchronized void setSkipUnchangedTicks(boolean skipUnchangedTicks) {
+        this.skipUnchangedTicks = skipUnchangedTicks;
+    }
 
-            if (applicationState.getNumberOfElevators() > 0) {
-                applicationState.setSelectedElevator(0);
+    /**
+     * @return The counters of fetched, skipped and torn updates.
+     */
+    public UpdateStatistics getUpdateStatistics() {
+        return updateStatistics;
+    }
+
+    /**
+     * Enables or disables the instrumentation of the calls to the elevator interface. Takes effect with the next
+     * update, which sets up the topology of the building again.
+     * @param callMonitor The monitor that records the calls, or null to disable the instrumentation.
+     */
+    public synchronized void setCallMonitor(RemoteCallMonitor callMonitor) {
+        this.callMonitor = callMonitor;
+        // Rebuild with the next update, so the connection gets wrapped
+        topologyGeneration = -1;
+    }
+
+    /**
+     * @return The monitor that records the calls to the elevator interface, or null.
+     */
+    public synchronized RemoteCallMonitor getCallMonitor() {
+        return callMonitor;
+    }
+
+    /**
+     * @return The manager of the connection to the elevator interface.
+     */
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Stops reconnecting to the elevator interface.
+     */
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Initializes the application. Starts connecting to the elevator interface in the background and performs the
+     * first update, which sets up the building topology as soon as the connection is available.
+     */
+    public synchronized void initApplication() {
+        connectionManager.start();
+        update();
+    }
+
+    /**
+     * Rebuilds the topology of the building after a new connection has been established. Fetches the static
+     * information about the building and the capacity of the elevators, and replaces the elevator objects. The
+     * operation modes and the selection are kept if the number of elevators did not change. The cached serviced floors
+     * are invalidated.
+     * @throws RemoteException Thrown when the communication with the RMI interface fails.
+     */
+    private void rebuildTopology() throws RemoteException {
+
+        // Get the static building information (queried once per connection)
+        int numberOfFloors = elevatorControl.getFloorNum();
+        int numberOfElevators = elevatorControl.getElevatorNum();
+        int floorHeight = elevatorControl.getFloorHeight();
+
+        List<Elevator> previousElevators = applicationState.getElevators();
+        boolean sameElevators = previousElevators.size() == numberOfElevators;
+
+        // Init with empty elevator objects for each elevator, the capacity never changes during a connection
+        ArrayList<Elevator> elevators = new ArrayList<>(numberOfElevators);
+        for (int i = 0; i < numberOfElevators; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setMaxPassengerNumber(elevatorControl.getElevatorCapacity(i));
+            if (sameElevators) {
+                elevator.setAutomatic(previousElevators.get(i).isAutomatic());
             }
+            elevators.add(elevator);
+        }
 
-            update();
-        } catch (Exception e) {
-            // Do nothing here - this occurs if simulation isn't started yet.
+        applicationState.setNumberOfFloors(numberOfFloors);
+        applicationState.setNumberOfElevators(numberOfElevators);
+        applicationState.setFloorHeight(floorHeight);
+        applicationState.setElevators(elevators);
+        applicationState.setButtonUpPressed(Collections.emptyList());
+        applicationState.setButtonDownPressed(Collections.emptyList());
+        applicationState.setClockTick(-1);
+        fetchesSinceServicesFloorsRead = -1;
+
+        int selected = applicationState.getSelectedElevator();
+        if (!sameElevators || selected < 0 || selected >= numberOfElevators) {
+            applicationState.setSelectedElevator(numberOfElevators > 0 ? 0 : -1);
         }
     }
 
     /**
      * Updates all changing data. To be called regularly by the controller to update the current elevator status.
-     * @throws RemoteException When no connection to the RMI interface could be established.
+     * While the connection to the elevator is lost, the last known state is kept and marked as stale, and the update
+     * returns right away. A new connection is set up in the background by the connection manager.
      */
-    public void update() {
+    public synchronized void update() {
+
+        // Read the generation first, a connection replaced in between is picked up by the next update
+        long generation = connectionManager.getGeneration();
+        IElevator control = connectionManager.getConnection();
+
+        if (control == null) {
+            markStale();
+            return;
+        }
 
         try {
-            // Get lists of all the floor requests
-            updateUpDownRequestLists(applicationState.getNumberOfFloors());
+            if (control != connection || generation != topologyGeneration) {
+                connection = control;
+                elevatorControl = callMonitor != null ? callMonitor.wrap(control) : control;
+                rebuildTopology();
+                topologyGeneration = generation;
+            }
 
-            // Get the dynamic information that has to be regularly updated
-            for (int i = 0; i < applicationState.getNumberOfElevators(); i++) {
-                updateElevatorData(i, applicationState.getNumberOfFloors());
+            boolean advanced = fetchBuildingState();
+            connectionManager.connectionConfirmed(control);
+            if (!advanced) {
+                // The simulation has not advanced since the last update, there is nothing new to react to
+                return;
+            }
+            applicationState.setStale(false);
+            commands.acknowledge(applicationState);
+            refreshServicesFloorsIfDue();
+            if (journal != null) {
+                journal.appendState(applicationState);
             }
 
+            if (zoning != null) {
+                zoning.update(applicationState);
+                applyZones();
+            }
+            if (dispatcher != null) {
+                dispatcher.assign(applicationState);
+            }
+            if (parking != null) {
+                parking.update(applicationState, dispatcher);
+            }
             for (int i = 0; i < applicationState.getNumberOfElevators(); i++) {
                 if (applicationState.getElevators().get(i).isAutomatic()) {
                     autoOperateElevator(i);
@@ -73,21 +329,216 @@ public class ApplicationModel extends EccModel {
                     manualOperationHelper(i);
                 }
             }
-            notifyObservers(applicationState);
+            commands.flush(elevatorControl, journal);
+            notifyObservers(publishSnapshot());
         } catch (Exception e) {
-            // This occurs when simulation isn't started yet - try to connect again
-            initApplication();
+            // The connection is lost, or the simulation isn't started yet - reconnect in the background
+            connectionManager.connectionLost(control);
+            markStale();
+        }
+    }
+
+    /**
+     * Reads the serviced floors of all elevators if the cached matrix is invalid or has not been refreshed for the
+     * configured number of fetches. They only change if an operator reconfigures the building.
+     * @throws RemoteException Thrown when the communication with the RMI interface fails.
+     */
+    private void refreshServicesFloorsIfDue() throws RemoteException {
+        if (fetchesSinceServicesFloorsRead >= 0
+                && fetchesSinceServicesFloorsRead < Constants.SERVICES_FLOORS_REFRESH_FETCHES) {
+            fetchesSinceServicesFloorsRead++;
+            return;
+        }
+
+        for (int elevatorIndex = 0; elevatorIndex < applicationState.getNumberOfElevators(); elevatorIndex++) {
+            Elevator elevator = applicationState.getElevators().get(elevatorIndex);
+            for (int floor = 0; floor < applicationState.getNumberOfFloors(); floor++) {
+                elevator.setServicingFloor(floor, elevatorControl.getServicesFloors(elevatorIndex, floor));
+            }
+        }
+        fetchesSinceServicesFloorsRead = 0;
+        updateStatistics.recordServicesFloorsRefresh();
+    }
+
+    /**
+     * Brings the serviced floors of the elevators in automatic mode in line with their zones. Only the floors that
+     * differ are written. A floor is only dropped once the car has no call there and is not on its way there, so
+     * passengers inside are never stranded; it is dropped with one of the next updates. Only floors dropped by the
+     * zoning are put back into service, a floor the building itself does not serve with a car stays as it is. If the
+     * building is not zoned and no floor has been dropped, nothing is done at all.
+     * @throws RemoteException Thrown when the communication with the RMI interface fails.
+     */
+    private void applyZones() throws RemoteException {
+        int numberOfElevators = applicationState.getNumberOfElevators();
+        if (zoneDisabledFloors.length != numberOfElevators) {
+            zoneDisabledFloors = new BitSet[numberOfElevators];
+            for (int i = 0; i < numberOfElevators; i++) {
+                zoneDisabledFloors[i] = new BitSet();
+            }
+        }
+        if (zoning.getZoneCount() == 1 && !hasZoneDisabledFloors()) {
+            return;
+        }
+
+        for (int elevatorIndex = 0; elevatorIndex < numberOfElevators; elevatorIndex++) {
+            Elevator elevator = applicationState.getElevators().get(elevatorIndex);
+            BitSet zone = zoning.getZoneFloors(elevatorIndex);
+            BitSet disabled = zoneDisabledFloors[elevatorIndex];
+
+            // A car in manual mode has all floors as its zone, it only gets back the floors the zoning dropped
+            for (int floor = 0; floor < applicationState.getNumberOfFloors(); floor++) {
+                if (zone.get(floor)) {
+                    if (disabled.get(floor)) {
+                        if (!elevator.isServicingFloor(floor)) {
+                            sendServicesFloors(elevatorIndex, floor, true);
+                            elevator.setServicingFloor(floor, true);
+                        }
+                        disabled.clear(floor);
+                    }
+                } else if (elevator.isAutomatic() && elevator.isServicingFloor(floor)
+                        && !elevator.isFloorButtonActive(floor) && !isHeadingTo(elevator, floor)) {
+                    sendServicesFloors(elevatorIndex, floor, false);
+                    elevator.setServicingFloor(floor, false);
+                    disabled.set(floor);
+                }
+            }
+        }
+    }
+
+    private boolean hasZoneDisabledFloors() {
+        for (BitSet disabled : zoneDisabledFloors) {
+            if (!disabled.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHeadingTo(Elevator elevator, int floor) {
+        return elevator.getCurrentTarget() == floor
+                && (elevator.getCurrentFloor() != floor || elevator.getCurrentSpeed() != 0);
+    }
+
+    /**
+     * Invalidates the cached serviced floors, so they are read again with the next update.
+     */
+    public synchronized void invalidateServicesFloors() {
+        fetchesSinceServicesFloorsRead = -1;
+    }
+
+    /**
+     * Sets whether an elevator services a floor and communicates it to the RMI. The cached serviced floors are
+     * invalidated, so the setting as applied by the elevator is read back with the next update.
+     * @param elevatorIndex The index of the elevator.
+     * @param floor The floor.
+     * @param service True if the elevator should service the floor.
+     * @throws RemoteException Thrown when the communication with the RMI interface fails.
+     */
+    public synchronized void setServicesFloors(int elevatorIndex, int floor, boolean service) throws RemoteException {
+        if (applicationState.isStale()) {
+            throw new RemoteException("Not connected to the elevator");
+        }
+
+        try {
+            sendServicesFloors(elevatorIndex, floor, service);
+        } catch (RemoteException e) {
+            connectionManager.connectionLost(connection);
+            throw e;
+        } finally {
+            invalidateServicesFloors();
+        }
+    }
+
+    /**
+     * Marks the state as stale and publishes it, unless it is stale already.
+     */
+    private void markStale() {
+        if (!applicationState.isStale()) {
+            applicationState.setStale(true);
+            notifyObservers(publishSnapshot());
+        }
+    }
+
+    /**
+     * Fetches the dynamic state of the building, if the clock tick of the simulation has advanced since the last fetch.
+     * The clock tick is read before and after the fetch. If it changed in between, the values may stem from different
+     * simulation ticks and the fetch is repeated. If it is still torn after the configured number of retries, the
+     * state is flagged as not consistent. A bulk snapshot is read only once: the adapter on the remote side already
+     * retries torn snapshots, a second retry layer here would multiply the reads per tick.
+     * @return True if the state has been fetched, false if the update was skipped.
+     * @throws RemoteException Thrown when the communication with the RMI interface fails.
+     */
+    private boolean fetchBuildingState() throws RemoteException {
+
+        long tickBefore = elevatorControl.getClockTick();
+
+        if (skipUnchangedTicks && tickBefore == applicationState.getClockTick()) {
+            updateStatistics.recordSkippedTick();
+            return false;
+        }
+
+        boolean consistent = false;
+        long tickAfter = tickBefore;
+
+        if (isBulkMode()) {
+            // The remote side offers the whole building state with a single call and retries torn reads itself
+            BuildingSnapshot snapshot = ((IElevatorBulk) elevatorControl).getBuildingSnapshot();
+            updateFromBuildingSnapshot(snapshot);
+            tickAfter = snapshot.getClockTick();
+            consistent = snapshot.isConsistent();
+            if (!consistent) {
+                updateStatistics.recordTornSnapshot();
+            }
+        } else {
+            for (int attempt = 0; attempt <= Constants.MAX_TORN_SNAPSHOT_RETRIES && !consistent; attempt++) {
+                if (parallelFetcher != null) {
+                    // Get the floor requests and the dynamic elevator information concurrently
+                    parallelFetcher.fetch(elevatorControl, applicationState);
+                } else {
+                    // Get lists of all the floor requests
+                    updateUpDownRequestLists(applicationState.getNumberOfFloors());
+
+                    // Get the dynamic information that has to be regularly updated
+                    for (int i = 0; i < applicationState.getNumberOfElevators(); i++) {
+                        updateElevatorData(i, applicationState.getNumberOfFloors());
+                    }
+                }
+                tickAfter = elevatorControl.getClockTick();
+                consistent = tickAfter == tickBefore;
+                tickBefore = tickAfter;
+
+                if (!consistent) {
+                    updateStatistics.recordTornSnapshot();
+                }
+            }
+        }
+
+        if (!consistent) {
+            updateStatistics.recordInconsistentSnapshot();
         }
+
+        updateStatistics.recordFetch();
+        applicationState.setClockTick(tickAfter);
+        applicationState.setConsistent(consistent);
+        return true;
+    }
+
+    /**
+     * @return True if the connected elevator interface offers bulk snapshots, which are then used instead of the
+     * per-value calls.
+     */
+    public synchronized boolean isBulkMode() {
+        return elevatorControl instanceof IElevatorBulk;
     }
 
     /**
      * Sets the currently selected elevator, the data of which is displayed in the view.
      * @param elevatorIndex The index of the elevator to select.
      */
-    public void setSelectedElevator(int elevatorIndex) {
+    public synchronized void setSelectedElevator(int elevatorIndex) {
         if (elevatorIndex >= 0 && elevatorIndex < applicationState.getNumberOfElevators()) {
             applicationState.setSelectedElevator(elevatorIndex);
-            notifyObservers(applicationState);
+            notifyObservers(publishSnapshot());
         }
     }
 
@@ -96,14 +547,17 @@ public class ApplicationModel extends EccModel {
      * @param elevatorIndex The index of the elevator of which the mode should be set.
      * @param automatic True for automatic, false for manual control.
      */
-    public void setElevatorAutomaticMode(int elevatorIndex, boolean automatic) {
+    public synchronized void setElevatorAutomaticMode(int elevatorIndex, boolean automatic) {
         if (elevatorIndex < 0 || elevatorIndex >= applicationState.getNumberOfElevators()) {
             // not a valid index
             return;
         }
         Elevator elevator = applicationState.getElevators().get(elevatorIndex);
         elevator.setAutomatic(automatic);
-        notifyObservers(applicationState);
+        if (journal != null) {
+            journal.appendCommand(elevatorIndex, JournalFormat.COMMAND_AUTOMATIC, automatic ? 1 : 0, 0);
+        }
+        notifyObservers(publishSnapshot());
     }
 
     /**
@@ -112,7 +566,7 @@ public class ApplicationModel extends EccModel {
      * @param target The target floor to send the elevator to.
      * @throws RemoteException
      */
-    public void setManualElevatorTarget(int elevatorIndex, int target) throws RemoteException {
+    public synchronized void setManualElevatorTarget(int elevatorIndex, int target) throws RemoteException {
 
         if (applicationState.getElevators().get(elevatorIndex).isAutomatic()) {
             // Not possible to set manual target in automatic mode
@@ -121,15 +575,25 @@ public class ApplicationModel extends EccModel {
 
         Elevator elevator = applicationState.getElevators().get(elevatorIndex);
 
-        if (elevator.getCurrentFloor() > target) {
+        if (applicationState.isStale()) {
+            throw new RemoteException("Not connected to the elevator");
+        }
+
+        try {
+            if (elevator.getCurrentFloor() > target) {
 
-            elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_DOWN);
-            elevatorControl.setTarget(elevatorIndex, target);
+                sendCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_DOWN);
+                sendTarget(elevatorIndex, target);
 
-        } else if (elevator.getCurrentFloor() < target) {
+            } else if (elevator.getCurrentFloor() < target) {
 
-            elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UP);
-            elevatorControl.setTarget(elevatorIndex, target);
+                sendCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UP);
+                sendTarget(elevatorIndex, target);
+            }
+            commands.flush(elevatorControl, journal);
+        } catch (RemoteException e) {
+            connectionManager.connectionLost(connection);
+            throw e;
         }
     }
 
@@ -142,13 +606,16 @@ public class ApplicationModel extends EccModel {
         Elevator elevator = applicationState.getElevators().get(elevatorIndex);
 
         if (elevator.getCurrentFloor() == elevator.getCurrentTarget() && elevator.getCurrentSpeed() == 0 && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN) {
-            elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+            sendCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
         }
     }
 
     /**
-     * Gets the status of the specified elevator and auto-operates it to service the building. At the moment, the
-     * the elevator goes up and down while stopping on each floor.
+     * Gets the status of the specified elevator and auto-operates it to service the building. The elevator is run by
+     * directional collective control: it stops only on floors with car calls or hall calls, in the order of its
+     * direction of travel, and becomes uncommitted without demand. If a dispatcher is set, the elevator only serves
+     * the hall calls assigned to it. An idle elevator is sent to its parking floor, if parking is enabled. Only values
+     * that change are written.
      * @param elevatorIndex The index of the elevator to control.
      * @throws RemoteException Thrown if the communication with the RMI interface fails.
      */
@@ -156,77 +623,68 @@ public class ApplicationModel extends EccModel {
 
         Elevator elevator = applicationState.getElevators().get(elevatorIndex);
 
-        switch (elevator.getCommittedDirection()) {
-            case IElevator.ELEVATOR_DIRECTION_UP: {
+        boolean replanned = dispatcher != null
+                ? collectiveControl.plan(elevator, dispatcher.getHallUp(elevatorIndex),
+                        dispatcher.getHallDown(elevatorIndex), applicationState.getNumberOfFloors())
+                : collectiveControl.plan(elevator, applicationState);
+        int target = collectiveControl.getTarget();
+        if (collectiveControl.isIdle() && parking != null && parking.getParkingFloor(elevatorIndex) >= 0) {
+            target = parking.getParkingFloor(elevatorIndex);
+            replanned = true;
+        }
+        if (!replanned) {
+            return;
+        }
 
-                if (elevator.getCurrentSpeed() == 0 && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN) {
-                    if (elevator.getCurrentFloor() < applicationState.getNumberOfFloors() - 1) {
-                        // Not on top floor yet, go up
-                        elevatorControl.setTarget(elevatorIndex, elevator.getCurrentFloor() + 1);
-                    } else {
-                        // Top floor, set to uncommitted
-                        elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
-                    }
-                }
-                break;
-            }
-            case IElevator.ELEVATOR_DIRECTION_DOWN: {
-
-                if (elevator.getCurrentSpeed() == 0 && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN) {
-                    if (elevator.getCurrentFloor() > 0) {
-                        // Not on bottom floor yet, go down
-                        elevatorControl.setTarget(elevatorIndex, elevator.getCurrentFloor() - 1);
-                    } else {
-                        // Bottom floor, set to uncommitted
-                        elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
-                    }
-                }
-                break;
-            }
-            case IElevator.ELEVATOR_DIRECTION_UNCOMMITTED: {
+        // Values the elevator has already are dropped by the command pipeline
+        sendCommittedDirection(elevatorIndex, collectiveControl.getDirection());
+        sendTarget(elevatorIndex, target);
+    }
 
-                if (elevator.getCurrentFloor() < applicationState.getNumberOfFloors() - 1) {
-                    elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UP);
-                } else {
-                    elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_DOWN);
-                }
-                break;
-            }
-            default: {
-                break;
-            }
+    /**
+     * Queues the target of the elevator in the command pipeline. It is sent and journaled when the pipeline is flushed.
+     */
+    private void sendTarget(int elevatorIndex, int target) {
+        commands.setTarget(elevatorIndex, target);
+    }
+
+    /**
+     * Queues the committed direction of the elevator in the command pipeline. It is sent and journaled when the
+     * pipeline is flushed.
+     */
+    private void sendCommittedDirection(int elevatorIndex, int direction) {
+        commands.setCommittedDirection(elevatorIndex, direction);
+    }
+
+    /**
+     * Sends whether the elevator services the floor and journals the command.
+     * @throws RemoteException Thrown if the communication with the RMI interface fails.
+     */
+    private void sendServicesFloors(int elevatorIndex, int floor, boolean service) throws RemoteException {
+        elevatorControl.setServicesFloors(elevatorIndex, floor, service);
+        if (journal != null) {
+            journal.appendCommand(elevatorIndex, JournalFormat.COMMAND_SERVICES_FLOORS, floor, service ? 1 : 0);
         }
     }
 
     /**
-     * Updates the lists that hold the requests to go up or down of each floor. Called with every update.
+     * Updates the lists that hold the requests to go up or down of each floor. Called with every update. The button
+     * states are updated in place without allocating.
      * @param numberOfFloors The number of floors. Needed to query the RMI interface.
      * @throws RemoteException Thrown when no connection to the RMI interface can be established.
      */
     public void updateUpDownRequestLists(int numberOfFloors) throws RemoteException {
 
-        ArrayList<Integer> buttonUpPressed = new ArrayList<>();
-        ArrayList<Integer> buttonDownPressed = new ArrayList<>();
-
         for (int i = 0; i < numberOfFloors; i++) {
             // For each floor, get if the up or down buttons have been pressed.
-            boolean upButton = elevatorControl.getFloorButtonUp(i);
-            boolean downButton = elevatorControl.getFloorButtonDown(i);
-
-            if (upButton) {
-                buttonUpPressed.add(i);
-            }
-            if (downButton) {
-                buttonDownPressed.add(i);
-            }
+            applicationState.setButtonUpPressed(i, elevatorControl.getFloorButtonUp(i));
+            applicationState.setButtonDownPressed(i, elevatorControl.getFloorButtonDown(i));
         }
-
-        applicationState.setButtonUpPressed(buttonUpPressed);
-        applicationState.setButtonDownPressed(buttonDownPressed);
     }
 
     /**
      * Updates the dynamic data of the specified elevator. The update is done in place without creating a new object.
+     * The capacity and the serviced floors are cached and not part of the dynamic data.
      * @param elevatorIndex The index of the elevator to update.
      * @param numberOfFloors The number of floors of the building. Necessary to query the elevators button panel.
      * @throws RemoteException Thrown when no connection to the RMI interface can be established.
@@ -243,19 +701,49 @@ public class ApplicationModel extends EccModel {
         result.setCurrentHeightOverGround(elevatorControl.getElevatorPosition(elevatorIndex));
         result.setCurrentSpeed(elevatorControl.getElevatorSpeed(elevatorIndex));
         result.setCurrentPassengerWeight(elevatorControl.getElevatorWeight(elevatorIndex));
-        result.setMaxPassengerNumber(elevatorControl.getElevatorCapacity(elevatorIndex));
 
         // For each floor of the building, query if the button in the elevator was pressed.
-        ArrayList<Integer> floorButtonsPressed = new ArrayList<>();
+        for (int i = 0; i < numberOfFloors; i++) {
+            result.setFloorButtonActive(i, elevatorControl.getElevatorButton(elevatorIndex, i));
+        }
+    }
+
+    /**
+     * Updates the floor requests and the dynamic data of all elevators from a bulk snapshot of the building. The
+     * capacity contained in the snapshot is ignored, it is read once per connection.
+     * @param snapshot The snapshot as returned by the bulk interface.
+     * @throws RemoteException Thrown when the snapshot does not match the building layout known to the application.
+     */
+    public void updateFromBuildingSnapshot(BuildingSnapshot snapshot) throws RemoteException {
+
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        int numberOfElevators = applicationState.getNumberOfElevators();
+
+        if (snapshot.getNumberOfFloors() != numberOfFloors || snapshot.getNumberOfElevators() != numberOfElevators) {
+            throw new RemoteException("The layout of the building has changed");
+        }
 
         for (int i = 0; i < numberOfFloors; i++) {
-            boolean floorButtonPressed = elevatorControl.getElevatorButton(elevatorIndex, i);
-            if (floorButtonPressed) {
-                floorButtonsPressed.add(i);
-            }
+            applicationState.setButtonUpPressed(i, snapshot.getFloorButtonUp(i));
+            applicationState.setButtonDownPressed(i, snapshot.getFloorButtonDown(i));
         }
 
-        result.setActiveFloorButtons(floorButtonsPressed);
+        for (int elevatorIndex = 0; elevatorIndex < numberOfElevators; elevatorIndex++) {
+            Elevator result = applicationState.getElevators().get(elevatorIndex);
+
+            result.setCommittedDirection(snapshot.getCommittedDirection(elevatorIndex));
+            result.setCurrentTarget(snapshot.getTarget(elevatorIndex));
+            result.setCurrentAcceleration(snapshot.getElevatorAccel(elevatorIndex));
+            result.setDoorStatus(snapshot.getElevatorDoorStatus(elevatorIndex));
+            result.setCurrentFloor(snapshot.getElevatorFloor(elevatorIndex));
+            result.setCurrentHeightOverGround(snapshot.getElevatorPosition(elevatorIndex));
+            result.setCurrentSpeed(snapshot.getElevatorSpeed(elevatorIndex));
+            result.setCurrentPassengerWeight(snapshot.getElevatorWeight(elevatorIndex));
+
+            for (int i = 0; i < numberOfFloors; i++) {
+                result.setFloorButtonActive(i, snapshot.getElevatorButton(elevatorIndex, i));
+            }
+        }
     }
 
 }
@@ -1,9 +1,13 @@
 package at.fhhagenberg.sqelevator.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 /**
- * Class that represents the state of the building that is managed by the ECC application.
+ * Class that represents the state of the building that is managed by the ECC application. The model updates one
+ * instance in place and publishes immutable snapshots of it, see {@link #snapshot()}. The setters of a snapshot throw
+ * an {@link UnsupportedOperationException}, so a snapshot can be read from any thread without synchronization.
  */
 public class ApplicationState {
 
@@ -11,11 +15,135 @@ public class ApplicationState {
      * Default constructor initializing the arrays.
      */
     public ApplicationState() {
-        this.buttonUpPressed = new ArrayList<>();
-        this.buttonDownPressed = new ArrayList<>();
+        this.buttonUpPressed = new BitSet();
+        this.buttonDownPressed = new BitSet();
         this.elevators = new ArrayList<>();
     }
 
+    /**
+     * Copy constructor creating a mutable deep copy of the given state.
+     * @param other The state to copy.
+     */
+    public ApplicationState(ApplicationState other) {
+        this.numberOfElevators = other.numberOfElevators;
+        this.selectedElevator = other.selectedElevator;
+        this.numberOfFloors = other.numberOfFloors;
+        this.floorHeight = other.floorHeight;
+        this.clockTick = other.clockTick;
+        this.consistent = other.consistent;
+        this.stale = other.stale;
+        this.buttonUpPressed = (BitSet) other.buttonUpPressed.clone();
+        this.buttonDownPressed = (BitSet) other.buttonDownPressed.clone();
+        this.elevators = new ArrayList<>(other.elevators.size());
+        for (Elevator elevator : other.elevators) {
+            this.elevators.add(new Elevator(elevator));
+        }
+    }
+
+    /**
+     * Constructor of a snapshot, which takes over the given bit sets and the given immutable list of frozen elevators.
+     */
+    private ApplicationState(ApplicationState other, BitSet buttonUpPressed, BitSet buttonDownPressed,
+                             List<Elevator> elevators) {
+        this.numberOfElevators = other.numberOfElevators;
+        this.selectedElevator = other.selectedElevator;
+        this.numberOfFloors = other.numberOfFloors;
+        this.floorHeight = other.floorHeight;
+        this.clockTick = other.clockTick;
+        this.consistent = other.consistent;
+        this.stale = other.stale;
+        this.buttonUpPressed = buttonUpPressed;
+        this.buttonDownPressed = buttonDownPressed;
+        this.elevators = elevators;
+        this.frozen = true;
+    }
+
+    /**
+     * Creates an immutable snapshot of this state.
+     * @return The snapshot, or this state if it is a snapshot already.
+     */
+    public ApplicationState snapshot() {
+        return snapshot(null);
+    }
+
+    /**
+     * Creates an immutable snapshot of this state. Button states and elevators that did not change compared to the
+     * previous snapshot are shared with it instead of being copied, so publishing a snapshot every tick stays cheap.
+     * @param previous The previously published snapshot, may be null.
+     * @return The snapshot, or this state if it is a snapshot already.
+     */
+    ApplicationState snapshot(ApplicationState previous) {
+        if (frozen) {
+            return this;
+        }
+        if (previous != null && !previous.frozen) {
+            throw new IllegalArgumentException("The previous state has to be a snapshot");
+        }
+
+        BitSet up = previous != null && previous.buttonUpPressed.equals(buttonUpPressed)
+                ? previous.buttonUpPressed : (BitSet) buttonUpPressed.clone();
+        BitSet down = previous != null && previous.buttonDownPressed.equals(buttonDownPressed)
+                ? previous.buttonDownPressed : (BitSet) buttonDownPressed.clone();
+
+        List<Elevator> previousElevators = previous != null && previous.elevators.size() == elevators.size()
+                ? previous.elevators : null;
+        Elevator[] frozenElevators = null;
+        for (int i = 0; i < elevators.size(); i++) {
+            Elevator elevator = elevators.get(i);
+            Elevator previousElevator = previousElevators != null ? previousElevators.get(i) : null;
+            if (previousElevator != null && previousElevator.hasSameValues(elevator)) {
+                if (frozenElevators != null) {
+                    frozenElevators[i] = previousElevator;
+                }
+                continue;
+            }
+            if (frozenElevators == null) {
+                // First changed elevator, take over the unchanged ones in front of it
+                frozenElevators = new Elevator[elevators.size()];
+                for (int j = 0; j < i; j++) {
+                    frozenElevators[j] = previousElevators.get(j);
+                }
+            }
+            frozenElevators[i] = elevator.snapshot();
+        }
+
+        if (frozenElevators == null) {
+            // Nothing changed, the list of the previous snapshot can be shared as a whole
+            return new ApplicationState(this, up, down, previousElevators != null ? previousElevators : List.of());
+        }
+        return new ApplicationState(this, up, down, List.of(frozenElevators));
+    }
+
+    /**
+     * Checks whether two snapshots show the same building: the same topology, elevators and hall buttons. Unchanged
+     * elevators and buttons are shared between consecutive snapshots, so the check is a comparison of references and
+     * does not look at the values. The clock tick and the stale flag are not compared.
+     * @param other The snapshot to compare with, may be null.
+     * @return True if both states are snapshots that share their elevators and hall buttons. Always false for a
+     * mutable state, whose values may have changed in place.
+     */
+    public boolean sharesBuildingState(ApplicationState other) {
+        return other != null && frozen && other.frozen
+                && elevators == other.elevators
+                && buttonUpPressed == other.buttonUpPressed
+                && buttonDownPressed == other.buttonDownPressed
+                && numberOfFloors == other.numberOfFloors
+                && floorHeight == other.floorHeight;
+    }
+
+    /**
+     * @return True if this state is an immutable snapshot.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The snapshot of the application state is immutable");
+        }
+    }
+
     private int numberOfElevators = 0;
 
     private int selectedElevator = -1;
@@ -24,11 +152,21 @@ public class ApplicationState {
 
     private int floorHeight;
 
-    private ArrayList<Integer> buttonUpPressed;
+    private long clockTick = -1;
+
+    private boolean consistent = true;
+
+    private boolean stale = false;
+
+    // The button states are kept in bit sets that are updated in place, so the update does not allocate
 
-    private ArrayList<Integer> buttonDownPressed;
+    private final BitSet buttonUpPressed;
 
-    private ArrayList<Elevator> elevators;
+    private final BitSet buttonDownPressed;
+
+    private List<Elevator> elevators;
+
+    private boolean frozen;
 
     // Generated
 
@@ -37,6 +175,7 @@ public class ApplicationState {
     }
 
     public void setNumberOfElevators(int numberOfElevators) {
+        checkMutable();
         this.numberOfElevators = numberOfElevators;
     }
 
@@ -45,6 +184,7 @@ public class ApplicationState {
     }
 
     public void setSelectedElevator(int selectedElevator) {
+        checkMutable();
         this.selectedElevator = selectedElevator;
     }
 
@@ -53,6 +193,7 @@ public class ApplicationState {
     }
 
     public void setNumberOfFloors(int numberOfFloors) {
+        checkMutable();
         this.numberOfFloors = numberOfFloors;
     }
 
@@ -61,30 +202,111 @@ public class ApplicationState {
     }
 
     public void setFloorHeight(int floorHeight) {
+        checkMutable();
         this.floorHeight = floorHeight;
     }
 
-    public ArrayList<Integer> getButtonUpPressed() {
-        return buttonUpPressed;
+    public long getClockTick() {
+        return clockTick;
     }
 
-    public void setButtonUpPressed(ArrayList<Integer> buttonUpPressed) {
-        this.buttonUpPressed = buttonUpPressed;
+    public void setClockTick(long clockTick) {
+        checkMutable();
+        this.clockTick = clockTick;
     }
 
-    public ArrayList<Integer> getButtonDownPressed() {
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    public void setConsistent(boolean consistent) {
+        checkMutable();
+        this.consistent = consistent;
+    }
+
+    /**
+     * @return True if the connection to the elevator is lost and the state shows the last known values.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        checkMutable();
+        this.stale = stale;
+    }
+
+    /**
+     * @return Read-only view of the floors on which the up button is pressed, in ascending order.
+     */
+    public List<Integer> getButtonUpPressed() {
+        return new FloorButtonList(buttonUpPressed);
+    }
+
+    /**
+     * Replaces the floors on which the up button is pressed.
+     * @param buttonUpPressed The floors on which the up button is pressed.
+     */
+    public void setButtonUpPressed(List<Integer> buttonUpPressed) {
+        checkMutable();
+        replace(this.buttonUpPressed, buttonUpPressed);
+    }
+
+    /**
+     * @return Read-only view of the floors on which the down button is pressed, in ascending order.
+     */
+    public List<Integer> getButtonDownPressed() {
+        return new FloorButtonList(buttonDownPressed);
+    }
+
+    /**
+     * Replaces the floors on which the down button is pressed.
+     * @param buttonDownPressed The floors on which the down button is pressed.
+     */
+    public void setButtonDownPressed(List<Integer> buttonDownPressed) {
+        checkMutable();
+        replace(this.buttonDownPressed, buttonDownPressed);
+    }
+
+    public boolean isButtonUpPressed(int floor) {
+        return buttonUpPressed.get(floor);
+    }
+
+    public void setButtonUpPressed(int floor, boolean pressed) {
+        checkMutable();
+        buttonUpPressed.set(floor, pressed);
+    }
+
+    public boolean isButtonDownPressed(int floor) {
+        return buttonDownPressed.get(floor);
+    }
+
+    public void setButtonDownPressed(int floor, boolean pressed) {
+        checkMutable();
+        buttonDownPressed.set(floor, pressed);
+    }
+
+    BitSet getButtonUpBits() {
+        return buttonUpPressed;
+    }
+
+    BitSet getButtonDownBits() {
         return buttonDownPressed;
     }
 
-    public void setButtonDownPressed(ArrayList<Integer> buttonDownPressed) {
-        this.buttonDownPressed = buttonDownPressed;
+    static void replace(BitSet bits, List<Integer> floors) {
+        bits.clear();
+        for (Integer floor : floors) {
+            bits.set(floor);
+        }
     }
 
-    public ArrayList<Elevator> getElevators() {
+    public List<Elevator> getElevators() {
         return elevators;
     }
 
-    public void setElevators(ArrayList<Elevator> elevators) {
+    public void setElevators(List<Elevator> elevators) {
+        checkMutable();
         this.elevators = elevators;
     }
 }
@@ -0,0 +1,167 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Observer decorator that delivers the states to the wrapped observer on a thread of its own, so a slow observer never
+ * holds up the notifying thread. The delivery queue of the observer holds the latest state only: a state that has not
+ * been delivered yet when the next one is published is skipped. Keeps track of the lag between the publication and the
+ * delivery of a state.
+ */
+public class AsyncObserver implements IEccObserver {
+
+    /**
+     * A published state together with the time of its publication.
+     */
+    private static final class Pending {
+
+        private final ApplicationState state;
+
+        private final long publishedNanos;
+
+        private Pending(ApplicationState state, long publishedNanos) {
+            this.state = state;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+
+    private final IEccObserver delegate;
+
+    private final AtomicReference<Pending> pending = new AtomicReference<>();
+
+    private final Thread thread;
+
+    private volatile boolean closed = false;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    // The delivery statistics are only written by the delivery thread, volatile is enough to publish them to readers.
+
+    private volatile long deliveredCount;
+
+    private volatile long failedCount;
+
+    private volatile long lastLagNanos;
+
+    private volatile long maxLagNanos;
+
+    private volatile long lastDurationNanos;
+
+    private volatile long maxDurationNanos;
+
+    /**
+     * Constructor. Starts the delivery thread as a daemon thread.
+     * @param delegate The observer to deliver the states to.
+     * @param threadName The name of the delivery thread.
+     */
+    public AsyncObserver(IEccObserver delegate, String threadName) {
+        this.delegate = delegate;
+        this.thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Hands the state over to the delivery thread and returns right away. A state that is still waiting for delivery is
+     * replaced. A state that is not an immutable snapshot is copied first.
+     * @param applicationState The updated application state.
+     */
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        if (closed) {
+            return;
+        }
+        publishedCount.incrementAndGet();
+        Pending previous = pending.getAndSet(new Pending(applicationState.snapshot(), System.nanoTime()));
+        if (previous == null) {
+            LockSupport.unpark(thread);
+        } else {
+            skippedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the delivery. A state that is being delivered is finished, states still waiting are dropped.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (!closed) {
+            Pending next = pending.getAndSet(null);
+            if (next == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            long start = System.nanoTime();
+            lastLagNanos = start - next.publishedNanos;
+            maxLagNanos = Math.max(maxLagNanos, lastLagNanos);
+            try {
+                delegate.applicationStateChanged(next.state);
+            } catch (RuntimeException e) {
+                // A failing observer must not end the delivery of later states
+                failedCount++;
+            }
+            lastDurationNanos = System.nanoTime() - start;
+            maxDurationNanos = Math.max(maxDurationNanos, lastDurationNanos);
+            deliveredCount++;
+        }
+    }
+
+    /**
+     * @return True if a state is waiting for delivery, i.e. the observer falls behind the published states.
+     */
+    public boolean isBehind() {
+        return pending.get() != null;
+    }
+
+    // Generated
+
+    public IEccObserver getDelegate() {
+        return delegate;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    public long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    public long getMaxDurationNanos() {
+        return maxDurationNanos;
+    }
+}
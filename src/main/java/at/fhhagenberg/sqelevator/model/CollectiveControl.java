@@ -0,0 +1,197 @@
+package at.fhhagenberg.sqelevator.model;
+
+import sqelevator.IElevator;
+
+import java.util.BitSet;
+
+/**
+ * Directional collective control (LOOK) of a single elevator. The car only stops on floors with demand: the floor
+ * buttons pressed inside the car and the hall calls of the floors it services. It serves them in the order of its
+ * direction of travel, and reverses only if there is no demand left ahead. Without any demand, the car stays where it
+ * is, or returns to the nearest floor it services, and its direction becomes uncommitted.
+ * Passengers still waiting while the car already indicates their direction cannot board, e.g. because the car is full
+ * or does not serve their destination. The car does not wait for them but goes on to its next stop.
+ * The plan is made while the car stands with open doors, so a stop is never requested within its braking distance.
+ * Planning does not allocate, the result is kept in the fields of the instance until the next plan.
+ */
+public class CollectiveControl {
+
+    private int target;
+
+    private int direction;
+
+    private boolean idle;
+
+    /**
+     * Plans the next stop of the elevator.
+     * @param elevator The elevator to plan for.
+     * @param applicationState The state holding the hall calls of the building.
+     * @return True if the elevator has a new target or direction, false if it should keep its current orders.
+     */
+    public boolean plan(Elevator elevator, ApplicationState applicationState) {
+        return plan(elevator, applicationState.getButtonUpBits(), applicationState.getButtonDownBits(),
+                applicationState.getNumberOfFloors());
+    }
+
+    /**
+     * Plans the next stop of the elevator for the given hall calls.
+     * @param elevator The elevator to plan for.
+     * @param hallUp The floors with a call to go up the elevator has to serve.
+     * @param hallDown The floors with a call to go down the elevator has to serve.
+     * @param numberOfFloors The number of floors of the building.
+     * @return True if the elevator has a new target or direction, false if it should keep its current orders.
+     */
+    boolean plan(Elevator elevator, BitSet hallUp, BitSet hallDown, int numberOfFloors) {
+        idle = false;
+        if (elevator.getCurrentSpeed() != 0 || elevator.getDoorStatus() != IElevator.ELEVATOR_DOORS_OPEN) {
+            // Moving, or the doors are in transition, keep going to the planned stop
+            return false;
+        }
+
+        int floor = elevator.getCurrentFloor();
+        BitSet carCalls = elevator.getActiveFloorButtonBits();
+        BitSet serviced = elevator.getServicedFloorBits();
+
+        int committed = elevator.getCommittedDirection();
+        if (committed == IElevator.ELEVATOR_DIRECTION_UNCOMMITTED) {
+            committed = nearestDemandDirection(floor, carCalls, hallUp, hallDown, serviced, numberOfFloors);
+        }
+
+        int indicated = elevator.getCommittedDirection();
+        if (committed == IElevator.ELEVATOR_DIRECTION_UNCOMMITTED
+                || !planAhead(committed, indicated, floor, carCalls, hallUp, hallDown, serviced, numberOfFloors)) {
+            int opposite = committed == IElevator.ELEVATOR_DIRECTION_UP
+                    ? IElevator.ELEVATOR_DIRECTION_DOWN
+                    : IElevator.ELEVATOR_DIRECTION_UP;
+            if (!planAhead(opposite, indicated, floor, carCalls, hallUp, hallDown, serviced, numberOfFloors)) {
+                // No demand elsewhere, wait here. Passengers who could not board keep the direction from flipping.
+                idle = true;
+                target = nearestServiced(floor, serviced, numberOfFloors);
+                direction = IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+                if ((indicated == IElevator.ELEVATOR_DIRECTION_UP && isServiced(hallUp, floor, serviced))
+                        || (indicated == IElevator.ELEVATOR_DIRECTION_DOWN && isServiced(hallDown, floor, serviced))) {
+                    direction = indicated;
+                }
+            }
+        }
+
+        return target != elevator.getCurrentTarget() || direction != elevator.getCommittedDirection();
+    }
+
+    /**
+     * Plans the next stop in the given direction, if there is any demand beyond the current floor. The nearest car
+     * call or hall call into the direction of travel is the next stop. If there is none, the car goes on to the
+     * farthest hall call against the direction of travel and turns there. Passengers waiting on the current floor
+     * board while the doors are open, so the car indicates their direction and stays until they have chosen their
+     * floors. If the car indicates their direction already and they are still waiting, they cannot board, e.g.
+     * because the car is full, and the car does not wait for them.
+     * @return True if there is demand ahead, false otherwise.
+     */
+    private boolean planAhead(int travel, int indicated, int floor, BitSet carCalls, BitSet hallUp, BitSet hallDown,
+                              BitSet serviced, int numberOfFloors) {
+        boolean up = travel == IElevator.ELEVATOR_DIRECTION_UP;
+        BitSet along = up ? hallUp : hallDown;
+        BitSet against = up ? hallDown : hallUp;
+        int step = up ? 1 : -1;
+
+        int reversal = -1;
+        for (int f = floor + step; f >= 0 && f < numberOfFloors; f += step) {
+            if (!serviced.get(f)) {
+                continue;
+            }
+            if (carCalls.get(f) || along.get(f)) {
+                target = f;
+                direction = travel;
+                return true;
+            }
+            if (against.get(f)) {
+                reversal = f;
+            }
+        }
+
+        if (isServiced(along, floor, serviced) && indicated != travel) {
+            // Nothing ahead yet, stay until the waiting passengers have boarded and chosen their floors
+            target = floor;
+            direction = travel;
+            return true;
+        }
+        if (reversal >= 0) {
+            // Keep the direction until the car has arrived, otherwise the next plan would turn it around right here
+            target = reversal;
+            direction = travel;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The direction of the nearest floor with demand, or uncommitted if there is no demand at all.
+     */
+    private static int nearestDemandDirection(int floor, BitSet carCalls, BitSet hallUp, BitSet hallDown,
+                                              BitSet serviced, int numberOfFloors) {
+        if (isServiced(hallUp, floor, serviced)) {
+            return IElevator.ELEVATOR_DIRECTION_UP;
+        }
+        if (isServiced(hallDown, floor, serviced)) {
+            return IElevator.ELEVATOR_DIRECTION_DOWN;
+        }
+        for (int distance = 1; distance < numberOfFloors; distance++) {
+            int above = floor + distance;
+            if (above < numberOfFloors && hasDemand(above, carCalls, hallUp, hallDown, serviced)) {
+                return IElevator.ELEVATOR_DIRECTION_UP;
+            }
+            int below = floor - distance;
+            if (below >= 0 && hasDemand(below, carCalls, hallUp, hallDown, serviced)) {
+                return IElevator.ELEVATOR_DIRECTION_DOWN;
+            }
+        }
+        return IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+    }
+
+    /**
+     * @return The floor itself if the car services it, otherwise the nearest floor that it services, e.g. after the
+     * car has been moved to another zone.
+     */
+    private static int nearestServiced(int floor, BitSet serviced, int numberOfFloors) {
+        for (int distance = 0; distance < numberOfFloors; distance++) {
+            if (floor - distance >= 0 && serviced.get(floor - distance)) {
+                return floor - distance;
+            }
+            if (floor + distance < numberOfFloors && serviced.get(floor + distance)) {
+                return floor + distance;
+            }
+        }
+        return floor;
+    }
+
+    private static boolean hasDemand(int floor, BitSet carCalls, BitSet hallUp, BitSet hallDown, BitSet serviced) {
+        return serviced.get(floor) && (carCalls.get(floor) || hallUp.get(floor) || hallDown.get(floor));
+    }
+
+    private static boolean isServiced(BitSet calls, int floor, BitSet serviced) {
+        return calls.get(floor) && serviced.get(floor);
+    }
+
+    // Generated
+
+    /**
+     * @return The target of the last plan.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return The committed direction of the last plan.
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return True if the car of the last plan stands at rest without any demand.
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+}
@@ -0,0 +1,215 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import at.fhhagenberg.sqelevator.journal.StateJournal;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Outbound pipeline for the targets and committed directions written to the elevators. Writes are queued during a
+ * tick and sent together when the pipeline is flushed:
+ * <ul>
+ *     <li>several writes to the same value of a car within a tick are coalesced, only the last one is sent,</li>
+ *     <li>writes of the value the car has acknowledged already are dropped, as reported by the last fetch or by a
+ *     successful write since,</li>
+ *     <li>the writes to different cars are sent in parallel if an executor is set, the direction of a car is always
+ *     sent before its target.</li>
+ * </ul>
+ * The sequential flush does not allocate. The pipeline is used under the lock of the model, only the RMI calls and the
+ * journal entries of a parallel flush run on the threads of the executor.
+ */
+public class CommandPipeline {
+
+    private static final int NONE = -1;
+
+    private final UpdateStatistics statistics;
+
+    private ExecutorService executor = null;
+
+    private int[] pendingTarget = new int[0];
+
+    private int[] pendingDirection = new int[0];
+
+    private int[] acknowledgedTarget = new int[0];
+
+    private int[] acknowledgedDirection = new int[0];
+
+    private final List<Future<RemoteException>> futures = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * @param statistics The statistics to count the sent, coalesced and suppressed writes in.
+     */
+    public CommandPipeline(UpdateStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Sets the executor that sends the writes to different cars in parallel, or null to send them on the calling
+     * thread.
+     * @param executor The executor, may be shared with other pipelines or fetchers.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Takes over the targets and committed directions reported by the building. Called after every fetch, as the
+     * building may change them on its own, e.g. after a reconnect. Drops writes still queued.
+     * @param applicationState The freshly fetched state.
+     */
+    public void acknowledge(ApplicationState applicationState) {
+        int numberOfElevators = applicationState.getNumberOfElevators();
+        if (pendingTarget.length != numberOfElevators) {
+            pendingTarget = new int[numberOfElevators];
+            pendingDirection = new int[numberOfElevators];
+            acknowledgedTarget = new int[numberOfElevators];
+            acknowledgedDirection = new int[numberOfElevators];
+        }
+        Arrays.fill(pendingTarget, NONE);
+        Arrays.fill(pendingDirection, NONE);
+        for (int i = 0; i < numberOfElevators; i++) {
+            Elevator elevator = applicationState.getElevators().get(i);
+            acknowledgedTarget[i] = elevator.getCurrentTarget();
+            acknowledgedDirection[i] = elevator.getCommittedDirection();
+        }
+    }
+
+    /**
+     * Queues a target. A target queued earlier for the car is replaced.
+     * @param elevatorIndex The index of the elevator.
+     * @param target The target floor.
+     */
+    public void setTarget(int elevatorIndex, int target) {
+        if (pendingTarget[elevatorIndex] != NONE) {
+            statistics.recordCoalescedCommand();
+        }
+        pendingTarget[elevatorIndex] = target;
+    }
+
+    /**
+     * Queues a committed direction. A direction queued earlier for the car is replaced.
+     * @param elevatorIndex The index of the elevator.
+     * @param direction The committed direction.
+     */
+    public void setCommittedDirection(int elevatorIndex, int direction) {
+        if (pendingDirection[elevatorIndex] != NONE) {
+            statistics.recordCoalescedCommand();
+        }
+        pendingDirection[elevatorIndex] = direction;
+    }
+
+    /**
+     * Sends all queued writes that change a value of their car, and journals them. Waits until all writes are done.
+     * @param elevatorControl The RMI interface to write to.
+     * @param journal The journal of the sent commands, or null.
+     * @throws RemoteException Thrown if any of the writes failed. The values of the failed car are unknown then and are
+     * written again, even if unchanged, until the next fetch.
+     */
+    public void flush(IElevator elevatorControl, StateJournal journal) throws RemoteException {
+        int cars = 0;
+        int writes = 0;
+        for (int i = 0; i < pendingTarget.length; i++) {
+            if (pendingDirection[i] != NONE && pendingDirection[i] == acknowledgedDirection[i]) {
+                pendingDirection[i] = NONE;
+                statistics.recordSuppressedCommand();
+            }
+            if (pendingTarget[i] != NONE && pendingTarget[i] == acknowledgedTarget[i]) {
+                pendingTarget[i] = NONE;
+                statistics.recordSuppressedCommand();
+            }
+            if (pendingDirection[i] != NONE || pendingTarget[i] != NONE) {
+                cars++;
+                writes += (pendingDirection[i] != NONE ? 1 : 0) + (pendingTarget[i] != NONE ? 1 : 0);
+            }
+        }
+        statistics.recordSentCommands(writes);
+
+        if (executor == null || cars < 2) {
+            for (int i = 0; i < pendingTarget.length; i++) {
+                RemoteException failure = send(elevatorControl, journal, i);
+                if (failure != null) {
+                    clearPending();
+                    throw failure;
+                }
+            }
+            return;
+        }
+
+        futures.clear();
+        for (int i = 0; i < pendingTarget.length; i++) {
+            if (pendingDirection[i] != NONE || pendingTarget[i] != NONE) {
+                int elevatorIndex = i;
+                futures.add(executor.submit(() -> send(elevatorControl, journal, elevatorIndex)));
+            }
+        }
+        RemoteException failure = null;
+        // Wait for all writes, even after a failure, so every car is in a known state afterwards
+        for (Future<RemoteException> future : futures) {
+            try {
+                RemoteException result = future.get();
+                failure = failure == null ? result : failure;
+            } catch (ExecutionException e) {
+                failure = failure == null ? new RemoteException("Writing to the elevator failed", e.getCause())
+                        : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<RemoteException> pending : futures) {
+                    pending.cancel(true);
+                }
+                failure = new RemoteException("Interrupted while writing to the elevators", e);
+                break;
+            }
+        }
+        futures.clear();
+        clearPending();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends the queued writes of a car, the direction first, so passengers at the target already see where the car is
+     * heading.
+     * @return The failure of the write, or null if it succeeded.
+     */
+    private RemoteException send(IElevator elevatorControl, StateJournal journal, int elevatorIndex) {
+        int direction = pendingDirection[elevatorIndex];
+        int target = pendingTarget[elevatorIndex];
+        pendingDirection[elevatorIndex] = NONE;
+        pendingTarget[elevatorIndex] = NONE;
+        try {
+            if (direction != NONE) {
+                acknowledgedDirection[elevatorIndex] = NONE;
+                elevatorControl.setCommittedDirection(elevatorIndex, direction);
+                acknowledgedDirection[elevatorIndex] = direction;
+                if (journal != null) {
+                    journal.appendCommand(elevatorIndex, JournalFormat.COMMAND_DIRECTION, direction, 0);
+                }
+            }
+            if (target != NONE) {
+                acknowledgedTarget[elevatorIndex] = NONE;
+                elevatorControl.setTarget(elevatorIndex, target);
+                acknowledgedTarget[elevatorIndex] = target;
+                if (journal != null) {
+                    journal.appendCommand(elevatorIndex, JournalFormat.COMMAND_TARGET, target, 0);
+                }
+            }
+            return null;
+        } catch (RemoteException e) {
+            return e;
+        }
+    }
+
+    private void clearPending() {
+        Arrays.fill(pendingTarget, NONE);
+        Arrays.fill(pendingDirection, NONE);
+    }
+}
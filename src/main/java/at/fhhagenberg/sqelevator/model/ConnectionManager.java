@@ -0,0 +1,259 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import sqelevator.IElevator;
+
+import java.rmi.Naming;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Manages the connection to the elevator interface. Connection attempts run on a background thread, so neither the
+ * polling thread nor the UI ever block on a lookup. Failed attempts are repeated with an exponentially growing delay,
+ * randomized by a jitter, so many clients do not retry in lockstep after an outage of the simulator.
+ * Every successful connection increases the generation, which tells the model to rebuild the building topology.
+ * The delay only starts over once the model has read the building through the new connection, so a registry that
+ * hands out a stale stub is not hammered with lookups.
+ */
+public class ConnectionManager {
+
+    /**
+     * Establishes a new connection to the elevator interface.
+     */
+    @FunctionalInterface
+    public interface Connector {
+
+        /**
+         * @return The connected elevator interface.
+         * @throws Exception Thrown if the connection could not be established.
+         */
+        IElevator connect() throws Exception;
+    }
+
+    private final Connector connector;
+
+    private final long initialDelayMs;
+
+    private final long maxDelayMs;
+
+    private final double jitter;
+
+    private final DoubleSupplier random;
+
+    private ScheduledExecutorService executor = null;
+
+    private volatile IElevator connection;
+
+    private volatile long generation = 0;
+
+    private boolean reconnecting = false;
+
+    private volatile int failedAttempts = 0;
+
+    private volatile boolean confirmed = false;
+
+    private volatile long attemptCount = 0;
+
+    private volatile long failureCount = 0;
+
+    /**
+     * Constructor.
+     * @param connector Establishes the connections.
+     * @param initialDelayMs The delay before the first reconnect attempt after a lost connection.
+     * @param maxDelayMs The upper bound of the delay between two attempts.
+     * @param jitter The fraction of the delay that is randomized, between 0 and 1.
+     * @param random Source of uniformly distributed random numbers between 0 and 1 for the jitter.
+     */
+    public ConnectionManager(Connector connector, long initialDelayMs, long maxDelayMs, double jitter,
+                             DoubleSupplier random) {
+        if (initialDelayMs <= 0 || maxDelayMs < initialDelayMs || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Invalid reconnect delay bounds");
+        }
+        this.connector = connector;
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.jitter = jitter;
+        this.random = random;
+    }
+
+    /**
+     * Constructor using the default delays and jitter.
+     * @param connector Establishes the connections.
+     */
+    public ConnectionManager(Connector connector) {
+        this(connector, Constants.RECONNECT_INITIAL_DELAY_MS, Constants.RECONNECT_MAX_DELAY_MS,
+                Constants.RECONNECT_JITTER, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Creates a connection manager that looks up the elevator interface in the RMI registry.
+     * @param url The RMI URL of the elevator interface.
+     * @return The new connection manager.
+     */
+    public static ConnectionManager forUrl(String url) {
+        return new ConnectionManager(() -> (IElevator) Naming.lookup(url));
+    }
+
+    /**
+     * Creates a connection manager for an elevator interface that is available already, e.g. an in-process
+     * implementation. The manager is connected right away, a reconnect returns the same interface again.
+     * @param elevator The elevator interface.
+     * @return The new, connected connection manager.
+     */
+    public static ConnectionManager forElevator(IElevator elevator) {
+        ConnectionManager manager = new ConnectionManager(() -> elevator);
+        manager.connected(elevator);
+        return manager;
+    }
+
+    /**
+     * Starts connecting in the background, unless a connection exists or an attempt is pending already.
+     */
+    public synchronized void start() {
+        if (connection == null && !reconnecting) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Reports that a call on the given connection failed. The connection is dropped and reconnecting starts in the
+     * background. Reports about a connection that has been replaced already are ignored.
+     * @param failed The connection on which the call failed.
+     */
+    public synchronized void connectionLost(IElevator failed) {
+        if (failed == null || failed != connection) {
+            return;
+        }
+        connection = null;
+        if (!confirmed) {
+            // The lookup succeeded, but the connection never worked, e.g. a stale stub in the registry
+            failureCount++;
+            failedAttempts++;
+        }
+        if (!reconnecting) {
+            schedule(backoffDelayMs(failedAttempts));
+        }
+    }
+
+    /**
+     * Reports that a call on the given connection succeeded. The first success on a new connection resets the delay
+     * between the attempts. Does not lock unless the delay has to be reset.
+     * @param working The connection on which the call succeeded.
+     */
+    public void connectionConfirmed(IElevator working) {
+        if (failedAttempts == 0 && confirmed) {
+            return;
+        }
+        synchronized (this) {
+            if (working != null && working == connection) {
+                confirmed = true;
+                failedAttempts = 0;
+            }
+        }
+    }
+
+    /**
+     * Stops all pending connection attempts.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        reconnecting = false;
+    }
+
+    /**
+     * Calculates the delay before the next attempt. The delay doubles with every failed attempt up to the maximum, and
+     * the configured fraction of it is randomized.
+     * @param failedAttempts The number of attempts that failed in a row.
+     * @return The delay in milliseconds.
+     */
+    public long backoffDelayMs(int failedAttempts) {
+        long delay = initialDelayMs << Math.min(failedAttempts, 30);
+        if (delay <= 0 || delay > maxDelayMs) {
+            delay = maxDelayMs;
+        }
+        return Math.round(delay * (1 - jitter * random.getAsDouble()));
+    }
+
+    private void schedule(long delayMs) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, Constants.RECONNECT_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        reconnecting = true;
+        executor.schedule(this::attempt, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the background thread. The lookup is done without holding the lock.
+     */
+    private void attempt() {
+        attemptCount++;
+        IElevator elevator;
+        try {
+            elevator = connector.connect();
+        } catch (Exception e) {
+            elevator = null;
+        }
+
+        synchronized (this) {
+            if (!reconnecting) {
+                // Shut down in the meantime
+                return;
+            }
+            if (elevator != null) {
+                connected(elevator);
+            } else {
+                failureCount++;
+                failedAttempts++;
+                schedule(backoffDelayMs(failedAttempts));
+            }
+        }
+    }
+
+    private synchronized void connected(IElevator elevator) {
+        connection = elevator;
+        generation++;
+        confirmed = false;
+        reconnecting = false;
+    }
+
+    /**
+     * @return The current connection, or null while disconnected. Never blocks.
+     */
+    public IElevator getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return True if a connection is available.
+     */
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    /**
+     * @return The number of connections established so far. Changes whenever a new connection is available.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    // Generated
+
+    public long getAttemptCount() {
+        return attemptCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+}
@@ -1,26 +1,67 @@
 package at.fhhagenberg.sqelevator.model;
 
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.interfaces.IEccDeltaObserver;
 import at.fhhagenberg.sqelevator.interfaces.IEccObservable;
 import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
 
-import java.util.Vector;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract Model class for different possible models within the application. Implements commonly used functionality,
- * such as the addition and removal of observers.
+ * such as the addition and removal of observers. The observers are kept in copy-on-write lists, so they can be added
+ * and removed while a notification is in progress, without locking the notifying thread.
  */
 public abstract class EccModel implements IEccObservable {
 
     protected ApplicationState applicationState;
 
-    protected Vector<IEccObserver> observers;
+    private static final AtomicInteger ASYNC_OBSERVER_NUMBER = new AtomicInteger();
+
+    protected List<IEccObserver> observers;
+
+    protected List<IEccDeltaObserver> deltaObservers;
+
+    /**
+     * Last published snapshot of the application state. Written by the updating thread only, read by any thread.
+     */
+    private volatile ApplicationState snapshot;
+
+    /**
+     * Snapshot of the last state the delta observers have been notified about.
+     */
+    private ApplicationState previousState;
 
     /**
      * Constructor that initializes the commonly used necessary objects.
      */
     public EccModel() {
-        observers = new Vector<>();
+        observers = new CopyOnWriteArrayList<>();
+        deltaObservers = new CopyOnWriteArrayList<>();
         applicationState = new ApplicationState();
+        snapshot = applicationState.snapshot();
+    }
+
+    /**
+     * Returns the most recently published state. The snapshot is immutable, so it can be read from any thread without
+     * locking, and it stays consistent while the model keeps updating.
+     * @return The last published snapshot of the application state.
+     */
+    public ApplicationState getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes an immutable snapshot of the current application state. Unchanged parts are shared with the
+     * previously published snapshot.
+     * @return The published snapshot.
+     */
+    protected ApplicationState publishSnapshot() {
+        ApplicationState published = applicationState.snapshot(snapshot);
+        snapshot = published;
+        return published;
     }
 
     @Override
@@ -28,9 +69,35 @@ public abstract class EccModel implements IEccObservable {
         observers.add(observer);
     }
 
+    @Override
+    public AsyncObserver addAsyncObserver(IEccObserver observer) {
+        AsyncObserver asyncObserver = new AsyncObserver(observer,
+                Constants.OBSERVER_THREAD_NAME + "-" + ASYNC_OBSERVER_NUMBER.getAndIncrement());
+        observers.add(asyncObserver);
+        return asyncObserver;
+    }
+
     @Override
     public void removeObserver(IEccObserver observer) {
-        observers.remove(observer);
+        for (IEccObserver registered : observers) {
+            if (registered == observer
+                    || registered instanceof AsyncObserver && ((AsyncObserver) registered).getDelegate() == observer) {
+                observers.remove(registered);
+                if (registered instanceof AsyncObserver) {
+                    ((AsyncObserver) registered).close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addDeltaObserver(IEccDeltaObserver observer) {
+        deltaObservers.add(observer);
+    }
+
+    @Override
+    public void removeDeltaObserver(IEccDeltaObserver observer) {
+        deltaObservers.remove(observer);
     }
 
     @Override
@@ -38,5 +105,27 @@ public abstract class EccModel implements IEccObservable {
         for (IEccObserver observer : observers) {
             observer.applicationStateChanged(applicationState);
         }
+
+        if (!deltaObservers.isEmpty()) {
+            notifyDeltaObservers(applicationState);
+        }
+    }
+
+    /**
+     * Computes the difference to the previously notified state and passes it to the delta observers, unless nothing
+     * changed. A mutable state is copied, as its owner may keep updating it in place.
+     * @param applicationState The new, updated state of the application.
+     */
+    private synchronized void notifyDeltaObservers(ApplicationState applicationState) {
+        StateDelta delta = StateDelta.between(previousState, applicationState);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        previousState = applicationState.isFrozen() ? applicationState : applicationState.snapshot();
+
+        for (IEccDeltaObserver observer : deltaObservers) {
+            observer.applicationStateDelta(delta, applicationState);
+        }
     }
 }
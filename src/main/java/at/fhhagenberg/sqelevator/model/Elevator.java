@@ -1,9 +1,11 @@
 package at.fhhagenberg.sqelevator.model;
 
-import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 /**
- * Class that represents the state of one elevator within the managed building.
+ * Class that represents the state of one elevator within the managed building. Elevators of a snapshot of the
+ * application state are frozen, their setters throw an {@link UnsupportedOperationException}.
  */
 public class Elevator {
 
@@ -12,7 +14,27 @@ public class Elevator {
      */
     public Elevator() {
         this.automatic = true;
-        this.activeFloorButtons = new ArrayList<>();
+        this.activeFloorButtons = new BitSet();
+        this.servicedFloors = new BitSet();
+    }
+
+    /**
+     * Copy constructor creating a mutable deep copy of the given elevator.
+     * @param other The elevator to copy.
+     */
+    public Elevator(Elevator other) {
+        this.automatic = other.automatic;
+        this.committedDirection = other.committedDirection;
+        this.currentTarget = other.currentTarget;
+        this.currentAcceleration = other.currentAcceleration;
+        this.doorStatus = other.doorStatus;
+        this.currentFloor = other.currentFloor;
+        this.currentHeightOverGround = other.currentHeightOverGround;
+        this.currentSpeed = other.currentSpeed;
+        this.currentPassengerWeight = other.currentPassengerWeight;
+        this.maxPassengerNumber = other.maxPassengerNumber;
+        this.activeFloorButtons = (BitSet) other.activeFloorButtons.clone();
+        this.servicedFloors = (BitSet) other.servicedFloors.clone();
     }
 
     private boolean automatic;
@@ -35,7 +57,54 @@ public class Elevator {
 
     private int maxPassengerNumber;
 
-    private ArrayList<Integer> activeFloorButtons;
+    private final BitSet activeFloorButtons;
+
+    /**
+     * Row of the services floors matrix of the building. Cached by the model and only refreshed rarely.
+     */
+    private final BitSet servicedFloors;
+
+    private boolean frozen;
+
+    /**
+     * @return A frozen copy of this elevator, or this elevator if it is frozen already.
+     */
+    Elevator snapshot() {
+        if (frozen) {
+            return this;
+        }
+        Elevator snapshot = new Elevator(this);
+        snapshot.frozen = true;
+        return snapshot;
+    }
+
+    /**
+     * @return True if the other elevator holds the same values as this one.
+     */
+    boolean hasSameValues(Elevator other) {
+        return automatic == other.automatic
+                && committedDirection == other.committedDirection
+                && currentTarget == other.currentTarget
+                && currentAcceleration == other.currentAcceleration
+                && doorStatus == other.doorStatus
+                && currentFloor == other.currentFloor
+                && currentHeightOverGround == other.currentHeightOverGround
+                && currentSpeed == other.currentSpeed
+                && currentPassengerWeight == other.currentPassengerWeight
+                && maxPassengerNumber == other.maxPassengerNumber
+                && activeFloorButtons.equals(other.activeFloorButtons)
+                && servicedFloors.equals(other.servicedFloors);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The elevator of a snapshot is immutable");
+        }
+    }
 
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -50,7 +119,8 @@ public class Elevator {
         builder.append("Max Passengers: ").append(maxPassengerNumber).append("\n");
         builder.append("Elevator Buttons Pressed: ");
 
-        for (Integer button : activeFloorButtons) {
+        for (int button = activeFloorButtons.nextSetBit(0); button >= 0;
+             button = activeFloorButtons.nextSetBit(button + 1)) {
             builder.append(button).append(", ");
         }
 
@@ -64,6 +134,7 @@ public class Elevator {
     }
 
     public void setAutomatic(boolean automatic) {
+        checkMutable();
         this.automatic = automatic;
     }
 
@@ -72,6 +143,7 @@ public class Elevator {
     }
 
     public void setCommittedDirection(int committedDirection) {
+        checkMutable();
         this.committedDirection = committedDirection;
     }
 
@@ -80,6 +152,7 @@ public class Elevator {
     }
 
     public void setCurrentTarget(int currentTarget) {
+        checkMutable();
         this.currentTarget = currentTarget;
     }
 
@@ -88,6 +161,7 @@ public class Elevator {
     }
 
     public void setCurrentAcceleration(int currentAcceleration) {
+        checkMutable();
         this.currentAcceleration = currentAcceleration;
     }
 
@@ -96,6 +170,7 @@ public class Elevator {
     }
 
     public void setDoorStatus(int doorStatus) {
+        checkMutable();
         this.doorStatus = doorStatus;
     }
 
@@ -104,6 +179,7 @@ public class Elevator {
     }
 
     public void setCurrentFloor(int currentFloor) {
+        checkMutable();
         this.currentFloor = currentFloor;
     }
 
@@ -112,6 +188,7 @@ public class Elevator {
     }
 
     public void setCurrentHeightOverGround(int currentHeightOverGround) {
+        checkMutable();
         this.currentHeightOverGround = currentHeightOverGround;
     }
 
@@ -120,6 +197,7 @@ public class Elevator {
     }
 
     public void setCurrentSpeed(int currentSpeed) {
+        checkMutable();
         this.currentSpeed = currentSpeed;
     }
 
@@ -128,6 +206,7 @@ public class Elevator {
     }
 
     public void setCurrentPassengerWeight(int currentPassengerWeight) {
+        checkMutable();
         this.currentPassengerWeight = currentPassengerWeight;
     }
 
@@ -136,14 +215,56 @@ public class Elevator {
     }
 
     public void setMaxPassengerNumber(int maxPassengerNumber) {
+        checkMutable();
         this.maxPassengerNumber = maxPassengerNumber;
     }
 
-    public ArrayList<Integer> getActiveFloorButtons() {
+    /**
+     * @return Read-only view of the floors whose button in the elevator is pressed, in ascending order.
+     */
+    public List<Integer> getActiveFloorButtons() {
+        return new FloorButtonList(activeFloorButtons);
+    }
+
+    /**
+     * Replaces the floors whose button in the elevator is pressed.
+     * @param activeFloorButtons The floors whose button is pressed.
+     */
+    public void setActiveFloorButtons(List<Integer> activeFloorButtons) {
+        checkMutable();
+        ApplicationState.replace(this.activeFloorButtons, activeFloorButtons);
+    }
+
+    public boolean isFloorButtonActive(int floor) {
+        return activeFloorButtons.get(floor);
+    }
+
+    public void setFloorButtonActive(int floor, boolean active) {
+        checkMutable();
+        activeFloorButtons.set(floor, active);
+    }
+
+    BitSet getActiveFloorButtonBits() {
         return activeFloorButtons;
     }
 
-    public void setActiveFloorButtons(ArrayList<Integer> activeFloorButtons) {
-        this.activeFloorButtons = activeFloorButtons;
+    /**
+     * @return Read-only view of the floors that are serviced by the elevator, in ascending order.
+     */
+    public List<Integer> getServicedFloors() {
+        return new FloorButtonList(servicedFloors);
+    }
+
+    public boolean isServicingFloor(int floor) {
+        return servicedFloors.get(floor);
+    }
+
+    public void setServicingFloor(int floor, boolean servicing) {
+        checkMutable();
+        servicedFloors.set(floor, servicing);
+    }
+
+    BitSet getServicedFloorBits() {
+        return servicedFloors;
     }
 }
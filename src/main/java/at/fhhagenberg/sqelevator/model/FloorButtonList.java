@@ -0,0 +1,73 @@
+package at.fhhagenberg.sqelevator.model;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only list view of the floors whose bit is set in a bit set, in ascending order. The view reflects later changes
+ * of the bit set. Used to offer the button states, which are kept in bit sets to avoid allocations during the update,
+ * as lists of floor numbers to the view and other observers.
+ */
+class FloorButtonList extends AbstractList<Integer> {
+
+    private final BitSet floors;
+
+    FloorButtonList(BitSet floors) {
+        this.floors = floors;
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int floor = floors.nextSetBit(0);
+        for (int i = 0; i < index && floor >= 0; i++) {
+            floor = floors.nextSetBit(floor + 1);
+        }
+        if (floor < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return floor;
+    }
+
+    @Override
+    public int size() {
+        return floors.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return floors.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && (Integer) o >= 0 && floors.get((Integer) o);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+
+            private int next = floors.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int floor = next;
+                next = floors.nextSetBit(floor + 1);
+                return floor;
+            }
+        };
+    }
+}
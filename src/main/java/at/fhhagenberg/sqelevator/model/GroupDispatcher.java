@@ -0,0 +1,421 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import sqelevator.IElevator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Assigns every hall call of the building to exactly one elevator in automatic mode, the car with the lowest estimated
+ * time of arrival. The only exception are the floors shared by several zones of a zoned building, usually the lobby.
+ * The cars that service the same floors form a group, and a call on a floor where no group reaches all the floors the
+ * other groups reach is answered by the best car of every group. The passengers there share one hall button, but
+ * could otherwise only board the one car the call is assigned to, even if it does not serve their zone.
+ * The estimate follows the route the car takes under collective control: a moving car first completes the trip to its
+ * target, then the car travels in its direction up to its farthest pending stop before it turns. Every pending stop on
+ * the way adds the time of a stop. Cars that do not service the floor are not considered, nearly full cars are
+ * penalized.
+ * The calls are assigned again with every update, so the assignment follows the cars. A call only moves to another car
+ * if that car arrives clearly earlier, which keeps the cars from swapping calls back and forth.
+ * Assigning does not allocate once the buffers fit the building.
+ */
+public class GroupDispatcher {
+
+    private static final int UNASSIGNED = -1;
+
+    private static final BitSet NO_CALLS = new BitSet();
+
+    private final long floorTravelMs;
+
+    private final long stopMs;
+
+    private final long reassignMarginMs;
+
+    private int[] assignedUp = new int[0];
+
+    private int[] assignedDown = new int[0];
+
+    private BitSet[] carHallUp = new BitSet[0];
+
+    private BitSet[] carHallDown = new BitSet[0];
+
+    private BitSet[] previousHallUp = new BitSet[0];
+
+    private BitSet[] previousHallDown = new BitSet[0];
+
+    /**
+     * Group of each car, cars that service the same floors are in the same group.
+     */
+    private int[] groupOf = new int[0];
+
+    private int groupCount;
+
+    private int[] groupBest = new int[0];
+
+    private long[] groupBestCost = new long[0];
+
+    private int[] groupPrevious = new int[0];
+
+    private long[] groupPreviousCost = new long[0];
+
+    /**
+     * Number of pending stops of each car below a floor, the stops of car i below floor f are at [i][f].
+     */
+    private int[][] pendingBelow = new int[0][0];
+
+    private int[] lowestPending = new int[0];
+
+    private int[] highestPending = new int[0];
+
+    /**
+     * Default constructor using the timing of the constants.
+     */
+    public GroupDispatcher() {
+        this(Constants.DISPATCH_FLOOR_TRAVEL_MS, Constants.DISPATCH_STOP_MS, Constants.DISPATCH_REASSIGN_MARGIN_MS);
+    }
+
+    /**
+     * Constructor.
+     * @param floorTravelMs The estimated time a car needs to travel one floor.
+     * @param stopMs The estimated time of a stop, including the door movements and the dwell time.
+     * @param reassignMarginMs The time another car has to arrive earlier to take over an assigned call.
+     */
+    public GroupDispatcher(long floorTravelMs, long stopMs, long reassignMarginMs) {
+        if (floorTravelMs <= 0 || stopMs < 0 || reassignMarginMs < 0) {
+            throw new IllegalArgumentException("Invalid dispatch timing");
+        }
+        this.floorTravelMs = floorTravelMs;
+        this.stopMs = stopMs;
+        this.reassignMarginMs = reassignMarginMs;
+    }
+
+    /**
+     * Assigns the hall calls of the given state to the elevators in automatic mode.
+     * @param applicationState The state of the building.
+     */
+    public void assign(ApplicationState applicationState) {
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        List<Elevator> elevators = applicationState.getElevators();
+        ensureBufferSize(elevators.size(), numberOfFloors);
+
+        // The assignment of the previous update becomes the previous one
+        BitSet[] swap = previousHallUp;
+        previousHallUp = carHallUp;
+        carHallUp = swap;
+        swap = previousHallDown;
+        previousHallDown = carHallDown;
+        carHallDown = swap;
+
+        groupCount = 0;
+        for (int i = 0; i < elevators.size(); i++) {
+            countPendingStops(i, elevators.get(i), numberOfFloors);
+            carHallUp[i].clear();
+            carHallDown[i].clear();
+            groupOf[i] = groupOf(elevators, i);
+        }
+
+        BitSet hallUp = applicationState.getButtonUpBits();
+        BitSet hallDown = applicationState.getButtonDownBits();
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            assignedUp[floor] = hallUp.get(floor)
+                    ? assignCall(elevators, floor, IElevator.ELEVATOR_DIRECTION_UP, previousHallUp, carHallUp)
+                    : UNASSIGNED;
+            assignedDown[floor] = hallDown.get(floor)
+                    ? assignCall(elevators, floor, IElevator.ELEVATOR_DIRECTION_DOWN, previousHallDown, carHallDown)
+                    : UNASSIGNED;
+        }
+    }
+
+    private void ensureBufferSize(int numberOfElevators, int numberOfFloors) {
+        if (assignedUp.length != numberOfFloors || carHallUp.length != numberOfElevators) {
+            assignedUp = new int[numberOfFloors];
+            assignedDown = new int[numberOfFloors];
+            Arrays.fill(assignedUp, UNASSIGNED);
+            Arrays.fill(assignedDown, UNASSIGNED);
+            carHallUp = createBitSets(numberOfElevators, numberOfFloors);
+            carHallDown = createBitSets(numberOfElevators, numberOfFloors);
+            previousHallUp = createBitSets(numberOfElevators, numberOfFloors);
+            previousHallDown = createBitSets(numberOfElevators, numberOfFloors);
+            pendingBelow = new int[numberOfElevators][numberOfFloors + 1];
+            lowestPending = new int[numberOfElevators];
+            highestPending = new int[numberOfElevators];
+            groupOf = new int[numberOfElevators];
+            groupBest = new int[numberOfElevators];
+            groupBestCost = new long[numberOfElevators];
+            groupPrevious = new int[numberOfElevators];
+            groupPreviousCost = new long[numberOfElevators];
+        }
+    }
+
+    private static BitSet[] createBitSets(int count, int size) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet(size);
+        }
+        return bitSets;
+    }
+
+    /**
+     * @return The group of the car: the group of the first car before it that services the same floors, or a new one.
+     */
+    private int groupOf(List<Elevator> elevators, int elevatorIndex) {
+        BitSet serviced = elevators.get(elevatorIndex).getServicedFloorBits();
+        for (int i = 0; i < elevatorIndex; i++) {
+            if (elevators.get(i).getServicedFloorBits().equals(serviced)) {
+                return groupOf[i];
+            }
+        }
+        return groupCount++;
+    }
+
+    /**
+     * Counts the pending stops of a car: its car calls, the hall calls assigned to it by the previous assignment, and
+     * the target of a moving car.
+     */
+    private void countPendingStops(int elevatorIndex, Elevator elevator, int numberOfFloors) {
+        BitSet carCalls = elevator.getActiveFloorButtonBits();
+        int[] below = pendingBelow[elevatorIndex];
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            boolean pending = carCalls.get(floor) || previousHallUp[elevatorIndex].get(floor)
+                    || previousHallDown[elevatorIndex].get(floor)
+                    || (isMoving(elevator) && floor == elevator.getCurrentTarget());
+            below[floor + 1] = below[floor] + (pending ? 1 : 0);
+            if (pending) {
+                lowest = Math.min(lowest, floor);
+                highest = Math.max(highest, floor);
+            }
+        }
+        lowestPending[elevatorIndex] = lowest;
+        highestPending[elevatorIndex] = highest;
+    }
+
+    /**
+     * Assigns the call to the best car of all that service the floor, or to the best car of every group on a floor
+     * shared by several zones.
+     * @return The car with the lowest estimated time of arrival of all assigned ones, or -1 if no car services the
+     * floor.
+     */
+    private int assignCall(List<Elevator> elevators, int floor, int direction, BitSet[] previous, BitSet[] current) {
+        Arrays.fill(groupBest, 0, groupCount, UNASSIGNED);
+        Arrays.fill(groupBestCost, 0, groupCount, Long.MAX_VALUE);
+        Arrays.fill(groupPrevious, 0, groupCount, UNASSIGNED);
+
+        for (int i = 0; i < elevators.size(); i++) {
+            Elevator elevator = elevators.get(i);
+            if (!elevator.isAutomatic() || !elevator.isServicingFloor(floor)) {
+                continue;
+            }
+            long cost = estimateArrivalMs(i, elevator, floor, direction);
+            int group = groupOf[i];
+            if (cost < groupBestCost[group]) {
+                groupBestCost[group] = cost;
+                groupBest[group] = i;
+            }
+            if (previous[i].get(floor)) {
+                groupPrevious[group] = i;
+                groupPreviousCost[group] = cost;
+            }
+        }
+
+        if (isSharedFloor(elevators)) {
+            int assigned = UNASSIGNED;
+            long assignedCost = Long.MAX_VALUE;
+            for (int group = 0; group < groupCount; group++) {
+                int chosen = groupBest[group];
+                long cost = groupBestCost[group];
+                if (groupPrevious[group] != UNASSIGNED && groupPreviousCost[group] <= cost + reassignMarginMs) {
+                    chosen = groupPrevious[group];
+                    cost = groupPreviousCost[group];
+                }
+                if (chosen == UNASSIGNED) {
+                    continue;
+                }
+                current[chosen].set(floor);
+                if (cost < assignedCost) {
+                    assignedCost = cost;
+                    assigned = chosen;
+                }
+            }
+            return assigned;
+        }
+
+        int best = UNASSIGNED;
+        long bestCost = Long.MAX_VALUE;
+        int kept = UNASSIGNED;
+        long keptCost = Long.MAX_VALUE;
+        for (int group = 0; group < groupCount; group++) {
+            if (groupBest[group] != UNASSIGNED && groupBestCost[group] < bestCost) {
+                best = groupBest[group];
+                bestCost = groupBestCost[group];
+            }
+            if (groupPrevious[group] != UNASSIGNED && groupPreviousCost[group] < keptCost) {
+                kept = groupPrevious[group];
+                keptCost = groupPreviousCost[group];
+            }
+        }
+        if (kept != UNASSIGNED && keptCost <= bestCost + reassignMarginMs) {
+            best = kept;
+        }
+        if (best != UNASSIGNED) {
+            current[best].set(floor);
+        }
+        return best;
+    }
+
+    /**
+     * Checks the groups with a car that can answer the current call, as found by {@link #assignCall}.
+     * @return True if no group reaches all the floors the other groups reach, like the lobby of a zoned building.
+     */
+    private boolean isSharedFloor(List<Elevator> elevators) {
+        for (int group = 0; group < groupCount; group++) {
+            if (groupBest[group] == UNASSIGNED) {
+                continue;
+            }
+            BitSet reached = elevators.get(groupBest[group]).getServicedFloorBits();
+            boolean reachesAll = true;
+            for (int other = 0; other < groupCount && reachesAll; other++) {
+                if (other != group && groupBest[other] != UNASSIGNED) {
+                    reachesAll = isSubset(elevators.get(groupBest[other]).getServicedFloorBits(), reached);
+                }
+            }
+            if (reachesAll) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSubset(BitSet subset, BitSet superset) {
+        for (int floor = subset.nextSetBit(0); floor >= 0; floor = subset.nextSetBit(floor + 1)) {
+            if (!superset.get(floor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the time until the car arrives at the call, following the route of the collective control.
+     * @param elevatorIndex The index of the car.
+     * @param elevator The car.
+     * @param floor The floor of the call.
+     * @param direction The direction of the call.
+     * @return The estimated time of arrival in milliseconds, including the penalty for a nearly full car.
+     */
+    long estimateArrivalMs(int elevatorIndex, Elevator elevator, int floor, int direction) {
+        long time = 0;
+        int start = elevator.getCurrentFloor();
+
+        if (isMoving(elevator)) {
+            // The car does not take new stops before it has reached its target
+            start = elevator.getCurrentTarget();
+            time += Math.abs(start - elevator.getCurrentFloor()) * floorTravelMs + stopMs;
+        }
+
+        int lowest = Math.min(lowestPending[elevatorIndex], start);
+        int highest = Math.max(highestPending[elevatorIndex], start);
+        int travel = elevator.getCommittedDirection();
+        if (lowestPending[elevatorIndex] > highestPending[elevatorIndex]) {
+            // No pending stops, the car heads straight for the call
+            travel = IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+        }
+
+        int distance;
+        int stops;
+        if (travel == IElevator.ELEVATOR_DIRECTION_UNCOMMITTED) {
+            distance = Math.abs(floor - start);
+            stops = 0;
+        } else if (travel == IElevator.ELEVATOR_DIRECTION_UP) {
+            if (direction == IElevator.ELEVATOR_DIRECTION_UP && floor >= start) {
+                distance = floor - start;
+                stops = pendingBetween(elevatorIndex, start + 1, floor - 1);
+            } else if (direction == IElevator.ELEVATOR_DIRECTION_DOWN) {
+                int top = Math.max(highest, floor);
+                distance = (top - start) + (top - floor);
+                stops = pendingBetween(elevatorIndex, Math.min(start, floor) + 1, top);
+            } else {
+                int bottom = Math.min(lowest, floor);
+                distance = (highest - start) + (highest - bottom) + (floor - bottom);
+                stops = pendingBetween(elevatorIndex, 0, Integer.MAX_VALUE);
+            }
+        } else {
+            if (direction == IElevator.ELEVATOR_DIRECTION_DOWN && floor <= start) {
+                distance = start - floor;
+                stops = pendingBetween(elevatorIndex, floor + 1, start - 1);
+            } else if (direction == IElevator.ELEVATOR_DIRECTION_UP) {
+                int bottom = Math.min(lowest, floor);
+                distance = (start - bottom) + (floor - bottom);
+                stops = pendingBetween(elevatorIndex, bottom, Math.max(start, floor) - 1);
+            } else {
+                int top = Math.max(highest, floor);
+                distance = (start - lowest) + (top - lowest) + (top - floor);
+                stops = pendingBetween(elevatorIndex, 0, Integer.MAX_VALUE);
+            }
+        }
+
+        time += distance * floorTravelMs + stops * stopMs;
+        if (isNearlyFull(elevator)) {
+            time += Constants.DISPATCH_FULL_CAR_PENALTY_MS;
+        }
+        return time;
+    }
+
+    /**
+     * @return The number of pending stops of the car from the first to the last floor, both inclusive.
+     */
+    private int pendingBetween(int elevatorIndex, int first, int last) {
+        int[] below = pendingBelow[elevatorIndex];
+        first = Math.max(0, first);
+        last = Math.min(below.length - 2, last);
+        return last < first ? 0 : below[last + 1] - below[first];
+    }
+
+    private static boolean isMoving(Elevator elevator) {
+        return elevator.getCurrentSpeed() != 0 || elevator.getDoorStatus() != IElevator.ELEVATOR_DOORS_OPEN;
+    }
+
+    private static boolean isNearlyFull(Elevator elevator) {
+        int capacityWeight = elevator.getMaxPassengerNumber() * Constants.PASSENGER_WEIGHT;
+        return capacityWeight > 0
+                && elevator.getCurrentPassengerWeight() >= capacityWeight * Constants.DISPATCH_FULL_LOAD_FACTOR;
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @return The floors whose up calls are assigned to the elevator. Reused by the next assignment.
+     */
+    public BitSet getHallUp(int elevatorIndex) {
+        return elevatorIndex < carHallUp.length ? carHallUp[elevatorIndex] : NO_CALLS;
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @return The floors whose down calls are assigned to the elevator. Reused by the next assignment.
+     */
+    public BitSet getHallDown(int elevatorIndex) {
+        return elevatorIndex < carHallDown.length ? carHallDown[elevatorIndex] : NO_CALLS;
+    }
+
+    /**
+     * @param floor The floor.
+     * @return The index of the elevator the up call of the floor is assigned to, or -1. On a floor shared by several
+     * zones, where every group answers the call, the one of the elevators that arrives first.
+     */
+    public int getAssignedUp(int floor) {
+        return floor < assignedUp.length ? assignedUp[floor] : UNASSIGNED;
+    }
+
+    /**
+     * @param floor The floor.
+     * @return The index of the elevator the down call of the floor is assigned to, or -1. On a floor shared by several
+     * zones, where every group answers the call, the one of the elevators that arrives first.
+     */
+    public int getAssignedDown(int floor) {
+        return floor < assignedDown.length ? assignedDown[floor] : UNASSIGNED;
+    }
+}
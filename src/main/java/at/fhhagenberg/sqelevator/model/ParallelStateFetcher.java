@@ -0,0 +1,279 @@
+package at.fhhagenberg.sqelevator.model;
+
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the dynamic building data concurrently. The scalar values of each elevator, and the button states of ranges
+ * of floors, are read by separate tasks on a bounded executor. The results are collected in buffers and only merged
+ * into the application state once all of them have arrived, so the state is either updated completely or not at all.
+ * With this, the latency of an update scales with the slowest elevator instead of the sum of all elevators.
+ * <p>
+ * The tasks are created when the size of the building changes and reused for every fetch. Submitting them still
+ * allocates a future per task in the executor, so unlike the sequential fetch of the model, a parallel fetch is not
+ * free of allocations.
+ */
+public class ParallelStateFetcher {
+
+    private static final int SCALAR_COMMITTED_DIRECTION = 0;
+    private static final int SCALAR_TARGET = 1;
+    private static final int SCALAR_ACCELERATION = 2;
+    private static final int SCALAR_DOOR_STATUS = 3;
+    private static final int SCALAR_FLOOR = 4;
+    private static final int SCALAR_POSITION = 5;
+    private static final int SCALAR_SPEED = 6;
+    private static final int SCALAR_WEIGHT = 7;
+    private static final int SCALAR_COUNT = 8;
+
+    private final ExecutorService executor;
+
+    private final Semaphore permits;
+
+    private final int floorsPerTask;
+
+    private boolean[] buttonUpBuffer = new boolean[0];
+
+    private boolean[] buttonDownBuffer = new boolean[0];
+
+    private int[][] scalarBuffer = new int[0][SCALAR_COUNT];
+
+    private boolean[][] elevatorButtonBuffer = new boolean[0][0];
+
+    private List<Callable<Void>> tasks = new ArrayList<>();
+
+    private Future<?>[] futures = new Future<?>[0];
+
+    // The interface the tasks read from, set before they are submitted, which publishes it to the executor threads
+    private IElevator control;
+
+    /**
+     * Constructor.
+     * @param executor The executor that runs the fetch tasks.
+     * @param maxParallelism The maximum number of RMI calls that may be in flight at the same time.
+     * @param floorsPerTask The number of floors whose buttons are read by a single task.
+     */
+    public ParallelStateFetcher(ExecutorService executor, int maxParallelism, int floorsPerTask) {
+        if (maxParallelism <= 0 || floorsPerTask <= 0) {
+            throw new IllegalArgumentException("Parallelism and floors per task have to be positive");
+        }
+        this.executor = executor;
+        this.permits = new Semaphore(maxParallelism);
+        this.floorsPerTask = floorsPerTask;
+    }
+
+    /**
+     * Creates a fetcher with its own executor. Virtual threads are used if the runtime provides them, otherwise a fixed
+     * pool of daemon threads.
+     * @param maxParallelism The maximum number of RMI calls that may be in flight at the same time.
+     * @param floorsPerTask The number of floors whose buttons are read by a single task.
+     * @return The new fetcher.
+     */
+    public static ParallelStateFetcher create(int maxParallelism, int floorsPerTask) {
+        return new ParallelStateFetcher(createExecutor(maxParallelism), maxParallelism, floorsPerTask);
+    }
+
+    /**
+     * Creates the executor for the fetch tasks, which can be shared by the fetchers of several buildings. Virtual
+     * threads are used if the runtime provides them, otherwise a fixed pool of daemon threads.
+     * @param maxParallelism The maximum number of tasks that run at the same time.
+     * @return The new executor.
+     */
+    public static ExecutorService createExecutor(int maxParallelism) {
+        try {
+            // Only available from Java 21 on, the project itself targets Java 11
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxParallelism, runnable -> {
+                Thread thread = new Thread(runnable, "ecc-fetch-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Shuts down the executor of the fetcher.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetches the floor buttons and the dynamic data of all elevators and merges them into the given state. The
+     * elevator objects of the state have to exist already.
+     * @param elevatorControl The RMI interface to read from.
+     * @param applicationState The state to update.
+     * @throws RemoteException Thrown if any of the RMI calls failed. The state is left untouched in this case.
+     */
+    public void fetch(IElevator elevatorControl, ApplicationState applicationState) throws RemoteException {
+
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        int numberOfElevators = applicationState.getNumberOfElevators();
+
+        ensureBufferSize(numberOfElevators, numberOfFloors);
+
+        control = elevatorControl;
+        try {
+            awaitAll();
+        } finally {
+            control = null;
+        }
+        merge(applicationState, numberOfElevators, numberOfFloors);
+    }
+
+    private void ensureBufferSize(int numberOfElevators, int numberOfFloors) {
+        if (buttonUpBuffer.length != numberOfFloors || scalarBuffer.length != numberOfElevators) {
+            buttonUpBuffer = new boolean[numberOfFloors];
+            buttonDownBuffer = new boolean[numberOfFloors];
+            scalarBuffer = new int[numberOfElevators][SCALAR_COUNT];
+            elevatorButtonBuffer = new boolean[numberOfElevators][numberOfFloors];
+            createTasks(numberOfElevators, numberOfFloors);
+        }
+    }
+
+    private void createTasks(int numberOfElevators, int numberOfFloors) {
+        tasks = new ArrayList<>();
+
+        for (int from = 0; from < numberOfFloors; from += floorsPerTask) {
+            int to = Math.min(numberOfFloors, from + floorsPerTask);
+            int first = from;
+            tasks.add(() -> fetchFloorButtons(control, first, to));
+        }
+
+        for (int i = 0; i < numberOfElevators; i++) {
+            int elevatorIndex = i;
+            tasks.add(() -> fetchScalars(control, elevatorIndex));
+
+            for (int from = 0; from < numberOfFloors; from += floorsPerTask) {
+                int to = Math.min(numberOfFloors, from + floorsPerTask);
+                int first = from;
+                tasks.add(() -> fetchElevatorButtons(control, elevatorIndex, first, to));
+            }
+        }
+
+        futures = new Future<?>[tasks.size()];
+    }
+
+    private void awaitAll() throws RemoteException {
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = executor.submit(tasks.get(i));
+        }
+
+        RemoteException failure = null;
+
+        // Wait for all tasks, even after a failure, so no task writes to the buffers after this method returned
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RemoteException
+                            ? (RemoteException) e.getCause()
+                            : new RemoteException("Fetching the elevator state failed", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> pending : futures) {
+                    pending.cancel(true);
+                }
+                throw new RemoteException("Interrupted while fetching the elevator state", e);
+            }
+        }
+
+        // Drop the completed futures, so they do not keep their results alive until the next fetch
+        Arrays.fill(futures, null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Void fetchFloorButtons(IElevator elevatorControl, int from, int to) throws RemoteException,
+            InterruptedException {
+        for (int floor = from; floor < to; floor++) {
+            permits.acquire();
+            try {
+                buttonUpBuffer[floor] = elevatorControl.getFloorButtonUp(floor);
+                buttonDownBuffer[floor] = elevatorControl.getFloorButtonDown(floor);
+            } finally {
+                permits.release();
+            }
+        }
+        return null;
+    }
+
+    private Void fetchScalars(IElevator elevatorControl, int elevatorIndex) throws RemoteException,
+            InterruptedException {
+        int[] scalars = scalarBuffer[elevatorIndex];
+        permits.acquire();
+        try {
+            scalars[SCALAR_COMMITTED_DIRECTION] = elevatorControl.getCommittedDirection(elevatorIndex);
+            scalars[SCALAR_TARGET] = elevatorControl.getTarget(elevatorIndex);
+            scalars[SCALAR_ACCELERATION] = elevatorControl.getElevatorAccel(elevatorIndex);
+            scalars[SCALAR_DOOR_STATUS] = elevatorControl.getElevatorDoorStatus(elevatorIndex);
+            scalars[SCALAR_FLOOR] = elevatorControl.getElevatorFloor(elevatorIndex);
+            scalars[SCALAR_POSITION] = elevatorControl.getElevatorPosition(elevatorIndex);
+            scalars[SCALAR_SPEED] = elevatorControl.getElevatorSpeed(elevatorIndex);
+            scalars[SCALAR_WEIGHT] = elevatorControl.getElevatorWeight(elevatorIndex);
+        } finally {
+            permits.release();
+        }
+        return null;
+    }
+
+    private Void fetchElevatorButtons(IElevator elevatorControl, int elevatorIndex, int from, int to)
+            throws RemoteException, InterruptedException {
+        boolean[] buttons = elevatorButtonBuffer[elevatorIndex];
+        for (int floor = from; floor < to; floor++) {
+            permits.acquire();
+            try {
+                buttons[floor] = elevatorControl.getElevatorButton(elevatorIndex, floor);
+            } finally {
+                permits.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Merges the buffers into the application state. Called on the polling thread after all tasks have completed, the
+     * completed futures guarantee the visibility of the buffer contents.
+     */
+    private void merge(ApplicationState applicationState, int numberOfElevators, int numberOfFloors) {
+
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            applicationState.setButtonUpPressed(floor, buttonUpBuffer[floor]);
+            applicationState.setButtonDownPressed(floor, buttonDownBuffer[floor]);
+        }
+
+        for (int i = 0; i < numberOfElevators; i++) {
+            Elevator elevator = applicationState.getElevators().get(i);
+            int[] scalars = scalarBuffer[i];
+
+            elevator.setCommittedDirection(scalars[SCALAR_COMMITTED_DIRECTION]);
+            elevator.setCurrentTarget(scalars[SCALAR_TARGET]);
+            elevator.setCurrentAcceleration(scalars[SCALAR_ACCELERATION]);
+            elevator.setDoorStatus(scalars[SCALAR_DOOR_STATUS]);
+            elevator.setCurrentFloor(scalars[SCALAR_FLOOR]);
+            elevator.setCurrentHeightOverGround(scalars[SCALAR_POSITION]);
+            elevator.setCurrentSpeed(scalars[SCALAR_SPEED]);
+            elevator.setCurrentPassengerWeight(scalars[SCALAR_WEIGHT]);
+
+            boolean[] buttons = elevatorButtonBuffer[i];
+            for (int floor = 0; floor < numberOfFloors; floor++) {
+                elevator.setFloorButtonActive(floor, buttons[floor]);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import sqelevator.IElevator;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Parks idle elevators at the floors where the next hall calls are most likely. The hall calls observed in the
+ * application states are learned by a {@link TrafficModel}. For the idle cars, the floors with the most expected calls
+ * are chosen, at least a few floors apart, and every car is sent to the nearest of them that it services, e.g. to the
+ * lobby during the morning up-peak.
+ * The planner also estimates the wait time it saves: when a parked car answers a new call, its distance to the call is
+ * compared with the distance from the floor it was parked from.
+ */
+public class ParkingPlanner {
+
+    private static final int NONE = -1;
+
+    private final LongSupplier timeOfDayMillis;
+
+    private final long floorTravelMs;
+
+    private TrafficModel trafficModel = null;
+
+    private final BitSet previousUp = new BitSet();
+
+    private final BitSet previousDown = new BitSet();
+
+    private int[] parkingFloors = new int[0];
+
+    /**
+     * Floor each parked car was sent away from, to estimate the saved wait time.
+     */
+    private int[] parkedFrom = new int[0];
+
+    private int[] candidates = new int[0];
+
+    private boolean[] available = new boolean[0];
+
+    private long parkingMoves;
+
+    private long callsServedFromParking;
+
+    private long savedWaitMillis;
+
+    /**
+     * Default constructor using the local time of day.
+     */
+    public ParkingPlanner() {
+        this(() -> LocalTime.now().toNanoOfDay() / 1_000_000, Constants.DISPATCH_FLOOR_TRAVEL_MS);
+    }
+
+    /**
+     * Constructor.
+     * @param timeOfDayMillis Provides the current time of day, in milliseconds since midnight.
+     * @param floorTravelMs The estimated time a car needs to travel one floor, used to estimate the saved wait time.
+     */
+    public ParkingPlanner(LongSupplier timeOfDayMillis, long floorTravelMs) {
+        this.timeOfDayMillis = timeOfDayMillis;
+        this.floorTravelMs = floorTravelMs;
+    }
+
+    /**
+     * Learns the new hall calls of the state and plans the parking floors of the idle cars.
+     * @param applicationState The updated state of the building.
+     * @param dispatcher The dispatcher that assigned the hall calls of the state, or null if all cars serve all calls.
+     */
+    public void update(ApplicationState applicationState, GroupDispatcher dispatcher) {
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        List<Elevator> elevators = applicationState.getElevators();
+        long now = timeOfDayMillis.getAsLong();
+
+        if (trafficModel == null || trafficModel.getNumberOfFloors() != numberOfFloors
+                || parkingFloors.length != elevators.size()) {
+            trafficModel = new TrafficModel(numberOfFloors, Constants.PARKING_SLOT_MILLIS,
+                    Constants.PARKING_SMOOTHING);
+            parkingFloors = new int[elevators.size()];
+            parkedFrom = new int[elevators.size()];
+            candidates = new int[elevators.size()];
+            available = new boolean[elevators.size()];
+            Arrays.fill(parkingFloors, NONE);
+            Arrays.fill(parkedFrom, NONE);
+            previousUp.clear();
+            previousDown.clear();
+        }
+
+        observe(applicationState, elevators, dispatcher, now);
+        plan(applicationState, elevators, dispatcher, now);
+    }
+
+    private void observe(ApplicationState applicationState, List<Elevator> elevators, GroupDispatcher dispatcher,
+                         long now) {
+        BitSet up = applicationState.getButtonUpBits();
+        BitSet down = applicationState.getButtonDownBits();
+
+        for (int floor = up.nextSetBit(0); floor >= 0; floor = up.nextSetBit(floor + 1)) {
+            if (!previousUp.get(floor)) {
+                trafficModel.record(now, floor, IElevator.ELEVATOR_DIRECTION_UP);
+                recordSavedWait(elevators, floor, dispatcher != null ? dispatcher.getAssignedUp(floor) : NONE);
+            }
+        }
+        for (int floor = down.nextSetBit(0); floor >= 0; floor = down.nextSetBit(floor + 1)) {
+            if (!previousDown.get(floor)) {
+                trafficModel.record(now, floor, IElevator.ELEVATOR_DIRECTION_DOWN);
+                recordSavedWait(elevators, floor, dispatcher != null ? dispatcher.getAssignedDown(floor) : NONE);
+            }
+        }
+        previousUp.clear();
+        previousUp.or(up);
+        previousDown.clear();
+        previousDown.or(down);
+    }
+
+    /**
+     * Compares the distance of the parked car that answers a new call with the distance from the floor it was parked
+     * from. The car becomes busy with the call, so it is only counted once.
+     * @param assigned The car the call is assigned to, or -1 if all cars serve all calls. The nearest parked car
+     * answers the call in that case.
+     */
+    private void recordSavedWait(List<Elevator> elevators, int floor, int assigned) {
+        int car = assigned;
+        if (car == NONE) {
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < elevators.size(); i++) {
+                int distance = Math.abs(elevators.get(i).getCurrentFloor() - floor);
+                if (parkingFloors[i] != NONE && elevators.get(i).isServicingFloor(floor)
+                        && distance < nearestDistance) {
+                    car = i;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        if (car == NONE || parkingFloors[car] == NONE) {
+            return;
+        }
+        int distance = Math.abs(elevators.get(car).getCurrentFloor() - floor);
+        callsServedFromParking++;
+        savedWaitMillis += (Math.abs(parkedFrom[car] - floor) - distance) * floorTravelMs;
+    }
+
+    private void plan(ApplicationState applicationState, List<Elevator> elevators, GroupDispatcher dispatcher,
+                      long now) {
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        int idleCars = 0;
+        for (int i = 0; i < elevators.size(); i++) {
+            available[i] = isAvailable(applicationState, elevators.get(i), i, dispatcher);
+            if (!available[i]) {
+                parkingFloors[i] = NONE;
+                parkedFrom[i] = NONE;
+            } else {
+                idleCars++;
+            }
+        }
+        if (idleCars == 0) {
+            return;
+        }
+
+        // Choose the most promising floors, keeping them apart so they cover different parts of the building
+        int chosen = 0;
+        while (chosen < idleCars) {
+            int best = NONE;
+            float bestCalls = Constants.PARKING_MIN_EXPECTED_CALLS;
+            for (int floor = 0; floor < numberOfFloors; floor++) {
+                float calls = trafficModel.expectedCalls(now, floor);
+                if (calls >= bestCalls && isApart(floor, chosen)) {
+                    best = floor;
+                    bestCalls = calls;
+                }
+            }
+            if (best == NONE) {
+                break;
+            }
+            candidates[chosen++] = best;
+        }
+
+        // Send each floor the nearest idle car that services it
+        for (int c = 0; c < chosen; c++) {
+            int floor = candidates[c];
+            int car = NONE;
+            int carDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < elevators.size(); i++) {
+                Elevator elevator = elevators.get(i);
+                int position = parkingFloors[i] != NONE ? parkingFloors[i] : elevator.getCurrentFloor();
+                int distance = Math.abs(position - floor);
+                if (available[i] && elevator.isServicingFloor(floor) && distance < carDistance) {
+                    car = i;
+                    carDistance = distance;
+                }
+            }
+            if (car == NONE) {
+                continue;
+            }
+            available[car] = false;
+            if (parkingFloors[car] != floor) {
+                if (parkingFloors[car] == NONE) {
+                    parkedFrom[car] = elevators.get(car).getCurrentFloor();
+                }
+                parkingFloors[car] = floor;
+                parkingMoves += floor != elevators.get(car).getCurrentFloor() ? 1 : 0;
+            }
+        }
+
+        // Idle cars without a floor stay where they are
+        for (int i = 0; i < elevators.size(); i++) {
+            if (available[i] && parkingFloors[i] != NONE && parkingFloors[i] != elevators.get(i).getCurrentFloor()) {
+                parkingFloors[i] = NONE;
+                parkedFrom[i] = NONE;
+            }
+        }
+    }
+
+    private boolean isApart(int floor, int chosen) {
+        for (int c = 0; c < chosen; c++) {
+            if (Math.abs(candidates[c] - floor) < Constants.PARKING_MIN_DISTANCE_FLOORS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the car is in automatic mode and has nothing to do, apart from going to its parking floor.
+     */
+    private boolean isAvailable(ApplicationState applicationState, Elevator elevator, int elevatorIndex,
+                                GroupDispatcher dispatcher) {
+        if (!elevator.isAutomatic() || !elevator.getActiveFloorButtonBits().isEmpty()) {
+            return false;
+        }
+        boolean hasHallCalls = dispatcher != null
+                ? !dispatcher.getHallUp(elevatorIndex).isEmpty() || !dispatcher.getHallDown(elevatorIndex).isEmpty()
+                : !applicationState.getButtonUpBits().isEmpty() || !applicationState.getButtonDownBits().isEmpty();
+        if (hasHallCalls) {
+            return false;
+        }
+        boolean atRest = elevator.getCurrentSpeed() == 0 && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN
+                && elevator.getCommittedDirection() == IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+        return atRest || (parkingFloors[elevatorIndex] != NONE
+                && elevator.getCurrentTarget() == parkingFloors[elevatorIndex]);
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @return The floor the idle elevator should be parked at, or -1 if it should stay where it is.
+     */
+    public int getParkingFloor(int elevatorIndex) {
+        return elevatorIndex < parkingFloors.length ? parkingFloors[elevatorIndex] : NONE;
+    }
+
+    /**
+     * @return The estimated wait time saved per call that was answered by a parked car, in milliseconds.
+     */
+    public double getAverageSavedWaitMillis() {
+        return callsServedFromParking == 0 ? 0 : (double) savedWaitMillis / callsServedFromParking;
+    }
+
+    // Generated
+
+    public TrafficModel getTrafficModel() {
+        return trafficModel;
+    }
+
+    public long getParkingMoves() {
+        return parkingMoves;
+    }
+
+    public long getCallsServedFromParking() {
+        return callsServedFromParking;
+    }
+
+    public long getSavedWaitMillis() {
+        return savedWaitMillis;
+    }
+}
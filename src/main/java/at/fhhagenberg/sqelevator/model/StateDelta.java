@@ -0,0 +1,232 @@
+package at.fhhagenberg.sqelevator.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structured difference between two consecutive application states. Contains the elevator fields that changed, the
+ * buttons that have been newly pressed or cleared, and changes of the operation mode, the selected elevator and the
+ * connection status.
+ */
+public class StateDelta {
+
+    public static final int FIELD_COMMITTED_DIRECTION = 1;
+    public static final int FIELD_TARGET = 1 << 1;
+    public static final int FIELD_ACCELERATION = 1 << 2;
+    public static final int FIELD_DOOR_STATUS = 1 << 3;
+    public static final int FIELD_FLOOR = 1 << 4;
+    public static final int FIELD_POSITION = 1 << 5;
+    public static final int FIELD_SPEED = 1 << 6;
+    public static final int FIELD_WEIGHT = 1 << 7;
+    public static final int FIELD_CAPACITY = 1 << 8;
+    public static final int FIELD_AUTOMATIC = 1 << 9;
+    public static final int FIELD_FLOOR_BUTTONS = 1 << 10;
+    public static final int FIELD_SERVICED_FLOORS = 1 << 11;
+
+    /**
+     * Changes of a single elevator.
+     */
+    public static class ElevatorDelta {
+
+        private final int elevatorIndex;
+
+        private final int changedFields;
+
+        private final List<Integer> floorButtonsPressed;
+
+        private final List<Integer> floorButtonsCleared;
+
+        ElevatorDelta(int elevatorIndex, int changedFields, List<Integer> floorButtonsPressed,
+                      List<Integer> floorButtonsCleared) {
+            this.elevatorIndex = elevatorIndex;
+            this.changedFields = changedFields;
+            this.floorButtonsPressed = floorButtonsPressed;
+            this.floorButtonsCleared = floorButtonsCleared;
+        }
+
+        /**
+         * @param field One of the FIELD constants of {@link StateDelta}.
+         * @return True if the given field of the elevator has changed.
+         */
+        public boolean hasChanged(int field) {
+            return (changedFields & field) != 0;
+        }
+
+        // Generated
+
+        public int getElevatorIndex() {
+            return elevatorIndex;
+        }
+
+        public int getChangedFields() {
+            return changedFields;
+        }
+
+        public List<Integer> getFloorButtonsPressed() {
+            return floorButtonsPressed;
+        }
+
+        public List<Integer> getFloorButtonsCleared() {
+            return floorButtonsCleared;
+        }
+    }
+
+    private boolean topologyChanged;
+
+    private boolean selectedElevatorChanged;
+
+    private boolean staleChanged;
+
+    private List<Integer> buttonUpPressed = Collections.emptyList();
+
+    private List<Integer> buttonUpCleared = Collections.emptyList();
+
+    private List<Integer> buttonDownPressed = Collections.emptyList();
+
+    private List<Integer> buttonDownCleared = Collections.emptyList();
+
+    private final List<ElevatorDelta> elevatorDeltas = new ArrayList<>();
+
+    private StateDelta() {
+    }
+
+    /**
+     * Computes the difference between two states. If there is no previous state, or the number of floors or elevators
+     * differs, the topology is marked as changed and every value of the current state is reported as changed.
+     * @param previous The previous state, may be null.
+     * @param current The current state.
+     * @return The difference, which is empty if nothing changed.
+     */
+    public static StateDelta between(ApplicationState previous, ApplicationState current) {
+        StateDelta delta = new StateDelta();
+
+        if (previous == null
+                || previous.getNumberOfFloors() != current.getNumberOfFloors()
+                || previous.getNumberOfElevators() != current.getNumberOfElevators()
+                || previous.getElevators().size() != current.getElevators().size()) {
+            delta.topologyChanged = true;
+            previous = new ApplicationState();
+            for (int i = 0; i < current.getElevators().size(); i++) {
+                previous.getElevators().add(new Elevator());
+            }
+            previous.setSelectedElevator(Integer.MIN_VALUE);
+        }
+
+        delta.selectedElevatorChanged = previous.getSelectedElevator() != current.getSelectedElevator();
+        delta.staleChanged = previous.isStale() != current.isStale();
+        delta.buttonUpPressed = added(previous.getButtonUpBits(), current.getButtonUpBits());
+        delta.buttonUpCleared = added(current.getButtonUpBits(), previous.getButtonUpBits());
+        delta.buttonDownPressed = added(previous.getButtonDownBits(), current.getButtonDownBits());
+        delta.buttonDownCleared = added(current.getButtonDownBits(), previous.getButtonDownBits());
+
+        for (int i = 0; i < current.getElevators().size(); i++) {
+            Elevator before = previous.getElevators().get(i);
+            Elevator after = current.getElevators().get(i);
+
+            if (before == after) {
+                // Shared between two snapshots, so it did not change
+                continue;
+            }
+
+            int changed = 0;
+            changed |= before.getCommittedDirection() != after.getCommittedDirection() ? FIELD_COMMITTED_DIRECTION : 0;
+            changed |= before.getCurrentTarget() != after.getCurrentTarget() ? FIELD_TARGET : 0;
+            changed |= before.getCurrentAcceleration() != after.getCurrentAcceleration() ? FIELD_ACCELERATION : 0;
+            changed |= before.getDoorStatus() != after.getDoorStatus() ? FIELD_DOOR_STATUS : 0;
+            changed |= before.getCurrentFloor() != after.getCurrentFloor() ? FIELD_FLOOR : 0;
+            changed |= before.getCurrentHeightOverGround() != after.getCurrentHeightOverGround() ? FIELD_POSITION : 0;
+            changed |= before.getCurrentSpeed() != after.getCurrentSpeed() ? FIELD_SPEED : 0;
+            changed |= before.getCurrentPassengerWeight() != after.getCurrentPassengerWeight() ? FIELD_WEIGHT : 0;
+            changed |= before.getMaxPassengerNumber() != after.getMaxPassengerNumber() ? FIELD_CAPACITY : 0;
+            changed |= before.isAutomatic() != after.isAutomatic() ? FIELD_AUTOMATIC : 0;
+            changed |= !before.getServicedFloorBits().equals(after.getServicedFloorBits()) ? FIELD_SERVICED_FLOORS : 0;
+
+            List<Integer> pressed = added(before.getActiveFloorButtonBits(), after.getActiveFloorButtonBits());
+            List<Integer> cleared = added(after.getActiveFloorButtonBits(), before.getActiveFloorButtonBits());
+            changed |= !pressed.isEmpty() || !cleared.isEmpty() ? FIELD_FLOOR_BUTTONS : 0;
+
+            if (changed != 0 || delta.topologyChanged) {
+                delta.elevatorDeltas.add(new ElevatorDelta(i, changed, pressed, cleared));
+            }
+        }
+
+        return delta;
+    }
+
+    /**
+     * @return The floors set in the second bit set but not in the first one.
+     */
+    private static List<Integer> added(BitSet before, BitSet after) {
+        if (before == after || after.isEmpty()) {
+            return Collections.emptyList();
+        }
+        BitSet result = (BitSet) after.clone();
+        result.andNot(before);
+        return result.isEmpty() ? Collections.emptyList() : new FloorButtonList(result);
+    }
+
+    /**
+     * @return True if nothing changed between the two states.
+     */
+    public boolean isEmpty() {
+        return !topologyChanged
+                && !selectedElevatorChanged
+                && !staleChanged
+                && buttonUpPressed.isEmpty()
+                && buttonUpCleared.isEmpty()
+                && buttonDownPressed.isEmpty()
+                && buttonDownCleared.isEmpty()
+                && elevatorDeltas.isEmpty();
+    }
+
+    /**
+     * @return True if any hall or elevator button has been newly pressed.
+     */
+    public boolean hasNewCalls() {
+        if (!buttonUpPressed.isEmpty() || !buttonDownPressed.isEmpty()) {
+            return true;
+        }
+        for (ElevatorDelta elevatorDelta : elevatorDeltas) {
+            if (!elevatorDelta.getFloorButtonsPressed().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Generated
+
+    public boolean isTopologyChanged() {
+        return topologyChanged;
+    }
+
+    public boolean isSelectedElevatorChanged() {
+        return selectedElevatorChanged;
+    }
+
+    public boolean isStaleChanged() {
+        return staleChanged;
+    }
+
+    public List<Integer> getButtonUpPressed() {
+        return buttonUpPressed;
+    }
+
+    public List<Integer> getButtonUpCleared() {
+        return buttonUpCleared;
+    }
+
+    public List<Integer> getButtonDownPressed() {
+        return buttonDownPressed;
+    }
+
+    public List<Integer> getButtonDownCleared() {
+        return buttonDownCleared;
+    }
+
+    public List<ElevatorDelta> getElevatorDeltas() {
+        return Collections.unmodifiableList(elevatorDeltas);
+    }
+}
@@ -0,0 +1,140 @@
+package at.fhhagenberg.sqelevator.model;
+
+import sqelevator.IElevator;
+
+import java.util.Arrays;
+
+/**
+ * Learns how often hall calls occur, by floor, direction and time of day. The day is split into slots of equal length.
+ * The calls of the running slot are counted, and when the slot ends, its counts are folded into the learned rates of
+ * that slot: the first days are averaged, later days are blended in as an exponential moving average, so the rates
+ * adapt to a changing pattern. All rates are kept in a single float array, so the model stays compact even for
+ * hundreds of floors, and recording a call does not allocate.
+ */
+public class TrafficModel {
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final int numberOfFloors;
+
+    private final long slotMillis;
+
+    private final float smoothing;
+
+    /**
+     * Learned calls per slot, indexed by (slot * floors + floor) * 2 + direction, direction 0 is up.
+     */
+    private final float[] rates;
+
+    /**
+     * Number of days folded into each slot.
+     */
+    private final int[] days;
+
+    private final float[] running;
+
+    private int runningSlot = -1;
+
+    /**
+     * Constructor.
+     * @param numberOfFloors The number of floors of the building.
+     * @param slotMillis The length of a slot of the day, has to divide the day.
+     * @param smoothing The weight of the latest day in the learned rates, once more days than its inverse have been
+     * learned.
+     */
+    public TrafficModel(int numberOfFloors, long slotMillis, float smoothing) {
+        if (numberOfFloors <= 0 || slotMillis <= 0 || DAY_MILLIS % slotMillis != 0 || smoothing <= 0
+                || smoothing > 1) {
+            throw new IllegalArgumentException("Invalid traffic model settings");
+        }
+        int slots = (int) (DAY_MILLIS / slotMillis);
+        this.numberOfFloors = numberOfFloors;
+        this.slotMillis = slotMillis;
+        this.smoothing = smoothing;
+        this.rates = new float[slots * numberOfFloors * 2];
+        this.days = new int[slots];
+        this.running = new float[numberOfFloors * 2];
+    }
+
+    /**
+     * Records a new hall call.
+     * @param timeOfDayMillis The time of day of the call, in milliseconds since midnight.
+     * @param floor The floor of the call.
+     * @param direction The direction of the call, up or down.
+     */
+    public void record(long timeOfDayMillis, int floor, int direction) {
+        advanceTo(timeOfDayMillis);
+        running[floor * 2 + directionIndex(direction)]++;
+    }
+
+    /**
+     * Moves on to the slot of the given time, and folds the counts of the finished slot into the learned rates.
+     * @param timeOfDayMillis The current time of day, in milliseconds since midnight.
+     */
+    public void advanceTo(long timeOfDayMillis) {
+        int slot = slotOf(timeOfDayMillis);
+        if (slot == runningSlot) {
+            return;
+        }
+
+        if (runningSlot >= 0) {
+            int offset = runningSlot * numberOfFloors * 2;
+            float weight = Math.max(smoothing, 1f / (days[runningSlot] + 1));
+            for (int i = 0; i < running.length; i++) {
+                rates[offset + i] += weight * (running[i] - rates[offset + i]);
+            }
+            days[runningSlot]++;
+        }
+        Arrays.fill(running, 0);
+        runningSlot = slot;
+    }
+
+    /**
+     * Estimates the number of calls on a floor in the near future: the learned rates of the current and the next slot,
+     * plus the calls counted so far in the current slot, so a pattern is also picked up on its first day.
+     * @param timeOfDayMillis The current time of day, in milliseconds since midnight.
+     * @param floor The floor.
+     * @return The expected number of calls in both directions.
+     */
+    public float expectedCalls(long timeOfDayMillis, int floor) {
+        advanceTo(timeOfDayMillis);
+        int next = (runningSlot + 1) % days.length;
+        return getRate(runningSlot, floor, IElevator.ELEVATOR_DIRECTION_UP)
+                + getRate(runningSlot, floor, IElevator.ELEVATOR_DIRECTION_DOWN)
+                + getRate(next, floor, IElevator.ELEVATOR_DIRECTION_UP)
+                + getRate(next, floor, IElevator.ELEVATOR_DIRECTION_DOWN)
+                + running[floor * 2] + running[floor * 2 + 1];
+    }
+
+    /**
+     * @param slot The slot of the day.
+     * @param floor The floor.
+     * @param direction The direction, up or down.
+     * @return The learned number of calls within the slot.
+     */
+    public float getRate(int slot, int floor, int direction) {
+        return rates[(slot * numberOfFloors + floor) * 2 + directionIndex(direction)];
+    }
+
+    /**
+     * @param timeOfDayMillis The time of day, in milliseconds since midnight.
+     * @return The slot the time belongs to.
+     */
+    public int slotOf(long timeOfDayMillis) {
+        return (int) (Math.floorMod(timeOfDayMillis, DAY_MILLIS) / slotMillis);
+    }
+
+    private static int directionIndex(int direction) {
+        return direction == IElevator.ELEVATOR_DIRECTION_DOWN ? 1 : 0;
+    }
+
+    // Generated
+
+    public int getNumberOfFloors() {
+        return numberOfFloors;
+    }
+
+    public int getNumberOfSlots() {
+        return days.length;
+    }
+}
@@ -0,0 +1,115 @@
+package at.fhhagenberg.sqelevator.model;
+
+/**
+ * Counters describing the updates of the model. The counters are only written by the polling thread, volatile is
+ * enough to publish them to readers on other threads.
+ */
+public class UpdateStatistics {
+
+    private volatile long fetchCount;
+
+    private volatile long skippedTickCount;
+
+    private volatile long tornSnapshotCount;
+
+    private volatile long inconsistentSnapshotCount;
+
+    private volatile long servicesFloorsRefreshCount;
+
+    private volatile long sentCommandCount;
+
+    private volatile long coalescedCommandCount;
+
+    private volatile long suppressedCommandCount;
+
+    /**
+     * Records a complete fetch of the building state.
+     */
+    void recordFetch() {
+        fetchCount++;
+    }
+
+    /**
+     * Records an update that was skipped because the clock tick of the simulation had not advanced.
+     */
+    void recordSkippedTick() {
+        skippedTickCount++;
+    }
+
+    /**
+     * Records a fetch whose reads spanned a clock tick boundary.
+     */
+    void recordTornSnapshot() {
+        tornSnapshotCount++;
+    }
+
+    /**
+     * Records a snapshot that was still torn after all retries and has been flagged as inconsistent.
+     */
+    void recordInconsistentSnapshot() {
+        inconsistentSnapshotCount++;
+    }
+
+    /**
+     * Records a read of the serviced floors of all elevators.
+     */
+    void recordServicesFloorsRefresh() {
+        servicesFloorsRefreshCount++;
+    }
+
+    /**
+     * Records targets or directions sent to the elevators.
+     * @param count The number of writes.
+     */
+    void recordSentCommands(int count) {
+        sentCommandCount += count;
+    }
+
+    /**
+     * Records a target or direction that has been replaced by a later write to the same car within a tick.
+     */
+    void recordCoalescedCommand() {
+        coalescedCommandCount++;
+    }
+
+    /**
+     * Records a target or direction that has not been sent, as the car has the value already.
+     */
+    void recordSuppressedCommand() {
+        suppressedCommandCount++;
+    }
+
+    // Generated
+
+    public long getFetchCount() {
+        return fetchCount;
+    }
+
+    public long getSkippedTickCount() {
+        return skippedTickCount;
+    }
+
+    public long getTornSnapshotCount() {
+        return tornSnapshotCount;
+    }
+
+    public long getInconsistentSnapshotCount() {
+        return inconsistentSnapshotCount;
+    }
+
+    public long getServicesFloorsRefreshCount() {
+        return servicesFloorsRefreshCount;
+    }
+
+    public long getSentCommandCount() {
+        return sentCommandCount;
+    }
+
+    public long getCoalescedCommandCount() {
+        return coalescedCommandCount;
+    }
+
+    public long getSuppressedCommandCount() {
+        return suppressedCommandCount;
+    }
+}
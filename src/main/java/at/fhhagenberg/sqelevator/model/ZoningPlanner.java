@@ -0,0 +1,221 @@
+package at.fhhagenberg.sqelevator.model;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Splits the floors of a tall building into zones, each served by its own group of elevators in automatic mode. Every
+ * zone is a range of consecutive floors, and every car also serves the ground floor, so the cars of the upper zones run
+ * express between the lobby and their zone. The demand of each floor is measured from the newly pressed hall and car
+ * buttons. At regular intervals, the zone boundaries are moved so that every zone carries the same share of the demand.
+ * The interval is measured in clock ticks of the building, so it neither depends on the polling rate nor differs in a
+ * replay. The measured demand decays with every re-zoning, so the zones follow the traffic over the day.
+ * Buildings with fewer floors or fewer than two cars in automatic mode are not zoned, all cars serve all floors.
+ */
+public class ZoningPlanner {
+
+    private final int minFloors;
+
+    private final int floorsPerZone;
+
+    private final long intervalTicks;
+
+    private boolean planned = false;
+
+    private long rezoningTick;
+
+    private double[] demand = new double[0];
+
+    private final BitSet previousHallCalls = new BitSet();
+
+    private BitSet[] previousCarCalls = new BitSet[0];
+
+    /**
+     * First floor of each zone, the first zone starts at floor 1 as the ground floor belongs to all zones.
+     */
+    private int[] zoneStarts = new int[0];
+
+    private BitSet[] zoneFloors = new BitSet[0];
+
+    private long rezoneCount;
+
+    /**
+     * Default constructor using the settings of the constants.
+     */
+    public ZoningPlanner() {
+        this(Constants.ZONING_MIN_FLOORS, Constants.ZONING_FLOORS_PER_ZONE, Constants.ZONING_INTERVAL_TICKS);
+    }
+
+    /**
+     * Constructor.
+     * @param minFloors The number of floors from which on the building is zoned.
+     * @param floorsPerZone The minimum number of floors per zone, limits the number of zones.
+     * @param intervalTicks The number of clock ticks between two re-zonings.
+     */
+    public ZoningPlanner(int minFloors, int floorsPerZone, long intervalTicks) {
+        if (minFloors < 2 || floorsPerZone <= 0 || intervalTicks <= 0) {
+            throw new IllegalArgumentException("Invalid zoning settings");
+        }
+        this.minFloors = minFloors;
+        this.floorsPerZone = floorsPerZone;
+        this.intervalTicks = intervalTicks;
+    }
+
+    /**
+     * Records the newly pressed buttons of the state as demand, and re-zones the building if it is due. A clock that
+     * goes back, e.g. after a restart of the simulation, re-zones right away.
+     * @param applicationState The updated state of the building.
+     * @return True if the zones have been planned again.
+     */
+    public boolean update(ApplicationState applicationState) {
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        List<Elevator> elevators = applicationState.getElevators();
+
+        if (demand.length != numberOfFloors || zoneFloors.length != elevators.size()) {
+            reset(elevators.size(), numberOfFloors);
+        }
+        observe(applicationState, elevators);
+
+        long clockTick = applicationState.getClockTick();
+        if (planned && clockTick >= rezoningTick && clockTick - rezoningTick < intervalTicks) {
+            return false;
+        }
+        planned = true;
+        rezoningTick = clockTick;
+        rezone(elevators, numberOfFloors);
+        return true;
+    }
+
+    private void reset(int numberOfElevators, int numberOfFloors) {
+        demand = new double[numberOfFloors];
+        previousHallCalls.clear();
+        previousCarCalls = new BitSet[numberOfElevators];
+        zoneFloors = new BitSet[numberOfElevators];
+        for (int i = 0; i < numberOfElevators; i++) {
+            previousCarCalls[i] = new BitSet(numberOfFloors);
+            zoneFloors[i] = new BitSet(numberOfFloors);
+            zoneFloors[i].set(0, numberOfFloors);
+        }
+        zoneStarts = new int[0];
+        planned = false;
+    }
+
+    /**
+     * Counts the hall calls by their floor and the car calls by their destination. The ground floor is not counted, it
+     * is served by all zones.
+     */
+    private void observe(ApplicationState applicationState, List<Elevator> elevators) {
+        for (int floor = 1; floor < demand.length; floor++) {
+            boolean hallCall = applicationState.isButtonUpPressed(floor) || applicationState.isButtonDownPressed(floor);
+            if (hallCall && !previousHallCalls.get(floor)) {
+                demand[floor]++;
+            }
+            previousHallCalls.set(floor, hallCall);
+        }
+
+        for (int i = 0; i < elevators.size(); i++) {
+            BitSet carCalls = elevators.get(i).getActiveFloorButtonBits();
+            BitSet previous = previousCarCalls[i];
+            for (int floor = carCalls.nextSetBit(1); floor >= 0; floor = carCalls.nextSetBit(floor + 1)) {
+                if (!previous.get(floor)) {
+                    demand[floor]++;
+                }
+            }
+            previous.clear();
+            previous.or(carCalls);
+        }
+    }
+
+    /**
+     * Plans the zones for the cars in automatic mode. The boundaries split the demand of the upper floors into equal
+     * shares, each floor counts at least once so that quiet floors are still spread over the zones. The cars are
+     * distributed evenly over the zones in the order of their index.
+     */
+    private void rezone(List<Elevator> elevators, int numberOfFloors) {
+        int automaticCars = 0;
+        for (Elevator elevator : elevators) {
+            automaticCars += elevator.isAutomatic() ? 1 : 0;
+        }
+
+        int zones = numberOfFloors < minFloors ? 1 : Math.min(automaticCars, (numberOfFloors - 1) / floorsPerZone);
+        zones = Math.max(1, zones);
+
+        double total = 0;
+        for (int floor = 1; floor < numberOfFloors; floor++) {
+            total += 1 + demand[floor];
+        }
+
+        int[] starts = new int[zones];
+        starts[0] = 1;
+        double cumulative = 0;
+        int zone = 1;
+        for (int floor = 1; floor < numberOfFloors && zone < zones; floor++) {
+            cumulative += 1 + demand[floor];
+            // Leave at least one floor for each of the remaining zones
+            int latestStart = numberOfFloors - (zones - zone);
+            if (cumulative >= total * zone / zones || floor + 1 >= latestStart) {
+                starts[zone++] = floor + 1;
+            }
+        }
+        zoneStarts = starts;
+
+        int carInZone = 0;
+        for (int i = 0; i < elevators.size(); i++) {
+            BitSet floors = zoneFloors[i];
+            floors.clear();
+            if (!elevators.get(i).isAutomatic() || zones == 1) {
+                floors.set(0, numberOfFloors);
+                continue;
+            }
+            int carZone = carInZone++ * zones / automaticCars;
+            int end = carZone + 1 < zones ? starts[carZone + 1] : numberOfFloors;
+            floors.set(0);
+            floors.set(starts[carZone], end);
+        }
+
+        for (int floor = 1; floor < numberOfFloors; floor++) {
+            demand[floor] *= Constants.ZONING_DEMAND_DECAY;
+        }
+        rezoneCount++;
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @return The floors of the zone of the elevator, always including the ground floor. All floors for cars in manual
+     * mode. Reused by the next re-zoning.
+     */
+    public BitSet getZoneFloors(int elevatorIndex) {
+        return zoneFloors[elevatorIndex];
+    }
+
+    /**
+     * @return The number of zones of the current plan, 1 if the building is not zoned.
+     */
+    public int getZoneCount() {
+        return Math.max(1, zoneStarts.length);
+    }
+
+    /**
+     * @param zone The index of the zone, 0 is the lowest one.
+     * @return The lowest floor of the zone apart from the ground floor.
+     */
+    public int getZoneStart(int zone) {
+        return zoneStarts[zone];
+    }
+
+    /**
+     * @return The demand measured for each floor, decayed by the previous re-zonings.
+     */
+    public double[] getDemand() {
+        return Arrays.copyOf(demand, demand.length);
+    }
+
+    // Generated
+
+    public long getRezoneCount() {
+        return rezoneCount;
+    }
+}
@@ -0,0 +1,195 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.List;
+
+/**
+ * Observer that condenses the published states of a building into a few metrics, e.g. for a deployment without a
+ * view. The metrics can be published as an MBean, named
+ * {@code at.fhhagenberg.sqelevator:type=Building,monitor=<name>}. Observing a state does not allocate. The metrics
+ * are only written by the notifying thread, volatile is enough to publish them to readers.
+ */
+public class BuildingMetrics implements IEccObserver, BuildingMetricsMBean {
+
+    private final String name;
+
+    private volatile long stateUpdates;
+
+    private volatile boolean connected;
+
+    private volatile long connectionLosses;
+
+    private volatile long inconsistentStates;
+
+    private volatile long clockTick = -1;
+
+    private volatile int elevators;
+
+    private volatile int floors;
+
+    private volatile int hallCalls;
+
+    private volatile int carCalls;
+
+    private volatile int movingElevators;
+
+    private volatile int automaticElevators;
+
+    private MBeanServer server = null;
+
+    private ObjectName objectName = null;
+
+    /**
+     * Constructor.
+     * @param name The name of the building, distinguishes the MBeans of several buildings.
+     */
+    public BuildingMetrics(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        stateUpdates++;
+        if (applicationState.isStale()) {
+            if (connected) {
+                connectionLosses++;
+            }
+            connected = false;
+            return;
+        }
+        connected = true;
+        if (!applicationState.isConsistent()) {
+            inconsistentStates++;
+        }
+        clockTick = applicationState.getClockTick();
+
+        int numberOfFloors = applicationState.getNumberOfFloors();
+        int hall = 0;
+        for (int floor = 0; floor < numberOfFloors; floor++) {
+            hall += applicationState.isButtonUpPressed(floor) ? 1 : 0;
+            hall += applicationState.isButtonDownPressed(floor) ? 1 : 0;
+        }
+
+        List<Elevator> cars = applicationState.getElevators();
+        int car = 0;
+        int moving = 0;
+        int automatic = 0;
+        for (int i = 0; i < cars.size(); i++) {
+            Elevator elevator = cars.get(i);
+            for (int floor = 0; floor < numberOfFloors; floor++) {
+                car += elevator.isFloorButtonActive(floor) ? 1 : 0;
+            }
+            moving += elevator.getCurrentSpeed() != 0 ? 1 : 0;
+            automatic += elevator.isAutomatic() ? 1 : 0;
+        }
+
+        elevators = cars.size();
+        floors = numberOfFloors;
+        hallCalls = hall;
+        carCalls = car;
+        movingElevators = moving;
+        automaticElevators = automatic;
+    }
+
+    /**
+     * Publishes the metrics as an MBean.
+     * @param server The MBean server to register the MBean with.
+     */
+    public synchronized void registerMBean(MBeanServer server) {
+        if (this.server != null) {
+            throw new IllegalStateException("The MBean is registered already");
+        }
+        try {
+            ObjectName registered = new ObjectName(RemoteCallMonitor.DOMAIN + ":type=Building,monitor="
+                    + ObjectName.quote(name));
+            server.registerMBean(this, registered);
+            this.server = server;
+            this.objectName = registered;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics of the building", e);
+        }
+    }
+
+    /**
+     * Removes the MBean from the MBean server.
+     */
+    public synchronized void unregisterMBean() {
+        if (server == null) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // Removed by someone else already
+        }
+        server = null;
+        objectName = null;
+    }
+
+    // Generated
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getStateUpdates() {
+        return stateUpdates;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public long getConnectionLosses() {
+        return connectionLosses;
+    }
+
+    @Override
+    public long getInconsistentStates() {
+        return inconsistentStates;
+    }
+
+    @Override
+    public long getClockTick() {
+        return clockTick;
+    }
+
+    @Override
+    public int getElevators() {
+        return elevators;
+    }
+
+    @Override
+    public int getFloors() {
+        return floors;
+    }
+
+    @Override
+    public int getHallCalls() {
+        return hallCalls;
+    }
+
+    @Override
+    public int getCarCalls() {
+        return carCalls;
+    }
+
+    @Override
+    public int getMovingElevators() {
+        return movingElevators;
+    }
+
+    @Override
+    public int getAutomaticElevators() {
+        return automaticElevators;
+    }
+}
@@ -0,0 +1,29 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+/**
+ * Management interface of the metrics of a building, published via JMX.
+ */
+public interface BuildingMetricsMBean {
+
+    long getStateUpdates();
+
+    boolean isConnected();
+
+    long getConnectionLosses();
+
+    long getInconsistentStates();
+
+    long getClockTick();
+
+    int getElevators();
+
+    int getFloors();
+
+    int getHallCalls();
+
+    int getCarCalls();
+
+    int getMovingElevators();
+
+    int getAutomaticElevators();
+}
@@ -0,0 +1,23 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+/**
+ * Management interface of the statistics of remote calls, published via JMX.
+ */
+public interface CallStatisticsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,33 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+import sqelevator.BuildingSnapshot;
+import sqelevator.IElevator;
+import sqelevator.IElevatorBulk;
+
+import java.rmi.RemoteException;
+
+/**
+ * Instrumented elevator interface for implementations that offer bulk snapshots.
+ */
+class InstrumentedBulkElevator extends InstrumentedElevator implements IElevatorBulk {
+
+    private final CallStatistics getBuildingSnapshotCalls;
+
+    InstrumentedBulkElevator(IElevator delegate, RemoteCallMonitor monitor) {
+        super(delegate, monitor);
+        this.getBuildingSnapshotCalls = monitor.getMethod("getBuildingSnapshot");
+    }
+
+    @Override
+    public BuildingSnapshot getBuildingSnapshot() throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            BuildingSnapshot result = ((IElevatorBulk) delegate).getBuildingSnapshot();
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getBuildingSnapshotCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+
+/**
+ * Decorator of the elevator interface that records the count, the errors and the latency of every call in a
+ * {@link RemoteCallMonitor}. Written out by hand instead of using a dynamic proxy, which would box the arguments and
+ * allocate an argument array with every call.
+ */
+class InstrumentedElevator implements IElevator {
+
+    protected final IElevator delegate;
+
+    protected final RemoteCallMonitor monitor;
+
+    private final CallStatistics getCommittedDirectionCalls;
+    private final CallStatistics getElevatorAccelCalls;
+    private final CallStatistics getElevatorButtonCalls;
+    private final CallStatistics getElevatorDoorStatusCalls;
+    private final CallStatistics getElevatorFloorCalls;
+    private final CallStatistics getElevatorNumCalls;
+    private final CallStatistics getElevatorPositionCalls;
+    private final CallStatistics getElevatorSpeedCalls;
+    private final CallStatistics getElevatorWeightCalls;
+    private final CallStatistics getElevatorCapacityCalls;
+    private final CallStatistics getFloorButtonDownCalls;
+    private final CallStatistics getFloorButtonUpCalls;
+    private final CallStatistics getFloorHeightCalls;
+    private final CallStatistics getFloorNumCalls;
+    private final CallStatistics getServicesFloorsCalls;
+    private final CallStatistics getTargetCalls;
+    private final CallStatistics setCommittedDirectionCalls;
+    private final CallStatistics setServicesFloorsCalls;
+    private final CallStatistics setTargetCalls;
+    private final CallStatistics getClockTickCalls;
+
+    InstrumentedElevator(IElevator delegate, RemoteCallMonitor monitor) {
+        this.delegate = delegate;
+        this.monitor = monitor;
+        this.getCommittedDirectionCalls = monitor.getMethod("getCommittedDirection");
+        this.getElevatorAccelCalls = monitor.getMethod("getElevatorAccel");
+        this.getElevatorButtonCalls = monitor.getMethod("getElevatorButton");
+        this.getElevatorDoorStatusCalls = monitor.getMethod("getElevatorDoorStatus");
+        this.getElevatorFloorCalls = monitor.getMethod("getElevatorFloor");
+        this.getElevatorNumCalls = monitor.getMethod("getElevatorNum");
+        this.getElevatorPositionCalls = monitor.getMethod("getElevatorPosition");
+        this.getElevatorSpeedCalls = monitor.getMethod("getElevatorSpeed");
+        this.getElevatorWeightCalls = monitor.getMethod("getElevatorWeight");
+        this.getElevatorCapacityCalls = monitor.getMethod("getElevatorCapacity");
+        this.getFloorButtonDownCalls = monitor.getMethod("getFloorButtonDown");
+        this.getFloorButtonUpCalls = monitor.getMethod("getFloorButtonUp");
+        this.getFloorHeightCalls = monitor.getMethod("getFloorHeight");
+        this.getFloorNumCalls = monitor.getMethod("getFloorNum");
+        this.getServicesFloorsCalls = monitor.getMethod("getServicesFloors");
+        this.getTargetCalls = monitor.getMethod("getTarget");
+        this.setCommittedDirectionCalls = monitor.getMethod("setCommittedDirection");
+        this.setServicesFloorsCalls = monitor.getMethod("setServicesFloors");
+        this.setTargetCalls = monitor.getMethod("setTarget");
+        this.getClockTickCalls = monitor.getMethod("getClockTick");
+    }
+
+    @Override
+    public int getCommittedDirection(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getCommittedDirection(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getCommittedDirectionCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorAccel(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorAccel(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorAccelCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean getElevatorButton(int elevatorNumber, int floor) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = delegate.getElevatorButton(elevatorNumber, floor);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorButtonCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorDoorStatus(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorDoorStatus(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorDoorStatusCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorFloor(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorFloor(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorFloorCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorNum() throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorNum();
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorNumCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorPosition(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorPosition(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorPositionCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorSpeed(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorSpeed(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorSpeedCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorWeight(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorWeight(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorWeightCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getElevatorCapacity(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getElevatorCapacity(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getElevatorCapacityCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean getFloorButtonDown(int floor) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = delegate.getFloorButtonDown(floor);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getFloorButtonDownCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean getFloorButtonUp(int floor) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = delegate.getFloorButtonUp(floor);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getFloorButtonUpCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getFloorHeight() throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getFloorHeight();
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getFloorHeightCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getFloorNum() throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getFloorNum();
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getFloorNumCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean getServicesFloors(int elevatorNumber, int floor) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = delegate.getServicesFloors(elevatorNumber, floor);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getServicesFloorsCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public int getTarget(int elevatorNumber) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = delegate.getTarget(elevatorNumber);
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getTargetCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void setCommittedDirection(int elevatorNumber, int direction) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.setCommittedDirection(elevatorNumber, direction);
+            failed = false;
+        } finally {
+            monitor.record(setCommittedDirectionCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void setServicesFloors(int elevatorNumber, int floor, boolean service) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.setServicesFloors(elevatorNumber, floor, service);
+            failed = false;
+        } finally {
+            monitor.record(setServicesFloorsCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public void setTarget(int elevatorNumber, int target) throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.setTarget(elevatorNumber, target);
+            failed = false;
+        } finally {
+            monitor.record(setTargetCalls, elevatorNumber, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public long getClockTick() throws RemoteException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long result = delegate.getClockTick();
+            failed = false;
+            return result;
+        } finally {
+            monitor.record(getClockTickCalls, -1, System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+import sqelevator.IElevator;
+import sqelevator.IElevatorBulk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the statistics of the calls to the elevator interface: per method, per elevator and in total. The
+ * statistics can be published as MBeans, named {@code at.fhhagenberg.sqelevator:type=RemoteCalls,monitor=<name>,...}
+ * with a {@code method}, an {@code elevator} or the {@code scope=total} key.
+ */
+public class RemoteCallMonitor {
+
+    public static final String DOMAIN = "at.fhhagenberg.sqelevator";
+
+    /**
+     * Calls with larger elevator numbers are not recorded per elevator, they can only be erroneous.
+     */
+    private static final int MAX_ELEVATORS = 1024;
+
+    private final String name;
+
+    private final Map<String, CallStatistics> methods;
+
+    private final CallStatistics total = new CallStatistics();
+
+    /**
+     * Statistics per elevator, grown when a new elevator number shows up. Read without locking.
+     */
+    private volatile CallStatistics[] elevators = new CallStatistics[0];
+
+    private MBeanServer server = null;
+
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * @param name The name of the monitor, distinguishes the MBeans of several monitors.
+     */
+    public RemoteCallMonitor(String name) {
+        this.name = name;
+
+        Map<String, CallStatistics> statistics = new LinkedHashMap<>();
+        for (Method method : IElevator.class.getMethods()) {
+            statistics.put(method.getName(), new CallStatistics());
+        }
+        for (Method method : IElevatorBulk.class.getMethods()) {
+            statistics.put(method.getName(), new CallStatistics());
+        }
+        this.methods = Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * Wraps an elevator interface, so all calls on it are recorded by this monitor.
+     * @param elevator The elevator interface to wrap.
+     * @return The instrumented elevator interface. Offers bulk snapshots if the wrapped interface does.
+     */
+    public IElevator wrap(IElevator elevator) {
+        if (elevator instanceof IElevatorBulk) {
+            return new InstrumentedBulkElevator(elevator, this);
+        }
+        return new InstrumentedElevator(elevator, this);
+    }
+
+    /**
+     * Records a finished call.
+     * @param method The statistics of the called method.
+     * @param elevatorNumber The elevator the call refers to, or -1.
+     * @param nanos The latency of the call in nanoseconds.
+     * @param failed True if the call threw an exception.
+     */
+    void record(CallStatistics method, int elevatorNumber, long nanos, boolean failed) {
+        method.record(nanos, failed);
+        total.record(nanos, failed);
+        if (elevatorNumber >= 0 && elevatorNumber < MAX_ELEVATORS) {
+            getElevator(elevatorNumber).record(nanos, failed);
+        }
+    }
+
+    /**
+     * @param method The name of a method of the elevator interface.
+     * @return The statistics of the method.
+     */
+    public CallStatistics getMethod(String method) {
+        CallStatistics statistics = methods.get(method);
+        if (statistics == null) {
+            throw new IllegalArgumentException("Unknown method " + method);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return The statistics of all methods by their name.
+     */
+    public Map<String, CallStatistics> getMethods() {
+        return methods;
+    }
+
+    /**
+     * @param elevatorNumber The number of an elevator.
+     * @return The statistics of all calls referring to the elevator.
+     */
+    public CallStatistics getElevator(int elevatorNumber) {
+        CallStatistics[] current = elevators;
+        if (elevatorNumber < current.length && elevatorNumber >= 0) {
+            return current[elevatorNumber];
+        }
+        return addElevators(elevatorNumber);
+    }
+
+    private synchronized CallStatistics addElevators(int elevatorNumber) {
+        if (elevatorNumber < 0) {
+            throw new IllegalArgumentException("Invalid elevator number " + elevatorNumber);
+        }
+        CallStatistics[] current = elevators;
+        if (elevatorNumber >= current.length) {
+            CallStatistics[] grown = new CallStatistics[elevatorNumber + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new CallStatistics();
+                if (server != null) {
+                    register(grown[i], "elevator=" + i);
+                }
+            }
+            elevators = grown;
+            current = grown;
+        }
+        return current[elevatorNumber];
+    }
+
+    /**
+     * @return The statistics of all calls.
+     */
+    public CallStatistics getTotal() {
+        return total;
+    }
+
+    /**
+     * Publishes the statistics as MBeans. Statistics of elevators that show up later are published when they do.
+     * @param server The MBean server to register the MBeans with.
+     */
+    public synchronized void registerMBeans(MBeanServer server) {
+        if (this.server != null) {
+            throw new IllegalStateException("The MBeans are registered already");
+        }
+        this.server = server;
+        register(total, "scope=total");
+        for (Map.Entry<String, CallStatistics> method : methods.entrySet()) {
+            register(method.getValue(), "method=" + method.getKey());
+        }
+        CallStatistics[] current = elevators;
+        for (int i = 0; i < current.length; i++) {
+            register(current[i], "elevator=" + i);
+        }
+    }
+
+    /**
+     * Removes the MBeans of this monitor from the MBean server.
+     */
+    public synchronized void unregisterMBeans() {
+        if (server == null) {
+            return;
+        }
+        for (ObjectName objectName : registeredNames) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // Removed by someone else already
+            }
+        }
+        registeredNames.clear();
+        server = null;
+    }
+
+    private void register(CallStatistics statistics, String key) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=RemoteCalls,monitor="
+                    + ObjectName.quote(name) + "," + key);
+            server.registerMBean(statistics, objectName);
+            registeredNames.add(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the statistics of the remote calls", e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,74 @@
+package at.fhhagenberg.sqelevator.monitoring;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Observer that logs the connection changes of a building and, at a fixed interval, a summary of its state. Between
+ * two log entries, observing a state does not allocate.
+ */
+public class StateLogObserver implements IEccObserver {
+
+    private static final Logger LOGGER = Logger.getLogger(StateLogObserver.class.getName());
+
+    private final String name;
+
+    private final BuildingMetrics metrics;
+
+    private final long summaryIntervalMs;
+
+    private final LongSupplier clock;
+
+    private boolean connected = false;
+
+    private long lastSummaryMs;
+
+    /**
+     * Constructor.
+     * @param name The name of the building, used in the log entries.
+     * @param metrics The metrics of the building summarized in the log, have to observe the building before this
+     * observer.
+     * @param summaryIntervalMs The interval between two summaries in milliseconds.
+     * @param clock Provides the current time in milliseconds.
+     */
+    public StateLogObserver(String name, BuildingMetrics metrics, long summaryIntervalMs, LongSupplier clock) {
+        this.name = name;
+        this.metrics = metrics;
+        this.summaryIntervalMs = summaryIntervalMs;
+        this.clock = clock;
+        this.lastSummaryMs = clock.getAsLong();
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        if (applicationState.isStale() == connected) {
+            connected = !connected;
+            if (connected) {
+                LOGGER.log(Level.INFO, "{0}: connected, {1} elevators, {2} floors", new Object[]{name,
+                        applicationState.getNumberOfElevators(), applicationState.getNumberOfFloors()});
+            } else {
+                LOGGER.log(Level.WARNING, "{0}: connection lost, reconnecting", name);
+            }
+        }
+
+        long now = clock.getAsLong();
+        if (now - lastSummaryMs >= summaryIntervalMs) {
+            lastSummaryMs = now;
+            LOGGER.log(Level.INFO, "{0}: tick {1}, {2} hall calls, {3} car calls, {4} of {5} elevators moving, "
+                    + "{6} updates, {7} connection losses", new Object[]{name, metrics.getClockTick(),
+                    metrics.getHallCalls(), metrics.getCarCalls(), metrics.getMovingElevators(),
+                    metrics.getElevators(), metrics.getStateUpdates(), metrics.getConnectionLosses()});
+        }
+    }
+
+    /**
+     * @return The logger of the observers.
+     */
+    public static Logger getLogger() {
+        return LOGGER;
+    }
+}
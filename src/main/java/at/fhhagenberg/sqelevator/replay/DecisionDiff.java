@@ -0,0 +1,87 @@
+package at.fhhagenberg.sqelevator.replay;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+
+/**
+ * A control decision of the replay that differs from the recorded run.
+ */
+public class DecisionDiff {
+
+    private final long clockTick;
+
+    private final int elevatorIndex;
+
+    private final int command;
+
+    private final int floor;
+
+    private final int original;
+
+    private final int replayed;
+
+    /**
+     * Constructor.
+     * @param clockTick The clock tick of the decision.
+     * @param elevatorIndex The index of the elevator.
+     * @param command The command, one of the {@code COMMAND_} constants of {@link JournalFormat}.
+     * @param floor The floor whose service was changed, -1 for the other commands.
+     * @param original The value sent in the recorded run, -1 if no command was sent.
+     * @param replayed The value sent by the replay, -1 if no command was sent.
+     */
+    public DecisionDiff(long clockTick, int elevatorIndex, int command, int floor, int original, int replayed) {
+        this.clockTick = clockTick;
+        this.elevatorIndex = elevatorIndex;
+        this.command = command;
+        this.floor = floor;
+        this.original = original;
+        this.replayed = replayed;
+    }
+
+    @Override
+    public String toString() {
+        String name;
+        switch (command) {
+            case JournalFormat.COMMAND_TARGET:
+                name = "target";
+                break;
+            case JournalFormat.COMMAND_DIRECTION:
+                name = "direction";
+                break;
+            default:
+                name = "services floor " + floor;
+                break;
+        }
+        return "tick " + clockTick + ", elevator " + elevatorIndex + ", " + name + ": " + describe(original)
+                + " -> " + describe(replayed);
+    }
+
+    private static String describe(int value) {
+        return value == Decisions.NONE ? "none" : Integer.toString(value);
+    }
+
+    // Generated
+
+    public long getClockTick() {
+        return clockTick;
+    }
+
+    public int getElevatorIndex() {
+        return elevatorIndex;
+    }
+
+    public int getCommand() {
+        return command;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public int getOriginal() {
+        return original;
+    }
+
+    public int getReplayed() {
+        return replayed;
+    }
+}
@@ -0,0 +1,113 @@
+package at.fhhagenberg.sqelevator.replay;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The control decisions taken for the elevators within one tick: the last target and direction sent to each elevator,
+ * and the floors whose service was switched on or off.
+ */
+class Decisions {
+
+    static final int NONE = -1;
+
+    private int[] targets = new int[0];
+
+    private int[] directions = new int[0];
+
+    private BitSet[] serviced = new BitSet[0];
+
+    private BitSet[] unserviced = new BitSet[0];
+
+    /**
+     * Adapts the decisions to the number of elevators and clears them.
+     * @param numberOfElevators The number of elevators.
+     */
+    void resize(int numberOfElevators) {
+        if (targets.length != numberOfElevators) {
+            targets = new int[numberOfElevators];
+            directions = new int[numberOfElevators];
+            serviced = new BitSet[numberOfElevators];
+            unserviced = new BitSet[numberOfElevators];
+            for (int i = 0; i < numberOfElevators; i++) {
+                serviced[i] = new BitSet();
+                unserviced[i] = new BitSet();
+            }
+        }
+        clear();
+    }
+
+    void clear() {
+        Arrays.fill(targets, NONE);
+        Arrays.fill(directions, NONE);
+        for (int i = 0; i < serviced.length; i++) {
+            serviced[i].clear();
+            unserviced[i].clear();
+        }
+    }
+
+    /**
+     * Records a command, commands for unknown elevators and mode changes are ignored.
+     * @param elevatorIndex The index of the elevator.
+     * @param command The command, one of the {@code COMMAND_} constants of {@link JournalFormat}.
+     * @param value The value of the command.
+     * @param argument The argument of the command.
+     */
+    void record(int elevatorIndex, int command, int value, int argument) {
+        if (elevatorIndex < 0 || elevatorIndex >= targets.length) {
+            return;
+        }
+        switch (command) {
+            case JournalFormat.COMMAND_TARGET:
+                targets[elevatorIndex] = value;
+                break;
+            case JournalFormat.COMMAND_DIRECTION:
+                directions[elevatorIndex] = value;
+                break;
+            case JournalFormat.COMMAND_SERVICES_FLOORS:
+                serviced[elevatorIndex].set(value, argument != 0);
+                unserviced[elevatorIndex].set(value, argument == 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return The target sent to the elevator, or -1 if none was sent.
+     */
+    int getTarget(int elevatorIndex) {
+        return targets[elevatorIndex];
+    }
+
+    /**
+     * @return The direction sent to the elevator, or -1 if none was sent.
+     */
+    int getDirection(int elevatorIndex) {
+        return directions[elevatorIndex];
+    }
+
+    /**
+     * @return 1 if the floor was switched on, 0 if it was switched off, -1 if its service was not changed.
+     */
+    int getServicesFloor(int elevatorIndex, int floor) {
+        if (serviced[elevatorIndex].get(floor)) {
+            return 1;
+        }
+        return unserviced[elevatorIndex].get(floor) ? 0 : NONE;
+    }
+
+    /**
+     * @return The floors whose service was changed for the elevator, in ascending order, or -1 if there are no more.
+     */
+    int nextServicesFloor(int elevatorIndex, int fromFloor) {
+        int on = serviced[elevatorIndex].nextSetBit(fromFloor);
+        int off = unserviced[elevatorIndex].nextSetBit(fromFloor);
+        if (on < 0 || off < 0) {
+            return Math.max(on, off);
+        }
+        return Math.min(on, off);
+    }
+}
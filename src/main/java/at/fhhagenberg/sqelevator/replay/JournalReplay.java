@@ -0,0 +1,261 @@
+package at.fhhagenberg.sqelevator.replay;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import at.fhhagenberg.sqelevator.journal.JournalReader;
+import at.fhhagenberg.sqelevator.journal.JournalVisitor;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import sqelevator.IElevator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Replays a recorded run through an {@link ApplicationModel}. The recorded states are served by a
+ * {@link ReplayElevator}, and the model is updated once per recorded tick, as fast as it can, without any polling
+ * delay. The decisions of the model for the elevators in automatic mode are compared with the commands of the
+ * recorded run: the target and direction sent to each elevator, and the changes of the serviced floors.
+ * The replay is open loop: the recording goes on as it happened, whatever the replayed model decides. The operation
+ * modes of the replayed model follow the recording. The first tick of a recording, and of every change of the
+ * topology, sets up the model and is not compared. Planners that learn from the traffic start without history, so
+ * their decisions may differ at the start of a replay.
+ */
+public class JournalReplay implements JournalVisitor {
+
+    private final int maxReportedDifferences;
+
+    private Function<IElevator, ApplicationModel> modelFactory;
+
+    private ReplayElevator elevator = null;
+
+    private ApplicationModel model = null;
+
+    private boolean modelStarted = false;
+
+    private final Decisions original = new Decisions();
+
+    private boolean tickPending = false;
+
+    private long clockTick;
+
+    private long wallMillis;
+
+    private long firstWallMillis = -1;
+
+    private long ticks;
+
+    private long comparedDecisions;
+
+    private long differingDecisions;
+
+    private final List<DecisionDiff> differences = new ArrayList<>();
+
+    /**
+     * Constructor reporting the default number of differences.
+     */
+    public JournalReplay() {
+        this(Constants.REPLAY_MAX_REPORTED_DIFFERENCES);
+    }
+
+    /**
+     * Constructor.
+     * @param maxReportedDifferences The number of differing decisions that are reported in detail, all of them are
+     * counted.
+     */
+    public JournalReplay(int maxReportedDifferences) {
+        this.maxReportedDifferences = maxReportedDifferences;
+    }
+
+    /**
+     * Replays the journal in the given directory.
+     * @param directory The directory of the journal.
+     * @param modelFactory Creates the model to replay through, for the elevator interface of the replay. It can set
+     * up the model like the recorded one, e.g. with the same planners.
+     * @return The report of the replay.
+     * @throws IOException Thrown if the journal cannot be read.
+     */
+    public ReplayReport run(Path directory, Function<IElevator, ApplicationModel> modelFactory) throws IOException {
+        this.modelFactory = modelFactory;
+        long start = System.nanoTime();
+        try {
+            JournalReader.read(directory, this);
+            finishTick();
+        } finally {
+            stopModel();
+        }
+        long replayNanos = System.nanoTime() - start;
+        return new ReplayReport(ticks, comparedDecisions, differingDecisions, new ArrayList<>(differences),
+                firstWallMillis < 0 ? 0 : wallMillis - firstWallMillis, replayNanos);
+    }
+
+    /**
+     * @return The recorded wall clock time of the current tick, in milliseconds.
+     */
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    /**
+     * Time of day of the current tick, for planners that depend on it.
+     * @return The recorded time of day in the system time zone, in milliseconds since midnight.
+     */
+    public long getTimeOfDayMillis() {
+        return Instant.ofEpochMilli(wallMillis).atZone(ZoneId.systemDefault()).toLocalTime().toNanoOfDay()
+                / 1_000_000;
+    }
+
+    /**
+     * @return The model the replay runs through, or null before the first topology.
+     */
+    public ApplicationModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void topology(long sequence, int numberOfElevators, int numberOfFloors, int floorHeight) {
+        finishTick();
+        if (elevator != null && elevator.getNumberOfElevators() == numberOfElevators
+                && elevator.getNumberOfFloors() == numberOfFloors && elevator.getFloorHeight() == floorHeight) {
+            elevator.reset();
+            return;
+        }
+        stopModel();
+        elevator = new ReplayElevator(numberOfElevators, numberOfFloors, floorHeight);
+        model = modelFactory.apply(elevator);
+        model.setSkipUnchangedTicks(false);
+        modelStarted = false;
+        original.resize(numberOfElevators);
+    }
+
+    @Override
+    public void tick(long wallMillis, long clockTick) {
+        finishTick();
+        if (elevator == null) {
+            return;
+        }
+        if (firstWallMillis < 0) {
+            firstWallMillis = wallMillis;
+        }
+        this.wallMillis = wallMillis;
+        this.clockTick = clockTick;
+        elevator.setClockTick(clockTick);
+        tickPending = true;
+    }
+
+    @Override
+    public void elevatorField(int elevatorIndex, int field, int value) {
+        elevator.setField(elevatorIndex, field, value);
+    }
+
+    @Override
+    public void carButton(int elevatorIndex, int floor, boolean pressed) {
+        elevator.setElevatorButton(elevatorIndex, floor, pressed);
+    }
+
+    @Override
+    public void servicedFloor(int elevatorIndex, int floor, boolean serviced) {
+        elevator.setServicedFloor(elevatorIndex, floor, serviced);
+    }
+
+    @Override
+    public void hallButton(int floor, boolean up, boolean pressed) {
+        elevator.setFloorButton(floor, up, pressed);
+    }
+
+    @Override
+    public void command(long wallMillis, int elevatorIndex, int command, int value, int argument) {
+        // The commands of the recorded run follow the state of the tick they have been decided on
+        if (tickPending) {
+            original.record(elevatorIndex, command, value, argument);
+        }
+    }
+
+    /**
+     * Runs the model on the completely recorded state of the pending tick, and compares its decisions with the
+     * recorded commands.
+     */
+    private void finishTick() {
+        if (!tickPending) {
+            return;
+        }
+        tickPending = false;
+        ticks++;
+
+        if (!modelStarted) {
+            model.initApplication();
+            followModes();
+            modelStarted = true;
+        } else {
+            followModes();
+            elevator.getDecisions().clear();
+            model.update();
+            compare(elevator.getDecisions());
+        }
+        original.clear();
+    }
+
+    /**
+     * Brings the operation modes of the model in line with the recording.
+     */
+    private void followModes() {
+        ApplicationState state = model.getSnapshot();
+        for (int i = 0; i < state.getNumberOfElevators(); i++) {
+            boolean automatic = elevator.getField(i, JournalFormat.FIELD_AUTOMATIC) != 0;
+            if (state.getElevators().get(i).isAutomatic() != automatic) {
+                model.setElevatorAutomaticMode(i, automatic);
+            }
+        }
+    }
+
+    private void compare(Decisions replayed) {
+        for (int i = 0; i < elevator.getNumberOfElevators(); i++) {
+            if (elevator.getField(i, JournalFormat.FIELD_AUTOMATIC) == 0) {
+                // Decided by the operator, not by the control
+                continue;
+            }
+            compare(i, JournalFormat.COMMAND_TARGET, -1, original.getTarget(i), replayed.getTarget(i));
+            compare(i, JournalFormat.COMMAND_DIRECTION, -1, original.getDirection(i), replayed.getDirection(i));
+
+            int floor = Math.min(next(original, i, 0), next(replayed, i, 0));
+            while (floor != Integer.MAX_VALUE) {
+                compare(i, JournalFormat.COMMAND_SERVICES_FLOORS, floor, original.getServicesFloor(i, floor),
+                        replayed.getServicesFloor(i, floor));
+                floor = Math.min(next(original, i, floor + 1), next(replayed, i, floor + 1));
+            }
+        }
+    }
+
+    /**
+     * @return The next floor whose service was changed, or the maximum integer if there is none.
+     */
+    private static int next(Decisions decisions, int elevatorIndex, int fromFloor) {
+        int floor = decisions.nextServicesFloor(elevatorIndex, fromFloor);
+        return floor < 0 ? Integer.MAX_VALUE : floor;
+    }
+
+    private void compare(int elevatorIndex, int command, int floor, int originalValue, int replayedValue) {
+        if (originalValue == Decisions.NONE && replayedValue == Decisions.NONE) {
+            return;
+        }
+        comparedDecisions++;
+        if (originalValue != replayedValue) {
+            differingDecisions++;
+            if (differences.size() < maxReportedDifferences) {
+                differences.add(new DecisionDiff(clockTick, elevatorIndex, command, floor, originalValue,
+                        replayedValue));
+            }
+        }
+    }
+
+    private void stopModel() {
+        if (model != null) {
+            model.shutdown();
+        }
+    }
+}
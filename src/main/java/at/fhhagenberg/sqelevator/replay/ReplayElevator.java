@@ -0,0 +1,224 @@
+package at.fhhagenberg.sqelevator.replay;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import sqelevator.IElevator;
+
+import java.util.Arrays;
+
+/**
+ * Elevator interface backed by a recording. The getters return the recorded state of the building at the current
+ * tick of the replay. The commands do not change the state, the recording goes on as it happened, they are collected
+ * as the decisions of the replayed control instead. Not synchronized, it is only accessed by the thread running the
+ * replay.
+ */
+public class ReplayElevator implements IElevator {
+
+    private final int numberOfElevators;
+
+    private final int numberOfFloors;
+
+    private final int floorHeight;
+
+    private long clockTick = 0;
+
+    /**
+     * Recorded fields of the elevators, indexed by elevator * field count + field.
+     */
+    private final int[] fields;
+
+    private final boolean[][] carButtons;
+
+    private final boolean[][] servicedFloors;
+
+    private final boolean[] hallUp;
+
+    private final boolean[] hallDown;
+
+    private final Decisions decisions = new Decisions();
+
+    /**
+     * Constructor.
+     * @param numberOfElevators The number of elevators of the recorded building.
+     * @param numberOfFloors The number of floors of the recorded building.
+     * @param floorHeight The height of a floor.
+     */
+    public ReplayElevator(int numberOfElevators, int numberOfFloors, int floorHeight) {
+        this.numberOfElevators = numberOfElevators;
+        this.numberOfFloors = numberOfFloors;
+        this.floorHeight = floorHeight;
+        this.fields = new int[numberOfElevators * JournalFormat.FIELD_COUNT];
+        this.carButtons = new boolean[numberOfElevators][numberOfFloors];
+        this.servicedFloors = new boolean[numberOfElevators][numberOfFloors];
+        this.hallUp = new boolean[numberOfFloors];
+        this.hallDown = new boolean[numberOfFloors];
+        decisions.resize(numberOfElevators);
+    }
+
+    /**
+     * Resets the recorded state, all values are 0 and no buttons are pressed.
+     */
+    public void reset() {
+        Arrays.fill(fields, 0);
+        for (int i = 0; i < numberOfElevators; i++) {
+            Arrays.fill(carButtons[i], false);
+            Arrays.fill(servicedFloors[i], false);
+        }
+        Arrays.fill(hallUp, false);
+        Arrays.fill(hallDown, false);
+    }
+
+    // Recorded state
+
+    public void setClockTick(long clockTick) {
+        this.clockTick = clockTick;
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @param field The field, one of the {@code FIELD_} constants of {@link JournalFormat}.
+     * @param value The recorded value.
+     */
+    public void setField(int elevatorIndex, int field, int value) {
+        fields[elevatorIndex * JournalFormat.FIELD_COUNT + field] = value;
+    }
+
+    /**
+     * @param elevatorIndex The index of the elevator.
+     * @param field The field, one of the {@code FIELD_} constants of {@link JournalFormat}.
+     * @return The recorded value.
+     */
+    public int getField(int elevatorIndex, int field) {
+        return fields[elevatorIndex * JournalFormat.FIELD_COUNT + field];
+    }
+
+    public void setElevatorButton(int elevatorIndex, int floor, boolean pressed) {
+        carButtons[elevatorIndex][floor] = pressed;
+    }
+
+    public void setServicedFloor(int elevatorIndex, int floor, boolean serviced) {
+        servicedFloors[elevatorIndex][floor] = serviced;
+    }
+
+    public void setFloorButton(int floor, boolean up, boolean pressed) {
+        (up ? hallUp : hallDown)[floor] = pressed;
+    }
+
+    /**
+     * @return The commands received since the decisions have been cleared.
+     */
+    Decisions getDecisions() {
+        return decisions;
+    }
+
+    // Elevator interface
+
+    @Override
+    public int getCommittedDirection(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_DIRECTION);
+    }
+
+    @Override
+    public int getElevatorAccel(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_ACCELERATION);
+    }
+
+    @Override
+    public boolean getElevatorButton(int elevatorNumber, int floor) {
+        return carButtons[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getElevatorDoorStatus(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_DOOR_STATUS);
+    }
+
+    @Override
+    public int getElevatorFloor(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_FLOOR);
+    }
+
+    @Override
+    public int getElevatorNum() {
+        return numberOfElevators;
+    }
+
+    @Override
+    public int getElevatorPosition(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_POSITION);
+    }
+
+    @Override
+    public int getElevatorSpeed(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_SPEED);
+    }
+
+    @Override
+    public int getElevatorWeight(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_WEIGHT);
+    }
+
+    @Override
+    public int getElevatorCapacity(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_CAPACITY);
+    }
+
+    @Override
+    public boolean getFloorButtonDown(int floor) {
+        return hallDown[floor];
+    }
+
+    @Override
+    public boolean getFloorButtonUp(int floor) {
+        return hallUp[floor];
+    }
+
+    @Override
+    public int getFloorHeight() {
+        return floorHeight;
+    }
+
+    @Override
+    public int getFloorNum() {
+        return numberOfFloors;
+    }
+
+    @Override
+    public boolean getServicesFloors(int elevatorNumber, int floor) {
+        return servicedFloors[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getTarget(int elevatorNumber) {
+        return getField(elevatorNumber, JournalFormat.FIELD_TARGET);
+    }
+
+    @Override
+    public void setCommittedDirection(int elevatorNumber, int direction) {
+        decisions.record(elevatorNumber, JournalFormat.COMMAND_DIRECTION, direction, 0);
+    }
+
+    @Override
+    public void setServicesFloors(int elevatorNumber, int floor, boolean service) {
+        decisions.record(elevatorNumber, JournalFormat.COMMAND_SERVICES_FLOORS, floor, service ? 1 : 0);
+    }
+
+    @Override
+    public void setTarget(int elevatorNumber, int target) {
+        decisions.record(elevatorNumber, JournalFormat.COMMAND_TARGET, target, 0);
+    }
+
+    @Override
+    public long getClockTick() {
+        return clockTick;
+    }
+
+    // Generated
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public int getNumberOfFloors() {
+        return numberOfFloors;
+    }
+}
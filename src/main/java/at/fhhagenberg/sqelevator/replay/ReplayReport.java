@@ -0,0 +1,89 @@
+package at.fhhagenberg.sqelevator.replay;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a replay: how many control decisions have been compared with the recorded run, how many of them differ,
+ * and how much faster than the recorded run the replay was.
+ */
+public class ReplayReport {
+
+    private final long ticks;
+
+    private final long comparedDecisions;
+
+    private final long differingDecisions;
+
+    private final List<DecisionDiff> differences;
+
+    private final long recordedMillis;
+
+    private final long replayNanos;
+
+    /**
+     * Constructor.
+     * @param ticks The number of replayed ticks.
+     * @param comparedDecisions The number of decisions taken by the recorded run or the replay.
+     * @param differingDecisions The number of decisions that differ.
+     * @param differences The first of the differing decisions, in the order of the replay.
+     * @param recordedMillis The wall clock time covered by the recording.
+     * @param replayNanos The time the replay took.
+     */
+    public ReplayReport(long ticks, long comparedDecisions, long differingDecisions, List<DecisionDiff> differences,
+                        long recordedMillis, long replayNanos) {
+        this.ticks = ticks;
+        this.comparedDecisions = comparedDecisions;
+        this.differingDecisions = differingDecisions;
+        this.differences = Collections.unmodifiableList(differences);
+        this.recordedMillis = recordedMillis;
+        this.replayNanos = replayNanos;
+    }
+
+    /**
+     * @return How many times faster than the recorded run the replay was.
+     */
+    public double getSpeedup() {
+        return replayNanos == 0 ? 0 : recordedMillis * 1e6 / replayNanos;
+    }
+
+    /**
+     * @return The share of the compared decisions that are equal in the recorded run and the replay, 1 if there were
+     * no decisions.
+     */
+    public double getAgreement() {
+        return comparedDecisions == 0 ? 1 : 1 - (double) differingDecisions / comparedDecisions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks, %d of %d decisions differ (%.1f%% agreement), %.0fx real time", ticks,
+                differingDecisions, comparedDecisions, getAgreement() * 100, getSpeedup());
+    }
+
+    // Generated
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getComparedDecisions() {
+        return comparedDecisions;
+    }
+
+    public long getDifferingDecisions() {
+        return differingDecisions;
+    }
+
+    public List<DecisionDiff> getDifferences() {
+        return differences;
+    }
+
+    public long getRecordedMillis() {
+        return recordedMillis;
+    }
+
+    public long getReplayNanos() {
+        return replayNanos;
+    }
+}
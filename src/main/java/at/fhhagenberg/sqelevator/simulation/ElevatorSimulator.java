@@ -0,0 +1,358 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+import sqelevator.IElevator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * In-process simulation of a building, implementing the elevator interface. Models the motion of the cars with limited
+ * speed and acceleration, the door cycle, passengers arriving on the floors and travelling to their destination, the
+ * weight of the passengers and the floors serviced by each car.
+ * <p>
+ * The simulation advances in steps of fixed length. Whenever it is accessed, it catches up with its clock, so a
+ * simulation driven by a {@link ManualClock} with a fixed seed is fully deterministic. The clock tick of the
+ * elevator interface is the number of steps taken. All methods are synchronized, and the simulator can be exported
+ * via RMI like any other remote object.
+ */
+public class ElevatorSimulator implements IElevator {
+
+    private final SimulationConfig config;
+
+    private final SimulationClock clock;
+
+    private final Random random;
+
+    private final SimulatedCar[] cars;
+
+    private final ArrayDeque<Passenger>[] waitingUp;
+
+    private final ArrayDeque<Passenger>[] waitingDown;
+
+    private final SimulationStatistics statistics = new SimulationStatistics();
+
+    private long lastStepMillis;
+
+    private long clockTick = 0;
+
+    /**
+     * Constructor.
+     * @param config The parameters of the building.
+     * @param clock The clock that drives the simulation.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ElevatorSimulator(SimulationConfig config, SimulationClock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.random = new Random(config.getSeed());
+        this.lastStepMillis = clock.currentTimeMillis();
+
+        cars = new SimulatedCar[config.getNumberOfElevators()];
+        for (int i = 0; i < cars.length; i++) {
+            cars[i] = new SimulatedCar(config);
+        }
+
+        waitingUp = new ArrayDeque[config.getNumberOfFloors()];
+        waitingDown = new ArrayDeque[config.getNumberOfFloors()];
+        for (int floor = 0; floor < config.getNumberOfFloors(); floor++) {
+            waitingUp[floor] = new ArrayDeque<>();
+            waitingDown[floor] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Lets a passenger arrive on a floor, in addition to the randomly arriving passengers.
+     * @param origin The floor on which the passenger arrives.
+     * @param destination The floor the passenger wants to go to.
+     */
+    public synchronized void addPassenger(int origin, int destination) {
+        catchUp();
+        checkFloor(origin);
+        checkFloor(destination);
+        if (origin == destination) {
+            throw new IllegalArgumentException("The passenger is at the destination already");
+        }
+        arrive(new Passenger(origin, destination, randomWeight(), getSimulationMillis()));
+    }
+
+    /**
+     * @return The number of passengers waiting on the floors.
+     */
+    public synchronized int getWaitingPassengers() {
+        catchUp();
+        int waiting = 0;
+        for (int floor = 0; floor < config.getNumberOfFloors(); floor++) {
+            waiting += waitingUp[floor].size() + waitingDown[floor].size();
+        }
+        return waiting;
+    }
+
+    /**
+     * @return The time that has been simulated, in milliseconds.
+     */
+    public synchronized long getSimulationMillis() {
+        catchUp();
+        return clockTick * config.getStepMillis();
+    }
+
+    /**
+     * @return The statistics about the served passengers, up to date with the clock.
+     */
+    public synchronized SimulationStatistics getStatistics() {
+        catchUp();
+        return statistics;
+    }
+
+    /**
+     * @return The parameters of the simulated building.
+     */
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Takes all steps that are due according to the clock.
+     */
+    private void catchUp() {
+        long now = clock.currentTimeMillis();
+        while (now - lastStepMillis >= config.getStepMillis()) {
+            lastStepMillis += config.getStepMillis();
+            step();
+        }
+    }
+
+    private void step() {
+        clockTick++;
+        long nowMillis = clockTick * config.getStepMillis();
+
+        generatePassengers(nowMillis);
+
+        for (SimulatedCar car : cars) {
+            if (car.step(config.getStepMillis())) {
+                unload(car, nowMillis);
+            }
+            if (car.doorStatus == ELEVATOR_DOORS_OPEN) {
+                load(car, nowMillis);
+            }
+        }
+    }
+
+    private void generatePassengers(long nowMillis) {
+        double expected = config.getArrivalsPerMinute() * config.getStepMillis() / 60_000.0;
+        if (expected <= 0) {
+            return;
+        }
+
+        // Poisson distributed number of arrivals within the step
+        double limit = Math.exp(-expected);
+        double product = random.nextDouble();
+        while (product > limit) {
+            int floors = config.getNumberOfFloors();
+            int origin;
+            int destination;
+            double pattern = random.nextDouble();
+            if (pattern < config.getLobbyArrivalShare()) {
+                origin = 0;
+                destination = 1 + random.nextInt(floors - 1);
+            } else if (pattern < config.getLobbyArrivalShare() + config.getLobbyDestinationShare()) {
+                origin = 1 + random.nextInt(floors - 1);
+                destination = 0;
+            } else {
+                origin = random.nextInt(floors);
+                destination = (origin + 1 + random.nextInt(floors - 1)) % floors;
+            }
+            arrive(new Passenger(origin, destination, randomWeight(), nowMillis));
+            product *= random.nextDouble();
+        }
+    }
+
+    private int randomWeight() {
+        return config.getMinPassengerWeight()
+                + random.nextInt(config.getMaxPassengerWeight() - config.getMinPassengerWeight() + 1);
+    }
+
+    private void arrive(Passenger passenger) {
+        statistics.recordArrival();
+        (passenger.isGoingUp() ? waitingUp : waitingDown)[passenger.origin].add(passenger);
+    }
+
+    private void unload(SimulatedCar car, long nowMillis) {
+        int floor = car.getFloor();
+        car.floorButtons.clear(floor);
+
+        Iterator<Passenger> iterator = car.passengers.iterator();
+        while (iterator.hasNext()) {
+            Passenger passenger = iterator.next();
+            if (passenger.destination == floor) {
+                iterator.remove();
+                car.weight -= passenger.weight;
+                statistics.recordDelivery(nowMillis - passenger.arrivalMillis);
+            }
+        }
+    }
+
+    /**
+     * Lets the waiting passengers board a car with open doors, if it goes into their direction, services their
+     * destination and has room left.
+     */
+    private void load(SimulatedCar car, long nowMillis) {
+        int floor = car.getFloor();
+        if (car.committedDirection != ELEVATOR_DIRECTION_DOWN) {
+            board(car, waitingUp[floor], nowMillis);
+        }
+        if (car.committedDirection != ELEVATOR_DIRECTION_UP) {
+            board(car, waitingDown[floor], nowMillis);
+        }
+    }
+
+    private void board(SimulatedCar car, ArrayDeque<Passenger> queue, long nowMillis) {
+        Iterator<Passenger> iterator = queue.iterator();
+        while (iterator.hasNext() && car.passengers.size() < config.getCapacity()) {
+            Passenger passenger = iterator.next();
+            if (car.servicedFloors.get(passenger.destination)) {
+                iterator.remove();
+                passenger.boardingMillis = nowMillis;
+                car.passengers.add(passenger);
+                car.weight += passenger.weight;
+                car.floorButtons.set(passenger.destination);
+                statistics.recordBoarding(nowMillis - passenger.arrivalMillis);
+            }
+        }
+    }
+
+    private SimulatedCar car(int elevatorNumber) {
+        if (elevatorNumber < 0 || elevatorNumber >= cars.length) {
+            throw new IllegalArgumentException("Invalid elevator number " + elevatorNumber);
+        }
+        catchUp();
+        return cars[elevatorNumber];
+    }
+
+    private void checkFloor(int floor) {
+        if (floor < 0 || floor >= config.getNumberOfFloors()) {
+            throw new IllegalArgumentException("Invalid floor " + floor);
+        }
+    }
+
+    // Elevator interface
+
+    @Override
+    public synchronized int getCommittedDirection(int elevatorNumber) {
+        return car(elevatorNumber).committedDirection;
+    }
+
+    @Override
+    public synchronized int getElevatorAccel(int elevatorNumber) {
+        return (int) Math.round(car(elevatorNumber).acceleration);
+    }
+
+    @Override
+    public synchronized boolean getElevatorButton(int elevatorNumber, int floor) {
+        checkFloor(floor);
+        return car(elevatorNumber).floorButtons.get(floor);
+    }
+
+    @Override
+    public synchronized int getElevatorDoorStatus(int elevatorNumber) {
+        return car(elevatorNumber).doorStatus;
+    }
+
+    @Override
+    public synchronized int getElevatorFloor(int elevatorNumber) {
+        return car(elevatorNumber).getFloor();
+    }
+
+    @Override
+    public int getElevatorNum() {
+        return cars.length;
+    }
+
+    @Override
+    public synchronized int getElevatorPosition(int elevatorNumber) {
+        return (int) Math.round(car(elevatorNumber).position);
+    }
+
+    @Override
+    public synchronized int getElevatorSpeed(int elevatorNumber) {
+        return (int) Math.round(car(elevatorNumber).speed);
+    }
+
+    @Override
+    public synchronized int getElevatorWeight(int elevatorNumber) {
+        return car(elevatorNumber).weight;
+    }
+
+    @Override
+    public int getElevatorCapacity(int elevatorNumber) {
+        return config.getCapacity();
+    }
+
+    @Override
+    public synchronized boolean getFloorButtonDown(int floor) {
+        checkFloor(floor);
+        catchUp();
+        return !waitingDown[floor].isEmpty();
+    }
+
+    @Override
+    public synchronized boolean getFloorButtonUp(int floor) {
+        checkFloor(floor);
+        catchUp();
+        return !waitingUp[floor].isEmpty();
+    }
+
+    @Override
+    public int getFloorHeight() {
+        return config.getFloorHeight();
+    }
+
+    @Override
+    public int getFloorNum() {
+        return config.getNumberOfFloors();
+    }
+
+    @Override
+    public synchronized boolean getServicesFloors(int elevatorNumber, int floor) {
+        checkFloor(floor);
+        return car(elevatorNumber).servicedFloors.get(floor);
+    }
+
+    @Override
+    public synchronized int getTarget(int elevatorNumber) {
+        return car(elevatorNumber).target;
+    }
+
+    @Override
+    public synchronized void setCommittedDirection(int elevatorNumber, int direction) {
+        if (direction != ELEVATOR_DIRECTION_UP && direction != ELEVATOR_DIRECTION_DOWN
+                && direction != ELEVATOR_DIRECTION_UNCOMMITTED) {
+            throw new IllegalArgumentException("Invalid direction " + direction);
+        }
+        car(elevatorNumber).committedDirection = direction;
+    }
+
+    @Override
+    public synchronized void setServicesFloors(int elevatorNumber, int floor, boolean service) {
+        checkFloor(floor);
+        car(elevatorNumber).servicedFloors.set(floor, service);
+    }
+
+    /**
+     * Sets the target of a car. Targets on floors that the car does not service are ignored.
+     */
+    @Override
+    public synchronized void setTarget(int elevatorNumber, int target) {
+        checkFloor(target);
+        SimulatedCar car = car(elevatorNumber);
+        if (car.servicedFloors.get(target)) {
+            car.target = target;
+        }
+    }
+
+    @Override
+    public synchronized long getClockTick() {
+        catchUp();
+        return clockTick;
+    }
+}
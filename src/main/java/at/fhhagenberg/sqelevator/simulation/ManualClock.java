@@ -0,0 +1,25 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+/**
+ * Simulation clock that only advances when told to, for deterministic tests and benchmarks.
+ */
+public class ManualClock implements SimulationClock {
+
+    private volatile long timeMillis = 0;
+
+    /**
+     * Advances the clock.
+     * @param millis The time to advance in milliseconds.
+     */
+    public synchronized void advance(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("The clock cannot go backwards");
+        }
+        timeMillis += millis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,28 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+/**
+ * A simulated passenger travelling from one floor to another.
+ */
+class Passenger {
+
+    final int origin;
+
+    final int destination;
+
+    final int weight;
+
+    final long arrivalMillis;
+
+    long boardingMillis = -1;
+
+    Passenger(int origin, int destination, int weight, long arrivalMillis) {
+        this.origin = origin;
+        this.destination = destination;
+        this.weight = weight;
+        this.arrivalMillis = arrivalMillis;
+    }
+
+    boolean isGoingUp() {
+        return destination > origin;
+    }
+}
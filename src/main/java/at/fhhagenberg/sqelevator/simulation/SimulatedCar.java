@@ -0,0 +1,150 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+import sqelevator.IElevator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Physical state of one simulated elevator car: its motion, its doors, and the passengers inside.
+ */
+class SimulatedCar {
+
+    private static final double POSITION_EPSILON = 1e-6;
+
+    private final SimulationConfig config;
+
+    double position = 0;
+
+    double speed = 0;
+
+    double acceleration = 0;
+
+    int doorStatus = IElevator.ELEVATOR_DOORS_OPEN;
+
+    /**
+     * Remaining time of the current door movement, or the time the doors have been open.
+     */
+    long doorMillis = 0;
+
+    int committedDirection = IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+
+    int target = 0;
+
+    final BitSet servicedFloors = new BitSet();
+
+    final BitSet floorButtons = new BitSet();
+
+    final List<Passenger> passengers = new ArrayList<>();
+
+    int weight = 0;
+
+    SimulatedCar(SimulationConfig config) {
+        this.config = config;
+        servicedFloors.set(0, config.getNumberOfFloors());
+    }
+
+    /**
+     * @return The floor nearest to the car.
+     */
+    int getFloor() {
+        return (int) Math.round(position / config.getFloorHeight());
+    }
+
+    private boolean isAt(int floor) {
+        return speed == 0 && Math.abs(position - floor * config.getFloorHeight()) < POSITION_EPSILON;
+    }
+
+    /**
+     * Advances the car by one step: runs the door cycle, or moves the car towards its target while the doors are
+     * closed. A car at rest keeps its doors open until it gets a target on another floor.
+     * @param stepMillis The duration of the step.
+     * @return True if the doors have finished opening in this step, so passengers can leave the car.
+     */
+    boolean step(long stepMillis) {
+        acceleration = 0;
+
+        switch (doorStatus) {
+            case IElevator.ELEVATOR_DOORS_OPENING:
+                doorMillis -= stepMillis;
+                if (doorMillis <= 0) {
+                    doorStatus = IElevator.ELEVATOR_DOORS_OPEN;
+                    doorMillis = 0;
+                    return true;
+                }
+                return false;
+            case IElevator.ELEVATOR_DOORS_OPEN:
+                doorMillis += stepMillis;
+                if (!isAt(target) && doorMillis >= config.getDwellMillis()) {
+                    doorStatus = IElevator.ELEVATOR_DOORS_CLOSING;
+                    doorMillis = config.getDoorMillis();
+                }
+                return false;
+            case IElevator.ELEVATOR_DOORS_CLOSING:
+                doorMillis -= stepMillis;
+                if (doorMillis <= 0) {
+                    doorStatus = IElevator.ELEVATOR_DOORS_CLOSED;
+                    doorMillis = 0;
+                }
+                return false;
+            default:
+                if (isAt(target)) {
+                    doorStatus = IElevator.ELEVATOR_DOORS_OPENING;
+                    doorMillis = config.getDoorMillis();
+                } else {
+                    move(stepMillis / 1000.0);
+                }
+                return false;
+        }
+    }
+
+    /**
+     * Moves the car towards the target with a trapezoidal speed profile. The car accelerates up to the maximum speed,
+     * and brakes as soon as the distance to the target is needed to stop. If it moves away from the target because
+     * the target changed, it stops first.
+     */
+    private void move(double dt) {
+        double targetPosition = target * config.getFloorHeight();
+        double remaining = targetPosition - position;
+        double direction = Math.signum(remaining);
+        double maxAcceleration = config.getAcceleration();
+        double newSpeed;
+
+        if (speed * direction < 0) {
+            // Moving away from the target, stop first
+            newSpeed = towardsZero(speed, maxAcceleration * dt);
+        } else if (Math.abs(remaining) <= speed * speed / (2 * maxAcceleration) + POSITION_EPSILON) {
+            // Brake with the deceleration that stops the car exactly at the target
+            double deceleration = speed * speed / (2 * Math.abs(remaining));
+            if (deceleration * dt >= Math.abs(speed)) {
+                arrive(targetPosition, dt);
+                return;
+            }
+            newSpeed = towardsZero(speed, deceleration * dt);
+        } else {
+            newSpeed = speed + direction * maxAcceleration * dt;
+            newSpeed = Math.max(-config.getMaxSpeed(), Math.min(config.getMaxSpeed(), newSpeed));
+        }
+
+        double newPosition = position + (speed + newSpeed) / 2 * dt;
+        if ((targetPosition - newPosition) * direction <= 0 && speed * direction >= 0) {
+            arrive(targetPosition, dt);
+            return;
+        }
+
+        acceleration = (newSpeed - speed) / dt;
+        position = newPosition;
+        speed = newSpeed;
+    }
+
+    private void arrive(double targetPosition, double dt) {
+        acceleration = -speed / dt;
+        position = targetPosition;
+        speed = 0;
+    }
+
+    private static double towardsZero(double value, double amount) {
+        return value > 0 ? Math.max(0, value - amount) : Math.min(0, value + amount);
+    }
+}
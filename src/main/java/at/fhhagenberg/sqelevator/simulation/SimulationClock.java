@@ -0,0 +1,19 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+/**
+ * Time source of the simulator. The simulator catches up with the clock whenever it is accessed, so with a clock that
+ * is advanced manually, every run of a simulation is fully deterministic.
+ */
+@FunctionalInterface
+public interface SimulationClock {
+
+    /**
+     * Clock that follows the monotonic system time, for simulations that run in real time.
+     */
+    SimulationClock SYSTEM = () -> System.nanoTime() / 1_000_000;
+
+    /**
+     * @return The current time in milliseconds. Only differences between two readings are meaningful.
+     */
+    long currentTimeMillis();
+}
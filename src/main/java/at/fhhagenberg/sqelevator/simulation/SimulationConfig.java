@@ -0,0 +1,165 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+/**
+ * Parameters of a simulated building. Lengths are given in meters, durations in milliseconds and weights in kilograms.
+ * All values have defaults that resemble a typical office building, only the size of the building has to be given.
+ */
+public class SimulationConfig {
+
+    private final int numberOfElevators;
+
+    private final int numberOfFloors;
+
+    private int floorHeight = 4;
+
+    private double maxSpeed = 3.0;
+
+    private double acceleration = 1.0;
+
+    private int capacity = 10;
+
+    private long stepMillis = 50;
+
+    private long doorMillis = 1500;
+
+    private long dwellMillis = 3000;
+
+    private double arrivalsPerMinute = 0;
+
+    private double lobbyArrivalShare = 0;
+
+    private double lobbyDestinationShare = 0;
+
+    private int minPassengerWeight = 50;
+
+    private int maxPassengerWeight = 110;
+
+    private long seed = 0;
+
+    /**
+     * Constructor.
+     * @param numberOfElevators The number of elevators of the building.
+     * @param numberOfFloors The number of floors of the building, including the ground floor.
+     */
+    public SimulationConfig(int numberOfElevators, int numberOfFloors) {
+        if (numberOfElevators <= 0 || numberOfFloors < 2) {
+            throw new IllegalArgumentException("The building needs at least one elevator and two floors");
+        }
+        this.numberOfElevators = numberOfElevators;
+        this.numberOfFloors = numberOfFloors;
+    }
+
+    // Generated
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public int getNumberOfFloors() {
+        return numberOfFloors;
+    }
+
+    public int getFloorHeight() {
+        return floorHeight;
+    }
+
+    public void setFloorHeight(int floorHeight) {
+        this.floorHeight = floorHeight;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public void setMaxSpeed(double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public void setAcceleration(double acceleration) {
+        this.acceleration = acceleration;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public void setStepMillis(long stepMillis) {
+        this.stepMillis = stepMillis;
+    }
+
+    public long getDoorMillis() {
+        return doorMillis;
+    }
+
+    public void setDoorMillis(long doorMillis) {
+        this.doorMillis = doorMillis;
+    }
+
+    public long getDwellMillis() {
+        return dwellMillis;
+    }
+
+    public void setDwellMillis(long dwellMillis) {
+        this.dwellMillis = dwellMillis;
+    }
+
+    public double getArrivalsPerMinute() {
+        return arrivalsPerMinute;
+    }
+
+    public void setArrivalsPerMinute(double arrivalsPerMinute) {
+        this.arrivalsPerMinute = arrivalsPerMinute;
+    }
+
+    public double getLobbyArrivalShare() {
+        return lobbyArrivalShare;
+    }
+
+    public void setLobbyArrivalShare(double lobbyArrivalShare) {
+        this.lobbyArrivalShare = lobbyArrivalShare;
+    }
+
+    public double getLobbyDestinationShare() {
+        return lobbyDestinationShare;
+    }
+
+    public void setLobbyDestinationShare(double lobbyDestinationShare) {
+        this.lobbyDestinationShare = lobbyDestinationShare;
+    }
+
+    public int getMinPassengerWeight() {
+        return minPassengerWeight;
+    }
+
+    public void setMinPassengerWeight(int minPassengerWeight) {
+        this.minPassengerWeight = minPassengerWeight;
+    }
+
+    public int getMaxPassengerWeight() {
+        return maxPassengerWeight;
+    }
+
+    public void setMaxPassengerWeight(int maxPassengerWeight) {
+        this.maxPassengerWeight = maxPassengerWeight;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
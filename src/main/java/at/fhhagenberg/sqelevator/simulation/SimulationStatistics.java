@@ -0,0 +1,94 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Counters of the passengers served by the simulator. Written while the simulator holds its lock, volatile is enough
+ * to publish them to readers on other threads.
+ */
+public class SimulationStatistics {
+
+    private volatile long arrivedPassengers;
+
+    private volatile long boardedPassengers;
+
+    private volatile long deliveredPassengers;
+
+    private volatile long totalWaitMillis;
+
+    private volatile long maxWaitMillis;
+
+    private volatile long totalJourneyMillis;
+
+    /**
+     * Wait times of all boarded passengers, for the percentiles. Guarded by the lock of the statistics.
+     */
+    private long[] waitMillis = new long[64];
+
+    void recordArrival() {
+        arrivedPassengers++;
+    }
+
+    synchronized void recordBoarding(long waitMillis) {
+        if (boardedPassengers == this.waitMillis.length) {
+            this.waitMillis = Arrays.copyOf(this.waitMillis, this.waitMillis.length * 2);
+        }
+        this.waitMillis[(int) boardedPassengers] = waitMillis;
+        boardedPassengers++;
+        totalWaitMillis += waitMillis;
+        maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+    }
+
+    void recordDelivery(long journeyMillis) {
+        deliveredPassengers++;
+        totalJourneyMillis += journeyMillis;
+    }
+
+    /**
+     * @return The average time from the arrival of a passenger on the floor until boarding a car, in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        return boardedPassengers == 0 ? 0 : (double) totalWaitMillis / boardedPassengers;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The wait time that the given percentage of the boarded passengers did not exceed, in milliseconds.
+     */
+    public synchronized long getWaitPercentileMillis(double percentile) {
+        int count = (int) boardedPassengers;
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(waitMillis, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    /**
+     * @return The average time from the arrival of a passenger until leaving the car at the destination, in
+     * milliseconds.
+     */
+    public double getAverageJourneyMillis() {
+        return deliveredPassengers == 0 ? 0 : (double) totalJourneyMillis / deliveredPassengers;
+    }
+
+    // Generated
+
+    public long getArrivedPassengers() {
+        return arrivedPassengers;
+    }
+
+    public long getBoardedPassengers() {
+        return boardedPassengers;
+    }
+
+    public long getDeliveredPassengers() {
+        return deliveredPassengers;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
@@ -0,0 +1,42 @@
+package at.fhhagenberg.sqelevator.simulation;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import sqelevator.BulkElevatorAdapter;
+
+import java.net.MalformedURLException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+
+/**
+ * Runs the simulator in real time and binds it in the RMI registry, so the control center can connect to it like to
+ * the course simulator. The simulator is wrapped in a {@link BulkElevatorAdapter}, so it offers the bulk snapshots.
+ */
+public class SimulatorServer {
+
+    /**
+     * Starts the server. A registry is created on the default port if there is none yet.
+     * @param args Optional: number of elevators, number of floors, passenger arrivals per minute, RMI URL.
+     * @throws RemoteException Thrown if the simulator cannot be exported.
+     * @throws MalformedURLException Thrown if the given URL is invalid.
+     */
+    public static void main(String[] args) throws RemoteException, MalformedURLException {
+        int elevators = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int floors = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double arrivalsPerMinute = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        String url = args.length > 3 ? args[3] : Constants.DEFAULT_RMI_URL;
+
+        SimulationConfig config = new SimulationConfig(elevators, floors);
+        config.setArrivalsPerMinute(arrivalsPerMinute);
+        config.setSeed(System.nanoTime());
+
+        try {
+            LocateRegistry.createRegistry(Registry.REGISTRY_PORT);
+        } catch (RemoteException e) {
+            // A registry is running already
+        }
+
+        BulkElevatorAdapter.bind(new ElevatorSimulator(config, SimulationClock.SYSTEM), url);
+        System.out.println("Simulating " + elevators + " elevators and " + floors + " floors at " + url);
+    }
+}
@@ -5,6 +5,7 @@ import at.fhhagenberg.sqelevator.controller.EccController;
 import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
 
 import java.awt.*;
+import java.awt.event.WindowListener;
 
 /**
  * Abstract View class for the ECC application. Implements commonly needed functionality.
@@ -19,6 +20,8 @@ public abstract class EccView implements IEccObserver {
 
     protected String title = Constants.DEFAULT_WINDOW_TITLE;
 
+    protected boolean resizable = false;
+
     /**
      * Default constructor with all necessary parameters.
      * @param controller The controller object that handles interactions between View and Model
@@ -38,12 +41,20 @@ public abstract class EccView implements IEccObserver {
     public void open() {
         windowFrame = new Frame(title);
         windowFrame.setSize(width, height);
-        windowFrame.setResizable(false);
-        windowFrame.addWindowListener(controller);
+        windowFrame.setResizable(resizable);
+        windowFrame.addWindowListener(getWindowListener());
         addComponents(windowFrame);
         windowFrame.setVisible(true);
     }
 
+    /**
+     * @return The listener for the events of the window, by default the controller, which closes all views and ends
+     * the application when the window is closed.
+     */
+    protected WindowListener getWindowListener() {
+        return controller;
+    }
+
     /**
      * Closes the window.
      */
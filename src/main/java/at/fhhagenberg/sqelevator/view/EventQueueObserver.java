@@ -0,0 +1,93 @@
+package at.fhhagenberg.sqelevator.view;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+
+import java.awt.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Observer decorator that hands the application state over from the polling thread to the AWT event dispatch thread.
+ * The wrapped observer is only ever called on the event dispatch thread. If the UI falls behind, intermediate states
+ * are dropped and only the most recent one is rendered. The deliveries can be capped to a frame rate, independent of
+ * the rate at which the model is polled.
+ */
+public class EventQueueObserver implements IEccObserver {
+
+    private final IEccObserver delegate;
+
+    private static ScheduledExecutorService frameScheduler = null;
+
+    private final AtomicReference<ApplicationState> pending = new AtomicReference<>();
+
+    private final long frameIntervalNanos;
+
+    /**
+     * Earliest time of the next delivery, written on the event dispatch thread.
+     */
+    private volatile long nextFrameNanos = System.nanoTime();
+
+    /**
+     * Constructor for an observer that delivers every state as soon as the event dispatch thread gets to it.
+     * @param delegate The observer that should be called on the event dispatch thread.
+     */
+    public EventQueueObserver(IEccObserver delegate) {
+        this(delegate, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param delegate The observer that should be called on the event dispatch thread.
+     * @param maxFramesPerSecond The maximum number of deliveries per second, or 0 for no limit.
+     */
+    public EventQueueObserver(IEccObserver delegate, int maxFramesPerSecond) {
+        this.delegate = delegate;
+        this.frameIntervalNanos = maxFramesPerSecond > 0 ? 1_000_000_000L / maxFramesPerSecond : 0;
+    }
+
+    /**
+     * Schedules the delivery of the state on the event dispatch thread, unless a delivery is already pending, in which
+     * case the pending state is replaced. If the previous delivery was less than a frame ago, the delivery is delayed
+     * until the next frame. A state that is not an immutable snapshot is copied first.
+     * @param applicationState The updated application state.
+     */
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        ApplicationState snapshot = applicationState.snapshot();
+
+        if (pending.getAndSet(snapshot) == null) {
+            long wait = nextFrameNanos - System.nanoTime();
+            if (wait <= 0) {
+                EventQueue.invokeLater(this::deliver);
+            } else {
+                getFrameScheduler().schedule(() -> EventQueue.invokeLater(this::deliver), wait, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void deliver() {
+        nextFrameNanos = System.nanoTime() + frameIntervalNanos;
+        ApplicationState state = pending.getAndSet(null);
+        if (state != null) {
+            delegate.applicationStateChanged(state);
+        }
+    }
+
+    /**
+     * @return The daemon thread that delays the deliveries to the next frame, shared by all observers.
+     */
+    private static synchronized ScheduledExecutorService getFrameScheduler() {
+        if (frameScheduler == null) {
+            frameScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, Constants.FRAME_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return frameScheduler;
+    }
+}
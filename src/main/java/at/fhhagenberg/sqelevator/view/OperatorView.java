@@ -1,9 +1,13 @@
 package at.fhhagenberg.sqelevator.view;
 
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.controller.Building;
 import at.fhhagenberg.sqelevator.controller.EccController;
 import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
 
 import java.awt.*;
+import java.util.List;
 
 /**
  * The OperatorView represents the visualization of the data the model contains.
@@ -13,6 +17,9 @@ public class OperatorView extends EccView {
 
     public OperatorView(EccController controller, int width, int height) {
         super(controller, width, height);
+        if (controller.getBuildings().size() > 1) {
+            title = buildingTitle(controller.getSelectedBuilding());
+        }
     }
 
     private Panel infoPanel;
@@ -30,6 +37,7 @@ public class OperatorView extends EccView {
 
     private Choice floorSelection;
     private Choice elevatorSelection;
+    private Choice buildingSelection;
 
     private Checkbox checkBoxAuto;
     private Checkbox checkBoxManual;
@@ -37,6 +45,14 @@ public class OperatorView extends EccView {
     private int elevatorIndex;
     private int floorIndex;
 
+    // The values on display, to only touch the components that change
+    private String renderedTitle = null;
+    private Elevator renderedElevator = null;
+    private int renderedElevators = -1;
+    private int renderedFloors = -1;
+    private List<Integer> renderedUp = null;
+    private List<Integer> renderedDown = null;
+
     /**
      * Adds UI elements to the provided frame and initializes them.
      *
@@ -123,7 +139,16 @@ public class OperatorView extends EccView {
         c.gridy = 0;
         c.weighty = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
-        positionPanel.add(new Panel(), c);
+        Panel buildingPanel = new Panel();
+        buildingSelection = new Choice();
+        for (Building building : controller.getBuildings()) {
+            buildingSelection.add(building.getName());
+        }
+        buildingSelection.addItemListener(e -> selectBuilding(buildingSelection.getSelectedIndex()));
+        buildingSelection.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        buildingSelection.setVisible(controller.getBuildings().size() > 1);
+        buildingPanel.add(buildingSelection);
+        positionPanel.add(buildingPanel, c);
 
         c = new GridBagConstraints();
         c.gridx = 0;
@@ -270,84 +295,201 @@ public class OperatorView extends EccView {
     }
 
     /**
-     * applicationStateChanged method is called periodically to update the current information to display
+     * Switches the view to another building. The elevator and floor choices are rebuilt for its topology, and its most
+     * recent state is shown right away instead of waiting for its next update.
+     *
+     * @param buildingIndex The index of the building to show.
+     */
+    private void selectBuilding(int buildingIndex) {
+        controller.setSelectedBuilding(buildingIndex);
+        title = buildingTitle(buildingIndex);
+        invalidateRendering();
+        applicationStateChanged(controller.getModel().getSnapshot());
+    }
+
+    private String buildingTitle(int buildingIndex) {
+        return Constants.DEFAULT_WINDOW_TITLE + " - " + controller.getBuildings().get(buildingIndex).getName();
+    }
+
+    /**
+     * applicationStateChanged method is called with every published state to update the information to display. Only
+     * the components whose values changed since the last rendered state are touched, so an idle building costs next
+     * to nothing to display. Unchanged elevators are shared between snapshots, which makes most checks a reference
+     * comparison.
      *
      * @param applicationState The updated application state.
      */
     @Override
     public void applicationStateChanged(ApplicationState applicationState) {
+        String frameTitle = applicationState.isStale() ? title + Constants.STALE_TITLE_SUFFIX : title;
+        if (windowFrame != null && !frameTitle.equals(renderedTitle)) {
+            windowFrame.setTitle(frameTitle);
+            renderedTitle = frameTitle;
+        }
+        if (applicationState.getSelectedElevator() < 0) {
+            // Not connected yet, there is nothing to display, also not the elevators of another building
+            if (infoPanel != null && renderedElevators != 0) {
+                clearComponents();
+            }
+            return;
+        }
+
         elevatorIndex = applicationState.getSelectedElevator();
-        floorIndex = applicationState.getElevators().get(elevatorIndex).getCurrentFloor();
-
-        if (applicationState.getNumberOfElevators() > 0) {
-            if (infoPanel != null) { // wait until UI elements are available
-                floorSelection.setSize(50, 75);
-                checkBoxAuto.setEnabled(true);
-                checkBoxManual.setEnabled(true);
-                if (applicationState.getElevators().get(elevatorIndex).isAutomatic()) {
-                    checkBoxAuto.setState(true);
-                    checkBoxManual.setState(false);
-                    floorSelection.setVisible(false);
-                    currentPosition.setVisible(true);
-                } else {
-                    checkBoxAuto.setState(false);
-                    checkBoxManual.setState(true);
-                    floorSelection.setVisible(true);
-                    currentPosition.setVisible(false);
-                }
-                if (applicationState.getNumberOfElevators() == 1) {
-                    elevatorSelection.setVisible(false);
-                } else {
-                    elevatorSelection.setVisible(true);
-                    if (elevatorSelection.getItemCount() == 0) {
-                        for (int i = 0; i < applicationState.getNumberOfElevators(); i++) {
-                            elevatorSelection.add(String.valueOf(i));
-                        }
-                    }
-                }
-                if (floorSelection.getItemCount() == 0) {
-                    for (int i = 0; i < applicationState.getNumberOfFloors(); i++) {
-                        floorSelection.add(String.valueOf(i));
-                    }
-
-                }
-
-                //set all information
-                doorStatus.setText(String.valueOf(applicationState.getElevators().get(elevatorIndex).getDoorStatus()));
-                speed.setText(String.valueOf(applicationState.getElevators().get(elevatorIndex).getCurrentSpeed()));
-                payload.setText(String.valueOf(applicationState.getElevators().get(elevatorIndex).getCurrentPassengerWeight()));
-                target.setText(String.valueOf(applicationState.getElevators().get(elevatorIndex).getCurrentTarget()));
-                currentPosition.setText(String.valueOf(applicationState.getElevators().get(elevatorIndex).getCurrentFloor()));
-                UpButtonsPressed.setText("UP: " + String.valueOf(applicationState.getButtonUpPressed()));
-                downButtonsPressed.setText("DOWN: " + String.valueOf(applicationState.getButtonDownPressed()));
-                elevatorPanelButtonsPressed.setText("Floor: " + String.valueOf(applicationState.getElevators().get(elevatorIndex).getActiveFloorButtons()));
-
-                //set sizes of elements
-                elevatorSelection.setSize(50, 50);
-                payload.setSize(100, 35);
-                target.setSize(100, 35);
-                currentPosition.setSize(100, 35);
-                UpButtonsPressed.setSize(500, 35);
-                downButtonsPressed.setSize(500, 35);
-                elevatorPanelButtonsPressed.setSize(500, 35);
-
-                //display elevator direction
-                switch (applicationState.getElevators().get(elevatorIndex).getCommittedDirection()) {
-                    case 0:
-                        directionDown.setBackground(Color.lightGray);
-                        directionUp.setBackground(Color.GREEN);
-                        break;
-                    case 1:
-                        directionDown.setBackground(Color.GREEN);
-                        directionUp.setBackground(Color.lightGray);
-                        break;
-                    case 2:
-                        directionDown.setBackground(Color.lightGray);
-                        directionUp.setBackground(Color.LIGHT_GRAY);
-                        break;
-                    default:
-                }
+        Elevator elevator = applicationState.getElevators().get(elevatorIndex);
+        floorIndex = elevator.getCurrentFloor();
+
+        if (infoPanel == null) {
+            // wait until UI elements are available
+            return;
+        }
+
+        renderTopology(applicationState.getNumberOfElevators(), applicationState.getNumberOfFloors());
+        if (elevator != renderedElevator) {
+            renderElevator(elevator);
+            renderedElevator = elevator;
+        }
+
+        List<Integer> up = applicationState.getButtonUpPressed();
+        if (!up.equals(renderedUp)) {
+            UpButtonsPressed.setText("UP: " + up);
+            renderedUp = up;
+        }
+        List<Integer> down = applicationState.getButtonDownPressed();
+        if (!down.equals(renderedDown)) {
+            downButtonsPressed.setText("DOWN: " + down);
+            renderedDown = down;
+        }
+    }
+
+    /**
+     * Sets up the choices for the number of elevators and floors, if they changed.
+     */
+    private void renderTopology(int numberOfElevators, int numberOfFloors) {
+        if (numberOfElevators == renderedElevators && numberOfFloors == renderedFloors) {
+            return;
+        }
+        renderedElevators = numberOfElevators;
+        renderedFloors = numberOfFloors;
+
+        checkBoxAuto.setEnabled(true);
+        checkBoxManual.setEnabled(true);
+        elevatorSelection.setVisible(numberOfElevators > 1);
+        if (elevatorSelection.getItemCount() != numberOfElevators) {
+            elevatorSelection.removeAll();
+            for (int i = 0; i < numberOfElevators; i++) {
+                elevatorSelection.add(String.valueOf(i));
+            }
+        }
+        if (floorSelection.getItemCount() != numberOfFloors) {
+            floorSelection.removeAll();
+            for (int i = 0; i < numberOfFloors; i++) {
+                floorSelection.add(String.valueOf(i));
             }
         }
+
+        //set sizes of elements
+        floorSelection.setSize(50, 75);
+        elevatorSelection.setSize(50, 50);
+        payload.setSize(100, 35);
+        target.setSize(100, 35);
+        currentPosition.setSize(100, 35);
+        UpButtonsPressed.setSize(500, 35);
+        downButtonsPressed.setSize(500, 35);
+        elevatorPanelButtonsPressed.setSize(500, 35);
+    }
+
+    /**
+     * Updates the information about the selected elevator that changed since it was rendered last.
+     */
+    private void renderElevator(Elevator elevator) {
+        Elevator previous = renderedElevator;
+
+        if (previous == null || previous.isAutomatic() != elevator.isAutomatic()) {
+            boolean automatic = elevator.isAutomatic();
+            checkBoxAuto.setState(automatic);
+            checkBoxManual.setState(!automatic);
+            floorSelection.setVisible(!automatic);
+            currentPosition.setVisible(automatic);
+        }
+        if (previous == null || previous.getDoorStatus() != elevator.getDoorStatus()) {
+            doorStatus.setText(String.valueOf(elevator.getDoorStatus()));
+        }
+        if (previous == null || previous.getCurrentSpeed() != elevator.getCurrentSpeed()) {
+            speed.setText(String.valueOf(elevator.getCurrentSpeed()));
+        }
+        if (previous == null || previous.getCurrentPassengerWeight() != elevator.getCurrentPassengerWeight()) {
+            payload.setText(String.valueOf(elevator.getCurrentPassengerWeight()));
+        }
+        if (previous == null || previous.getCurrentTarget() != elevator.getCurrentTarget()) {
+            target.setText(String.valueOf(elevator.getCurrentTarget()));
+        }
+        if (previous == null || previous.getCurrentFloor() != elevator.getCurrentFloor()) {
+            currentPosition.setText(String.valueOf(elevator.getCurrentFloor()));
+        }
+        List<Integer> carButtons = elevator.getActiveFloorButtons();
+        if (previous == null || !carButtons.equals(previous.getActiveFloorButtons())) {
+            elevatorPanelButtonsPressed.setText("Floor: " + carButtons);
+        }
+
+        //display elevator direction
+        if (previous == null || previous.getCommittedDirection() != elevator.getCommittedDirection()) {
+            switch (elevator.getCommittedDirection()) {
+                case 0:
+                    directionDown.setBackground(Color.lightGray);
+                    directionUp.setBackground(Color.GREEN);
+                    break;
+                case 1:
+                    directionDown.setBackground(Color.GREEN);
+                    directionUp.setBackground(Color.lightGray);
+                    break;
+                case 2:
+                    directionDown.setBackground(Color.lightGray);
+                    directionUp.setBackground(Color.LIGHT_GRAY);
+                    break;
+                default:
+            }
+        }
+    }
+
+    /**
+     * Empties the components and disables the controls while the selected building has no topology, e.g. after
+     * switching to a building that has not connected yet.
+     */
+    private void clearComponents() {
+        renderedElevator = null;
+        renderedElevators = 0;
+        renderedFloors = 0;
+        renderedUp = null;
+        renderedDown = null;
+
+        checkBoxAuto.setEnabled(false);
+        checkBoxManual.setEnabled(false);
+        elevatorSelection.removeAll();
+        elevatorSelection.setVisible(false);
+        floorSelection.removeAll();
+        floorSelection.setVisible(false);
+        currentPosition.setVisible(true);
+        currentPosition.setText("PO");
+        payload.setText("____");
+        speed.setText("__");
+        doorStatus.setText("__");
+        target.setText("__");
+        directionUp.setBackground(Color.lightGray);
+        directionDown.setBackground(Color.lightGray);
+        UpButtonsPressed.setText("");
+        downButtonsPressed.setText("");
+        elevatorPanelButtonsPressed.setText("");
+    }
+
+    /**
+     * Forgets the rendered values, so the next state is rendered completely, e.g. after switching the building.
+     */
+    private void invalidateRendering() {
+        renderedTitle = null;
+        renderedElevator = null;
+        renderedElevators = -1;
+        renderedFloors = -1;
+        renderedUp = null;
+        renderedDown = null;
     }
 }
@@ -0,0 +1,38 @@
+package at.fhhagenberg.sqelevator.view;
+
+import at.fhhagenberg.sqelevator.controller.EccController;
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+
+/**
+ * Observer decorator that passes on the states of a building only while it is selected in the controller. Wrapped in
+ * an {@link EventQueueObserver}, the selection is checked on the event dispatch thread, so states of a building that
+ * has been deselected in the meantime are never shown.
+ */
+public class SelectedBuildingObserver implements IEccObserver {
+
+    private final EccController controller;
+
+    private final int buildingIndex;
+
+    private final IEccObserver delegate;
+
+    /**
+     * Constructor.
+     * @param controller The controller that knows the selected building.
+     * @param buildingIndex The index of the observed building.
+     * @param delegate The observer of the selected building, e.g. the view.
+     */
+    public SelectedBuildingObserver(EccController controller, int buildingIndex, IEccObserver delegate) {
+        this.controller = controller;
+        this.buildingIndex = buildingIndex;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        if (controller.getSelectedBuilding() == buildingIndex) {
+            delegate.applicationStateChanged(applicationState);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package at.fhhagenberg.sqelevator.view;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import sqelevator.IElevator;
+
+import java.awt.*;
+
+/**
+ * Canvas that draws the shafts of all elevators of a building side by side: the position of each car, its door state,
+ * committed direction, load, target and the lit buttons in the car, plus the lit hall buttons of every floor. Painted
+ * by hand into an offscreen image that is copied to the screen in one go, so the overview neither flickers nor needs
+ * a component per car and floor. Painting does not allocate apart from the graphics context of the back buffer.
+ */
+public class ShaftCanvas extends Canvas {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color SHAFT = new Color(235, 235, 235);
+    private static final Color FLOOR_LINE = new Color(200, 200, 200);
+    private static final Color HALL_BUTTON = new Color(230, 120, 0);
+    private static final Color CAR_BUTTON = new Color(240, 200, 0);
+    private static final Color TARGET = new Color(0, 150, 0);
+    private static final Color DOORS_OPEN = new Color(90, 170, 255);
+    private static final Color DOORS_MOVING = new Color(50, 110, 200);
+    private static final Color DOORS_CLOSED = new Color(20, 50, 120);
+    private static final Color LOAD = new Color(220, 60, 60);
+    private static final Color DIRECTION = Color.WHITE;
+    private static final Color MANUAL = Color.RED;
+
+    // Width of the gutter at the left that shows the hall buttons, half for up and half for down
+    private static final int HALL_GUTTER_WIDTH = 16;
+
+    private static final int SHAFT_GAP = 2;
+
+    private ApplicationState state;
+
+    private Image buffer;
+
+    // Reused for the direction arrows, painting happens on the event dispatch thread only
+    private final int[] arrowX = new int[3];
+    private final int[] arrowY = new int[3];
+
+    /**
+     * Sets the state to draw and requests a repaint if the building differs from the one on display. Every publication
+     * is a new snapshot, but one that shares its elevators and hall buttons with the previous one shows nothing new and
+     * is not repainted, see {@link ApplicationState#sharesBuildingState}. To be called on the event dispatch thread.
+     * @param applicationState The state to draw.
+     */
+    public void setState(ApplicationState applicationState) {
+        boolean changed = !applicationState.sharesBuildingState(state);
+        state = applicationState;
+        if (changed) {
+            repaint();
+        }
+    }
+
+    /**
+     * Paints without clearing the canvas first, the back buffer covers all of it.
+     * @param g The graphics context of the canvas.
+     */
+    @Override
+    public void update(Graphics g) {
+        paint(g);
+    }
+
+    /**
+     * Draws the shafts into the back buffer and copies it to the screen. The buffer is recreated when the canvas is
+     * resized.
+     * @param g The graphics context of the canvas.
+     */
+    @Override
+    public void paint(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (buffer == null || buffer.getWidth(null) != width || buffer.getHeight(null) != height) {
+            buffer = createImage(width, height);
+            if (buffer == null) {
+                // Not displayable (yet)
+                return;
+            }
+        }
+        Graphics bufferGraphics = buffer.getGraphics();
+        try {
+            paintShafts(bufferGraphics, width, height);
+        } finally {
+            bufferGraphics.dispose();
+        }
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /**
+     * Draws the current state onto the given graphics context.
+     * @param g The graphics context to draw onto, e.g. of the back buffer.
+     * @param width The width of the area to draw.
+     * @param height The height of the area to draw.
+     */
+    public void paintShafts(Graphics g, int width, int height) {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        ApplicationState applicationState = state;
+        if (applicationState == null || applicationState.getNumberOfFloors() <= 0
+                || applicationState.getNumberOfElevators() <= 0) {
+            return;
+        }
+
+        int floors = applicationState.getNumberOfFloors();
+        int elevators = applicationState.getNumberOfElevators();
+        int shaftWidth = Math.max(1, (width - HALL_GUTTER_WIDTH) / elevators);
+        int carWidth = Math.max(1, shaftWidth - 2 * SHAFT_GAP);
+        int rowHeight = Math.max(1, height / floors);
+        int bottom = rowHeight * floors;
+
+        g.setColor(SHAFT);
+        for (int i = 0; i < elevators; i++) {
+            g.fillRect(HALL_GUTTER_WIDTH + i * shaftWidth + SHAFT_GAP, 0, carWidth, bottom);
+        }
+        g.setColor(FLOOR_LINE);
+        for (int floor = 1; floor < floors; floor++) {
+            g.drawLine(0, bottom - floor * rowHeight, width, bottom - floor * rowHeight);
+        }
+
+        int buttonSize = Math.max(1, Math.min(rowHeight - 2, HALL_GUTTER_WIDTH / 2 - 2));
+        g.setColor(HALL_BUTTON);
+        for (int floor = 0; floor < floors; floor++) {
+            int y = bottom - (floor + 1) * rowHeight + (rowHeight - buttonSize) / 2;
+            if (applicationState.isButtonUpPressed(floor)) {
+                g.fillRect(1, y, buttonSize, buttonSize);
+            }
+            if (applicationState.isButtonDownPressed(floor)) {
+                g.fillRect(HALL_GUTTER_WIDTH / 2 + 1, y, buttonSize, buttonSize);
+            }
+        }
+
+        for (int i = 0; i < elevators; i++) {
+            paintCar(g, applicationState, applicationState.getElevators().get(i),
+                    HALL_GUTTER_WIDTH + i * shaftWidth + SHAFT_GAP, carWidth, rowHeight, bottom);
+        }
+    }
+
+    private void paintCar(Graphics g, ApplicationState applicationState, Elevator elevator, int x, int carWidth,
+                          int rowHeight, int bottom) {
+        int floors = applicationState.getNumberOfFloors();
+
+        // Lit car buttons as marks at the left edge of the shaft
+        int markWidth = Math.max(1, carWidth / 4);
+        g.setColor(CAR_BUTTON);
+        for (int floor = 0; floor < floors; floor++) {
+            if (elevator.isFloorButtonActive(floor)) {
+                g.fillRect(x, bottom - (floor + 1) * rowHeight + 1, markWidth, Math.max(1, rowHeight - 2));
+            }
+        }
+
+        int target = elevator.getCurrentTarget();
+        if (target >= 0 && target < floors) {
+            g.setColor(TARGET);
+            int y = bottom - (target + 1) * rowHeight;
+            g.drawRect(x, y, carWidth - 1, rowHeight - 1);
+        }
+
+        // The car is placed by its height over ground, it moves smoothly between the floors
+        int buildingHeight = applicationState.getFloorHeight() * (floors - 1);
+        int carTop;
+        if (buildingHeight > 0) {
+            long offset = (long) elevator.getCurrentHeightOverGround() * (bottom - rowHeight) / buildingHeight;
+            carTop = bottom - rowHeight - (int) Math.max(0, Math.min(bottom - rowHeight, offset));
+        } else {
+            carTop = bottom - (Math.max(0, Math.min(floors - 1, elevator.getCurrentFloor())) + 1) * rowHeight;
+        }
+
+        switch (elevator.getDoorStatus()) {
+            case IElevator.ELEVATOR_DOORS_OPEN:
+                g.setColor(DOORS_OPEN);
+                break;
+            case IElevator.ELEVATOR_DOORS_OPENING:
+            case IElevator.ELEVATOR_DOORS_CLOSING:
+                g.setColor(DOORS_MOVING);
+                break;
+            default:
+                g.setColor(DOORS_CLOSED);
+                break;
+        }
+        g.fillRect(x, carTop, carWidth, rowHeight);
+
+        // The load as a bar at the right edge of the car, full at the maximum number of passengers
+        int capacity = elevator.getMaxPassengerNumber() * Constants.PASSENGER_WEIGHT;
+        if (capacity > 0 && elevator.getCurrentPassengerWeight() > 0) {
+            int loadHeight = (int) Math.min(rowHeight,
+                    (long) elevator.getCurrentPassengerWeight() * rowHeight / capacity);
+            g.setColor(LOAD);
+            g.fillRect(x + carWidth - markWidth, carTop + rowHeight - Math.max(1, loadHeight), markWidth,
+                    Math.max(1, loadHeight));
+        }
+
+        int direction = elevator.getCommittedDirection();
+        if (direction == IElevator.ELEVATOR_DIRECTION_UP || direction == IElevator.ELEVATOR_DIRECTION_DOWN) {
+            int centerX = x + carWidth / 2;
+            int half = Math.max(1, Math.min(carWidth, rowHeight) / 3);
+            int tip = direction == IElevator.ELEVATOR_DIRECTION_UP ? -half : half;
+            int centerY = carTop + rowHeight / 2;
+            arrowX[0] = centerX;
+            arrowY[0] = centerY + tip;
+            arrowX[1] = centerX - half;
+            arrowY[1] = centerY - tip;
+            arrowX[2] = centerX + half;
+            arrowY[2] = centerY - tip;
+            g.setColor(DIRECTION);
+            g.fillPolygon(arrowX, arrowY, 3);
+        }
+
+        if (!elevator.isAutomatic()) {
+            g.setColor(MANUAL);
+            g.drawRect(x, carTop, carWidth - 1, rowHeight - 1);
+        }
+    }
+}
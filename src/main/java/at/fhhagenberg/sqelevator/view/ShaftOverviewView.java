@@ -0,0 +1,75 @@
+package at.fhhagenberg.sqelevator.view;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.controller.EccController;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowListener;
+
+/**
+ * Resizable window next to the {@link OperatorView} that shows all elevators of the selected building at once, drawn
+ * on a single {@link ShaftCanvas}. Closing it only closes the overview, the application keeps running.
+ */
+public class ShaftOverviewView extends EccView {
+
+    private final ShaftCanvas canvas = new ShaftCanvas();
+
+    private String renderedTitle = null;
+
+    public ShaftOverviewView(EccController controller, int width, int height) {
+        super(controller, width, height);
+        this.title = Constants.OVERVIEW_WINDOW_TITLE;
+        this.resizable = true;
+    }
+
+    /**
+     * Fills the window with the shaft canvas.
+     *
+     * @param windowFrame The frame object to which components can be added.
+     */
+    @Override
+    public void addComponents(Frame windowFrame) {
+        windowFrame.setLayout(new BorderLayout());
+        windowFrame.add(canvas, BorderLayout.CENTER);
+    }
+
+    @Override
+    protected WindowListener getWindowListener() {
+        return new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                close();
+            }
+        };
+    }
+
+    /**
+     * Hands the state to the canvas, which repaints only if it changed.
+     *
+     * @param applicationState The updated application state.
+     */
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        String frameTitle = title;
+        if (controller.getBuildings().size() > 1) {
+            frameTitle += " - " + controller.getBuildings().get(controller.getSelectedBuilding()).getName();
+        }
+        if (applicationState.isStale()) {
+            frameTitle += Constants.STALE_TITLE_SUFFIX;
+        }
+        if (windowFrame != null && !frameTitle.equals(renderedTitle)) {
+            windowFrame.setTitle(frameTitle);
+            renderedTitle = frameTitle;
+        }
+        canvas.setState(applicationState);
+    }
+
+    // Generated
+
+    public ShaftCanvas getCanvas() {
+        return canvas;
+    }
+}
@@ -0,0 +1,158 @@
+package sqelevator;
+
+import java.io.Serializable;
+
+/**
+ * Serializable snapshot of all dynamic values of the elevator system, as returned by
+ * {@link IElevatorBulk#getBuildingSnapshot()}.
+ *
+ * <p>The scalar values are stored in one array per value, indexed by the elevator number. The floor and elevator
+ * buttons are packed into bitmaps of 64 floors per long, the elevator buttons of elevator e start at index
+ * e * {@link #getWordsPerFloorBitmap()}.
+ */
+public class BuildingSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	final long clockTick;
+	final int numberOfElevators;
+	final int numberOfFloors;
+	final int floorHeight;
+
+	final int[] committedDirection;
+	final int[] target;
+	final int[] acceleration;
+	final int[] doorStatus;
+	final int[] floor;
+	final int[] position;
+	final int[] speed;
+	final int[] weight;
+	final int[] capacity;
+
+	final long[] buttonUp;
+	final long[] buttonDown;
+	final long[] elevatorButtons;
+
+	boolean consistent = true;
+
+	/**
+	 * Creates an empty snapshot, the values are filled in by the creator within this package.
+	 * @param clockTick - clock tick of the simulation at which the values were read
+	 * @param numberOfElevators - number of elevators of the building
+	 * @param numberOfFloors - number of floors of the building
+	 * @param floorHeight - height of the floors in feet
+	 */
+	BuildingSnapshot(long clockTick, int numberOfElevators, int numberOfFloors, int floorHeight) {
+		this.clockTick = clockTick;
+		this.numberOfElevators = numberOfElevators;
+		this.numberOfFloors = numberOfFloors;
+		this.floorHeight = floorHeight;
+
+		committedDirection = new int[numberOfElevators];
+		target = new int[numberOfElevators];
+		acceleration = new int[numberOfElevators];
+		doorStatus = new int[numberOfElevators];
+		floor = new int[numberOfElevators];
+		position = new int[numberOfElevators];
+		speed = new int[numberOfElevators];
+		weight = new int[numberOfElevators];
+		capacity = new int[numberOfElevators];
+
+		int words = wordsFor(numberOfFloors);
+		buttonUp = new long[words];
+		buttonDown = new long[words];
+		elevatorButtons = new long[words * numberOfElevators];
+	}
+
+	/**
+	 * Number of longs needed for a bitmap with one bit per floor.
+	 */
+	static int wordsFor(int numberOfFloors) {
+		return (numberOfFloors + 63) >>> 6;
+	}
+
+	static void setBit(long[] bitmap, int offset, int index) {
+		bitmap[offset + (index >>> 6)] |= 1L << index;
+	}
+
+	static boolean getBit(long[] bitmap, int offset, int index) {
+		return (bitmap[offset + (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	public long getClockTick() {
+		return clockTick;
+	}
+
+	/**
+	 * @return true if the clock tick did not advance while the values were read, false if the snapshot may mix
+	 * values of different simulation ticks
+	 */
+	public boolean isConsistent() {
+		return consistent;
+	}
+
+	public int getNumberOfElevators() {
+		return numberOfElevators;
+	}
+
+	public int getNumberOfFloors() {
+		return numberOfFloors;
+	}
+
+	public int getFloorHeight() {
+		return floorHeight;
+	}
+
+	public int getWordsPerFloorBitmap() {
+		return wordsFor(numberOfFloors);
+	}
+
+	public int getCommittedDirection(int elevatorNumber) {
+		return committedDirection[elevatorNumber];
+	}
+
+	public int getTarget(int elevatorNumber) {
+		return target[elevatorNumber];
+	}
+
+	public int getElevatorAccel(int elevatorNumber) {
+		return acceleration[elevatorNumber];
+	}
+
+	public int getElevatorDoorStatus(int elevatorNumber) {
+		return doorStatus[elevatorNumber];
+	}
+
+	public int getElevatorFloor(int elevatorNumber) {
+		return floor[elevatorNumber];
+	}
+
+	public int getElevatorPosition(int elevatorNumber) {
+		return position[elevatorNumber];
+	}
+
+	public int getElevatorSpeed(int elevatorNumber) {
+		return speed[elevatorNumber];
+	}
+
+	public int getElevatorWeight(int elevatorNumber) {
+		return weight[elevatorNumber];
+	}
+
+	public int getElevatorCapacity(int elevatorNumber) {
+		return capacity[elevatorNumber];
+	}
+
+	public boolean getFloorButtonUp(int floor) {
+		return getBit(buttonUp, 0, floor);
+	}
+
+	public boolean getFloorButtonDown(int floor) {
+		return getBit(buttonDown, 0, floor);
+	}
+
+	public boolean getElevatorButton(int elevatorNumber, int floor) {
+		return getBit(elevatorButtons, elevatorNumber * getWordsPerFloorBitmap(), floor);
+	}
+
+}
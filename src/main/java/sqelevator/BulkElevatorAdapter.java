@@ -0,0 +1,198 @@
+package sqelevator;
+
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+
+/**
+ * Server-side adapter that adds the {@link IElevatorBulk} interface to any existing {@link IElevator} implementation.
+ *
+ * <p>All calls of {@link IElevator} are forwarded to the wrapped implementation. The snapshot is assembled from the
+ * same calls, which are local calls when the adapter is exported in the process (or at least on the host) of the
+ * wrapped implementation. If the clock tick of the wrapped implementation advances while the snapshot is read, the
+ * snapshot is read again, so that it does not mix values of different simulation ticks. If this does not succeed
+ * within {@link #MAX_SNAPSHOT_ATTEMPTS}, the last snapshot is returned and marked as not consistent.
+ */
+public class BulkElevatorAdapter implements IElevator, IElevatorBulk {
+
+	/** Number of attempts to read a snapshot that does not span a clock tick. */
+	public final static int MAX_SNAPSHOT_ATTEMPTS = 3;
+
+	private final IElevator delegate;
+
+	/**
+	 * Creates the adapter.
+	 * @param delegate - the implementation to wrap
+	 */
+	public BulkElevatorAdapter(IElevator delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Wraps the given implementation, exports the adapter and binds it in the RMI registry.
+	 * @param delegate - the implementation to wrap
+	 * @param url - the name to bind the adapter to, e.g. rmi://localhost/ElevatorSim
+	 * @return the exported adapter
+	 */
+	public static BulkElevatorAdapter bind(IElevator delegate, String url) throws RemoteException, MalformedURLException {
+		BulkElevatorAdapter adapter = new BulkElevatorAdapter(delegate);
+		Naming.rebind(url, UnicastRemoteObject.exportObject(adapter, 0));
+		return adapter;
+	}
+
+	@Override
+	public BuildingSnapshot getBuildingSnapshot() throws RemoteException {
+		BuildingSnapshot snapshot = null;
+
+		for (int attempt = 0; attempt < MAX_SNAPSHOT_ATTEMPTS; attempt++) {
+			snapshot = readSnapshot();
+			snapshot.consistent = delegate.getClockTick() == snapshot.clockTick;
+			if (snapshot.consistent) {
+				break;
+			}
+		}
+
+		return snapshot;
+	}
+
+	private BuildingSnapshot readSnapshot() throws RemoteException {
+		long clockTick = delegate.getClockTick();
+		int numberOfElevators = delegate.getElevatorNum();
+		int numberOfFloors = delegate.getFloorNum();
+
+		BuildingSnapshot snapshot = new BuildingSnapshot(clockTick, numberOfElevators, numberOfFloors,
+				delegate.getFloorHeight());
+		int words = snapshot.getWordsPerFloorBitmap();
+
+		for (int floor = 0; floor < numberOfFloors; floor++) {
+			if (delegate.getFloorButtonUp(floor)) {
+				BuildingSnapshot.setBit(snapshot.buttonUp, 0, floor);
+			}
+			if (delegate.getFloorButtonDown(floor)) {
+				BuildingSnapshot.setBit(snapshot.buttonDown, 0, floor);
+			}
+		}
+
+		for (int elevator = 0; elevator < numberOfElevators; elevator++) {
+			snapshot.committedDirection[elevator] = delegate.getCommittedDirection(elevator);
+			snapshot.target[elevator] = delegate.getTarget(elevator);
+			snapshot.acceleration[elevator] = delegate.getElevatorAccel(elevator);
+			snapshot.doorStatus[elevator] = delegate.getElevatorDoorStatus(elevator);
+			snapshot.floor[elevator] = delegate.getElevatorFloor(elevator);
+			snapshot.position[elevator] = delegate.getElevatorPosition(elevator);
+			snapshot.speed[elevator] = delegate.getElevatorSpeed(elevator);
+			snapshot.weight[elevator] = delegate.getElevatorWeight(elevator);
+			snapshot.capacity[elevator] = delegate.getElevatorCapacity(elevator);
+
+			for (int floor = 0; floor < numberOfFloors; floor++) {
+				if (delegate.getElevatorButton(elevator, floor)) {
+					BuildingSnapshot.setBit(snapshot.elevatorButtons, elevator * words, floor);
+				}
+			}
+		}
+
+		return snapshot;
+	}
+
+	@Override
+	public int getCommittedDirection(int elevatorNumber) throws RemoteException {
+		return delegate.getCommittedDirection(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorAccel(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorAccel(elevatorNumber);
+	}
+
+	@Override
+	public boolean getElevatorButton(int elevatorNumber, int floor) throws RemoteException {
+		return delegate.getElevatorButton(elevatorNumber, floor);
+	}
+
+	@Override
+	public int getElevatorDoorStatus(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorDoorStatus(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorFloor(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorFloor(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorNum() throws RemoteException {
+		return delegate.getElevatorNum();
+	}
+
+	@Override
+	public int getElevatorPosition(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorPosition(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorSpeed(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorSpeed(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorWeight(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorWeight(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorCapacity(int elevatorNumber) throws RemoteException {
+		return delegate.getElevatorCapacity(elevatorNumber);
+	}
+
+	@Override
+	public boolean getFloorButtonDown(int floor) throws RemoteException {
+		return delegate.getFloorButtonDown(floor);
+	}
+
+	@Override
+	public boolean getFloorButtonUp(int floor) throws RemoteException {
+		return delegate.getFloorButtonUp(floor);
+	}
+
+	@Override
+	public int getFloorHeight() throws RemoteException {
+		return delegate.getFloorHeight();
+	}
+
+	@Override
+	public int getFloorNum() throws RemoteException {
+		return delegate.getFloorNum();
+	}
+
+	@Override
+	public boolean getServicesFloors(int elevatorNumber, int floor) throws RemoteException {
+		return delegate.getServicesFloors(elevatorNumber, floor);
+	}
+
+	@Override
+	public int getTarget(int elevatorNumber) throws RemoteException {
+		return delegate.getTarget(elevatorNumber);
+	}
+
+	@Override
+	public void setCommittedDirection(int elevatorNumber, int direction) throws RemoteException {
+		delegate.setCommittedDirection(elevatorNumber, direction);
+	}
+
+	@Override
+	public void setServicesFloors(int elevatorNumber, int floor, boolean service) throws RemoteException {
+		delegate.setServicesFloors(elevatorNumber, floor, service);
+	}
+
+	@Override
+	public void setTarget(int elevatorNumber, int target) throws RemoteException {
+		delegate.setTarget(elevatorNumber, target);
+	}
+
+	@Override
+	public long getClockTick() throws RemoteException {
+		return delegate.getClockTick();
+	}
+
+}
@@ -0,0 +1,21 @@
+package sqelevator;
+
+/**
+ * Optional bulk interface to read the whole state of the elevator system with a single remote call.
+ *
+ * <p>Reading the state through {@link IElevator} takes one remote call per value, per elevator and per floor,
+ * i.e. about 2F + E(9+F) calls for a building with E elevators and F floors. An implementation of this interface
+ * returns all of these values at once in a {@link BuildingSnapshot}. Clients should check whether the remote object
+ * implements this interface and fall back to the per-value calls of {@link IElevator} if it does not.
+ *
+ * @see BulkElevatorAdapter
+ */
+public interface IElevatorBulk extends java.rmi.Remote {
+
+	/**
+	 * Retrieves the state of all elevators and floors of the building at one point of the simulation.
+	 * @return the snapshot of the building
+	 */
+	public BuildingSnapshot getBuildingSnapshot() throws java.rmi.RemoteException;
+
+}
@@ -0,0 +1,141 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.controller.AdaptivePollingRate;
+import at.fhhagenberg.sqelevator.controller.PollingEngine;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.StateDelta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptivePollingRateTest {
+
+    private static ApplicationState createIdleState() {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(10);
+        state.setNumberOfElevators(2);
+        for (int i = 0; i < 2; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    private ApplicationState previous;
+
+    /**
+     * Notifies the rate like the model does: only if something changed.
+     */
+    private void notify(AdaptivePollingRate rate, ApplicationState state) {
+        StateDelta delta = StateDelta.between(previous, state);
+        if (!delta.isEmpty()) {
+            rate.applicationStateDelta(delta, state);
+        }
+        previous = new ApplicationState(state);
+    }
+
+    private void settle(AdaptivePollingRate rate, ApplicationState state) {
+        for (int i = 0; i < 10; i++) {
+            notify(rate, state);
+            rate.nextIntervalMs();
+        }
+    }
+
+    @Test
+    public void testIdleBuildingBacksOffToMaximum() {
+
+        AdaptivePollingRate rate = new AdaptivePollingRate(20, 1000, 200);
+        ApplicationState state = createIdleState();
+
+        notify(rate, state);
+        Assertions.assertEquals(20, rate.nextIntervalMs());
+
+        notify(rate, state);
+        Assertions.assertEquals(40, rate.nextIntervalMs());
+        notify(rate, state);
+        Assertions.assertEquals(80, rate.nextIntervalMs());
+
+        // Without any notification the building is considered idle as well
+        Assertions.assertEquals(160, rate.nextIntervalMs());
+
+        // The reaction bound caps the maximum interval
+        Assertions.assertEquals(200, rate.nextIntervalMs());
+        Assertions.assertEquals(200, rate.getMaxIntervalMs());
+    }
+
+    @Test
+    public void testMovingCarKeepsMinimumInterval() {
+
+        AdaptivePollingRate rate = new AdaptivePollingRate(20, 1000, 500);
+        ApplicationState state = createIdleState();
+        settle(rate, state);
+
+        state.getElevators().get(1).setCurrentSpeed(-3);
+        for (int i = 0; i < 3; i++) {
+            state.getElevators().get(1).setCurrentHeightOverGround(30 - 3 * i);
+            notify(rate, state);
+            Assertions.assertEquals(20, rate.nextIntervalMs());
+        }
+    }
+
+    @Test
+    public void testDoorTransitionSpeedsUp() {
+
+        AdaptivePollingRate rate = new AdaptivePollingRate(20, 1000, 500);
+        ApplicationState state = createIdleState();
+        settle(rate, state);
+
+        state.getElevators().get(0).setDoorStatus(IElevator.ELEVATOR_DOORS_CLOSED);
+        notify(rate, state);
+        Assertions.assertEquals(20, rate.nextIntervalMs());
+
+        // Closed doors that do not change any more are idle again
+        notify(rate, state);
+        Assertions.assertEquals(40, rate.nextIntervalMs());
+    }
+
+    @Test
+    public void testNewCallsSpeedUpButPendingCallsDoNot() {
+
+        AdaptivePollingRate rate = new AdaptivePollingRate(20, 1000, 500);
+        ApplicationState state = createIdleState();
+        settle(rate, state);
+        Assertions.assertEquals(500, rate.getCurrentIntervalMs());
+
+        state.setButtonDownPressed(new ArrayList<>(List.of(7)));
+        notify(rate, state);
+        Assertions.assertEquals(20, rate.nextIntervalMs());
+
+        notify(rate, state);
+        Assertions.assertEquals(40, rate.nextIntervalMs());
+
+        state.getElevators().get(1).setActiveFloorButtons(new ArrayList<>(List.of(7)));
+        notify(rate, state);
+        Assertions.assertEquals(20, rate.nextIntervalMs());
+
+        rate.markActive();
+        Assertions.assertEquals(20, rate.nextIntervalMs());
+    }
+
+    @Test
+    public void testEngineUsesAdaptiveInterval() throws InterruptedException {
+
+        AtomicInteger ticks = new AtomicInteger();
+        AdaptivePollingRate rate = new AdaptivePollingRate(5, 1000, 1000);
+        PollingEngine engine = new PollingEngine(ticks::incrementAndGet, rate::nextIntervalMs, "test-polling");
+
+        engine.start();
+        Thread.sleep(200);
+        engine.stop();
+
+        // Idle from the start: 5, 10, 20, 40, 80 ... ms between the ticks
+        Assertions.assertEquals(PollingEngine.SchedulingPolicy.ADAPTIVE, engine.getPolicy());
+        Assertions.assertTrue(ticks.get() >= 3 && ticks.get() <= 7, "ticks: " + ticks.get());
+    }
+}
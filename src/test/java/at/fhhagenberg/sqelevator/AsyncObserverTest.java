@@ -0,0 +1,118 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.AsyncObserver;
+import at.fhhagenberg.sqelevator.model.EccModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AsyncObserverTest {
+
+    private static ApplicationState createState(long clockTick) {
+        ApplicationState state = new ApplicationState();
+        state.setClockTick(clockTick);
+        return state.snapshot();
+    }
+
+    private static void awaitIdle(AsyncObserver observer) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (observer.getDeliveredCount() + observer.getSkippedCount() < observer.getPublishedCount()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testSlowObserverDoesNotHoldUpTheNotification() throws InterruptedException {
+
+        EccModel model = new ApplicationModel();
+        AtomicReference<ApplicationState> lastDelivered = new AtomicReference<>();
+        AtomicInteger fastCalls = new AtomicInteger();
+        AsyncObserver slow = model.addAsyncObserver(state -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lastDelivered.set(state);
+        });
+        model.addObserver(state -> fastCalls.incrementAndGet());
+
+        long start = System.nanoTime();
+        for (int tick = 0; tick < 100; tick++) {
+            model.notifyObservers(createState(tick));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Delivering all states one by one would take five seconds
+        Assertions.assertTrue(elapsedMs < 1000, "Took " + elapsedMs + "ms");
+        Assertions.assertEquals(100, fastCalls.get());
+
+        awaitIdle(slow);
+        Assertions.assertEquals(99, lastDelivered.get().getClockTick());
+        Assertions.assertEquals(100, slow.getPublishedCount());
+        Assertions.assertTrue(slow.getSkippedCount() > 50, "Skipped " + slow.getSkippedCount());
+        Assertions.assertEquals(100, slow.getDeliveredCount() + slow.getSkippedCount());
+        Assertions.assertTrue(slow.getMaxDurationNanos() >= 50_000_000);
+        Assertions.assertTrue(slow.getMaxLagNanos() > 0);
+        Assertions.assertFalse(slow.isBehind());
+    }
+
+    @Test
+    public void testFailingObserverKeepsReceivingAndCanBeRemoved() throws InterruptedException {
+
+        EccModel model = new ApplicationModel();
+        List<Long> ticks = new ArrayList<>();
+        IEccObserver failing = state -> {
+            synchronized (ticks) {
+                ticks.add(state.getClockTick());
+            }
+            throw new IllegalStateException("Broken observer");
+        };
+        AsyncObserver observer = model.addAsyncObserver(failing);
+
+        model.notifyObservers(createState(1));
+        awaitIdle(observer);
+        model.notifyObservers(createState(2));
+        awaitIdle(observer);
+
+        synchronized (ticks) {
+            Assertions.assertEquals(List.of(1L, 2L), ticks);
+        }
+        Assertions.assertEquals(2, observer.getFailedCount());
+
+        model.removeObserver(failing);
+        observer.getThread().join(5000);
+        Assertions.assertFalse(observer.getThread().isAlive());
+        model.notifyObservers(createState(3));
+        Assertions.assertEquals(2, observer.getPublishedCount());
+    }
+
+    @Test
+    public void testObserversCanBeRemovedDuringTheNotification() {
+
+        EccModel model = new ApplicationModel();
+        AtomicInteger calls = new AtomicInteger();
+        IEccObserver once = new IEccObserver() {
+            @Override
+            public void applicationStateChanged(ApplicationState applicationState) {
+                calls.incrementAndGet();
+                model.removeObserver(this);
+            }
+        };
+        model.addObserver(once);
+        model.addObserver(state -> calls.incrementAndGet());
+
+        model.notifyObservers(createState(1));
+        model.notifyObservers(createState(2));
+
+        Assertions.assertEquals(3, calls.get());
+    }
+}
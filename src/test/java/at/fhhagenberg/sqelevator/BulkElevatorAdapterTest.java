@@ -0,0 +1,175 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.BuildingSnapshot;
+import sqelevator.BulkElevatorAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.rmi.RemoteException;
+import java.util.List;
+
+public class BulkElevatorAdapterTest implements IEccObserver {
+
+    private ApplicationState lastState;
+
+    private static ElevatorStub createBuilding() {
+        ElevatorStub stub = new ElevatorStub(3, 70);
+        stub.clockTick = 42;
+        stub.buttonUp[0] = true;
+        stub.buttonUp[65] = true;
+        stub.buttonDown[69] = true;
+        for (int i = 0; i < stub.numberOfElevators; i++) {
+            stub.floor[i] = i * 20;
+            stub.position[i] = i * 60;
+            stub.target[i] = i * 20;
+            stub.weight[i] = 80 * i;
+            stub.capacity[i] = 8 + i;
+            stub.elevatorButtons[i][63 + i] = true;
+        }
+        return stub;
+    }
+
+    @Test
+    public void testSnapshotContainsAllValues() throws RemoteException, IOException, ClassNotFoundException {
+
+        ElevatorStub stub = createBuilding();
+        BuildingSnapshot snapshot = new BulkElevatorAdapter(stub).getBuildingSnapshot();
+
+        // The snapshot has to survive the serialization of an RMI call
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(snapshot);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            snapshot = (BuildingSnapshot) in.readObject();
+        }
+
+        Assertions.assertEquals(42, snapshot.getClockTick());
+        Assertions.assertEquals(3, snapshot.getNumberOfElevators());
+        Assertions.assertEquals(70, snapshot.getNumberOfFloors());
+        Assertions.assertEquals(2, snapshot.getWordsPerFloorBitmap());
+
+        for (int floor = 0; floor < stub.numberOfFloors; floor++) {
+            Assertions.assertEquals(stub.buttonUp[floor], snapshot.getFloorButtonUp(floor));
+            Assertions.assertEquals(stub.buttonDown[floor], snapshot.getFloorButtonDown(floor));
+        }
+        for (int i = 0; i < stub.numberOfElevators; i++) {
+            Assertions.assertEquals(stub.floor[i], snapshot.getElevatorFloor(i));
+            Assertions.assertEquals(stub.position[i], snapshot.getElevatorPosition(i));
+            Assertions.assertEquals(stub.weight[i], snapshot.getElevatorWeight(i));
+            Assertions.assertEquals(stub.capacity[i], snapshot.getElevatorCapacity(i));
+            Assertions.assertEquals(stub.committedDirection[i], snapshot.getCommittedDirection(i));
+            for (int floor = 0; floor < stub.numberOfFloors; floor++) {
+                Assertions.assertEquals(stub.elevatorButtons[i][floor], snapshot.getElevatorButton(i, floor));
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotIsReadAgainWhenClockAdvances() throws RemoteException {
+
+        ElevatorStub stub = new ElevatorStub(1, 5) {
+            @Override
+            public long getClockTick() {
+                // The clock advances during the first read of the snapshot only
+                return calls.get() < 30 ? super.getClockTick() + calls.get() : super.getClockTick();
+            }
+        };
+
+        long callsPerSnapshot = 2 * 5 + 9 + 5 + 3;
+        BuildingSnapshot snapshot = new BulkElevatorAdapter(stub).getBuildingSnapshot();
+
+        Assertions.assertTrue(stub.calls.get() > callsPerSnapshot);
+        Assertions.assertEquals(0, snapshot.getClockTick());
+        Assertions.assertTrue(snapshot.isConsistent());
+    }
+
+    @Test
+    public void testTornBulkSnapshotIsRetriedByTheAdapterOnly() {
+
+        int[] snapshotCalls = new int[1];
+        int[] clockReads = new int[1];
+
+        ElevatorStub stub = new ElevatorStub(2, 10) {
+            @Override
+            public long getClockTick() {
+                // The clock advances on every read, so no snapshot is ever consistent
+                return ++clockReads[0];
+            }
+        };
+        BulkElevatorAdapter adapter = new BulkElevatorAdapter(stub) {
+            @Override
+            public BuildingSnapshot getBuildingSnapshot() throws RemoteException {
+                snapshotCalls[0]++;
+                return super.getBuildingSnapshot();
+            }
+        };
+
+        ApplicationModel model = new ApplicationModel(adapter);
+        model.initApplication();
+        long tornBefore = model.getUpdateStatistics().getTornSnapshotCount();
+        long inconsistentBefore = model.getUpdateStatistics().getInconsistentSnapshotCount();
+        snapshotCalls[0] = 0;
+        clockReads[0] = 0;
+        model.update();
+
+        // One clock read of the model plus a pair per attempt of the adapter
+        Assertions.assertEquals(1, snapshotCalls[0]);
+        Assertions.assertEquals(1 + 2 * BulkElevatorAdapter.MAX_SNAPSHOT_ATTEMPTS, clockReads[0]);
+        Assertions.assertEquals(tornBefore + 1, model.getUpdateStatistics().getTornSnapshotCount());
+        Assertions.assertEquals(inconsistentBefore + 1, model.getUpdateStatistics().getInconsistentSnapshotCount());
+        Assertions.assertFalse(model.getSnapshot().isConsistent());
+    }
+
+    @Test
+    public void testModelUsesBulkModeWhenAvailable() {
+
+        int[] snapshotCalls = new int[1];
+        int[] perValueCalls = new int[1];
+
+        ElevatorStub stub = createBuilding();
+        BulkElevatorAdapter adapter = new BulkElevatorAdapter(stub) {
+            @Override
+            public BuildingSnapshot getBuildingSnapshot() throws RemoteException {
+                snapshotCalls[0]++;
+                return super.getBuildingSnapshot();
+            }
+
+            @Override
+            public boolean getElevatorButton(int elevatorNumber, int floor) {
+                perValueCalls[0]++;
+                return false;
+            }
+        };
+
+        ApplicationModel model = new ApplicationModel(adapter);
+        model.addObserver(this);
+        model.initApplication();
+        stub.clockTick++;
+        model.update();
+
+        Assertions.assertTrue(model.isBulkMode());
+        Assertions.assertEquals(2, snapshotCalls[0]);
+        Assertions.assertEquals(0, perValueCalls[0]);
+        Assertions.assertEquals(List.of(0, 65), lastState.getButtonUpPressed());
+        Assertions.assertEquals(List.of(69), lastState.getButtonDownPressed());
+        Assertions.assertEquals(List.of(65), lastState.getElevators().get(2).getActiveFloorButtons());
+        Assertions.assertEquals(40, lastState.getElevators().get(2).getCurrentFloor());
+        Assertions.assertEquals(10, lastState.getElevators().get(2).getMaxPassengerNumber());
+
+        Assertions.assertFalse(new ApplicationModel(createBuilding()).isBulkMode());
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        lastState = new ApplicationState(applicationState);
+    }
+}
@@ -0,0 +1,107 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.constants.Constants;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.StateDelta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachedDataTest {
+
+    /**
+     * Building that counts the reads of the static and semi-static data.
+     */
+    private static class CountingElevatorStub extends ElevatorStub {
+
+        final AtomicInteger capacityReads = new AtomicInteger();
+
+        final AtomicInteger servicesFloorsReads = new AtomicInteger();
+
+        CountingElevatorStub(int numberOfElevators, int numberOfFloors) {
+            super(numberOfElevators, numberOfFloors);
+        }
+
+        @Override
+        public int getElevatorCapacity(int elevatorNumber) {
+            capacityReads.incrementAndGet();
+            return super.getElevatorCapacity(elevatorNumber);
+        }
+
+        @Override
+        public boolean getServicesFloors(int elevatorNumber, int floor) {
+            servicesFloorsReads.incrementAndGet();
+            return super.getServicesFloors(elevatorNumber, floor);
+        }
+    }
+
+    private static void tick(ApplicationModel model, ElevatorStub stub, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+    }
+
+    @Test
+    public void testStaticDataIsReadOnce() {
+
+        CountingElevatorStub stub = new CountingElevatorStub(3, 10);
+        stub.capacity[2] = 14;
+        stub.servicesFloors[1][7] = false;
+
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        tick(model, stub, 100);
+
+        ApplicationState state = model.getSnapshot();
+        Assertions.assertEquals(3, stub.capacityReads.get());
+        Assertions.assertEquals(3 * 10, stub.servicesFloorsReads.get());
+        Assertions.assertEquals(14, state.getElevators().get(2).getMaxPassengerNumber());
+        Assertions.assertFalse(state.getElevators().get(1).isServicingFloor(7));
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 8, 9), state.getElevators().get(1).getServicedFloors());
+    }
+
+    @Test
+    public void testServicedFloorsAreRefreshedRarely() {
+
+        CountingElevatorStub stub = new CountingElevatorStub(2, 5);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+
+        // Changed by another client, picked up with the next periodic refresh
+        stub.servicesFloors[0][3] = false;
+        tick(model, stub, Constants.SERVICES_FLOORS_REFRESH_FETCHES);
+        Assertions.assertTrue(model.getSnapshot().getElevators().get(0).isServicingFloor(3));
+
+        tick(model, stub, 1);
+        Assertions.assertFalse(model.getSnapshot().getElevators().get(0).isServicingFloor(3));
+        Assertions.assertEquals(2, model.getUpdateStatistics().getServicesFloorsRefreshCount());
+        Assertions.assertEquals(2, stub.capacityReads.get());
+    }
+
+    @Test
+    public void testOwnWriteInvalidatesServicedFloors() throws RemoteException {
+
+        CountingElevatorStub stub = new CountingElevatorStub(2, 5);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        tick(model, stub, 1);
+
+        model.setServicesFloors(1, 2, false);
+        Assertions.assertFalse(stub.servicesFloors[1][2]);
+
+        ApplicationState before = model.getSnapshot();
+        tick(model, stub, 1);
+        ApplicationState after = model.getSnapshot();
+
+        Assertions.assertTrue(before.getElevators().get(1).isServicingFloor(2));
+        Assertions.assertFalse(after.getElevators().get(1).isServicingFloor(2));
+        Assertions.assertTrue(StateDelta.between(before, after).getElevatorDeltas().stream()
+                .anyMatch(delta -> delta.getElevatorIndex() == 1 && delta.hasChanged(StateDelta.FIELD_SERVICED_FLOORS)));
+        Assertions.assertEquals(2 * 5 * 2, stub.servicesFloorsReads.get());
+    }
+}
@@ -0,0 +1,108 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ClockTickTest implements IEccObserver {
+
+    private int callCount = 0;
+
+    private ApplicationState lastState;
+
+    @Test
+    public void testUnchangedTicksAreSkipped() {
+
+        ElevatorStub stub = new ElevatorStub(2, 10);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addObserver(this);
+        model.initApplication();
+
+        Assertions.assertEquals(1, callCount);
+
+        long callsBefore = stub.calls.get();
+        model.update();
+        model.update();
+
+        // Only the clock tick has been read
+        Assertions.assertEquals(callsBefore + 2, stub.calls.get());
+        Assertions.assertEquals(1, callCount);
+        Assertions.assertEquals(2, model.getUpdateStatistics().getSkippedTickCount());
+
+        stub.clockTick = 5;
+        stub.buttonUp[3] = true;
+        model.update();
+
+        Assertions.assertEquals(2, callCount);
+        Assertions.assertEquals(5, lastState.getClockTick());
+        Assertions.assertTrue(lastState.getButtonUpPressed().contains(3));
+        Assertions.assertEquals(2, model.getUpdateStatistics().getFetchCount());
+    }
+
+    @Test
+    public void testSkippingCanBeDisabled() {
+
+        ElevatorStub stub = new ElevatorStub(1, 4);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.setSkipUnchangedTicks(false);
+        model.addObserver(this);
+        model.initApplication();
+        model.update();
+
+        Assertions.assertEquals(2, callCount);
+        Assertions.assertEquals(0, model.getUpdateStatistics().getSkippedTickCount());
+    }
+
+    @Test
+    public void testTornSnapshotIsRetried() {
+
+        int[] tears = {1};
+
+        ElevatorStub stub = new ElevatorStub(1, 4) {
+            @Override
+            public int getElevatorWeight(int elevatorNumber) {
+                // The simulation advances while the elevator data is read
+                if (tears[0] > 0) {
+                    tears[0]--;
+                    clockTick++;
+                }
+                return super.getElevatorWeight(elevatorNumber);
+            }
+        };
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addObserver(this);
+        model.initApplication();
+
+        Assertions.assertEquals(1, model.getUpdateStatistics().getTornSnapshotCount());
+        Assertions.assertEquals(0, model.getUpdateStatistics().getInconsistentSnapshotCount());
+        Assertions.assertTrue(lastState.isConsistent());
+        Assertions.assertEquals(1, lastState.getClockTick());
+    }
+
+    @Test
+    public void testPermanentlyTornSnapshotIsFlagged() {
+
+        ElevatorStub stub = new ElevatorStub(1, 4) {
+            @Override
+            public int getElevatorWeight(int elevatorNumber) {
+                clockTick++;
+                return super.getElevatorWeight(elevatorNumber);
+            }
+        };
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addObserver(this);
+        model.initApplication();
+
+        Assertions.assertEquals(3, model.getUpdateStatistics().getTornSnapshotCount());
+        Assertions.assertEquals(1, model.getUpdateStatistics().getInconsistentSnapshotCount());
+        Assertions.assertFalse(lastState.isConsistent());
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        callCount++;
+        lastState = new ApplicationState(applicationState);
+    }
+}
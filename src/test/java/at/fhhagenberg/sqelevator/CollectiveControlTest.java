@@ -0,0 +1,265 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.CollectiveControl;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.simulation.SimulationStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.function.Function;
+
+public class CollectiveControlTest {
+
+    private static ApplicationState createState(int floors) {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(floors);
+        state.setNumberOfElevators(1);
+        Elevator elevator = new Elevator();
+        elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+        for (int floor = 0; floor < floors; floor++) {
+            elevator.setServicingFloor(floor, true);
+        }
+        state.getElevators().add(elevator);
+        return state;
+    }
+
+    private static void standAt(Elevator elevator, int floor, int direction) {
+        elevator.setCurrentFloor(floor);
+        elevator.setCurrentTarget(floor);
+        elevator.setCommittedDirection(direction);
+    }
+
+    @Test
+    public void testIdleWithoutDemand() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 4, IElevator.ELEVATOR_DIRECTION_UP);
+        CollectiveControl control = new CollectiveControl();
+
+        Assertions.assertTrue(control.plan(elevator, state));
+        Assertions.assertEquals(4, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, control.getDirection());
+
+        elevator.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+        Assertions.assertFalse(control.plan(elevator, state));
+    }
+
+    @Test
+    public void testServesCallsInDirectionOrder() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 4, IElevator.ELEVATOR_DIRECTION_UP);
+        elevator.setFloorButtonActive(8, true);
+        elevator.setFloorButtonActive(1, true);
+        state.setButtonUpPressed(6, true);
+        state.setButtonDownPressed(5, true);
+        CollectiveControl control = new CollectiveControl();
+
+        // The down call on the way up is skipped
+        Assertions.assertTrue(control.plan(elevator, state));
+        Assertions.assertEquals(6, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_UP, control.getDirection());
+
+        state.setButtonUpPressed(6, false);
+        standAt(elevator, 6, IElevator.ELEVATOR_DIRECTION_UP);
+        control.plan(elevator, state);
+        Assertions.assertEquals(8, control.getTarget());
+
+        // Nothing left above, so the car turns and serves the down call first
+        elevator.setFloorButtonActive(8, false);
+        standAt(elevator, 8, IElevator.ELEVATOR_DIRECTION_UP);
+        control.plan(elevator, state);
+        Assertions.assertEquals(5, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+    }
+
+    @Test
+    public void testTurnsAtFarthestOpposingCall() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 2, IElevator.ELEVATOR_DIRECTION_UP);
+        state.setButtonDownPressed(5, true);
+        state.setButtonDownPressed(9, true);
+        CollectiveControl control = new CollectiveControl();
+
+        control.plan(elevator, state);
+        Assertions.assertEquals(9, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_UP, control.getDirection());
+
+        // On arrival, the car indicates the direction of the waiting passengers, who board before the doors close
+        standAt(elevator, 9, IElevator.ELEVATOR_DIRECTION_UP);
+        Assertions.assertTrue(control.plan(elevator, state));
+        Assertions.assertEquals(5, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+
+        // The only call is on the current floor, the car waits until the passengers have chosen their floors
+        state.setButtonDownPressed(5, false);
+        standAt(elevator, 9, IElevator.ELEVATOR_DIRECTION_UP);
+        control.plan(elevator, state);
+        Assertions.assertEquals(9, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+    }
+
+    @Test
+    public void testIdleCarGoesToNearestCall() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 5, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+        state.setButtonUpPressed(1, true);
+        state.setButtonDownPressed(8, true);
+        CollectiveControl control = new CollectiveControl();
+
+        control.plan(elevator, state);
+        Assertions.assertEquals(8, control.getTarget());
+
+        state.setButtonUpPressed(4, true);
+        control.plan(elevator, state);
+        Assertions.assertEquals(1, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+    }
+
+    @Test
+    public void testSkipsFloorsNotServiced() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 0, IElevator.ELEVATOR_DIRECTION_UP);
+        elevator.setServicingFloor(3, false);
+        state.setButtonUpPressed(3, true);
+        state.setButtonUpPressed(7, true);
+        CollectiveControl control = new CollectiveControl();
+
+        control.plan(elevator, state);
+        Assertions.assertEquals(7, control.getTarget());
+    }
+
+    @Test
+    public void testDoesNotWaitForPassengersWhoCannotBoard() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 5, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+        state.setButtonDownPressed(5, true);
+        state.setButtonUpPressed(2, true);
+        CollectiveControl control = new CollectiveControl();
+
+        // On arrival, the car indicates the direction of the waiting passengers and waits for them to board
+        control.plan(elevator, state);
+        Assertions.assertEquals(5, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+
+        // The call is still lit while the car indicates its direction, e.g. the car is full or does not serve the
+        // zone of the passengers, so the car leaves for the next call instead of waiting for them
+        standAt(elevator, 5, IElevator.ELEVATOR_DIRECTION_DOWN);
+        control.plan(elevator, state);
+        Assertions.assertEquals(2, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+
+        // Without other demand, the car stays, but keeps indicating their direction
+        state.setButtonUpPressed(2, false);
+        control.plan(elevator, state);
+        Assertions.assertEquals(5, control.getTarget());
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, control.getDirection());
+    }
+
+    @Test
+    public void testMovingCarIsNotReplanned() {
+
+        ApplicationState state = createState(10);
+        Elevator elevator = state.getElevators().get(0);
+        standAt(elevator, 0, IElevator.ELEVATOR_DIRECTION_UP);
+        elevator.setCurrentTarget(7);
+        elevator.setCurrentSpeed(2);
+        elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_CLOSED);
+        state.setButtonUpPressed(1, true);
+
+        Assertions.assertFalse(new CollectiveControl().plan(elevator, state));
+    }
+
+    /**
+     * Compares the collective control with the former operation, which stopped at every floor, on the same simulated
+     * workload.
+     */
+    @Test
+    public void testReducesWaitAndJourneyTime() {
+
+        SimulationStatistics collective = run(ApplicationModel::new);
+        SimulationStatistics floorByFloor = run(FloorByFloorModel::new);
+
+        Assertions.assertTrue(collective.getDeliveredPassengers() >= floorByFloor.getDeliveredPassengers());
+        Assertions.assertTrue(collective.getAverageWaitMillis() < 0.7 * floorByFloor.getAverageWaitMillis(),
+                "wait " + collective.getAverageWaitMillis() + "ms vs. " + floorByFloor.getAverageWaitMillis() + "ms");
+        Assertions.assertTrue(collective.getAverageJourneyMillis() < 0.7 * floorByFloor.getAverageJourneyMillis(),
+                "journey " + collective.getAverageJourneyMillis() + "ms vs. "
+                        + floorByFloor.getAverageJourneyMillis() + "ms");
+    }
+
+    private static SimulationStatistics run(Function<IElevator, ApplicationModel> factory) {
+        SimulationConfig config = new SimulationConfig(3, 15);
+        config.setArrivalsPerMinute(6);
+        config.setSeed(7);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = factory.apply(simulator);
+        model.initApplication();
+        // One simulated hour, polled every 100ms
+        for (int i = 0; i < 60 * 60 * 10; i++) {
+            clock.advance(100);
+            model.update();
+        }
+        return simulator.getStatistics();
+    }
+
+    /**
+     * The former automatic operation: goes up and down while stopping on each floor.
+     */
+    private static class FloorByFloorModel extends ApplicationModel {
+
+        FloorByFloorModel(IElevator elevator) {
+            super(elevator);
+        }
+
+        @Override
+        public void autoOperateElevator(int elevatorIndex) throws RemoteException {
+            Elevator elevator = applicationState.getElevators().get(elevatorIndex);
+            boolean atRest = elevator.getCurrentSpeed() == 0
+                    && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN;
+            int floor = elevator.getCurrentFloor();
+
+            switch (elevator.getCommittedDirection()) {
+                case IElevator.ELEVATOR_DIRECTION_UP:
+                    if (atRest && floor < applicationState.getNumberOfFloors() - 1) {
+                        elevatorControl.setTarget(elevatorIndex, floor + 1);
+                    } else if (atRest) {
+                        elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+                    }
+                    break;
+                case IElevator.ELEVATOR_DIRECTION_DOWN:
+                    if (atRest && floor > 0) {
+                        elevatorControl.setTarget(elevatorIndex, floor - 1);
+                    } else if (atRest) {
+                        elevatorControl.setCommittedDirection(elevatorIndex, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+                    }
+                    break;
+                default:
+                    elevatorControl.setCommittedDirection(elevatorIndex,
+                            floor < applicationState.getNumberOfFloors() - 1
+                                    ? IElevator.ELEVATOR_DIRECTION_UP
+                                    : IElevator.ELEVATOR_DIRECTION_DOWN);
+                    break;
+            }
+        }
+    }
+}
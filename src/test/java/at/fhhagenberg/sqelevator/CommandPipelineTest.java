@@ -0,0 +1,132 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.CommandPipeline;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.UpdateStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CommandPipelineTest {
+
+    private static ApplicationState createState(int numberOfElevators) {
+        ApplicationState state = new ApplicationState();
+        List<Elevator> elevators = new ArrayList<>();
+        for (int i = 0; i < numberOfElevators; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+            elevators.add(elevator);
+        }
+        state.setNumberOfElevators(numberOfElevators);
+        state.setElevators(elevators);
+        return state;
+    }
+
+    @Test
+    public void testIdleCarsAreNotWrittenEveryTick() {
+
+        ElevatorStub stub = Mockito.spy(new ElevatorStub(2, 10));
+        stub.floor[0] = 9;
+        stub.target[0] = 9;
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        model.setElevatorAutomaticMode(0, false);
+
+        for (int i = 0; i < 20; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+
+        // The uncommitted idle cars are left alone, the manual one used to get its direction again with every tick
+        Mockito.verify(stub, Mockito.never()).setCommittedDirection(Mockito.anyInt(), Mockito.anyInt());
+        Mockito.verify(stub, Mockito.never()).setTarget(Mockito.anyInt(), Mockito.anyInt());
+        Assertions.assertTrue(model.getUpdateStatistics().getSuppressedCommandCount() >= 20);
+        Assertions.assertEquals(0, model.getUpdateStatistics().getSentCommandCount());
+    }
+
+    @Test
+    public void testWritesToACarAreCoalescedWithinATick() throws RemoteException {
+
+        UpdateStatistics statistics = new UpdateStatistics();
+        CommandPipeline pipeline = new CommandPipeline(statistics);
+        IElevator elevator = Mockito.mock(IElevator.class);
+        pipeline.acknowledge(createState(2));
+
+        pipeline.setTarget(0, 3);
+        pipeline.setCommittedDirection(0, IElevator.ELEVATOR_DIRECTION_DOWN);
+        pipeline.setTarget(0, 4);
+        pipeline.setCommittedDirection(0, IElevator.ELEVATOR_DIRECTION_UP);
+        pipeline.flush(elevator, null);
+
+        InOrder inOrder = Mockito.inOrder(elevator);
+        inOrder.verify(elevator).setCommittedDirection(0, IElevator.ELEVATOR_DIRECTION_UP);
+        inOrder.verify(elevator).setTarget(0, 4);
+        Mockito.verifyNoMoreInteractions(elevator);
+        Assertions.assertEquals(2, statistics.getCoalescedCommandCount());
+        Assertions.assertEquals(2, statistics.getSentCommandCount());
+
+        // Acknowledged by the write, until the next fetch tells otherwise
+        pipeline.setTarget(0, 4);
+        pipeline.flush(elevator, null);
+        Mockito.verifyNoMoreInteractions(elevator);
+        Assertions.assertEquals(1, statistics.getSuppressedCommandCount());
+    }
+
+    @Test
+    public void testFailedWriteIsRepeated() throws RemoteException {
+
+        UpdateStatistics statistics = new UpdateStatistics();
+        CommandPipeline pipeline = new CommandPipeline(statistics);
+        IElevator elevator = Mockito.mock(IElevator.class);
+        Mockito.doThrow(new RemoteException("Lost")).doNothing().when(elevator).setTarget(1, 5);
+        pipeline.acknowledge(createState(2));
+
+        pipeline.setTarget(1, 5);
+        Assertions.assertThrows(RemoteException.class, () -> pipeline.flush(elevator, null));
+        pipeline.setTarget(1, 5);
+        pipeline.flush(elevator, null);
+
+        Mockito.verify(elevator, Mockito.times(2)).setTarget(1, 5);
+    }
+
+    @Test
+    public void testCarsAreWrittenInParallel() throws RemoteException {
+
+        int cars = 8;
+        ElevatorStub stub = new ElevatorStub(cars, 20);
+        stub.latencyNanos = 50_000_000;
+        ExecutorService executor = Executors.newFixedThreadPool(cars);
+        try {
+            CommandPipeline pipeline = new CommandPipeline(new UpdateStatistics());
+            pipeline.setExecutor(executor);
+            pipeline.acknowledge(createState(cars));
+            for (int i = 0; i < cars; i++) {
+                pipeline.setCommittedDirection(i, IElevator.ELEVATOR_DIRECTION_UP);
+                pipeline.setTarget(i, i + 1);
+            }
+
+            long start = System.nanoTime();
+            pipeline.flush(stub, null);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            for (int i = 0; i < cars; i++) {
+                Assertions.assertEquals(i + 1, stub.target[i]);
+                Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_UP, stub.committedDirection[i]);
+            }
+            // Two writes per car one after the other, but all cars at the same time
+            Assertions.assertTrue(elapsedMs < cars * 100 / 2, "Took " + elapsedMs + "ms");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
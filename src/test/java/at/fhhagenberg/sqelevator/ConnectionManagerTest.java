@@ -0,0 +1,213 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.ConnectionManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConnectionManagerTest implements IEccObserver {
+
+    private ApplicationState lastState;
+
+    private int notifications = 0;
+
+    /**
+     * Building whose connection can be cut.
+     */
+    private static class FailingElevatorStub extends ElevatorStub {
+
+        volatile boolean down = false;
+
+        FailingElevatorStub(int numberOfElevators, int numberOfFloors) {
+            super(numberOfElevators, numberOfFloors);
+        }
+
+        @Override
+        public long getClockTick() {
+            if (down) {
+                throw new IllegalStateException("connection refused");
+            }
+            return super.getClockTick();
+        }
+    }
+
+    private static void waitFor(ConnectionManager manager, long generation) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.getGeneration() < generation && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(generation, manager.getGeneration());
+    }
+
+    @Test
+    public void testBackoffGrowsExponentiallyWithJitter() {
+
+        double[] random = {0};
+        ConnectionManager manager = new ConnectionManager(() -> null, 100, 1000, 0.5, () -> random[0]);
+
+        Assertions.assertEquals(100, manager.backoffDelayMs(0));
+        Assertions.assertEquals(200, manager.backoffDelayMs(1));
+        Assertions.assertEquals(800, manager.backoffDelayMs(3));
+        Assertions.assertEquals(1000, manager.backoffDelayMs(4));
+        Assertions.assertEquals(1000, manager.backoffDelayMs(100));
+
+        random[0] = 1;
+        Assertions.assertEquals(50, manager.backoffDelayMs(0));
+        Assertions.assertEquals(500, manager.backoffDelayMs(100));
+    }
+
+    @Test
+    public void testReconnectsInBackground() throws InterruptedException {
+
+        ElevatorStub stub = new ElevatorStub(1, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        Thread[] connectingThread = new Thread[1];
+
+        ConnectionManager manager = new ConnectionManager(() -> {
+            connectingThread[0] = Thread.currentThread();
+            if (attempts.incrementAndGet() < 4) {
+                throw new RemoteException("not bound");
+            }
+            return stub;
+        }, 1, 10, 0, () -> 0);
+
+        manager.start();
+        waitFor(manager, 1);
+        manager.shutdown();
+
+        Assertions.assertSame(stub, manager.getConnection());
+        Assertions.assertEquals(4, manager.getAttemptCount());
+        Assertions.assertEquals(3, manager.getFailureCount());
+        Assertions.assertNotEquals(Thread.currentThread(), connectingThread[0]);
+    }
+
+    @Test
+    public void testStaleStubBacksOffUntilAnUpdateSucceeds() throws InterruptedException {
+
+        FailingElevatorStub stub = new FailingElevatorStub(1, 3);
+        stub.down = true;
+        ConnectionManager manager = new ConnectionManager(() -> stub, 10, 10_000, 0, () -> 0);
+        ApplicationModel model = new ApplicationModel(manager);
+        model.initApplication();
+
+        // Every lookup succeeds, but every call on the connection fails
+        long end = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < end) {
+            model.update();
+            Thread.sleep(1);
+        }
+        long attempts = manager.getAttemptCount();
+        // 10, 20, 40, ... ms between the attempts instead of 10 ms each
+        Assertions.assertTrue(attempts <= 8, attempts + " attempts");
+        Assertions.assertTrue(manager.backoffDelayMs(0) < manager.backoffDelayMs((int) manager.getFailureCount()));
+
+        stub.down = false;
+        long deadline = System.currentTimeMillis() + 5000;
+        do {
+            stub.clockTick++;
+            model.update();
+            Thread.sleep(1);
+        } while (model.getSnapshot().isStale() && System.currentTimeMillis() < deadline);
+        model.shutdown();
+        Assertions.assertFalse(model.getSnapshot().isStale());
+    }
+
+    @Test
+    public void testOutageKeepsStaleStateAndRebuildsTopology() throws InterruptedException {
+
+        FailingElevatorStub first = new FailingElevatorStub(2, 6);
+        first.floor[1] = 4;
+        FailingElevatorStub second = new FailingElevatorStub(3, 8);
+        AtomicReference<IElevator> available = new AtomicReference<>(first);
+
+        ConnectionManager manager = new ConnectionManager(() -> {
+            IElevator elevator = available.get();
+            if (elevator == null) {
+                throw new RemoteException("not bound");
+            }
+            return elevator;
+        }, 1, 5, 0, () -> 0);
+
+        ApplicationModel model = new ApplicationModel(manager);
+        model.addObserver(this);
+        model.initApplication();
+        waitFor(manager, 1);
+        model.update();
+        model.setElevatorAutomaticMode(1, false);
+
+        Assertions.assertFalse(lastState.isStale());
+        Assertions.assertEquals(2, lastState.getElevators().size());
+
+        // Connection drops, the last known state is kept but marked as stale
+        available.set(null);
+        first.down = true;
+        first.clockTick++;
+        model.update();
+
+        Assertions.assertTrue(lastState.isStale());
+        Assertions.assertEquals(2, lastState.getElevators().size());
+        Assertions.assertEquals(4, lastState.getElevators().get(1).getCurrentFloor());
+
+        // Updates during the outage return right away and do not notify again
+        int notificationsDuringOutage = notifications;
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            model.update();
+        }
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        Assertions.assertEquals(notificationsDuringOutage, notifications);
+
+        // A building with a different layout comes back
+        available.set(second);
+        waitFor(manager, 2);
+        model.update();
+        model.shutdown();
+
+        Assertions.assertFalse(lastState.isStale());
+        Assertions.assertEquals(3, lastState.getNumberOfElevators());
+        Assertions.assertEquals(3, lastState.getElevators().size());
+        Assertions.assertEquals(8, lastState.getNumberOfFloors());
+        Assertions.assertTrue(lastState.getElevators().get(1).isAutomatic());
+    }
+
+    @Test
+    public void testReconnectToSameBuildingKeepsModes() throws InterruptedException {
+
+        FailingElevatorStub stub = new FailingElevatorStub(2, 6);
+        ConnectionManager manager = new ConnectionManager(() -> stub, 1, 5, 0, () -> 0);
+
+        ApplicationModel model = new ApplicationModel(manager);
+        model.addObserver(this);
+        model.initApplication();
+        waitFor(manager, 1);
+        model.update();
+        model.setElevatorAutomaticMode(1, false);
+        model.setSelectedElevator(1);
+
+        stub.down = true;
+        model.update();
+        stub.down = false;
+        waitFor(manager, 2);
+        stub.clockTick++;
+        model.update();
+        model.shutdown();
+
+        Assertions.assertFalse(lastState.isStale());
+        Assertions.assertEquals(2, lastState.getElevators().size());
+        Assertions.assertFalse(lastState.getElevators().get(1).isAutomatic());
+        Assertions.assertEquals(1, lastState.getSelectedElevator());
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        notifications++;
+        lastState = applicationState;
+    }
+}
@@ -2,12 +2,18 @@ package at.fhhagenberg.sqelevator;
 
 import at.fhhagenberg.sqelevator.controller.EccController;
 import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.view.EccView;
+import at.fhhagenberg.sqelevator.view.ShaftOverviewView;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.awt.Frame;
+import java.awt.event.WindowEvent;
 import java.rmi.RemoteException;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,4 +44,50 @@ public class EccControllerTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void testClosingTheOperatorWindowClosesTheOverview() {
+
+        EccController controller = new EccController(model);
+        boolean[] operatorClosed = new boolean[1];
+        boolean[] overviewClosed = new boolean[1];
+
+        // The views record the calls instead of opening frames, the tests run without a display
+        EccView operator = new EccView(controller, 100, 100) {
+            @Override
+            public void open() {
+            }
+
+            @Override
+            public void close() {
+                operatorClosed[0] = true;
+            }
+
+            @Override
+            public void addComponents(Frame windowFrame) {
+            }
+
+            @Override
+            public void applicationStateChanged(ApplicationState applicationState) {
+            }
+        };
+        ShaftOverviewView overview = new ShaftOverviewView(controller, 100, 100) {
+            @Override
+            public void open() {
+            }
+
+            @Override
+            public void close() {
+                overviewClosed[0] = true;
+            }
+        };
+        controller.openView(operator);
+        controller.openView(overview);
+
+        controller.windowClosing(Mockito.mock(WindowEvent.class));
+
+        Assertions.assertTrue(operatorClosed[0]);
+        Assertions.assertTrue(overviewClosed[0]);
+        Mockito.verify(model).shutdown();
+    }
 }
@@ -0,0 +1,167 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.simulation.SimulationStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ElevatorSimulatorTest {
+
+    @Test
+    public void testCarRespectsSpeedAndAcceleration() {
+
+        SimulationConfig config = new SimulationConfig(1, 20);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        simulator.setTarget(0, 10);
+
+        List<Integer> doorStates = new ArrayList<>();
+        double previousPosition = 0;
+        double previousSpeed = 0;
+        int maxSpeed = 0;
+        for (int i = 0; i < 1000 && simulator.getElevatorDoorStatus(0) != IElevator.ELEVATOR_DOORS_OPEN
+                || doorStates.size() < 2; i++) {
+            clock.advance(config.getStepMillis());
+
+            int doorStatus = simulator.getElevatorDoorStatus(0);
+            if (doorStates.isEmpty() || doorStates.get(doorStates.size() - 1) != doorStatus) {
+                doorStates.add(doorStatus);
+            }
+
+            int position = simulator.getElevatorPosition(0);
+            int speed = simulator.getElevatorSpeed(0);
+            Assertions.assertTrue(position >= previousPosition, "the car never moves backwards");
+            Assertions.assertTrue(Math.abs(speed - previousSpeed) <= 1, "speed changes smoothly");
+            Assertions.assertTrue(doorStatus == IElevator.ELEVATOR_DOORS_CLOSED || speed == 0,
+                    "the car only moves with closed doors");
+            maxSpeed = Math.max(maxSpeed, speed);
+            previousPosition = position;
+            previousSpeed = speed;
+        }
+
+        Assertions.assertEquals(List.of(IElevator.ELEVATOR_DOORS_OPEN, IElevator.ELEVATOR_DOORS_CLOSING,
+                IElevator.ELEVATOR_DOORS_CLOSED, IElevator.ELEVATOR_DOORS_OPENING, IElevator.ELEVATOR_DOORS_OPEN),
+                doorStates);
+        Assertions.assertEquals(3, maxSpeed);
+        Assertions.assertEquals(10, simulator.getElevatorFloor(0));
+        Assertions.assertEquals(40, simulator.getElevatorPosition(0));
+        Assertions.assertEquals(0, simulator.getElevatorSpeed(0));
+    }
+
+    @Test
+    public void testPassengerIsDelivered() {
+
+        SimulationConfig config = new SimulationConfig(1, 10);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        simulator.addPassenger(3, 0);
+        Assertions.assertTrue(simulator.getFloorButtonDown(3));
+        Assertions.assertFalse(simulator.getFloorButtonUp(3));
+
+        simulator.setTarget(0, 3);
+        clock.advance(30_000);
+
+        Assertions.assertEquals(3, simulator.getElevatorFloor(0));
+        Assertions.assertFalse(simulator.getFloorButtonDown(3));
+        Assertions.assertTrue(simulator.getElevatorButton(0, 0));
+        Assertions.assertTrue(simulator.getElevatorWeight(0) >= config.getMinPassengerWeight());
+
+        simulator.setTarget(0, 0);
+        clock.advance(30_000);
+
+        SimulationStatistics statistics = simulator.getStatistics();
+        Assertions.assertEquals(1, statistics.getDeliveredPassengers());
+        Assertions.assertEquals(0, simulator.getElevatorWeight(0));
+        Assertions.assertFalse(simulator.getElevatorButton(0, 0));
+        Assertions.assertTrue(statistics.getAverageWaitMillis() > 0);
+        Assertions.assertTrue(statistics.getAverageJourneyMillis() > statistics.getAverageWaitMillis());
+    }
+
+    @Test
+    public void testServicesFloorsAreRespected() {
+
+        SimulationConfig config = new SimulationConfig(2, 6);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        simulator.setServicesFloors(0, 4, false);
+        Assertions.assertFalse(simulator.getServicesFloors(0, 4));
+        Assertions.assertTrue(simulator.getServicesFloors(1, 4));
+
+        simulator.setTarget(0, 4);
+        Assertions.assertEquals(0, simulator.getTarget(0));
+
+        // The passenger does not board the car that does not stop at the destination
+        simulator.addPassenger(0, 4);
+        simulator.setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_DOWN);
+        clock.advance(1000);
+        Assertions.assertEquals(1, simulator.getWaitingPassengers());
+
+        simulator.setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_UP);
+        clock.advance(1000);
+        Assertions.assertEquals(0, simulator.getWaitingPassengers());
+        Assertions.assertTrue(simulator.getElevatorButton(1, 4));
+        Assertions.assertFalse(simulator.getElevatorButton(0, 4));
+    }
+
+    @Test
+    public void testControlledRunIsDeterministic() {
+
+        SimulationStatistics first = runControlled(42);
+        SimulationStatistics second = runControlled(42);
+
+        Assertions.assertTrue(first.getArrivedPassengers() > 50);
+        Assertions.assertTrue(first.getDeliveredPassengers() > 0);
+        Assertions.assertEquals(first.getArrivedPassengers(), second.getArrivedPassengers());
+        Assertions.assertEquals(first.getDeliveredPassengers(), second.getDeliveredPassengers());
+        Assertions.assertEquals(first.getAverageWaitMillis(), second.getAverageWaitMillis());
+        Assertions.assertEquals(first.getMaxWaitMillis(), second.getMaxWaitMillis());
+    }
+
+    private static SimulationStatistics runControlled(long seed) {
+        SimulationConfig config = new SimulationConfig(3, 12);
+        config.setArrivalsPerMinute(10);
+        config.setSeed(seed);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = new ApplicationModel(simulator);
+        model.initApplication();
+        for (int i = 0; i < 20 * 60 * 10; i++) {
+            clock.advance(100);
+            model.update();
+        }
+        return simulator.getStatistics();
+    }
+
+    @Test
+    public void testSimulatorCanBeExported() throws RemoteException {
+
+        SimulationConfig config = new SimulationConfig(2, 8);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        IElevator remote = (IElevator) UnicastRemoteObject.exportObject(simulator, 0);
+        try {
+            Assertions.assertNotSame(simulator, remote);
+            clock.advance(500);
+            Assertions.assertEquals(10, remote.getClockTick());
+            Assertions.assertEquals(8, remote.getFloorNum());
+            remote.setTarget(1, 5);
+            Assertions.assertEquals(5, simulator.getTarget(1));
+        } finally {
+            UnicastRemoteObject.unexportObject(simulator, true);
+        }
+    }
+}
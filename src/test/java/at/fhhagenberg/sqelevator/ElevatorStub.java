@@ -0,0 +1,189 @@
+package at.fhhagenberg.sqelevator;
+
+import sqelevator.IElevator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simple in-memory implementation of the elevator interface for tests. All values can be set directly, every call is
+ * counted and can optionally be delayed to emulate the network latency of RMI.
+ */
+public class ElevatorStub implements IElevator {
+
+    public final int numberOfElevators;
+    public final int numberOfFloors;
+    public int floorHeight = 3;
+    public long clockTick = 0;
+
+    public final boolean[] buttonUp;
+    public final boolean[] buttonDown;
+    public final boolean[][] elevatorButtons;
+    public final boolean[][] servicesFloors;
+    public final int[] committedDirection;
+    public final int[] target;
+    public final int[] acceleration;
+    public final int[] doorStatus;
+    public final int[] floor;
+    public final int[] position;
+    public final int[] speed;
+    public final int[] weight;
+    public final int[] capacity;
+
+    public final AtomicLong calls = new AtomicLong();
+    public long latencyNanos = 0;
+
+    public ElevatorStub(int numberOfElevators, int numberOfFloors) {
+        this.numberOfElevators = numberOfElevators;
+        this.numberOfFloors = numberOfFloors;
+        buttonUp = new boolean[numberOfFloors];
+        buttonDown = new boolean[numberOfFloors];
+        elevatorButtons = new boolean[numberOfElevators][numberOfFloors];
+        servicesFloors = new boolean[numberOfElevators][numberOfFloors];
+        committedDirection = new int[numberOfElevators];
+        target = new int[numberOfElevators];
+        acceleration = new int[numberOfElevators];
+        doorStatus = new int[numberOfElevators];
+        floor = new int[numberOfElevators];
+        position = new int[numberOfElevators];
+        speed = new int[numberOfElevators];
+        weight = new int[numberOfElevators];
+        capacity = new int[numberOfElevators];
+
+        for (int i = 0; i < numberOfElevators; i++) {
+            committedDirection[i] = ELEVATOR_DIRECTION_UNCOMMITTED;
+            doorStatus[i] = ELEVATOR_DOORS_OPEN;
+            capacity[i] = 10;
+            for (int f = 0; f < numberOfFloors; f++) {
+                servicesFloors[i][f] = true;
+            }
+        }
+    }
+
+    private void call() {
+        calls.incrementAndGet();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    @Override
+    public int getCommittedDirection(int elevatorNumber) {
+        call();
+        return committedDirection[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorAccel(int elevatorNumber) {
+        call();
+        return acceleration[elevatorNumber];
+    }
+
+    @Override
+    public boolean getElevatorButton(int elevatorNumber, int floor) {
+        call();
+        return elevatorButtons[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getElevatorDoorStatus(int elevatorNumber) {
+        call();
+        return doorStatus[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorFloor(int elevatorNumber) {
+        call();
+        return floor[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorNum() {
+        call();
+        return numberOfElevators;
+    }
+
+    @Override
+    public int getElevatorPosition(int elevatorNumber) {
+        call();
+        return position[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorSpeed(int elevatorNumber) {
+        call();
+        return speed[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorWeight(int elevatorNumber) {
+        call();
+        return weight[elevatorNumber];
+    }
+
+    @Override
+    public int getElevatorCapacity(int elevatorNumber) {
+        call();
+        return capacity[elevatorNumber];
+    }
+
+    @Override
+    public boolean getFloorButtonDown(int floor) {
+        call();
+        return buttonDown[floor];
+    }
+
+    @Override
+    public boolean getFloorButtonUp(int floor) {
+        call();
+        return buttonUp[floor];
+    }
+
+    @Override
+    public int getFloorHeight() {
+        call();
+        return floorHeight;
+    }
+
+    @Override
+    public int getFloorNum() {
+        call();
+        return numberOfFloors;
+    }
+
+    @Override
+    public boolean getServicesFloors(int elevatorNumber, int floor) {
+        call();
+        return servicesFloors[elevatorNumber][floor];
+    }
+
+    @Override
+    public int getTarget(int elevatorNumber) {
+        call();
+        return target[elevatorNumber];
+    }
+
+    @Override
+    public void setCommittedDirection(int elevatorNumber, int direction) {
+        call();
+        committedDirection[elevatorNumber] = direction;
+    }
+
+    @Override
+    public void setServicesFloors(int elevatorNumber, int floor, boolean service) {
+        call();
+        servicesFloors[elevatorNumber][floor] = service;
+    }
+
+    @Override
+    public void setTarget(int elevatorNumber, int target) {
+        call();
+        this.target[elevatorNumber] = target;
+    }
+
+    @Override
+    public long getClockTick() {
+        call();
+        return clockTick;
+    }
+}
@@ -0,0 +1,47 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.view.EventQueueObserver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.EventQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventQueueObserverTest {
+
+    @Test
+    public void testDeliveriesAreCappedToTheFrameRate() throws Exception {
+
+        AtomicInteger frames = new AtomicInteger();
+        AtomicLong lastTick = new AtomicLong(-1);
+        AtomicBoolean offDispatchThread = new AtomicBoolean();
+        EventQueueObserver observer = new EventQueueObserver(state -> {
+            offDispatchThread.compareAndSet(false, !EventQueue.isDispatchThread());
+            frames.incrementAndGet();
+            lastTick.set(state.getClockTick());
+        }, 20);
+
+        // Poll at about 1kHz for 600ms
+        ApplicationState state = new ApplicationState();
+        long end = System.nanoTime() + 600_000_000L;
+        long tick = 0;
+        while (System.nanoTime() < end) {
+            state.setClockTick(++tick);
+            observer.applicationStateChanged(state);
+            Thread.sleep(1);
+        }
+        long lastPublished = tick;
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lastTick.get() != lastPublished && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(lastPublished, lastTick.get());
+        Assertions.assertTrue(frames.get() <= 600 / 50 + 2, frames.get() + " frames");
+        Assertions.assertTrue(frames.get() >= 5, frames.get() + " frames");
+        Assertions.assertFalse(offDispatchThread.get());
+    }
+}
@@ -0,0 +1,229 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.GroupDispatcher;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.simulation.SimulationStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+public class GroupDispatcherTest {
+
+    private static ApplicationState createState(int elevators, int floors) {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(floors);
+        state.setNumberOfElevators(elevators);
+        for (int i = 0; i < elevators; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+            elevator.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+            elevator.setMaxPassengerNumber(10);
+            for (int floor = 0; floor < floors; floor++) {
+                elevator.setServicingFloor(floor, true);
+            }
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    private static void standAt(Elevator elevator, int floor) {
+        elevator.setCurrentFloor(floor);
+        elevator.setCurrentTarget(floor);
+    }
+
+    private static int countAssignedCars(GroupDispatcher dispatcher, int elevators, int floor, boolean up) {
+        int count = 0;
+        for (int i = 0; i < elevators; i++) {
+            count += (up ? dispatcher.getHallUp(i) : dispatcher.getHallDown(i)).get(floor) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Test
+    public void testCallGoesToNearestIdleCar() {
+
+        ApplicationState state = createState(3, 20);
+        standAt(state.getElevators().get(0), 0);
+        standAt(state.getElevators().get(1), 10);
+        standAt(state.getElevators().get(2), 19);
+        state.setButtonUpPressed(12, true);
+        state.setButtonDownPressed(17, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(12));
+        Assertions.assertEquals(2, dispatcher.getAssignedDown(17));
+        Assertions.assertEquals(-1, dispatcher.getAssignedUp(17));
+        Assertions.assertEquals(-1, dispatcher.getAssignedDown(12));
+    }
+
+    @Test
+    public void testCarMovingAwayIsNotPreferred() {
+
+        ApplicationState state = createState(2, 20);
+        Elevator movingAway = state.getElevators().get(0);
+        standAt(movingAway, 8);
+        movingAway.setCurrentTarget(18);
+        movingAway.setCurrentSpeed(3);
+        movingAway.setDoorStatus(IElevator.ELEVATOR_DOORS_CLOSED);
+        movingAway.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UP);
+        standAt(state.getElevators().get(1), 0);
+        state.setButtonUpPressed(6, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(6));
+    }
+
+    @Test
+    public void testPendingStopsAndLoadAreCounted() {
+
+        ApplicationState state = createState(2, 20);
+        Elevator busy = state.getElevators().get(0);
+        standAt(busy, 5);
+        busy.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UP);
+        busy.setFloorButtonActive(6, true);
+        busy.setFloorButtonActive(7, true);
+        busy.setFloorButtonActive(8, true);
+        standAt(state.getElevators().get(1), 0);
+        state.setButtonUpPressed(10, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+        // Three stops on the way take longer than the five floors the other car has to travel in addition
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(10));
+
+        busy.setFloorButtonActive(6, false);
+        busy.setFloorButtonActive(7, false);
+        busy.setFloorButtonActive(8, false);
+        state.setButtonUpPressed(10, false);
+        dispatcher.assign(state);
+        state.setButtonUpPressed(10, true);
+        dispatcher.assign(state);
+        Assertions.assertEquals(0, dispatcher.getAssignedUp(10));
+
+        // A nearly full car does not stop for more passengers
+        busy.setCurrentPassengerWeight(700);
+        state.setButtonUpPressed(10, false);
+        dispatcher.assign(state);
+        state.setButtonUpPressed(10, true);
+        dispatcher.assign(state);
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(10));
+    }
+
+    @Test
+    public void testOnlyAutomaticCarsServicingTheFloorAreAssigned() {
+
+        ApplicationState state = createState(3, 10);
+        standAt(state.getElevators().get(0), 4);
+        state.getElevators().get(0).setAutomatic(false);
+        standAt(state.getElevators().get(1), 5);
+        state.getElevators().get(1).setServicingFloor(3, false);
+        standAt(state.getElevators().get(2), 9);
+        state.setButtonUpPressed(3, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+
+        Assertions.assertEquals(2, dispatcher.getAssignedUp(3));
+    }
+
+    @Test
+    public void testAssignmentIsKeptUnlessClearlyWorse() {
+
+        ApplicationState state = createState(2, 20);
+        standAt(state.getElevators().get(0), 8);
+        standAt(state.getElevators().get(1), 0);
+        state.setButtonUpPressed(10, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher(1000, 5000, 3000);
+        dispatcher.assign(state);
+        Assertions.assertEquals(0, dispatcher.getAssignedUp(10));
+
+        // The other car is one floor closer now, which is within the margin
+        standAt(state.getElevators().get(1), 9);
+        dispatcher.assign(state);
+        Assertions.assertEquals(0, dispatcher.getAssignedUp(10));
+
+        standAt(state.getElevators().get(0), 2);
+        dispatcher.assign(state);
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(10));
+    }
+
+    @Test
+    public void testOnlyTheLobbyOfAZonedBuildingIsAnsweredByEveryZone() {
+
+        // Cars 0 and 1 serve the lower zone, cars 2 and 3 the upper one, all of them the lobby
+        ApplicationState state = createState(4, 20);
+        for (int i = 0; i < 4; i++) {
+            Elevator elevator = state.getElevators().get(i);
+            for (int floor = 1; floor < 20; floor++) {
+                elevator.setServicingFloor(floor, i < 2 ? floor < 10 : floor >= 10);
+            }
+            standAt(elevator, i < 2 ? 5 : 15);
+        }
+        state.setButtonUpPressed(0, true);
+        state.setButtonUpPressed(7, true);
+        state.setButtonDownPressed(12, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+
+        Assertions.assertEquals(2, countAssignedCars(dispatcher, 4, 0, true));
+        Assertions.assertEquals(1, countAssignedCars(dispatcher, 4, 7, true));
+        Assertions.assertEquals(1, countAssignedCars(dispatcher, 4, 12, false));
+
+        // A car that skips a floor forms a group of its own, but the others reach all its floors
+        ApplicationState irregular = createState(3, 10);
+        irregular.getElevators().get(1).setServicingFloor(4, false);
+        standAt(irregular.getElevators().get(1), 7);
+        irregular.setButtonUpPressed(6, true);
+        dispatcher.assign(irregular);
+
+        Assertions.assertEquals(1, countAssignedCars(dispatcher, 3, 6, true));
+        Assertions.assertEquals(1, dispatcher.getAssignedUp(6));
+    }
+
+    /**
+     * Compares the dispatched group with cars that all serve every hall call on their own, on the same simulated
+     * workload.
+     */
+    @Test
+    public void testReducesAverageAndTailWait() {
+
+        SimulationStatistics dispatched = run(new GroupDispatcher());
+        SimulationStatistics independent = run(null);
+
+        Assertions.assertTrue(dispatched.getDeliveredPassengers() >= independent.getDeliveredPassengers() * 0.98);
+        Assertions.assertTrue(dispatched.getAverageWaitMillis() < independent.getAverageWaitMillis(),
+                "wait " + dispatched.getAverageWaitMillis() + "ms vs. " + independent.getAverageWaitMillis() + "ms");
+        Assertions.assertTrue(dispatched.getWaitPercentileMillis(95) < independent.getWaitPercentileMillis(95),
+                "95th percentile " + dispatched.getWaitPercentileMillis(95) + "ms vs. "
+                        + independent.getWaitPercentileMillis(95) + "ms");
+    }
+
+    private static SimulationStatistics run(GroupDispatcher dispatcher) {
+        SimulationConfig config = new SimulationConfig(4, 20);
+        config.setArrivalsPerMinute(10);
+        config.setSeed(11);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = new ApplicationModel(simulator);
+        model.setDispatcher(dispatcher);
+        model.initApplication();
+        // One simulated hour, polled every 100ms
+        for (int i = 0; i < 60 * 60 * 10; i++) {
+            clock.advance(100);
+            model.update();
+        }
+        return simulator.getStatistics();
+    }
+}
@@ -0,0 +1,209 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.controller.AdaptivePollingRate;
+import at.fhhagenberg.sqelevator.controller.Building;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.monitoring.BuildingMetrics;
+import at.fhhagenberg.sqelevator.monitoring.RemoteCallMonitor;
+import at.fhhagenberg.sqelevator.monitoring.StateLogObserver;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.SimulationClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class HeadlessTest {
+
+    /**
+     * Collects the log records of the observers.
+     */
+    private static class RecordingHandler extends Handler {
+
+        private final List<LogRecord> records = new ArrayList<>();
+
+        @Override
+        public synchronized void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        synchronized List<LogRecord> getRecords() {
+            return new ArrayList<>(records);
+        }
+    }
+
+    private static ApplicationModel createModel(ElevatorStub stub) {
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        return model;
+    }
+
+    @Test
+    public void testMetricsCountTheBuildingState() throws Exception {
+
+        ElevatorStub stub = new ElevatorStub(2, 5);
+        ApplicationModel model = createModel(stub);
+        BuildingMetrics metrics = new BuildingMetrics("test");
+        model.addObserver(metrics);
+
+        stub.buttonUp[1] = true;
+        stub.buttonDown[3] = true;
+        stub.elevatorButtons[0][4] = true;
+        stub.clockTick++;
+        model.setElevatorAutomaticMode(1, false);
+        model.update();
+
+        Assertions.assertTrue(metrics.isConnected());
+        Assertions.assertEquals(2, metrics.getElevators());
+        Assertions.assertEquals(5, metrics.getFloors());
+        Assertions.assertEquals(2, metrics.getHallCalls());
+        Assertions.assertEquals(1, metrics.getCarCalls());
+        Assertions.assertEquals(1, metrics.getAutomaticElevators());
+        Assertions.assertEquals(stub.clockTick, metrics.getClockTick());
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        metrics.registerMBean(server);
+        ObjectName name = new ObjectName(RemoteCallMonitor.DOMAIN + ":type=Building,monitor=\"test\"");
+        Assertions.assertEquals(2, server.getAttribute(name, "HallCalls"));
+        Assertions.assertEquals(true, server.getAttribute(name, "Connected"));
+        metrics.unregisterMBean();
+        Assertions.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testLogReportsConnectionChangesAndSummaries() {
+
+        ElevatorStub stub = new ElevatorStub(2, 5);
+        ApplicationModel model = createModel(stub);
+        BuildingMetrics metrics = new BuildingMetrics("test");
+        AtomicLong time = new AtomicLong();
+        model.addObserver(metrics);
+        model.addObserver(new StateLogObserver("test", metrics, 1000, time::get));
+
+        Logger logger = StateLogObserver.getLogger();
+        RecordingHandler handler = new RecordingHandler();
+        logger.addHandler(handler);
+        try {
+            stub.clockTick++;
+            model.update();
+            // Updates within the summary interval are not logged
+            for (int i = 0; i < 10; i++) {
+                time.addAndGet(50);
+                stub.clockTick++;
+                model.update();
+            }
+            Assertions.assertEquals(1, handler.getRecords().size());
+            Assertions.assertTrue(handler.getRecords().get(0).getMessage().contains("connected"));
+
+            time.addAndGet(1000);
+            stub.clockTick++;
+            model.update();
+            Assertions.assertEquals(2, handler.getRecords().size());
+            Assertions.assertTrue(handler.getRecords().get(1).getMessage().contains("hall calls"));
+
+            model.getConnectionManager().connectionLost(model.getConnectionManager().getConnection());
+            model.update();
+            Assertions.assertEquals(3, handler.getRecords().size());
+            Assertions.assertTrue(handler.getRecords().get(2).getMessage().contains("connection lost"));
+            Assertions.assertFalse(metrics.isConnected());
+            Assertions.assertEquals(1, metrics.getConnectionLosses());
+        } finally {
+            logger.removeHandler(handler);
+            model.shutdown();
+        }
+    }
+
+    @Test
+    public void testHeadlessControlCenterPollsUntilStopped() throws Exception {
+
+        SimulationConfig config = new SimulationConfig(2, 8);
+        ElevatorSimulator simulator = new ElevatorSimulator(config, SimulationClock.SYSTEM);
+        ApplicationModel model = new ApplicationModel(simulator);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        HeadlessControlCenter controlCenter = new HeadlessControlCenter(List.of(new Building("simulation", model,
+                new AdaptivePollingRate(10, 50, 50))), server);
+
+        controlCenter.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (controlCenter.getMetrics(0).getStateUpdates() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(controlCenter.getMetrics(0).isConnected());
+        Assertions.assertEquals(2, controlCenter.getMetrics(0).getElevators());
+        Assertions.assertEquals(1, server.queryNames(new ObjectName(RemoteCallMonitor.DOMAIN + ":type=Building,*"),
+                null).size());
+
+        controlCenter.stop();
+        controlCenter.stop();
+        controlCenter.awaitStop();
+        Assertions.assertFalse(controlCenter.getBuildings().get(0).getPollingEngine().isRunning());
+        Assertions.assertEquals(0, server.queryNames(new ObjectName(RemoteCallMonitor.DOMAIN + ":type=Building,*"),
+                null).size());
+    }
+
+    @Test
+    public void testHeadlessProcessLoadsNoAwtAndStopsOnSignal(@TempDir Path directory) throws Exception {
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        File log = directory.resolve("log.txt").toFile();
+        File classes = directory.resolve("classes.txt").toFile();
+        Process process = new ProcessBuilder(java, "-Xmx32m", "-verbose:class", "-cp",
+                System.getProperty("java.class.path"), ElevatorControlCenter.class.getName(), "--headless")
+                .directory(directory.toFile())
+                .redirectError(log)
+                .redirectOutput(classes)
+                .start();
+        try {
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (!read(log).contains("started") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assertions.assertTrue(read(log).contains("started"), read(log));
+            // There is no building to connect to, the instance keeps retrying until it is terminated
+            Thread.sleep(500);
+            Assertions.assertTrue(process.isAlive(), read(log));
+
+            process.destroy();
+            Assertions.assertTrue(process.waitFor(20, TimeUnit.SECONDS));
+        } finally {
+            process.destroyForcibly();
+        }
+
+        String loaded = read(classes);
+        Assertions.assertTrue(loaded.contains(HeadlessControlCenter.class.getName()));
+        Assertions.assertFalse(loaded.contains("java.awt."), "AWT has been loaded");
+        Assertions.assertFalse(loaded.contains("javax.swing."), "Swing has been loaded");
+        // The unused preallocated segment of the journal is removed on a clean shutdown
+        try (var segments = Files.list(directory.resolve("journal"))) {
+            Assertions.assertEquals(1, segments.count());
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()));
+    }
+}
@@ -0,0 +1,277 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import at.fhhagenberg.sqelevator.journal.JournalReader;
+import at.fhhagenberg.sqelevator.journal.JournalVisitor;
+import at.fhhagenberg.sqelevator.journal.StateJournal;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sqelevator.IElevator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class JournalTest {
+
+    /**
+     * Rebuilds the state of the building from the records of a journal.
+     */
+    private static class ReplayedState implements JournalVisitor {
+
+        int[][] fields = new int[0][];
+        boolean[][] carButtons = new boolean[0][];
+        boolean[][] serviced = new boolean[0][];
+        boolean[] hallUp = new boolean[0];
+        boolean[] hallDown = new boolean[0];
+        long clockTick = -1;
+        int topologies;
+        int ticks;
+        final List<int[]> commands = new ArrayList<>();
+
+        @Override
+        public void topology(long sequence, int numberOfElevators, int numberOfFloors, int floorHeight) {
+            topologies++;
+            fields = new int[numberOfElevators][JournalFormat.FIELD_COUNT];
+            carButtons = new boolean[numberOfElevators][numberOfFloors];
+            serviced = new boolean[numberOfElevators][numberOfFloors];
+            hallUp = new boolean[numberOfFloors];
+            hallDown = new boolean[numberOfFloors];
+        }
+
+        @Override
+        public void tick(long wallMillis, long clockTick) {
+            ticks++;
+            this.clockTick = clockTick;
+        }
+
+        @Override
+        public void elevatorField(int elevatorIndex, int field, int value) {
+            fields[elevatorIndex][field] = value;
+        }
+
+        @Override
+        public void carButton(int elevatorIndex, int floor, boolean pressed) {
+            carButtons[elevatorIndex][floor] = pressed;
+        }
+
+        @Override
+        public void servicedFloor(int elevatorIndex, int floor, boolean serviced) {
+            this.serviced[elevatorIndex][floor] = serviced;
+        }
+
+        @Override
+        public void hallButton(int floor, boolean up, boolean pressed) {
+            (up ? hallUp : hallDown)[floor] = pressed;
+        }
+
+        @Override
+        public void command(long wallMillis, int elevatorIndex, int command, int value, int argument) {
+            commands.add(new int[]{elevatorIndex, command, value, argument});
+        }
+    }
+
+    private static ApplicationState createState(int elevators, int floors) {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(floors);
+        state.setNumberOfElevators(elevators);
+        state.setFloorHeight(3);
+        for (int i = 0; i < elevators; i++) {
+            Elevator elevator = new Elevator();
+            for (int floor = 0; floor < floors; floor++) {
+                elevator.setServicingFloor(floor, true);
+            }
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    /**
+     * Moves the cars and toggles some buttons, so every tick has changes to journal.
+     */
+    private static void advance(ApplicationState state, int tick) {
+        state.setClockTick(tick);
+        state.setButtonUpPressed(tick % state.getNumberOfFloors(), tick % 3 == 0);
+        for (int i = 0; i < state.getNumberOfElevators(); i++) {
+            Elevator elevator = state.getElevators().get(i);
+            elevator.setCurrentHeightOverGround((tick + i) % 300);
+            elevator.setCurrentSpeed(tick % 7 - 3);
+            elevator.setFloorButtonActive((tick + i) % state.getNumberOfFloors(), tick % 2 == 0);
+        }
+    }
+
+    private static long countSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testJournalRestoresStateAndCommands(@TempDir Path directory) throws IOException {
+
+        ElevatorStub stub = new ElevatorStub(2, 10);
+        ApplicationModel model = new ApplicationModel(stub);
+        StateJournal journal = new StateJournal(directory, 1 << 20, 4, () -> 1000L);
+        model.setJournal(journal);
+        model.initApplication();
+        model.setElevatorAutomaticMode(0, false);
+        model.setElevatorAutomaticMode(1, false);
+
+        stub.clockTick = 1;
+        stub.floor[1] = 4;
+        stub.target[1] = 4;
+        stub.position[1] = 12;
+        stub.weight[1] = 160;
+        stub.buttonDown[7] = true;
+        stub.elevatorButtons[0][3] = true;
+        stub.servicesFloors[1][9] = false;
+        model.invalidateServicesFloors();
+        model.update();
+        model.setManualElevatorTarget(0, 6);
+        stub.clockTick = 2;
+        model.update();
+
+        // An unchanged tick is journaled as a tick without changes
+        stub.clockTick = 3;
+        model.update();
+        stub.clockTick = 4;
+        stub.elevatorButtons[0][3] = false;
+        model.update();
+        journal.close();
+
+        ReplayedState replayed = new ReplayedState();
+        JournalReader.read(directory, replayed);
+
+        Assertions.assertEquals(1, replayed.topologies);
+        Assertions.assertEquals(5, replayed.ticks);
+        Assertions.assertEquals(4, replayed.clockTick);
+        Assertions.assertEquals(6, replayed.fields[0][JournalFormat.FIELD_TARGET]);
+        Assertions.assertEquals(IElevator.ELEVATOR_DIRECTION_UP, replayed.fields[0][JournalFormat.FIELD_DIRECTION]);
+        Assertions.assertEquals(4, replayed.fields[1][JournalFormat.FIELD_FLOOR]);
+        Assertions.assertEquals(12, replayed.fields[1][JournalFormat.FIELD_POSITION]);
+        Assertions.assertEquals(160, replayed.fields[1][JournalFormat.FIELD_WEIGHT]);
+        Assertions.assertEquals(10, replayed.fields[1][JournalFormat.FIELD_CAPACITY]);
+        Assertions.assertEquals(0, replayed.fields[1][JournalFormat.FIELD_AUTOMATIC]);
+        Assertions.assertEquals(IElevator.ELEVATOR_DOORS_OPEN, replayed.fields[0][JournalFormat.FIELD_DOOR_STATUS]);
+        Assertions.assertTrue(replayed.hallDown[7]);
+        Assertions.assertFalse(replayed.hallUp[7]);
+        Assertions.assertFalse(replayed.carButtons[0][3]);
+        Assertions.assertTrue(replayed.serviced[1][8]);
+        Assertions.assertFalse(replayed.serviced[1][9]);
+
+        int direction = indexOf(replayed.commands,
+                new int[]{0, JournalFormat.COMMAND_DIRECTION, IElevator.ELEVATOR_DIRECTION_UP, 0});
+        int target = indexOf(replayed.commands, new int[]{0, JournalFormat.COMMAND_TARGET, 6, 0});
+        Assertions.assertTrue(direction >= 0 && target > direction);
+        Assertions.assertTrue(indexOf(replayed.commands, new int[]{1, JournalFormat.COMMAND_AUTOMATIC, 0, 0}) >= 0);
+    }
+
+    private static int indexOf(List<int[]> commands, int[] command) {
+        for (int i = 0; i < commands.size(); i++) {
+            if (Arrays.equals(commands.get(i), command)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testRolloverKeepsRetainedSegments(@TempDir Path directory) throws IOException, InterruptedException {
+
+        ApplicationState state = createState(3, 20);
+        StateJournal journal = new StateJournal(directory, 16 * 1024, 3, System::currentTimeMillis);
+
+        int tick = 0;
+        while (journal.getRolloverCount() < 6) {
+            advance(state, ++tick);
+            journal.appendState(state);
+            if (journal.getDroppedRecordCount() > 0) {
+                // Give the background thread the time to prepare the next segment
+                Thread.sleep(1);
+            }
+        }
+        journal.close();
+
+        Assertions.assertTrue(countSegments(directory) <= 3, "segments " + countSegments(directory));
+
+        // Every segment starts over with the complete state, so the last one alone restores the latest state
+        ReplayedState replayed = new ReplayedState();
+        JournalReader.readSegment(journal.getCurrentSegment(), replayed);
+        Assertions.assertEquals(1, replayed.topologies);
+        Assertions.assertEquals(tick, replayed.clockTick);
+        for (int i = 0; i < 3; i++) {
+            Elevator elevator = state.getElevators().get(i);
+            Assertions.assertEquals(elevator.getCurrentHeightOverGround(),
+                    replayed.fields[i][JournalFormat.FIELD_POSITION]);
+            Assertions.assertEquals(elevator.getCurrentSpeed(), replayed.fields[i][JournalFormat.FIELD_SPEED]);
+            for (int floor = 0; floor < 20; floor++) {
+                Assertions.assertEquals(elevator.isFloorButtonActive(floor), replayed.carButtons[i][floor]);
+                Assertions.assertTrue(replayed.serviced[i][floor]);
+            }
+        }
+        for (int floor = 0; floor < 20; floor++) {
+            Assertions.assertEquals(state.isButtonUpPressed(floor), replayed.hallUp[floor]);
+        }
+    }
+
+    @Test
+    public void testFullSegmentDropsRecordsWithoutBlocking(@TempDir Path directory) throws IOException {
+
+        ApplicationState state = createState(1, 10);
+        AtomicLong time = new AtomicLong();
+        StateJournal journal = new StateJournal(directory, 1024, 2, time::get);
+
+        // Far more than fits into two segments, the appends go on without waiting for the file system
+        for (int tick = 1; tick <= 1000; tick++) {
+            advance(state, tick);
+            journal.appendState(state);
+            journal.appendCommand(0, JournalFormat.COMMAND_TARGET, tick % 10, 0);
+        }
+        journal.close();
+
+        Assertions.assertTrue(journal.getDroppedRecordCount() > 0);
+        Assertions.assertEquals(2000, journal.getRecordCount() + journal.getDroppedRecordCount());
+    }
+
+    @Test
+    public void testAppendDoesNotAllocate(@TempDir Path directory) throws IOException {
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        ApplicationState state = createState(8, 40);
+        StateJournal journal = new StateJournal(directory, 64 * 1024 * 1024, 2, System::currentTimeMillis);
+
+        for (int tick = 1; tick <= 50_000; tick++) {
+            advance(state, tick);
+            journal.appendState(state);
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int tick = 50_001; tick <= 70_000; tick++) {
+            advance(state, tick);
+            journal.appendState(state);
+            journal.appendCommand(tick % 8, JournalFormat.COMMAND_TARGET, tick % 40, 0);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        journal.close();
+
+        Assertions.assertEquals(0, journal.getDroppedRecordCount());
+        Assertions.assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
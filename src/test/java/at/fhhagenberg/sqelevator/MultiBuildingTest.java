@@ -0,0 +1,135 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.controller.AdaptivePollingRate;
+import at.fhhagenberg.sqelevator.controller.Building;
+import at.fhhagenberg.sqelevator.controller.EccController;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.SimulationClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.view.SelectedBuildingObserver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import sqelevator.IElevator;
+
+import javax.management.MBeanServerFactory;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class MultiBuildingTest {
+
+    @Test
+    public void testBuildingsAreReadFromTheArguments() {
+
+        Map<String, String> defaults = ElevatorControlCenter.parseBuildings(new String[]{"--headless"});
+        Assertions.assertEquals(Map.of("ecc", "rmi://localhost/ElevatorSim"), defaults);
+
+        Map<String, String> site = ElevatorControlCenter.parseBuildings(new String[]{
+                "--building=north=rmi://tower-n/ElevatorSim", "--headless", "--building=south=rmi://tower-s/Sim"});
+        Assertions.assertEquals(List.of("north", "south"), new ArrayList<>(site.keySet()));
+        Assertions.assertEquals("rmi://tower-s/Sim", site.get("south"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ElevatorControlCenter.parseBuildings(
+                new String[]{"--building=rmi://tower-n/ElevatorSim"}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ElevatorControlCenter.parseBuildings(
+                new String[]{"--building=../north=rmi://tower-n/ElevatorSim"}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ElevatorControlCenter.parseBuildings(
+                new String[]{"--building=north=a", "--building=north=b"}));
+    }
+
+    @Test
+    public void testSlowBuildingDoesNotDelayTheOthers() throws Exception {
+
+        ApplicationModel small = new ApplicationModel(new ElevatorSimulator(new SimulationConfig(2, 8),
+                SimulationClock.SYSTEM));
+        ApplicationModel tall = new ApplicationModel(new ElevatorSimulator(new SimulationConfig(4, 20),
+                SimulationClock.SYSTEM));
+        // Every call of the third building hangs for a while and fails
+        IElevator hanging = Mockito.mock(IElevator.class, invocation -> {
+            Thread.sleep(500);
+            throw new RemoteException("Building not reachable");
+        });
+        ApplicationModel broken = new ApplicationModel(hanging);
+
+        HeadlessControlCenter controlCenter = new HeadlessControlCenter(List.of(
+                new Building("small", small, new AdaptivePollingRate(10, 20, 20)),
+                new Building("tall", tall, new AdaptivePollingRate(10, 20, 20)),
+                new Building("broken", broken, new AdaptivePollingRate(10, 20, 20))),
+                MBeanServerFactory.newMBeanServer());
+        try {
+            controlCenter.start();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((controlCenter.getMetrics(0).getStateUpdates() < 20
+                    || controlCenter.getMetrics(1).getStateUpdates() < 20)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            Assertions.assertEquals(2, controlCenter.getMetrics(0).getElevators());
+            Assertions.assertEquals(8, controlCenter.getMetrics(0).getFloors());
+            Assertions.assertEquals(4, controlCenter.getMetrics(1).getElevators());
+            Assertions.assertEquals(20, controlCenter.getMetrics(1).getFloors());
+            Assertions.assertFalse(controlCenter.getMetrics(2).isConnected());
+            // The hanging building got through a few polls at most in the meantime
+            Assertions.assertTrue(controlCenter.getBuildings().get(2).getPollingEngine().getTickCount()
+                    < controlCenter.getBuildings().get(0).getPollingEngine().getTickCount());
+            Assertions.assertNotSame(small.getDispatcher(), tall.getDispatcher());
+        } finally {
+            controlCenter.stop();
+        }
+    }
+
+    @Test
+    public void testControllerSwitchesBetweenBuildings() throws RemoteException {
+
+        ElevatorStub first = new ElevatorStub(2, 5);
+        ElevatorStub second = new ElevatorStub(3, 9);
+        ApplicationModel firstModel = new ApplicationModel(first);
+        ApplicationModel secondModel = new ApplicationModel(second);
+        EccController controller = new EccController(List.of(
+                new Building("first", firstModel, new AdaptivePollingRate(10, 20, 20)),
+                new Building("second", secondModel, new AdaptivePollingRate(10, 20, 20))));
+
+        List<ApplicationState> shown = new ArrayList<>();
+        firstModel.addObserver(new SelectedBuildingObserver(controller, 0, shown::add));
+        secondModel.addObserver(new SelectedBuildingObserver(controller, 1, shown::add));
+        firstModel.initApplication();
+        secondModel.initApplication();
+
+        // Only the first building is shown initially
+        for (ApplicationState state : shown) {
+            Assertions.assertEquals(5, state.getNumberOfFloors());
+        }
+        Assertions.assertSame(firstModel, controller.getModel());
+
+        // The views are passed the latest state of the building they switch to, without waiting for an update
+        List<ApplicationState> switched = new ArrayList<>();
+        controller.addSelectionObserver(switched::add);
+        controller.setSelectedBuilding(1);
+        controller.setSelectedBuilding(1);
+        Assertions.assertEquals(1, switched.size());
+        Assertions.assertSame(secondModel.getSnapshot(), switched.get(0));
+        shown.clear();
+        second.clockTick++;
+        secondModel.update();
+        first.clockTick++;
+        firstModel.update();
+        Assertions.assertEquals(1, shown.size());
+        Assertions.assertEquals(9, shown.get(0).getNumberOfFloors());
+
+        // The interactions go to the selected building only
+        controller.setAutomaticMode(2, false);
+        controller.setSelectedFloor(2, 7);
+        Assertions.assertFalse(secondModel.getSnapshot().getElevators().get(2).isAutomatic());
+        Assertions.assertEquals(7, second.target[2]);
+        Assertions.assertTrue(firstModel.getSnapshot().getElevators().get(0).isAutomatic());
+
+        controller.setSelectedBuilding(2);
+        Assertions.assertEquals(1, controller.getSelectedBuilding());
+        Assertions.assertEquals(1, switched.size());
+    }
+}
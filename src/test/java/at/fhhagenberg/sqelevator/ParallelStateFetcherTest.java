@@ -0,0 +1,171 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.ParallelStateFetcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelStateFetcherTest implements IEccObserver {
+
+    private ApplicationState lastState;
+
+    private static ElevatorStub createBuilding() {
+        ElevatorStub stub = new ElevatorStub(4, 23);
+        stub.buttonUp[0] = true;
+        stub.buttonUp[7] = true;
+        stub.buttonDown[22] = true;
+        for (int i = 0; i < stub.numberOfElevators; i++) {
+            stub.floor[i] = i * 5;
+            stub.position[i] = i * 15;
+            stub.target[i] = i * 5 + 1;
+            stub.speed[i] = i;
+            stub.weight[i] = 70 * i;
+            stub.elevatorButtons[i][i + 17] = true;
+            stub.elevatorButtons[i][3] = true;
+        }
+        return stub;
+    }
+
+    @Test
+    public void testParallelFetchMatchesSequentialFetch() {
+
+        // Each model gets its own building, as the automatic operation writes to it after the fetch
+        ElevatorStub stub = createBuilding();
+
+        ApplicationModel sequential = new ApplicationModel(createBuilding());
+        sequential.addObserver(this);
+        sequential.initApplication();
+        ApplicationState expected = lastState;
+
+        ApplicationModel parallel = new ApplicationModel(stub);
+        ParallelStateFetcher fetcher = ParallelStateFetcher.create(4, 5);
+        parallel.setParallelFetcher(fetcher);
+        parallel.addObserver(this);
+        parallel.initApplication();
+        ApplicationState actual = lastState;
+        fetcher.shutdown();
+
+        Assertions.assertNotSame(expected, actual);
+        Assertions.assertEquals(List.of(0, 7), actual.getButtonUpPressed());
+        Assertions.assertEquals(expected.getButtonUpPressed(), actual.getButtonUpPressed());
+        Assertions.assertEquals(expected.getButtonDownPressed(), actual.getButtonDownPressed());
+
+        for (int i = 0; i < stub.numberOfElevators; i++) {
+            Elevator expectedElevator = expected.getElevators().get(i);
+            Elevator actualElevator = actual.getElevators().get(i);
+            Assertions.assertEquals(List.of(3, i + 17), actualElevator.getActiveFloorButtons());
+            Assertions.assertEquals(expectedElevator.toString(), actualElevator.toString());
+        }
+    }
+
+    @Test
+    public void testFailedFetchLeavesStateUntouched() {
+
+        ElevatorStub stub = new ElevatorStub(2, 10) {
+            @Override
+            public int getElevatorWeight(int elevatorNumber) {
+                throw new IllegalStateException("connection lost");
+            }
+        };
+        stub.buttonUp[4] = true;
+
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(10);
+        state.setNumberOfElevators(2);
+        state.getElevators().add(new Elevator());
+        state.getElevators().add(new Elevator());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ParallelStateFetcher fetcher = new ParallelStateFetcher(executor, 2, 3);
+
+        Assertions.assertThrows(RemoteException.class, () -> fetcher.fetch(stub, state));
+        Assertions.assertTrue(state.getButtonUpPressed().isEmpty());
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void testReusedTasksFollowTheInterfaceAndSizeOfEachFetch() throws RemoteException {
+
+        ElevatorStub first = createBuilding();
+        ElevatorStub second = createBuilding();
+        second.buttonUp[7] = false;
+        second.weight[2] = 500;
+
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(first.numberOfFloors);
+        state.setNumberOfElevators(first.numberOfElevators);
+        for (int i = 0; i < first.numberOfElevators; i++) {
+            state.getElevators().add(new Elevator());
+        }
+
+        ParallelStateFetcher fetcher = ParallelStateFetcher.create(4, 5);
+        fetcher.fetch(first, state);
+        Assertions.assertEquals(List.of(0, 7), state.getButtonUpPressed());
+
+        // Same size, so the tasks are reused, but they read from the interface handed to this fetch
+        fetcher.fetch(second, state);
+        Assertions.assertEquals(List.of(0), state.getButtonUpPressed());
+        Assertions.assertEquals(500, state.getElevators().get(2).getCurrentPassengerWeight());
+
+        // A larger building gets new tasks covering all of it
+        ElevatorStub larger = new ElevatorStub(5, 30);
+        larger.buttonDown[29] = true;
+        larger.elevatorButtons[4][28] = true;
+        ApplicationState largerState = new ApplicationState();
+        largerState.setNumberOfFloors(larger.numberOfFloors);
+        largerState.setNumberOfElevators(larger.numberOfElevators);
+        for (int i = 0; i < larger.numberOfElevators; i++) {
+            largerState.getElevators().add(new Elevator());
+        }
+        fetcher.fetch(larger, largerState);
+        fetcher.shutdown();
+
+        Assertions.assertEquals(List.of(29), largerState.getButtonDownPressed());
+        Assertions.assertEquals(List.of(28), largerState.getElevators().get(4).getActiveFloorButtons());
+    }
+
+    @Test
+    public void testLatencyScalesWithSlowestElevator() throws RemoteException {
+
+        ElevatorStub stub = createBuilding();
+        stub.latencyNanos = 1_000_000;
+
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(stub.numberOfFloors);
+        state.setNumberOfElevators(stub.numberOfElevators);
+        for (int i = 0; i < stub.numberOfElevators; i++) {
+            state.getElevators().add(new Elevator());
+        }
+
+        ParallelStateFetcher fetcher = ParallelStateFetcher.create(16, 8);
+        // Warm up the thread pool
+        fetcher.fetch(stub, state);
+
+        long start = System.nanoTime();
+        fetcher.fetch(stub, state);
+        long parallelNanos = System.nanoTime() - start;
+        fetcher.shutdown();
+
+        long callsPerTick = 2L * stub.numberOfFloors + stub.numberOfElevators * (9L + stub.numberOfFloors);
+        long sequentialNanos = callsPerTick * stub.latencyNanos;
+
+        Assertions.assertTrue(parallelNanos < sequentialNanos / 2,
+                "parallel fetch took " + parallelNanos + "ns, sequential would take " + sequentialNanos + "ns");
+        Assertions.assertEquals(IElevator.ELEVATOR_DOORS_OPEN, state.getElevators().get(0).getDoorStatus());
+    }
+
+    @Override
+    public void applicationStateChanged(ApplicationState applicationState) {
+        lastState = new ApplicationState(applicationState);
+    }
+}
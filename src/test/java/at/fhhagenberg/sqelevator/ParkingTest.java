@@ -0,0 +1,126 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.ParkingPlanner;
+import at.fhhagenberg.sqelevator.model.TrafficModel;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.simulation.SimulationStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+public class ParkingTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    public void testTrafficModelLearnsPerSlot() {
+
+        TrafficModel model = new TrafficModel(10, HOUR, 0.5f);
+        Assertions.assertEquals(24, model.getNumberOfSlots());
+
+        // Day one: four up calls at the lobby between 8 and 9
+        for (int i = 0; i < 4; i++) {
+            model.record(8 * HOUR + i * 1000, 0, IElevator.ELEVATOR_DIRECTION_UP);
+        }
+        model.record(8 * HOUR + 5000, 7, IElevator.ELEVATOR_DIRECTION_DOWN);
+        Assertions.assertEquals(4, model.expectedCalls(8 * HOUR + 6000, 0));
+
+        model.advanceTo(9 * HOUR);
+        Assertions.assertEquals(4, model.getRate(8, 0, IElevator.ELEVATOR_DIRECTION_UP));
+        Assertions.assertEquals(1, model.getRate(8, 7, IElevator.ELEVATOR_DIRECTION_DOWN));
+        Assertions.assertEquals(0, model.getRate(8, 7, IElevator.ELEVATOR_DIRECTION_UP));
+        // An hour before the peak, the next slot is taken into account
+        Assertions.assertEquals(4, model.expectedCalls(31 * HOUR, 0));
+
+        // Day two: no calls in that slot, the rate drops by the smoothing
+        model.advanceTo(32 * HOUR + 1);
+        model.advanceTo(33 * HOUR);
+        Assertions.assertEquals(2, model.getRate(8, 0, IElevator.ELEVATOR_DIRECTION_UP));
+    }
+
+    private static ApplicationState createState(int elevators, int floors) {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(floors);
+        state.setNumberOfElevators(elevators);
+        for (int i = 0; i < elevators; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+            elevator.setCommittedDirection(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+            for (int floor = 0; floor < floors; floor++) {
+                elevator.setServicingFloor(floor, true);
+            }
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    @Test
+    public void testIdleCarsAreParkedAtBusiestFloors() {
+
+        long[] now = {8 * HOUR};
+        ApplicationState state = createState(3, 20);
+        state.getElevators().get(0).setCurrentFloor(12);
+        state.getElevators().get(1).setCurrentFloor(9);
+        state.getElevators().get(2).setCurrentFloor(19);
+        state.getElevators().get(2).setFloorButtonActive(4, true);
+
+        ParkingPlanner planner = new ParkingPlanner(() -> now[0], 1000);
+        for (int i = 0; i < 5; i++) {
+            state.setButtonUpPressed(0, i % 2 == 0);
+            state.setButtonDownPressed(15, i % 2 == 0);
+            planner.update(state, null);
+            now[0] += 1000;
+        }
+        state.setButtonUpPressed(0, false);
+        state.setButtonDownPressed(15, false);
+        planner.update(state, null);
+
+        // Three calls on each floor, the nearest idle car goes to each of them, the busy car is left alone
+        Assertions.assertEquals(15, planner.getParkingFloor(0));
+        Assertions.assertEquals(0, planner.getParkingFloor(1));
+        Assertions.assertEquals(-1, planner.getParkingFloor(2));
+    }
+
+    /**
+     * Runs a morning up-peak with and without parking. The cars are parked at the lobby, where most passengers arrive.
+     */
+    @Test
+    public void testParkingReducesWaitDuringUpPeak() {
+
+        ManualClock clock = new ManualClock();
+        ParkingPlanner planner = new ParkingPlanner(() -> 8 * HOUR + clock.currentTimeMillis(), 1500);
+        SimulationStatistics parked = run(clock, planner);
+        SimulationStatistics unparked = run(new ManualClock(), null);
+
+        Assertions.assertEquals(unparked.getDeliveredPassengers(), parked.getDeliveredPassengers());
+        Assertions.assertTrue(parked.getAverageWaitMillis() < unparked.getAverageWaitMillis(),
+                "wait " + parked.getAverageWaitMillis() + "ms vs. " + unparked.getAverageWaitMillis() + "ms");
+        Assertions.assertTrue(planner.getParkingMoves() > 0);
+        Assertions.assertTrue(planner.getCallsServedFromParking() > 0);
+        Assertions.assertTrue(planner.getAverageSavedWaitMillis() > 0);
+    }
+
+    private static SimulationStatistics run(ManualClock clock, ParkingPlanner parking) {
+        SimulationConfig config = new SimulationConfig(3, 15);
+        config.setArrivalsPerMinute(3);
+        config.setLobbyArrivalShare(0.8);
+        config.setLobbyDestinationShare(0.1);
+        config.setSeed(5);
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = new ApplicationModel(simulator);
+        model.setParking(parking);
+        model.initApplication();
+        // One simulated hour, polled every 100ms
+        for (int i = 0; i < 60 * 60 * 10; i++) {
+            clock.advance(100);
+            model.update();
+        }
+        return simulator.getStatistics();
+    }
+}
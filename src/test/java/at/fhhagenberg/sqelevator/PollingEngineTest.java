@@ -0,0 +1,83 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.controller.PollingEngine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollingEngineTest {
+
+    @Test
+    public void testTicksOnOwnThread() throws InterruptedException {
+
+        AtomicInteger ticks = new AtomicInteger();
+        Thread testThread = Thread.currentThread();
+        Thread[] pollingThread = new Thread[1];
+
+        PollingEngine engine = new PollingEngine(() -> {
+            ticks.incrementAndGet();
+            pollingThread[0] = Thread.currentThread();
+        }, 5, PollingEngine.SchedulingPolicy.FIXED_RATE, "test-polling");
+
+        engine.start();
+        Assertions.assertTrue(engine.isRunning());
+        Thread.sleep(100);
+        engine.stop();
+        Assertions.assertFalse(engine.isRunning());
+
+        Assertions.assertTrue(ticks.get() > 1);
+        Assertions.assertNotEquals(testThread, pollingThread[0]);
+        Assertions.assertEquals("test-polling", pollingThread[0].getName());
+        Assertions.assertEquals(0, engine.getOverrunCount());
+
+        int ticksAfterStop = ticks.get();
+        Thread.sleep(30);
+        Assertions.assertEquals(ticksAfterStop, ticks.get());
+    }
+
+    @Test
+    public void testOverrunsAreCountedAndDoNotPileUp() throws InterruptedException {
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        PollingEngine engine = new PollingEngine(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(15);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, 5, PollingEngine.SchedulingPolicy.FIXED_RATE, "test-polling");
+
+        engine.start();
+        Thread.sleep(120);
+        engine.stop();
+
+        Assertions.assertEquals(1, maxRunning.get());
+        Assertions.assertTrue(engine.getOverrunCount() > 0);
+        Assertions.assertEquals(engine.getTickCount(), engine.getOverrunCount());
+        // Missed slots are skipped, so there is no catch-up burst of ticks
+        Assertions.assertTrue(engine.getTickCount() <= 120 / 15 + 1);
+    }
+
+    @Test
+    public void testErrorsDoNotStopPolling() throws InterruptedException {
+
+        AtomicInteger ticks = new AtomicInteger();
+
+        PollingEngine engine = new PollingEngine(() -> {
+            ticks.incrementAndGet();
+            throw new IllegalStateException("tick failed");
+        }, 5, PollingEngine.SchedulingPolicy.FIXED_DELAY, "test-polling");
+
+        engine.start();
+        Thread.sleep(60);
+        engine.stop();
+
+        Assertions.assertTrue(ticks.get() > 1);
+        Assertions.assertEquals(ticks.get(), engine.getErrorCount());
+    }
+}
@@ -0,0 +1,154 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.monitoring.CallStatistics;
+import at.fhhagenberg.sqelevator.monitoring.LatencyHistogram;
+import at.fhhagenberg.sqelevator.monitoring.RemoteCallMonitor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.BulkElevatorAdapter;
+import sqelevator.IElevator;
+import sqelevator.IElevatorBulk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+
+public class RemoteCallMonitorTest {
+
+    @Test
+    public void testCallsAreCountedPerMethodAndElevator() {
+
+        ElevatorStub stub = new ElevatorStub(3, 10);
+        RemoteCallMonitor monitor = new RemoteCallMonitor("test");
+        ApplicationModel model = new ApplicationModel(stub);
+        model.setCallMonitor(monitor);
+        model.initApplication();
+
+        for (int i = 0; i < 9; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+
+        // One fetch per update, initApplication() updates once, the clock is read before and after every fetch
+        Assertions.assertEquals(10 * 10, monitor.getMethod("getFloorButtonUp").getCalls());
+        Assertions.assertEquals(10 * 3, monitor.getMethod("getElevatorWeight").getCalls());
+        Assertions.assertEquals(10 * 2, monitor.getMethod("getClockTick").getCalls());
+        Assertions.assertEquals(3, monitor.getMethod("getElevatorCapacity").getCalls());
+        Assertions.assertEquals(monitor.getTotal().getCalls(), stub.calls.get());
+        Assertions.assertTrue(monitor.getElevator(2).getCalls() > 10 * (7 + 10));
+        Assertions.assertEquals(0, monitor.getTotal().getErrors());
+    }
+
+    @Test
+    public void testErrorsAreCounted() {
+
+        ElevatorStub stub = new ElevatorStub(2, 4) {
+            @Override
+            public int getTarget(int elevatorNumber) {
+                if (elevatorNumber == 1) {
+                    throw new IllegalStateException("connection lost");
+                }
+                return super.getTarget(elevatorNumber);
+            }
+        };
+        RemoteCallMonitor monitor = new RemoteCallMonitor("test");
+        IElevator elevator = monitor.wrap(stub);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> elevator.getTarget(1));
+        Assertions.assertDoesNotThrow(() -> elevator.getTarget(0));
+
+        Assertions.assertEquals(2, monitor.getMethod("getTarget").getCalls());
+        Assertions.assertEquals(1, monitor.getMethod("getTarget").getErrors());
+        Assertions.assertEquals(1, monitor.getElevator(1).getErrors());
+        Assertions.assertEquals(0, monitor.getElevator(0).getErrors());
+    }
+
+    @Test
+    public void testBulkInterfaceIsKept() throws RemoteException {
+
+        RemoteCallMonitor monitor = new RemoteCallMonitor("test");
+        IElevator plain = monitor.wrap(new ElevatorStub(1, 2));
+        IElevator bulk = monitor.wrap(new BulkElevatorAdapter(new ElevatorStub(1, 2)));
+
+        Assertions.assertFalse(plain instanceof IElevatorBulk);
+        Assertions.assertTrue(bulk instanceof IElevatorBulk);
+        ((IElevatorBulk) bulk).getBuildingSnapshot();
+        Assertions.assertEquals(1, monitor.getMethod("getBuildingSnapshot").getCalls());
+    }
+
+    @Test
+    public void testPercentiles() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getPercentileNanos(50));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        // Accurate to a quarter of the value
+        assertNear(500_000, histogram.getPercentileNanos(50));
+        assertNear(900_000, histogram.getPercentileNanos(90));
+        assertNear(990_000, histogram.getPercentileNanos(99));
+        Assertions.assertEquals(1_000_000, histogram.getPercentileNanos(100));
+        Assertions.assertEquals(1_000_000, histogram.getMaxNanos());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assertions.assertTrue(actual >= expected && actual <= expected * 1.25,
+                "expected about " + expected + " but was " + actual);
+    }
+
+    @Test
+    public void testStatisticsArePublishedViaJmx() throws JMException {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        RemoteCallMonitor monitor = new RemoteCallMonitor("jmx-test");
+        monitor.registerMBeans(server);
+
+        IElevator elevator = monitor.wrap(new ElevatorStub(2, 4));
+        Assertions.assertDoesNotThrow(() -> elevator.getElevatorSpeed(1));
+
+        ObjectName method = new ObjectName(RemoteCallMonitor.DOMAIN
+                + ":type=RemoteCalls,monitor=\"jmx-test\",method=getElevatorSpeed");
+        ObjectName perElevator = new ObjectName(RemoteCallMonitor.DOMAIN
+                + ":type=RemoteCalls,monitor=\"jmx-test\",elevator=1");
+
+        Assertions.assertEquals(1L, server.getAttribute(method, "Calls"));
+        Assertions.assertEquals(1L, server.getAttribute(perElevator, "Calls"));
+        Assertions.assertTrue((Double) server.getAttribute(method, "P99Micros") >= 0);
+
+        monitor.unregisterMBeans();
+        Assertions.assertFalse(server.isRegistered(method));
+        Assertions.assertFalse(server.isRegistered(perElevator));
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() throws RemoteException {
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        org.junit.jupiter.api.Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+        RemoteCallMonitor monitor = new RemoteCallMonitor("test");
+        IElevator elevator = monitor.wrap(new ElevatorStub(4, 10));
+        CallStatistics statistics = monitor.getMethod("getElevatorButton");
+
+        for (int i = 0; i < 100_000; i++) {
+            elevator.getElevatorButton(i % 4, i % 10);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            elevator.getElevatorButton(i % 4, i % 10);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertEquals(200_000, statistics.getCalls());
+        Assertions.assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,106 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.journal.JournalFormat;
+import at.fhhagenberg.sqelevator.journal.StateJournal;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.replay.DecisionDiff;
+import at.fhhagenberg.sqelevator.replay.JournalReplay;
+import at.fhhagenberg.sqelevator.replay.ReplayElevator;
+import at.fhhagenberg.sqelevator.replay.ReplayReport;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class ReplayTest {
+
+    /**
+     * Records a simulated run of the default control, polled every 100ms.
+     */
+    private static void record(Path directory, int updates) throws IOException {
+        SimulationConfig config = new SimulationConfig(3, 12);
+        config.setArrivalsPerMinute(8);
+        config.setSeed(5);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = new ApplicationModel(simulator);
+        try (StateJournal journal = new StateJournal(directory, 1 << 22, 8, clock::currentTimeMillis)) {
+            model.setJournal(journal);
+            model.initApplication();
+            for (int i = 0; i < updates; i++) {
+                clock.advance(100);
+                model.update();
+                if (i == updates / 2) {
+                    // The operator takes over one car for a while
+                    model.setElevatorAutomaticMode(2, false);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReplayElevatorServesRecordedStateAndCollectsCommands() {
+
+        ReplayElevator elevator = new ReplayElevator(2, 5, 3);
+        elevator.setField(1, JournalFormat.FIELD_FLOOR, 4);
+        elevator.setField(1, JournalFormat.FIELD_WEIGHT, 230);
+        elevator.setFloorButton(2, false, true);
+        elevator.setClockTick(17);
+        elevator.setTarget(1, 0);
+
+        Assertions.assertEquals(4, elevator.getElevatorFloor(1));
+        Assertions.assertEquals(230, elevator.getElevatorWeight(1));
+        Assertions.assertTrue(elevator.getFloorButtonDown(2));
+        Assertions.assertFalse(elevator.getFloorButtonUp(2));
+        Assertions.assertEquals(17, elevator.getClockTick());
+        // Commands do not change the recording
+        Assertions.assertEquals(0, elevator.getTarget(1));
+
+        elevator.reset();
+        Assertions.assertEquals(0, elevator.getElevatorFloor(1));
+        Assertions.assertFalse(elevator.getFloorButtonDown(2));
+    }
+
+    @Test
+    public void testReplayOfTheSameControlAgrees(@TempDir Path directory) throws IOException {
+
+        record(directory, 6000);
+
+        ReplayReport report = new JournalReplay().run(directory, ApplicationModel::new);
+
+        // Every update of the recorded run is replayed, the first one sets up the model
+        Assertions.assertEquals(6001, report.getTicks(), report.toString());
+        Assertions.assertTrue(report.getComparedDecisions() > 100, report.toString());
+        Assertions.assertEquals(0, report.getDifferingDecisions(), report + ", first " + report.getDifferences());
+        // Ten simulated minutes replay in a fraction of the time
+        Assertions.assertEquals(600_000, report.getRecordedMillis(), 1000);
+        Assertions.assertTrue(report.getSpeedup() > 20, report.toString());
+    }
+
+    @Test
+    public void testReplayReportsDifferentDecisions(@TempDir Path directory) throws IOException {
+
+        record(directory, 6000);
+
+        ReplayReport report = new JournalReplay(10).run(directory, elevator -> {
+            ApplicationModel model = new ApplicationModel(elevator);
+            // Every car serves all hall calls instead of the assigned ones
+            model.setDispatcher(null);
+            return model;
+        });
+
+        Assertions.assertTrue(report.getDifferingDecisions() > 10, report.toString());
+        Assertions.assertEquals(10, report.getDifferences().size());
+        for (DecisionDiff difference : report.getDifferences()) {
+            Assertions.assertNotEquals(difference.getOriginal(), difference.getReplayed());
+            Assertions.assertTrue(difference.getCommand() == JournalFormat.COMMAND_TARGET
+                    || difference.getCommand() == JournalFormat.COMMAND_DIRECTION);
+        }
+    }
+}
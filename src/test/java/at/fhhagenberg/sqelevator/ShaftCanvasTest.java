@@ -0,0 +1,120 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.view.ShaftCanvas;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+public class ShaftCanvasTest {
+
+    private static final int WIDTH = 1296;
+    private static final int HEIGHT = 800;
+
+    private static ElevatorStub createBusyBuilding(int cars, int floors) {
+        ElevatorStub stub = new ElevatorStub(cars, floors);
+        for (int i = 0; i < cars; i++) {
+            stub.floor[i] = (i * 7) % floors;
+            stub.position[i] = stub.floor[i] * stub.floorHeight;
+            stub.target[i] = (i * 13) % floors;
+            stub.committedDirection[i] = i % 3;
+            stub.doorStatus[i] = IElevator.ELEVATOR_DOORS_CLOSED;
+            stub.capacity[i] = 10;
+            stub.weight[i] = i * 20;
+            for (int floor = i % 5; floor < floors; floor += 5) {
+                stub.elevatorButtons[i][floor] = true;
+            }
+        }
+        for (int floor = 0; floor < floors; floor += 2) {
+            stub.buttonUp[floor] = true;
+            stub.buttonDown[floor + 1] = true;
+        }
+        return stub;
+    }
+
+    @Test
+    public void testCarsAreDrawnAtTheirHeight() {
+
+        ElevatorStub stub = createBusyBuilding(2, 10);
+        stub.position[1] = 9 * stub.floorHeight;
+        stub.doorStatus[1] = IElevator.ELEVATOR_DOORS_OPEN;
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        model.update();
+
+        ShaftCanvas canvas = new ShaftCanvas();
+        canvas.setState(model.getSnapshot());
+        BufferedImage image = new BufferedImage(216, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        canvas.paintShafts(g, image.getWidth(), image.getHeight());
+        g.dispose();
+
+        // Second shaft starts at the hall gutter plus one shaft width, the car is on the top floor with open doors
+        int x = 16 + 100 + 20;
+        Assertions.assertEquals(0x5AAAFF, image.getRGB(x, 5) & 0xFFFFFF);
+        Assertions.assertNotEquals(0x5AAAFF, image.getRGB(x, 95) & 0xFFFFFF);
+    }
+
+    @Test
+    public void testOnlyChangedBuildingsAreRepainted() {
+
+        ElevatorStub stub = createBusyBuilding(4, 20);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        stub.clockTick++;
+        model.update();
+        ApplicationState first = model.getSnapshot();
+
+        // A new tick without changes is a new snapshot of the same building
+        stub.clockTick++;
+        model.update();
+        ApplicationState unchanged = model.getSnapshot();
+        Assertions.assertNotSame(first, unchanged);
+        Assertions.assertTrue(unchanged.sharesBuildingState(first));
+
+        stub.clockTick++;
+        stub.buttonUp[3] = true;
+        model.update();
+        Assertions.assertFalse(model.getSnapshot().sharesBuildingState(unchanged));
+
+        stub.clockTick++;
+        stub.position[2] += 1;
+        model.update();
+        Assertions.assertFalse(model.getSnapshot().sharesBuildingState(unchanged));
+        Assertions.assertFalse(model.getSnapshot().sharesBuildingState(null));
+    }
+
+    @Test
+    public void testLargeBuildingPaintsWithinAFrameAt60Fps() {
+
+        ElevatorStub stub = createBusyBuilding(32, 100);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        model.update();
+        ApplicationState state = model.getSnapshot();
+
+        ShaftCanvas canvas = new ShaftCanvas();
+        canvas.setState(state);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            // Warm up
+            for (int i = 0; i < 100; i++) {
+                canvas.paintShafts(g, WIDTH, HEIGHT);
+            }
+            int frames = 300;
+            long start = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                canvas.paintShafts(g, WIDTH, HEIGHT);
+            }
+            long averageMicros = (System.nanoTime() - start) / frames / 1000;
+            Assertions.assertTrue(averageMicros < 16_000 / 2, "Average frame took " + averageMicros + "us");
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SnapshotTest {
+
+    @Test
+    public void testSnapshotIsImmutable() {
+
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(5);
+        state.setButtonUpPressed(3, true);
+        state.getElevators().add(new Elevator());
+
+        ApplicationState snapshot = state.snapshot();
+
+        Assertions.assertTrue(snapshot.isFrozen());
+        Assertions.assertSame(snapshot, snapshot.snapshot());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.setNumberOfFloors(6));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.setButtonUpPressed(1, true));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.getElevators().add(new Elevator()));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.getElevators().get(0).setCurrentFloor(2));
+
+        // Later changes of the state do not show up in the snapshot
+        state.setButtonUpPressed(3, false);
+        state.getElevators().get(0).setCurrentFloor(4);
+        Assertions.assertEquals(List.of(3), snapshot.getButtonUpPressed());
+        Assertions.assertEquals(0, snapshot.getElevators().get(0).getCurrentFloor());
+
+        // A copy of a snapshot is mutable again
+        ApplicationState copy = new ApplicationState(snapshot);
+        Assertions.assertFalse(copy.isFrozen());
+        copy.getElevators().get(0).setCurrentFloor(1);
+    }
+
+    @Test
+    public void testModelSharesUnchangedElevators() {
+
+        ElevatorStub stub = new ElevatorStub(3, 10);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        // Let the automatic operation settle, it commits a direction and sets the targets in the first ticks
+        for (int i = 0; i < 3; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+
+        ApplicationState first = model.getSnapshot();
+
+        stub.clockTick++;
+        stub.floor[1] = 4;
+        model.update();
+
+        ApplicationState second = model.getSnapshot();
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(first.getClockTick() + 1, second.getClockTick());
+        Assertions.assertSame(first.getElevators().get(0), second.getElevators().get(0));
+        Assertions.assertNotSame(first.getElevators().get(1), second.getElevators().get(1));
+        Assertions.assertEquals(0, first.getElevators().get(1).getCurrentFloor());
+        Assertions.assertEquals(4, second.getElevators().get(1).getCurrentFloor());
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshots() throws InterruptedException {
+
+        ElevatorStub stub = new ElevatorStub(4, 10);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+        for (int i = 0; i < 4; i++) {
+            model.setElevatorAutomaticMode(i, false);
+        }
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                ApplicationState snapshot = model.getSnapshot();
+                // The writer moves all cars to the same floor in every tick
+                for (Elevator elevator : snapshot.getElevators()) {
+                    if (elevator.getCurrentFloor() != snapshot.getElevators().get(0).getCurrentFloor()) {
+                        failure.set("torn snapshot at tick " + snapshot.getClockTick());
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int tick = 0; tick < 20_000; tick++) {
+            stub.clockTick++;
+            for (int i = 0; i < 4; i++) {
+                stub.floor[i] = tick % 10;
+            }
+            model.update();
+        }
+
+        reader.interrupt();
+        reader.join();
+        Assertions.assertNull(failure.get());
+        Assertions.assertEquals(9, model.getSnapshot().getElevators().get(3).getCurrentFloor());
+    }
+}
@@ -0,0 +1,142 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.interfaces.IEccDeltaObserver;
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.StateDelta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StateDeltaTest implements IEccDeltaObserver {
+
+    private final List<StateDelta> deltas = new ArrayList<>();
+
+    @Test
+    public void testFirstDeltaContainsEverything() {
+
+        ElevatorStub stub = new ElevatorStub(2, 6);
+        stub.buttonUp[2] = true;
+
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addDeltaObserver(this);
+        model.initApplication();
+
+        Assertions.assertEquals(1, deltas.size());
+        StateDelta delta = deltas.get(0);
+        Assertions.assertTrue(delta.isTopologyChanged());
+        Assertions.assertTrue(delta.isSelectedElevatorChanged());
+        Assertions.assertEquals(List.of(2), delta.getButtonUpPressed());
+        Assertions.assertEquals(2, delta.getElevatorDeltas().size());
+    }
+
+    @Test
+    public void testNoNotificationWithoutChanges() {
+
+        ElevatorStub stub = new ElevatorStub(2, 6);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addDeltaObserver(this);
+        model.initApplication();
+        deltas.clear();
+
+        // Manually operated elevators that stand still are left alone
+        model.setElevatorAutomaticMode(0, false);
+        model.setElevatorAutomaticMode(1, false);
+        for (int i = 0; i < 2; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+        deltas.clear();
+
+        // The tick advances, but nothing changes in the building
+        stub.clockTick++;
+        model.update();
+
+        Assertions.assertTrue(deltas.isEmpty());
+    }
+
+    @Test
+    public void testChangedFieldsAndButtons() {
+
+        ApplicationState before = createState();
+        ApplicationState after = new ApplicationState(before);
+
+        after.setButtonUpPressed(new ArrayList<>(List.of(1, 4)));
+        after.setButtonDownPressed(new ArrayList<>());
+        after.getElevators().get(1).setCurrentSpeed(5);
+        after.getElevators().get(1).setCurrentHeightOverGround(12);
+        after.getElevators().get(1).setActiveFloorButtons(new ArrayList<>(List.of(0)));
+        after.getElevators().get(0).setAutomatic(false);
+
+        StateDelta delta = StateDelta.between(before, after);
+
+        Assertions.assertFalse(delta.isEmpty());
+        Assertions.assertFalse(delta.isTopologyChanged());
+        Assertions.assertFalse(delta.isSelectedElevatorChanged());
+        Assertions.assertEquals(List.of(4), delta.getButtonUpPressed());
+        Assertions.assertTrue(delta.getButtonUpCleared().isEmpty());
+        Assertions.assertEquals(List.of(3), delta.getButtonDownCleared());
+        Assertions.assertTrue(delta.hasNewCalls());
+
+        Assertions.assertEquals(2, delta.getElevatorDeltas().size());
+
+        StateDelta.ElevatorDelta modeChange = delta.getElevatorDeltas().get(0);
+        Assertions.assertEquals(0, modeChange.getElevatorIndex());
+        Assertions.assertEquals(StateDelta.FIELD_AUTOMATIC, modeChange.getChangedFields());
+
+        StateDelta.ElevatorDelta moving = delta.getElevatorDeltas().get(1);
+        Assertions.assertEquals(1, moving.getElevatorIndex());
+        Assertions.assertTrue(moving.hasChanged(StateDelta.FIELD_SPEED));
+        Assertions.assertTrue(moving.hasChanged(StateDelta.FIELD_POSITION));
+        Assertions.assertTrue(moving.hasChanged(StateDelta.FIELD_FLOOR_BUTTONS));
+        Assertions.assertFalse(moving.hasChanged(StateDelta.FIELD_DOOR_STATUS));
+        Assertions.assertEquals(List.of(0), moving.getFloorButtonsPressed());
+        Assertions.assertEquals(List.of(5), moving.getFloorButtonsCleared());
+
+        Assertions.assertTrue(StateDelta.between(after, new ApplicationState(after)).isEmpty());
+    }
+
+    @Test
+    public void testModeChangeIsNotified() {
+
+        ElevatorStub stub = new ElevatorStub(2, 6);
+        ApplicationModel model = new ApplicationModel(stub);
+        model.addDeltaObserver(this);
+        model.initApplication();
+        deltas.clear();
+
+        model.setElevatorAutomaticMode(1, false);
+        model.setElevatorAutomaticMode(1, false);
+
+        Assertions.assertEquals(1, deltas.size());
+        Assertions.assertEquals(StateDelta.FIELD_AUTOMATIC, deltas.get(0).getElevatorDeltas().get(0).getChangedFields());
+
+        model.removeDeltaObserver(this);
+        model.setElevatorAutomaticMode(1, true);
+        Assertions.assertEquals(1, deltas.size());
+    }
+
+    private static ApplicationState createState() {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(6);
+        state.setNumberOfElevators(2);
+        state.setSelectedElevator(0);
+        state.setButtonUpPressed(new ArrayList<>(List.of(1)));
+        state.setButtonDownPressed(new ArrayList<>(List.of(3)));
+        for (int i = 0; i < 2; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setActiveFloorButtons(new ArrayList<>(List.of(5)));
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    @Override
+    public void applicationStateDelta(StateDelta delta, ApplicationState applicationState) {
+        deltas.add(delta);
+    }
+}
@@ -0,0 +1,105 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+
+/**
+ * Measures the heap allocated by the tick path in the steady state. Uses the allocation counter of the HotSpot thread
+ * MXBean, the test is skipped on runtimes without it.
+ */
+public class TickAllocationTest {
+
+    private static final int WARMUP_TICKS = 50_000;
+
+    private static final int MEASURED_TICKS = 20_000;
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+
+    private static ElevatorStub createBuilding() {
+        ElevatorStub stub = new ElevatorStub(8, 40);
+        for (int floor = 0; floor < 40; floor += 3) {
+            stub.buttonUp[floor] = true;
+            stub.buttonDown[39 - floor] = true;
+        }
+        for (int i = 0; i < 8; i++) {
+            stub.elevatorButtons[i][(i * 7) % 40] = true;
+            stub.elevatorButtons[i][39 - i] = true;
+        }
+        return stub;
+    }
+
+    @Test
+    public void testFetchDoesNotAllocate() throws RemoteException {
+
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        long threadId = Thread.currentThread().getId();
+
+        ElevatorStub stub = createBuilding();
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            fetch(model, stub, i);
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            fetch(model, stub, i);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // Allow for the few bytes the measurement itself may allocate
+        Assertions.assertTrue(allocated < 1024, "allocated " + allocated + " bytes in " + MEASURED_TICKS + " ticks");
+    }
+
+    @Test
+    public void testUpdateOnlyAllocatesSnapshotHeader() {
+
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        long threadId = Thread.currentThread().getId();
+
+        ElevatorStub stub = createBuilding();
+        ApplicationModel model = new ApplicationModel(stub);
+        model.initApplication();
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            stub.clockTick++;
+            model.update();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        // Every tick publishes a new snapshot, which shares the unchanged buttons and elevators with its predecessor,
+        // so only a few small objects remain per tick
+        Assertions.assertTrue(allocated < 128L * MEASURED_TICKS,
+                "allocated " + allocated + " bytes in " + MEASURED_TICKS + " ticks");
+    }
+
+    private static void fetch(ApplicationModel model, ElevatorStub stub, int tick) throws RemoteException {
+        // Toggle some buttons, so the bit sets really change
+        stub.buttonUp[tick % 40] = !stub.buttonUp[tick % 40];
+        stub.elevatorButtons[tick % 8][tick % 40] = !stub.elevatorButtons[tick % 8][tick % 40];
+
+        model.updateUpDownRequestLists(40);
+        for (int i = 0; i < 8; i++) {
+            model.updateElevatorData(i, 40);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package at.fhhagenberg.sqelevator;
+
+import at.fhhagenberg.sqelevator.model.ApplicationModel;
+import at.fhhagenberg.sqelevator.model.ApplicationState;
+import at.fhhagenberg.sqelevator.model.Elevator;
+import at.fhhagenberg.sqelevator.model.GroupDispatcher;
+import at.fhhagenberg.sqelevator.model.ZoningPlanner;
+import at.fhhagenberg.sqelevator.simulation.ElevatorSimulator;
+import at.fhhagenberg.sqelevator.simulation.ManualClock;
+import at.fhhagenberg.sqelevator.simulation.SimulationConfig;
+import at.fhhagenberg.sqelevator.simulation.SimulationStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sqelevator.IElevator;
+
+import java.util.BitSet;
+
+public class ZoningTest {
+
+    private static ApplicationState createState(int elevators, int floors) {
+        ApplicationState state = new ApplicationState();
+        state.setNumberOfFloors(floors);
+        state.setNumberOfElevators(elevators);
+        for (int i = 0; i < elevators; i++) {
+            Elevator elevator = new Elevator();
+            elevator.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+            for (int floor = 0; floor < floors; floor++) {
+                elevator.setServicingFloor(floor, true);
+            }
+            state.getElevators().add(elevator);
+        }
+        return state;
+    }
+
+    private static BitSet range(int from, int to) {
+        BitSet floors = new BitSet();
+        floors.set(0);
+        floors.set(from, to);
+        return floors;
+    }
+
+    @Test
+    public void testSmallBuildingIsNotZoned() {
+
+        ApplicationState state = createState(4, 10);
+        ZoningPlanner planner = new ZoningPlanner(16, 8, 100);
+
+        Assertions.assertTrue(planner.update(state));
+        Assertions.assertEquals(1, planner.getZoneCount());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(10, planner.getZoneFloors(i).cardinality());
+        }
+    }
+
+    @Test
+    public void testZonesCoverAllFloorsAndTheGroundFloor() {
+
+        ApplicationState state = createState(4, 33);
+        state.getElevators().get(3).setAutomatic(false);
+        ZoningPlanner planner = new ZoningPlanner(16, 8, 100);
+        planner.update(state);
+
+        // Without measured demand, the floors are split evenly between the three cars in automatic mode
+        Assertions.assertEquals(3, planner.getZoneCount());
+        Assertions.assertEquals(range(1, 12), planner.getZoneFloors(0));
+        Assertions.assertEquals(range(12, 23), planner.getZoneFloors(1));
+        Assertions.assertEquals(range(23, 33), planner.getZoneFloors(2));
+        Assertions.assertEquals(33, planner.getZoneFloors(3).cardinality());
+    }
+
+    @Test
+    public void testZonesFollowDemand() {
+
+        ApplicationState state = createState(2, 21);
+        ZoningPlanner planner = new ZoningPlanner(16, 8, 10);
+        planner.update(state);
+        Assertions.assertEquals(11, planner.getZoneStart(1));
+
+        // Busy upper floors shrink the upper zone
+        for (int i = 0; i < 10; i++) {
+            state.setClockTick(i + 1);
+            state.setButtonDownPressed(18 + i % 3, i % 2 == 0);
+            state.getElevators().get(0).setFloorButtonActive(17, i % 2 == 0);
+            planner.update(state);
+        }
+        Assertions.assertEquals(2, planner.getRezoneCount());
+        Assertions.assertTrue(planner.getZoneStart(1) > 11);
+        Assertions.assertTrue(planner.getDemand()[17] > 0);
+    }
+
+    @Test
+    public void testIntervalFollowsTheClockNotThePolling() {
+
+        ApplicationState state = createState(2, 21);
+        ZoningPlanner planner = new ZoningPlanner(16, 8, 10);
+        planner.update(state);
+
+        // Polled faster than the clock advances
+        for (int i = 0; i < 100; i++) {
+            state.setClockTick(i / 20);
+            planner.update(state);
+        }
+        Assertions.assertEquals(1, planner.getRezoneCount());
+
+        state.setClockTick(10);
+        Assertions.assertTrue(planner.update(state));
+        state.setClockTick(19);
+        Assertions.assertFalse(planner.update(state));
+
+        // The simulation has been restarted
+        state.setClockTick(0);
+        Assertions.assertTrue(planner.update(state));
+        Assertions.assertEquals(3, planner.getRezoneCount());
+    }
+
+    @Test
+    public void testDispatcherRespectsZones() {
+
+        ApplicationState state = createState(2, 20);
+        ZoningPlanner planner = new ZoningPlanner(16, 8, 100);
+        planner.update(state);
+        for (int i = 0; i < 2; i++) {
+            Elevator elevator = state.getElevators().get(i);
+            for (int floor = 0; floor < 20; floor++) {
+                elevator.setServicingFloor(floor, planner.getZoneFloors(i).get(floor));
+            }
+        }
+        // The upper car waits right next to the call, but does not serve its floor
+        state.getElevators().get(1).setCurrentFloor(11);
+        state.getElevators().get(1).setCurrentTarget(11);
+        state.setButtonUpPressed(9, true);
+        state.setButtonUpPressed(0, true);
+
+        GroupDispatcher dispatcher = new GroupDispatcher();
+        dispatcher.assign(state);
+
+        Assertions.assertEquals(0, dispatcher.getAssignedUp(9));
+        // The lobby is answered by both zones
+        Assertions.assertEquals(0, dispatcher.getAssignedUp(0));
+    }
+
+    @Test
+    public void testModelAppliesZonesWithoutStrandingPassengers() {
+
+        ElevatorStub stub = new ElevatorStub(2, 20);
+        stub.elevatorButtons[0][15] = true;
+        ApplicationModel model = new ApplicationModel(stub);
+        model.setZoning(new ZoningPlanner(16, 8, 100));
+        model.initApplication();
+
+        Assertions.assertTrue(stub.servicesFloors[0][0]);
+        Assertions.assertTrue(stub.servicesFloors[0][9]);
+        Assertions.assertFalse(stub.servicesFloors[0][12]);
+        // The passenger inside the lower car still gets to floor 15
+        Assertions.assertTrue(stub.servicesFloors[0][15]);
+        Assertions.assertTrue(stub.servicesFloors[1][0]);
+        Assertions.assertFalse(stub.servicesFloors[1][9]);
+        Assertions.assertTrue(stub.servicesFloors[1][15]);
+
+        // Once the car has arrived, it returns to its zone and the floor is dropped
+        stub.elevatorButtons[0][15] = false;
+        stub.floor[0] = 15;
+        stub.clockTick++;
+        model.update();
+        Assertions.assertEquals(10, stub.target[0]);
+        stub.clockTick++;
+        model.update();
+        Assertions.assertFalse(stub.servicesFloors[0][15]);
+        Assertions.assertFalse(model.getSnapshot().getElevators().get(0).isServicingFloor(15));
+    }
+
+    @Test
+    public void testZoningKeepsFloorsTheBuildingDoesNotServe() {
+
+        int[] writes = new int[1];
+        ElevatorStub small = new ElevatorStub(2, 10) {
+            @Override
+            public void setServicesFloors(int elevatorNumber, int floor, boolean service) {
+                writes[0]++;
+                super.setServicesFloors(elevatorNumber, floor, service);
+            }
+        };
+        small.servicesFloors[1][4] = false;
+        ApplicationModel model = new ApplicationModel(small);
+        model.setZoning(new ZoningPlanner(16, 8, 100));
+        model.initApplication();
+        small.clockTick++;
+        model.update();
+
+        // Too few floors to zone, the serviced floors of the building are left alone
+        Assertions.assertFalse(small.servicesFloors[1][4]);
+        Assertions.assertEquals(0, writes[0]);
+
+        // In a zoned building, a floor within the zone of a car that the car does not serve stays out of service
+        ElevatorStub tall = new ElevatorStub(2, 20);
+        tall.servicesFloors[0][5] = false;
+        model = new ApplicationModel(tall);
+        model.setZoning(new ZoningPlanner(16, 8, 100));
+        model.initApplication();
+        Assertions.assertFalse(tall.servicesFloors[0][5]);
+        Assertions.assertFalse(tall.servicesFloors[0][15]);
+
+        // Without zones, e.g. with a car in manual mode, only the floors dropped by the zoning come back
+        model.setElevatorAutomaticMode(1, false);
+        tall.clockTick += 100;
+        model.update();
+        Assertions.assertTrue(tall.servicesFloors[0][15]);
+        Assertions.assertFalse(tall.servicesFloors[0][5]);
+    }
+
+    /**
+     * Compares the handling capacity of a zoned and an unzoned building during a heavy up-peak.
+     */
+    @Test
+    public void testRaisesHandlingCapacityDuringUpPeak() {
+
+        SimulationStatistics zoned = run(new ZoningPlanner());
+        SimulationStatistics unzoned = run(null);
+
+        Assertions.assertTrue(zoned.getDeliveredPassengers() > unzoned.getDeliveredPassengers(),
+                "delivered " + zoned.getDeliveredPassengers() + " vs. " + unzoned.getDeliveredPassengers());
+    }
+
+    private static SimulationStatistics run(ZoningPlanner zoning) {
+        SimulationConfig config = new SimulationConfig(6, 30);
+        config.setArrivalsPerMinute(40);
+        config.setLobbyArrivalShare(1.0);
+        config.setLobbyDestinationShare(0.0);
+        config.setSeed(3);
+        ManualClock clock = new ManualClock();
+        ElevatorSimulator simulator = new ElevatorSimulator(config, clock);
+
+        ApplicationModel model = new ApplicationModel(simulator);
+        model.setZoning(zoning);
+        model.initApplication();
+        // Half an hour of up-peak, polled every 100ms
+        for (int i = 0; i < 30 * 60 * 10; i++) {
+            clock.advance(100);
+            model.update();
+        }
+        return simulator.getStatistics();
+    }
+}